@@ -0,0 +1,171 @@
+package tech.harmonysoft.oss.jenome.cache;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import tech.harmonysoft.oss.jenome.jfr.JenomeEvent;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>{@link JenomeCache} which holds not more than the given number of entries.</p>
+ * <p>
+ *      Uses TinyLFU admission: access frequencies of all keys (including the ones which are not cached) are
+ *      tracked by a compact {@link FrequencySketch frequency sketch}. When the cache is full, a victim is chosen
+ *      by the {@code CLOCK} algorithm (an approximation of {@code LRU}) and a new entry replaces it only if
+ *      the new key is used more frequently. That way a burst of one-off lookups (e.g. a scan over all
+ *      application classes) doesn't flush the hot entries.
+ * </p>
+ * <p>
+ *      Lookups are lock-free, modifications are serialized. Is a good fit for the cases when memory
+ *      consumption must be strictly bounded, e.g. multi-tenant servers.
+ * </p>
+ * <p>Thread-safe.</p>
+ *
+ * @param <K>   key type
+ * @param <V>   value type
+ */
+public class BoundedJenomeCache<K, V> implements JenomeCache<K, V> {
+
+    @NotNull private final ConcurrentMap<K, Node<K, V>> data      = new ConcurrentHashMap<>();
+    @NotNull private final LongAdder                    hits      = new LongAdder();
+    @NotNull private final LongAdder                    misses    = new LongAdder();
+    @NotNull private final LongAdder                    evictions = new LongAdder();
+    @NotNull private final FrequencySketch              sketch;
+
+    /** Holds cached entries in insertion order, is guarded by 'this'. */
+    @NotNull private final Node<K, V>[] slots;
+    private                int          count;
+    private                int          hand;
+
+    @SuppressWarnings("unchecked")
+    public BoundedJenomeCache(int maximumSize) throws IllegalArgumentException {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Can't create a bounded cache. Reason: maximum size must be positive but got %d", maximumSize));
+        }
+        sketch = new FrequencySketch(maximumSize);
+        slots = (Node<K, V>[]) new Node<?, ?>[maximumSize];
+    }
+
+    /**
+     * @param maximumSize   maximum size of every created cache
+     * @return              factory which creates {@link BoundedJenomeCache} instances with the given size bound
+     * @throws IllegalArgumentException     if given size is not positive
+     */
+    @NotNull
+    public static JenomeCacheFactory factory(int maximumSize) throws IllegalArgumentException {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Can't create a bounded cache factory. Reason: maximum size must be positive but got %d",
+                    maximumSize));
+        }
+        return new JenomeCacheFactory() {
+            @NotNull
+            @Override
+            public <K, V> JenomeCache<K, V> newCache(@NotNull String name) {
+                return new BoundedJenomeCache<>(maximumSize);
+            }
+        };
+    }
+
+    @Nullable
+    @Override
+    public V get(@NotNull K key) {
+        sketch.increment(key);
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        if (!node.referenced) {
+            // Avoid unconditional writes, they would cause cache line contention for hot entries.
+            node.referenced = true;
+        }
+        return node.value;
+    }
+
+    @NotNull
+    @Override
+    public synchronized V putIfAbsent(@NotNull K key, @NotNull V value) {
+        Node<K, V> existing = data.get(key);
+        if (existing != null) {
+            return existing.value;
+        }
+
+        int slot;
+        if (count < slots.length) {
+            slot = count++;
+        } else {
+            slot = findVictim();
+            Node<K, V> victim = slots[slot];
+            if (sketch.frequency(key) <= sketch.frequency(victim.key)) {
+                // The new entry is not more valuable than the existing one, keep the cache as-is.
+                return value;
+            }
+            data.remove(victim.key);
+            evictions.increment();
+            JenomeEvent.cacheEviction(getClass().getSimpleName(), victim.key);
+        }
+        Node<K, V> node = new Node<>(key, value);
+        slots[slot] = node;
+        data.put(key, node);
+        return value;
+    }
+
+    @Override
+    public int size() {
+        return data.size();
+    }
+
+    @Override
+    public synchronized void clear() {
+        data.clear();
+        Arrays.fill(slots, null);
+        count = 0;
+        hand = 0;
+    }
+
+    @NotNull
+    @Override
+    public CacheStats getStats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    @Override
+    public int getMaximumSize() {
+        return slots.length;
+    }
+
+    /**
+     * Moves the clock hand until it points to an entry which was not accessed since the previous pass.
+     *
+     * @return      index of the slot which holds eviction candidate
+     */
+    private int findVictim() {
+        while (true) {
+            Node<K, V> node = slots[hand];
+            int result = hand;
+            hand = (hand + 1) % slots.length;
+            if (!node.referenced) {
+                return result;
+            }
+            node.referenced = false;
+        }
+    }
+
+    private static class Node<K, V> {
+
+        @NotNull final K     key;
+        @NotNull final V     value;
+        volatile boolean     referenced;
+
+        Node(@NotNull K key, @NotNull V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
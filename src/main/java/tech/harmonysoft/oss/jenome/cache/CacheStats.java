@@ -0,0 +1,84 @@
+package tech.harmonysoft.oss.jenome.cache;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * <p>Holds {@link JenomeCache} statistics snapshot.</p>
+ * <p>Immutable.</p>
+ */
+public class CacheStats {
+
+    /** Statistics of a cache which was never used. */
+    public static final CacheStats EMPTY = new CacheStats(0, 0, 0);
+
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+
+    public CacheStats(long hits, long misses, long evictions) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+
+    /**
+     * @return      number of {@link JenomeCache#get(Object) lookups} which found a value
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return      number of {@link JenomeCache#get(Object) lookups} which didn't find a value
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return      number of entries removed in order to keep cache size within bounds
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return      ratio of lookups which found a value; {@code 1.0} if there were no lookups
+     */
+    public double getHitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 1.0 : (double) hits / lookups;
+    }
+
+    /**
+     * @param other     statistics to add
+     * @return          statistics which is a sum of the current and given statistics
+     */
+    @NotNull
+    public CacheStats plus(@NotNull CacheStats other) {
+        return new CacheStats(hits + other.hits, misses + other.misses, evictions + other.evictions);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CacheStats)) {
+            return false;
+        }
+        CacheStats that = (CacheStats) o;
+        return hits == that.hits && misses == that.misses && evictions == that.evictions;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Long.hashCode(hits) + Long.hashCode(misses)) + Long.hashCode(evictions);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d, misses=%d, evictions=%d, hit ratio=%.3f",
+                             hits, misses, evictions, getHitRatio());
+    }
+}
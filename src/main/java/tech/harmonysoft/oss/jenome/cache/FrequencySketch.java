@@ -0,0 +1,105 @@
+package tech.harmonysoft.oss.jenome.cache;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * <p>
+ *      Count-Min sketch which estimates access frequency of the keys within a recent period of time
+ *      (TinyLFU approach). Every key is mapped to four 4-bit counters (at most {@code 15} is counted) and
+ *      estimated frequency is the minimum among them. All counters are halved when the number of recorded
+ *      accesses reaches a sample size, that way frequencies of the keys which are not accessed anymore decay.
+ * </p>
+ * <p>
+ *      Counters are packed into a {@code long[]} table, sixteen counters per element, every key's counters
+ *      are located at different elements.
+ * </p>
+ * <p>
+ *      Not synchronized intentionally: concurrent updates might be lost but that only makes estimations
+ *      slightly less precise.
+ * </p>
+ */
+class FrequencySketch {
+
+    private static final long[] SEEDS      = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+    private static final long   RESET_MASK = 0x7777777777777777L;
+    private static final int    MAX_COUNT  = 15;
+
+    @NotNull private final long[] table;
+    private final          int    mask;
+    private final          int    sampleSize;
+    private                int    additions;
+
+    /**
+     * @param maximumSize   maximum number of keys which frequencies are expected to be tracked
+     */
+    FrequencySketch(int maximumSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, Math.min(maximumSize, 1 << 30)) - 1) << 1;
+        table = new long[capacity];
+        mask = capacity - 1;
+        sampleSize = (int) Math.min(10L * Math.max(1, maximumSize), Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param key   target key
+     * @return      estimated number of recent accesses to the given key, {@code 15} at most
+     */
+    int frequency(@NotNull Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        int result = MAX_COUNT;
+        for (int i = 0; i < SEEDS.length; ++i) {
+            int shift = (start + i) << 2;
+            int count = (int) ((table[indexOf(hash, i)] >>> shift) & 0xfL);
+            result = Math.min(result, count);
+        }
+        return result;
+    }
+
+    /**
+     * Records an access to the given key.
+     *
+     * @param key   target key
+     */
+    void increment(@NotNull Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; ++i) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        int shift = counter << 2;
+        long counterMask = 0xfL << shift;
+        long value = table[index];
+        if ((value & counterMask) == counterMask) {
+            return false;
+        }
+        table[index] = value + (1L << shift);
+        return true;
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; ++i) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions >>>= 1;
+    }
+
+    private int indexOf(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return (int) h & mask;
+    }
+
+    private static int spread(int hashCode) {
+        int h = hashCode * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+}
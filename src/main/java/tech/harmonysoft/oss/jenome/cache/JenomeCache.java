@@ -0,0 +1,63 @@
+package tech.harmonysoft.oss.jenome.cache;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * <p>Defines a contract for the caches used by jenome internals.</p>
+ * <p>
+ *      Implementations are expected to be thread-safe. Built-in implementations are {@link UnboundedJenomeCache},
+ *      {@link BoundedJenomeCache} and {@link StripedJenomeCache}, a custom implementation can be plugged
+ *      via a {@link JenomeCacheFactory}.
+ * </p>
+ *
+ * @param <K>   key type
+ * @param <V>   value type
+ */
+public interface JenomeCache<K, V> {
+
+    /** {@link #getMaximumSize() Maximum size} of a cache which is not bounded. */
+    int UNBOUNDED = -1;
+
+    /**
+     * @param key   target key
+     * @return      value mapped to the given key if any; {@code null} otherwise
+     */
+    @Nullable
+    V get(@NotNull K key);
+
+    /**
+     * Maps given value to the given key unless there is an existing mapping for it. Implementation is free
+     * not to store the value, e.g. if it's bounded and decides that the new entry is less valuable than the
+     * existing ones.
+     *
+     * @param key       target key
+     * @param value     value to store
+     * @return          value mapped to the given key after this method call; given value if it's not stored
+     */
+    @NotNull
+    V putIfAbsent(@NotNull K key, @NotNull V value);
+
+    /**
+     * @return      current number of entries
+     */
+    int size();
+
+    /**
+     * @return      maximum number of entries held by the current cache; {@link #UNBOUNDED} if it's not bounded
+     */
+    default int getMaximumSize() {
+        return UNBOUNDED;
+    }
+
+    /**
+     * Drops all entries. Statistics is not affected.
+     */
+    void clear();
+
+    /**
+     * @return      current cache statistics
+     */
+    @NotNull
+    CacheStats getStats();
+}
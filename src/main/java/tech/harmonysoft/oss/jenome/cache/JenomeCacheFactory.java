@@ -0,0 +1,20 @@
+package tech.harmonysoft.oss.jenome.cache;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * <p>Creates {@link JenomeCache caches} for jenome components.</p>
+ * <p>Implementations are expected to be thread-safe.</p>
+ */
+public interface JenomeCacheFactory {
+
+    /**
+     * @param name      name of the cache to create, e.g. {@code 'resolver'}, it might be used to configure
+     *                  particular caches differently
+     * @param <K>       key type
+     * @param <V>       value type
+     * @return          new cache
+     */
+    @NotNull
+    <K, V> JenomeCache<K, V> newCache(@NotNull String name);
+}
@@ -0,0 +1,198 @@
+package tech.harmonysoft.oss.jenome.cache;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import tech.harmonysoft.oss.jenome.jfr.JenomeEvent;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ *      {@link JenomeCache} which is split into independent segments, every segment is an {@code LRU} map guarded
+ *      by its own lock. Keys are distributed among the segments by their hash codes, i.e. threads which work
+ *      with different keys rarely contend for the same lock. Statistics is also collected per segment, so, it
+ *      doesn't introduce shared counters.
+ * </p>
+ * <p>
+ *      Total size bound is split evenly between the segments. Is a good fit for machines with high core counts,
+ *      the default number of segments is proportional to the number of available processors.
+ * </p>
+ * <p>Thread-safe.</p>
+ *
+ * @param <K>   key type
+ * @param <V>   value type
+ */
+public class StripedJenomeCache<K, V> implements JenomeCache<K, V> {
+
+    @NotNull private final Segment<K, V>[] segments;
+    private final          int             mask;
+    private final          int             maximumSize;
+
+    /**
+     * Creates a cache with the number of segments based on the number of available processors.
+     *
+     * @param maximumSize   maximum number of entries to hold
+     * @throws IllegalArgumentException     if given size is not positive
+     */
+    public StripedJenomeCache(int maximumSize) throws IllegalArgumentException {
+        this(maximumSize, Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    /**
+     * @param maximumSize           maximum number of entries to hold
+     * @param concurrencyLevel      estimated number of concurrently working threads, the number of segments is
+     *                              the closest power of two which is not less than it (but not more than the
+     *                              given maximum size)
+     * @throws IllegalArgumentException     if any of the given numbers is not positive
+     */
+    @SuppressWarnings("unchecked")
+    public StripedJenomeCache(int maximumSize, int concurrencyLevel) throws IllegalArgumentException {
+        if (maximumSize <= 0 || concurrencyLevel <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Can't create a striped cache. Reason: maximum size and concurrency level must be positive "
+                    + "but got %d and %d", maximumSize, concurrencyLevel));
+        }
+        int segmentsNumber = 1;
+        while (segmentsNumber < concurrencyLevel && segmentsNumber < (1 << 16) && segmentsNumber * 2 <= maximumSize) {
+            segmentsNumber <<= 1;
+        }
+        segments = (Segment<K, V>[]) new Segment<?, ?>[segmentsNumber];
+        // The remainder is spread among the first segments, so, the total capacity is exactly the given maximum size
+        int segmentSize = maximumSize / segmentsNumber;
+        int remainder = maximumSize % segmentsNumber;
+        for (int i = 0; i < segments.length; ++i) {
+            segments[i] = new Segment<>(i < remainder ? segmentSize + 1 : segmentSize);
+        }
+        mask = segmentsNumber - 1;
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * @param maximumSize   maximum size of every created cache
+     * @return              factory which creates {@link StripedJenomeCache} instances with the given size bound
+     * @throws IllegalArgumentException     if given size is not positive
+     */
+    @NotNull
+    public static JenomeCacheFactory factory(int maximumSize) throws IllegalArgumentException {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Can't create a striped cache factory. Reason: maximum size must be positive but got %d",
+                    maximumSize));
+        }
+        return new JenomeCacheFactory() {
+            @NotNull
+            @Override
+            public <K, V> JenomeCache<K, V> newCache(@NotNull String name) {
+                return new StripedJenomeCache<>(maximumSize);
+            }
+        };
+    }
+
+    @Nullable
+    @Override
+    public V get(@NotNull K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            V result = segment.get(key);
+            if (result == null) {
+                segment.misses++;
+            } else {
+                segment.hits++;
+            }
+            return result;
+        }
+    }
+
+    @NotNull
+    @Override
+    public V putIfAbsent(@NotNull K key, @NotNull V value) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            V previous = segment.putIfAbsent(key, value);
+            return previous == null ? value : previous;
+        }
+    }
+
+    @Override
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    @Override
+    public int size() {
+        int result = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                result += segment.size();
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    @NotNull
+    @Override
+    public CacheStats getStats() {
+        long hits = 0;
+        long misses = 0;
+        long evictions = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                hits += segment.hits;
+                misses += segment.misses;
+                evictions += segment.evictions;
+            }
+        }
+        return new CacheStats(hits, misses, evictions);
+    }
+
+    /**
+     * @return      number of segments used by the current cache
+     */
+    public int getSegmentsNumber() {
+        return segments.length;
+    }
+
+    @NotNull
+    private Segment<K, V> segmentFor(@NotNull K key) {
+        int h = key.hashCode() * 0x9e3779b9;
+        return segments[(h ^ (h >>> 16)) & mask];
+    }
+
+    /**
+     * Access-ordered map which drops the least recently used entry on overflow. Is guarded by itself.
+     */
+    private static class Segment<K, V> extends LinkedHashMap<K, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int  maximumSize;
+        private       long hits;
+        private       long misses;
+        private       long evictions;
+
+        Segment(int maximumSize) {
+            super(16, 0.75f, true);
+            this.maximumSize = maximumSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            if (size() > maximumSize) {
+                evictions++;
+                JenomeEvent.cacheEviction(StripedJenomeCache.class.getSimpleName(), eldest.getKey());
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package tech.harmonysoft.oss.jenome.cache;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ *      {@link JenomeCache} backed by a {@link ConcurrentHashMap}, never evicts entries. Is a good fit for the
+ *      cases when the set of processed types is known to be limited, e.g. batch jobs.
+ * </p>
+ * <p>Is used by default.</p>
+ * <p>Thread-safe.</p>
+ *
+ * @param <K>   key type
+ * @param <V>   value type
+ */
+public class UnboundedJenomeCache<K, V> implements JenomeCache<K, V> {
+
+    /** Creates {@link UnboundedJenomeCache} instances. */
+    public static final JenomeCacheFactory FACTORY = new JenomeCacheFactory() {
+        @NotNull
+        @Override
+        public <K, V> JenomeCache<K, V> newCache(@NotNull String name) {
+            return new UnboundedJenomeCache<>();
+        }
+    };
+
+    private final ConcurrentMap<K, V> data   = new ConcurrentHashMap<>();
+    private final LongAdder           hits   = new LongAdder();
+    private final LongAdder           misses = new LongAdder();
+
+    @Nullable
+    @Override
+    public V get(@NotNull K key) {
+        V result = data.get(key);
+        if (result == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public V putIfAbsent(@NotNull K key, @NotNull V value) {
+        V previous = data.putIfAbsent(key, value);
+        return previous == null ? value : previous;
+    }
+
+    @Override
+    public int size() {
+        return data.size();
+    }
+
+    @Override
+    public void clear() {
+        data.clear();
+    }
+
+    @NotNull
+    @Override
+    public CacheStats getStats() {
+        return new CacheStats(hits.sum(), misses.sum(), 0);
+    }
+}
@@ -0,0 +1,270 @@
+package tech.harmonysoft.oss.jenome.jfr;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>
+ *      Describes a custom JDK Flight Recorder event type. Jenome is compiled for java 8, so, {@code jdk.jfr} API
+ *      can't be referenced directly - event types are registered via {@code jdk.jfr.EventFactory} and all
+ *      calls are performed through method handles.
+ * </p>
+ * <p>
+ *      Every operation is a no-op when the current JVM doesn't offer JFR API, {@link #isEnabled()} is always
+ *      {@code false} then.
+ * </p>
+ * <p>Thread-safe.</p>
+ */
+class EventDefinition {
+
+    private static final String CATEGORY = "Jenome";
+
+    private static final MethodHandle BEGIN;
+    private static final MethodHandle END;
+    private static final MethodHandle SHOULD_COMMIT;
+    private static final MethodHandle SET;
+    private static final MethodHandle COMMIT;
+    static {
+        MethodHandle begin = null;
+        MethodHandle end = null;
+        MethodHandle shouldCommit = null;
+        MethodHandle set = null;
+        MethodHandle commit = null;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> eventClass = Class.forName("jdk.jfr.Event");
+            MethodType voidType = MethodType.methodType(void.class, Object.class);
+            begin = lookup.findVirtual(eventClass, "begin", MethodType.methodType(void.class)).asType(voidType);
+            end = lookup.findVirtual(eventClass, "end", MethodType.methodType(void.class)).asType(voidType);
+            commit = lookup.findVirtual(eventClass, "commit", MethodType.methodType(void.class)).asType(voidType);
+            shouldCommit = lookup.findVirtual(eventClass, "shouldCommit", MethodType.methodType(boolean.class))
+                                 .asType(MethodType.methodType(boolean.class, Object.class));
+            set = lookup.findVirtual(eventClass, "set", MethodType.methodType(void.class, int.class, Object.class))
+                        .asType(MethodType.methodType(void.class, Object.class, int.class, Object.class));
+        } catch (Throwable ignore) {
+            // JFR API is not available at the current JVM.
+        }
+        BEGIN = begin;
+        END = end;
+        SHOULD_COMMIT = shouldCommit;
+        SET = set;
+        COMMIT = commit;
+    }
+
+    /** Returns {@code boolean}, {@code true} if JFR is initialized (e.g. a recording was started). */
+    @Nullable private static final MethodHandle IS_RECORDER_INITIALIZED;
+    static {
+        MethodHandle isRecorderInitialized = null;
+        if (BEGIN != null) {
+            try {
+                isRecorderInitialized = MethodHandles.publicLookup().findStatic(
+                        Class.forName("jdk.jfr.FlightRecorder"), "isInitialized", MethodType.methodType(boolean.class));
+            } catch (Throwable ignore) {
+                // JFR API is not available at the current JVM.
+            }
+        }
+        IS_RECORDER_INITIALIZED = isRecorderInitialized;
+    }
+
+    @NotNull private final String   name;
+    @NotNull private final String   label;
+    @Nullable private final String  threshold;
+    @NotNull private final Object[] fields;
+
+    /**
+     * Returns {@code boolean}, constant {@code false} if JFR API is not available. Is {@code null} until
+     * the event type is registered.
+     */
+    @Nullable private volatile MethodHandle isEnabled;
+
+    /** Returns new event instance, {@code null} if JFR API is not available or the event type is not registered. */
+    @Nullable private volatile MethodHandle newEvent;
+
+    /**
+     * Registering an event type is expensive (it initializes JFR), so, it's registered lazily on the first
+     * {@link #isEnabled()} call performed after JFR initialization, i.e. there is no startup cost for
+     * applications which don't use JFR.
+     *
+     * @param name          event name
+     * @param label         human-readable event name
+     * @param threshold     default duration threshold, e.g. {@code "1 ms"}; {@code null} for instant events
+     * @param fields        event fields, every field is defined by three consecutive values - type, name and label
+     */
+    EventDefinition(@NotNull String name,
+                    @NotNull String label,
+                    @Nullable String threshold,
+                    @NotNull Object... fields)
+    {
+        this.name = name;
+        this.label = label;
+        this.threshold = threshold;
+        this.fields = fields;
+    }
+
+    /**
+     * @return      {@code true} if current event type is enabled at a running recording; {@code false} otherwise
+     */
+    boolean isEnabled() {
+        MethodHandle handle = isEnabled;
+        if (handle == null) {
+            if (!isRecorderInitialized()) {
+                return false;
+            }
+            handle = register();
+        }
+        try {
+            return (boolean) handle.invokeExact();
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+
+    private static boolean isRecorderInitialized() {
+        if (IS_RECORDER_INITIALIZED == null) {
+            return false;
+        }
+        try {
+            return (boolean) IS_RECORDER_INITIALIZED.invokeExact();
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+
+    @NotNull
+    private synchronized MethodHandle register() {
+        if (isEnabled != null) {
+            return isEnabled;
+        }
+        MethodHandle isEnabled = MethodHandles.constant(boolean.class, false);
+        try {
+            Class<?> annotationElementClass = Class.forName("jdk.jfr.AnnotationElement");
+            Class<?> valueDescriptorClass = Class.forName("jdk.jfr.ValueDescriptor");
+            Class<?> eventFactoryClass = Class.forName("jdk.jfr.EventFactory");
+            Class<?> eventTypeClass = Class.forName("jdk.jfr.EventType");
+
+            List<Object> annotations = new ArrayList<>();
+            annotations.add(newAnnotation(annotationElementClass, "jdk.jfr.Name", name));
+            annotations.add(newAnnotation(annotationElementClass, "jdk.jfr.Label", label));
+            annotations.add(newAnnotation(annotationElementClass, "jdk.jfr.Category", new String[] { CATEGORY }));
+            if (threshold != null) {
+                annotations.add(newAnnotation(annotationElementClass, "jdk.jfr.Threshold", threshold));
+            }
+
+            List<Object> descriptors = new ArrayList<>();
+            for (int i = 0; i < fields.length; i += 3) {
+                List<Object> fieldAnnotations = Collections.singletonList(
+                        newAnnotation(annotationElementClass, "jdk.jfr.Label", fields[i + 2]));
+                descriptors.add(valueDescriptorClass.getConstructor(Class.class, String.class, List.class)
+                                                    .newInstance(fields[i], fields[i + 1], fieldAnnotations));
+            }
+
+            Object factory = eventFactoryClass.getMethod("create", List.class, List.class)
+                                              .invoke(null, annotations, descriptors);
+            Object eventType = eventFactoryClass.getMethod("getEventType").invoke(factory);
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            MethodHandle registered = lookup.findVirtual(eventTypeClass, "isEnabled",
+                                                         MethodType.methodType(boolean.class))
+                                            .bindTo(eventType);
+            newEvent = lookup.findVirtual(eventFactoryClass, "newEvent",
+                                          MethodType.methodType(Class.forName("jdk.jfr.Event")))
+                             .bindTo(factory)
+                             .asType(MethodType.methodType(Object.class));
+            isEnabled = registered;
+        } catch (Throwable ignore) {
+            // JFR API is not available at the current JVM or it's disabled.
+        }
+        this.isEnabled = isEnabled;
+        return isEnabled;
+    }
+
+    /**
+     * Creates new event and starts its timing.
+     *
+     * @return      new event; {@code null} if JFR API is not available
+     */
+    @Nullable
+    Object begin() {
+        MethodHandle newEvent = this.newEvent;
+        if (newEvent == null) {
+            return null;
+        }
+        try {
+            Object event = (Object) newEvent.invokeExact();
+            BEGIN.invokeExact(event);
+            return event;
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
+    /**
+     * Stops timing of the given event.
+     *
+     * @param event     event {@link #begin() created} by the current definition
+     * @return          {@code true} if the event passes recording settings (e.g. its duration exceeds configured
+     *                  threshold) and should be {@link #commit(Object, Object...) committed}; {@code false} otherwise
+     */
+    boolean end(@NotNull Object event) {
+        try {
+            END.invokeExact(event);
+            return (boolean) SHOULD_COMMIT.invokeExact(event);
+        } catch (Throwable ignore) {
+            // Don't let monitoring problems break the application.
+            return false;
+        }
+    }
+
+    /**
+     * Commits given event {@link #end(Object) ended} by the current definition with the given field values.
+     *
+     * @param event     event {@link #begin() created} by the current definition
+     * @param values    field values in order of the fields given to the constructor
+     */
+    void commit(@NotNull Object event, @NotNull Object... values) {
+        try {
+            for (int i = 0; i < values.length; ++i) {
+                SET.invokeExact(event, i, values[i]);
+            }
+            COMMIT.invokeExact(event);
+        } catch (Throwable ignore) {
+            // Don't let monitoring problems break the application.
+        }
+    }
+
+    /**
+     * Commits new instant event with the given field values.
+     *
+     * @param values    field values in order of the fields given to the constructor
+     */
+    void emit(@NotNull Object... values) {
+        MethodHandle newEvent = this.newEvent;
+        if (newEvent == null) {
+            return;
+        }
+        try {
+            Object event = (Object) newEvent.invokeExact();
+            for (int i = 0; i < values.length; ++i) {
+                SET.invokeExact(event, i, values[i]);
+            }
+            COMMIT.invokeExact(event);
+        } catch (Throwable ignore) {
+            // Don't let monitoring problems break the application.
+        }
+    }
+
+    @NotNull
+    private static Object newAnnotation(@NotNull Class<?> annotationElementClass,
+                                        @NotNull String annotationClass,
+                                        @NotNull Object value) throws ReflectiveOperationException
+    {
+        return annotationElementClass.getConstructor(Class.class, Object.class)
+                                     .newInstance(Class.forName(annotationClass), value);
+    }
+}
@@ -0,0 +1,75 @@
+package tech.harmonysoft.oss.jenome.jfr;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import tech.harmonysoft.oss.jenome.match.MatchListener;
+import tech.harmonysoft.oss.jenome.resolve.CacheOutcome;
+import tech.harmonysoft.oss.jenome.resolve.ResolutionListener;
+
+import java.lang.reflect.Type;
+
+/**
+ * <p>
+ *      Emits {@link JenomeEvent#RESOLVE} and {@link JenomeEvent#MATCH} events for the calls performed by
+ *      resolvers and matchers it's attached to:
+ * </p>
+ * <pre>
+ *     DefaultTypeArgumentResolver.INSTANCE.addListener(FlightRecorderListener.INSTANCE);
+ *     GenericsHelper.INSTANCE.addListener(FlightRecorderListener.INSTANCE);
+ *     CompositeTypeComplianceMatcher.INSTANCE.addListener(FlightRecorderListener.INSTANCE);
+ * </pre>
+ * <p>
+ *      Event objects are created only if corresponding event type is enabled at a running recording, so,
+ *      the listener can be kept attached all the time.
+ * </p>
+ * <p>This class is not singleton but offers single-point-of-usage field ({@link #INSTANCE}).</p>
+ * <p>Thread-safe.</p>
+ */
+public class FlightRecorderListener implements ResolutionListener, MatchListener {
+
+    /** Single-point-of-usage field. */
+    public static final FlightRecorderListener INSTANCE = new FlightRecorderListener();
+
+    @Nullable
+    @Override
+    public Object onResolveStart(@NotNull Type base, @NotNull Type target, int index) {
+        return JenomeEvent.beginResolve();
+    }
+
+    @Override
+    public void onResolveEnd(@NotNull Type base,
+                             @NotNull Type target,
+                             int index,
+                             @Nullable Type result,
+                             @NotNull CacheOutcome outcome,
+                             @Nullable Object token)
+    {
+        if (token != null) {
+            JenomeEvent event = (JenomeEvent) token;
+            event.setOutcome(outcome);
+            event.commitResolve(base, target, index);
+        }
+    }
+
+    @Nullable
+    @Override
+    public Object onMatchStart(@NotNull Type base, @NotNull Type candidate, boolean strict, int depth) {
+        return JenomeEvent.beginMatch();
+    }
+
+    @Override
+    public void onMatchEnd(@NotNull Type base,
+                           @NotNull Type candidate,
+                           boolean strict,
+                           int depth,
+                           @Nullable Boolean result,
+                           @NotNull CacheOutcome outcome,
+                           @Nullable Object token)
+    {
+        if (token != null) {
+            JenomeEvent event = (JenomeEvent) token;
+            event.setOutcome(outcome);
+            event.commitMatch(base, candidate, strict);
+        }
+    }
+}
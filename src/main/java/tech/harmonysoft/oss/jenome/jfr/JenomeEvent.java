@@ -0,0 +1,154 @@
+package tech.harmonysoft.oss.jenome.jfr;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import tech.harmonysoft.oss.jenome.resolve.CacheOutcome;
+
+import java.lang.reflect.Type;
+
+/**
+ * <p>JDK Flight Recorder events emitted by jenome:</p>
+ * <ul>
+ *     <li>
+ *          {@value #RESOLVE} - type argument resolution which takes more than {@value #DEFAULT_THRESHOLD}
+ *          by default;
+ *     </li>
+ *     <li>{@value #MATCH} - compliance check which takes more than {@value #DEFAULT_THRESHOLD} by default;</li>
+ *     <li>{@value #CACHE_EVICTION} - an entry is evicted from a size-bounded cache;</li>
+ * </ul>
+ * <p>
+ *      Thresholds can be changed via recording settings as for any other JFR event, e.g.
+ *      {@code jdk.jfr.Recording.enable("jenome.Match").withThreshold(Duration.ofMillis(5))}.
+ * </p>
+ * <p>
+ *      Resolution and match events are emitted by a {@link FlightRecorderListener} attached to resolvers and
+ *      matchers - it asks for a new event object before the call and {@link #commitResolve(Type, Type, int)
+ *      commits} it after the call. Event object is created only if corresponding event type is enabled at a
+ *      running recording, so, overhead is negligible when JFR is off. The events are not available at JVMs
+ *      without JFR API (e.g. old java 8 releases).
+ * </p>
+ * <p>Not thread-safe, every event object is assumed to be used by a single thread.</p>
+ */
+public class JenomeEvent {
+
+    public static final String RESOLVE        = "jenome.Resolve";
+    public static final String MATCH          = "jenome.Match";
+    public static final String CACHE_EVICTION = "jenome.CacheEviction";
+
+    /** Default threshold for {@link #RESOLVE} and {@link #MATCH} events. */
+    public static final String DEFAULT_THRESHOLD = "1 ms";
+
+    private static final EventDefinition RESOLVE_DEFINITION = new EventDefinition(
+            RESOLVE, "Jenome Type Argument Resolution", DEFAULT_THRESHOLD,
+            String.class, "baseType", "Base Type",
+            String.class, "targetType", "Target Type",
+            int.class, "index", "Type Argument Index",
+            int.class, "depth", "Depth",
+            String.class, "cacheOutcome", "Cache Outcome");
+
+    private static final EventDefinition MATCH_DEFINITION = new EventDefinition(
+            MATCH, "Jenome Compliance Check", DEFAULT_THRESHOLD,
+            String.class, "baseType", "Base Type",
+            String.class, "candidateType", "Candidate Type",
+            boolean.class, "strict", "Strict",
+            int.class, "depth", "Depth",
+            String.class, "cacheOutcome", "Cache Outcome");
+
+    private static final EventDefinition CACHE_EVICTION_DEFINITION = new EventDefinition(
+            CACHE_EVICTION, "Jenome Cache Eviction", null,
+            String.class, "cache", "Cache",
+            String.class, "key", "Evicted Key");
+
+    /** Number of instrumented calls in progress at the current thread. */
+    private static final ThreadLocal<int[]> DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+
+    @NotNull private final Object       event;
+    private final          int          depth;
+    @NotNull private       CacheOutcome outcome = CacheOutcome.UNCACHED;
+
+    private JenomeEvent(@NotNull Object event) {
+        this.event = event;
+        depth = DEPTH.get()[0]++;
+    }
+
+    /**
+     * @return      new event object which times type argument resolution; {@code null} if {@value #RESOLVE}
+     *              events are not recorded
+     */
+    @Nullable
+    public static JenomeEvent beginResolve() {
+        return begin(RESOLVE_DEFINITION);
+    }
+
+    /**
+     * @return      new event object which times compliance check; {@code null} if {@value #MATCH}
+     *              events are not recorded
+     */
+    @Nullable
+    public static JenomeEvent beginMatch() {
+        return begin(MATCH_DEFINITION);
+    }
+
+    /**
+     * Records {@value #CACHE_EVICTION} event if it's enabled.
+     *
+     * @param cache     name of the cache
+     * @param key       evicted key
+     */
+    public static void cacheEviction(@NotNull String cache, @NotNull Object key) {
+        if (CACHE_EVICTION_DEFINITION.isEnabled()) {
+            CACHE_EVICTION_DEFINITION.emit(cache, String.valueOf(key));
+        }
+    }
+
+    @Nullable
+    private static JenomeEvent begin(@NotNull EventDefinition definition) {
+        if (!definition.isEnabled()) {
+            return null;
+        }
+        Object event = definition.begin();
+        return event == null ? null : new JenomeEvent(event);
+    }
+
+    /**
+     * @param outcome   cache outcome of the call timed by the current event ({@link CacheOutcome#UNCACHED}
+     *                  by default)
+     */
+    public void setOutcome(@NotNull CacheOutcome outcome) {
+        this.outcome = outcome;
+    }
+
+    /**
+     * Finishes current {@value #RESOLVE} event, it's recorded if its duration exceeds the threshold. Event fields
+     * are formatted only for the recorded events.
+     *
+     * @param base      base type
+     * @param target    target type
+     * @param index     type argument index
+     */
+    public void commitResolve(@NotNull Type base, @NotNull Type target, int index) {
+        finish();
+        if (RESOLVE_DEFINITION.end(event)) {
+            RESOLVE_DEFINITION.commit(event, base.getTypeName(), target.getTypeName(), index, depth, outcome.name());
+        }
+    }
+
+    /**
+     * Finishes current {@value #MATCH} event, it's recorded if its duration exceeds the threshold. Event fields
+     * are formatted only for the recorded events.
+     *
+     * @param base          base type
+     * @param candidate     candidate type
+     * @param strict        {@code 'strict'} flag
+     */
+    public void commitMatch(@NotNull Type base, @NotNull Type candidate, boolean strict) {
+        finish();
+        if (MATCH_DEFINITION.end(event)) {
+            MATCH_DEFINITION.commit(event, base.getTypeName(), candidate.getTypeName(), strict, depth, outcome.name());
+        }
+    }
+
+    private void finish() {
+        DEPTH.get()[0]--;
+    }
+}
@@ -0,0 +1,118 @@
+package tech.harmonysoft.oss.jenome.management;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ *      Management interface of jenome. It exposes state of the resolver and matcher caches and their call
+ *      statistics and allows to tune them at runtime, see {@link JenomeManagement}.
+ * </p>
+ * <p>
+ *      Call counts and latencies are collected only while {@link #setInstrumentationEnabled(boolean) instrumentation}
+ *      is on. All durations are in nanoseconds.
+ * </p>
+ */
+public interface JenomeMXBean {
+
+    /**
+     * @return      latency statistics of type argument resolutions
+     */
+    LatencyStats getResolverLatency();
+
+    /**
+     * @return      latency statistics of top-level compliance checks
+     */
+    LatencyStats getMatcherLatency();
+
+    /**
+     * @return      number of cached resolution results
+     */
+    int getResolverCacheSize();
+
+    /**
+     * @return      number of cached match results
+     */
+    int getMatcherCacheSize();
+
+    /**
+     * @return      maximum size of the resolution results cache; negative value if it's not bounded
+     */
+    int getResolverCacheMaximumSize();
+
+    /**
+     * @return      maximum size of the match results cache; negative value if it's not bounded
+     */
+    int getMatcherCacheMaximumSize();
+
+    /**
+     * @return      ratio of resolution cache lookups which found a value
+     */
+    double getResolverCacheHitRatio();
+
+    /**
+     * @return      ratio of match cache lookups which found a value
+     */
+    double getMatcherCacheHitRatio();
+
+    /**
+     * @return      number of compliance checks decided by every matcher prefilter rule, rule names are used as keys
+     */
+    Map<String, Long> getMatcherPrefilterHits();
+
+    /**
+     * @return      number of entries evicted from the resolution and match caches
+     */
+    long getCacheEvictions();
+
+    /**
+     * @return      rough estimate of the memory occupied by the cached entries, in bytes
+     */
+    long getEstimatedCacheMemory();
+
+    /**
+     * @return      {@code true} if call counts and latencies are collected; {@code false} otherwise
+     */
+    boolean isInstrumentationEnabled();
+
+    /**
+     * @param enabled       flag which identifies if call counts and latencies should be collected
+     */
+    void setInstrumentationEnabled(boolean enabled);
+
+    /**
+     * Drops all cached resolution and match results.
+     */
+    void clearCaches();
+
+    /**
+     * Replaces the resolution and match caches by the new ones with the given size bound. Current cache
+     * content is dropped.
+     *
+     * @param maximumSize   maximum number of entries to keep at every cache; non-positive value means that
+     *                      caches are not bounded
+     */
+    void resizeCaches(int maximumSize);
+
+    /**
+     * Drops collected call counts, latencies and prefilter hits.
+     */
+    void resetLatencyStats();
+
+    /**
+     * Starts capturing top-level calls which take more than the given threshold at a {@link SlowCallLog}.
+     *
+     * @param thresholdMicros   minimum duration of a captured call, in microseconds
+     */
+    void enableSlowCallLog(long thresholdMicros);
+
+    /**
+     * Stops capturing slow calls, already captured calls are kept.
+     */
+    void disableSlowCallLog();
+
+    /**
+     * @return      captured slow calls, the oldest first
+     */
+    List<String> dumpSlowCalls();
+}
@@ -0,0 +1,228 @@
+package tech.harmonysoft.oss.jenome.management;
+
+import org.jetbrains.annotations.NotNull;
+import tech.harmonysoft.oss.jenome.cache.BoundedJenomeCache;
+import tech.harmonysoft.oss.jenome.cache.JenomeCacheFactory;
+import tech.harmonysoft.oss.jenome.cache.UnboundedJenomeCache;
+import tech.harmonysoft.oss.jenome.match.impl.CompositeTypeComplianceMatcher;
+import tech.harmonysoft.oss.jenome.match.impl.MatchPrefilter;
+import tech.harmonysoft.oss.jenome.resolve.impl.DefaultTypeArgumentResolver;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <p>
+ *      {@link JenomeMXBean} implementation which manages given resolver and matcher. It's not registered
+ *      automatically, the default instance which manages {@link DefaultTypeArgumentResolver#INSTANCE} and
+ *      {@link CompositeTypeComplianceMatcher#INSTANCE} can be registered at the platform MBean server
+ *      via {@link #register()}:
+ * </p>
+ * <pre>
+ *     JenomeManagement.register();
+ * </pre>
+ * <p>
+ *      Custom instances can be registered as any other MBean. Memory estimate assumes
+ *      {@value #ESTIMATED_ENTRY_SIZE} bytes per cached entry (key, map node and table slot at a 64-bit JVM with
+ *      compressed references), cached types themselves are not counted because they are shared with the
+ *      reflection data.
+ * </p>
+ * <p>Thread-safe.</p>
+ */
+public class JenomeManagement implements JenomeMXBean {
+
+    /** Name of the default MBean at the platform MBean server. */
+    public static final String OBJECT_NAME = "tech.harmonysoft.oss.jenome:type=Jenome";
+
+    /** Estimated number of bytes occupied by a single cached entry. */
+    public static final int ESTIMATED_ENTRY_SIZE = 96;
+
+    @NotNull private final DefaultTypeArgumentResolver    resolver;
+    @NotNull private final CompositeTypeComplianceMatcher matcher;
+    @NotNull private final SlowCallLog                    slowCallLog     = new SlowCallLog();
+    @NotNull private final LatencyHistogram               resolverLatency = new LatencyHistogram();
+    @NotNull private final LatencyHistogram               matcherLatency  = new LatencyHistogram();
+    @NotNull private final AtomicBoolean                  instrumentation = new AtomicBoolean();
+
+    public JenomeManagement() {
+        this(DefaultTypeArgumentResolver.INSTANCE, CompositeTypeComplianceMatcher.INSTANCE);
+    }
+
+    public JenomeManagement(@NotNull DefaultTypeArgumentResolver resolver,
+                            @NotNull CompositeTypeComplianceMatcher matcher)
+    {
+        this.resolver = resolver;
+        this.matcher = matcher;
+    }
+
+    /**
+     * Registers the default instance at the platform MBean server under {@value #OBJECT_NAME} name unless
+     * it's already registered.
+     *
+     * @return      name of the registered MBean
+     * @throws IllegalStateException    if the MBean can't be registered
+     */
+    @NotNull
+    public static ObjectName register() throws IllegalStateException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            synchronized (JenomeManagement.class) {
+                if (!server.isRegistered(name)) {
+                    server.registerMBean(new JenomeManagement(), name);
+                }
+            }
+            return name;
+        } catch (JMException e) {
+            throw new IllegalStateException(String.format(
+                    "Can't register jenome MBean '%s'. Reason: %s", OBJECT_NAME, e), e);
+        }
+    }
+
+    /**
+     * Unregisters the MBean {@link #register() registered} at the platform MBean server if any.
+     *
+     * @throws IllegalStateException    if the MBean can't be unregistered
+     */
+    public static void unregister() throws IllegalStateException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            synchronized (JenomeManagement.class) {
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException(String.format(
+                    "Can't unregister jenome MBean '%s'. Reason: %s", OBJECT_NAME, e), e);
+        }
+    }
+
+    @Override
+    public LatencyStats getResolverLatency() {
+        return LatencyStats.of(resolverLatency);
+    }
+
+    @Override
+    public LatencyStats getMatcherLatency() {
+        return LatencyStats.of(matcherLatency);
+    }
+
+    @Override
+    public int getResolverCacheSize() {
+        return resolver.getCacheSize();
+    }
+
+    @Override
+    public int getMatcherCacheSize() {
+        return matcher.getCacheSize();
+    }
+
+    @Override
+    public int getResolverCacheMaximumSize() {
+        return resolver.getCacheMaximumSize();
+    }
+
+    @Override
+    public int getMatcherCacheMaximumSize() {
+        return matcher.getCacheMaximumSize();
+    }
+
+    @Override
+    public double getResolverCacheHitRatio() {
+        return resolver.getCacheStats().getHitRatio();
+    }
+
+    @Override
+    public double getMatcherCacheHitRatio() {
+        return matcher.getCacheStats().getHitRatio();
+    }
+
+    @Override
+    public Map<String, Long> getMatcherPrefilterHits() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Map.Entry<MatchPrefilter.Rule, Long> entry : matcher.getPrefilter().getHits().entrySet()) {
+            result.put(entry.getKey().name(), entry.getValue());
+        }
+        return result;
+    }
+
+    @Override
+    public long getCacheEvictions() {
+        return resolver.getCacheStats().plus(matcher.getCacheStats()).getEvictions();
+    }
+
+    @Override
+    public long getEstimatedCacheMemory() {
+        return ((long) resolver.getCacheSize() + matcher.getCacheSize()) * ESTIMATED_ENTRY_SIZE;
+    }
+
+    @Override
+    public boolean isInstrumentationEnabled() {
+        return instrumentation.get();
+    }
+
+    @Override
+    public void setInstrumentationEnabled(boolean enabled) {
+        instrumentation.set(enabled);
+        if (enabled) {
+            resolver.addListener(resolverLatency);
+            matcher.addListener(matcherLatency);
+        } else {
+            resolver.removeListener(resolverLatency);
+            matcher.removeListener(matcherLatency);
+        }
+    }
+
+    @Override
+    public void clearCaches() {
+        resolver.clearCache();
+        matcher.clearCache();
+    }
+
+    @Override
+    public void resizeCaches(int maximumSize) {
+        JenomeCacheFactory factory = maximumSize > 0 ? BoundedJenomeCache.factory(maximumSize)
+                                                     : UnboundedJenomeCache.FACTORY;
+        resolver.setCacheFactory(factory);
+        matcher.setCacheFactory(factory);
+    }
+
+    @Override
+    public void resetLatencyStats() {
+        resolverLatency.reset();
+        matcherLatency.reset();
+        matcher.getPrefilter().reset();
+    }
+
+    @Override
+    public void enableSlowCallLog(long thresholdMicros) {
+        slowCallLog.setThresholdNanos(TimeUnit.MICROSECONDS.toNanos(thresholdMicros));
+        resolver.addListener(slowCallLog);
+        matcher.addListener(slowCallLog);
+    }
+
+    @Override
+    public void disableSlowCallLog() {
+        resolver.removeListener(slowCallLog);
+        matcher.removeListener(slowCallLog);
+    }
+
+    @Override
+    public List<String> dumpSlowCalls() {
+        List<String> result = new ArrayList<>();
+        for (SlowCall call : slowCallLog.getEntries()) {
+            result.add(call.toString());
+        }
+        return result;
+    }
+}
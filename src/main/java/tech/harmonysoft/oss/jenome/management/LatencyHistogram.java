@@ -0,0 +1,197 @@
+package tech.harmonysoft.oss.jenome.management;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import tech.harmonysoft.oss.jenome.match.MatchListener;
+import tech.harmonysoft.oss.jenome.resolve.CacheOutcome;
+import tech.harmonysoft.oss.jenome.resolve.ResolutionListener;
+
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>
+ *      Lock-free histogram of call durations in nanoseconds. Values are kept at log-linear buckets - every power
+ *      of two range is split into {@value #SUB_BUCKETS} equal buckets, so, reported percentiles are within 12.5%
+ *      of the exact values while the histogram occupies a fixed amount of memory.
+ * </p>
+ * <p>
+ *      The histogram can be attached as a listener to a resolver (all resolutions are timed then) or to a matcher
+ *      (top-level checks are timed then, nested checks are not because their time is a part of the top-level
+ *      check time). Timing doesn't allocate.
+ * </p>
+ * <p>Thread-safe.</p>
+ */
+public class LatencyHistogram implements ResolutionListener, MatchListener {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS     = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS         = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    /** Start times of the calls timed at the current thread. */
+    private static final ThreadLocal<Timer> TIMER = ThreadLocal.withInitial(Timer::new);
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong      total  = new AtomicLong();
+    private final AtomicLong      max    = new AtomicLong();
+
+    /**
+     * @param nanos     call duration to record, negative values are treated as zero
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(value));
+        total.incrementAndGet();
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * @return      number of recorded values
+     */
+    public long getCount() {
+        return total.get();
+    }
+
+    /**
+     * @return      maximum recorded value; {@code 0} if nothing is recorded
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @param percentile    target percentile, e.g. {@code 99.9}
+     * @return              approximate value which is not less than the given percent of recorded values;
+     *                      {@code 0} if nothing is recorded
+     * @throws IllegalArgumentException     if given percentile is out of {@code [0; 100]}
+     */
+    public long getPercentile(double percentile) throws IllegalArgumentException {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException(String.format(
+                    "Can't calculate latency percentile. Reason: it must be within [0; 100] but got %s", percentile));
+        }
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; ++i) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; ++i) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Drops all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; ++i) {
+            counts.set(i, 0);
+        }
+        total.set(0);
+        max.set(0);
+    }
+
+    @Nullable
+    @Override
+    public Object onResolveStart(@NotNull Type base, @NotNull Type target, int index) {
+        TIMER.get().start();
+        return this;
+    }
+
+    @Override
+    public void onResolveEnd(@NotNull Type base,
+                             @NotNull Type target,
+                             int index,
+                             @Nullable Type result,
+                             @NotNull CacheOutcome outcome,
+                             @Nullable Object token)
+    {
+        if (token != null) {
+            record(TIMER.get().stop());
+        }
+    }
+
+    @Nullable
+    @Override
+    public Object onMatchStart(@NotNull Type base, @NotNull Type candidate, boolean strict, int depth) {
+        if (depth > 0) {
+            return null;
+        }
+        TIMER.get().start();
+        return this;
+    }
+
+    @Override
+    public void onMatchEnd(@NotNull Type base,
+                           @NotNull Type candidate,
+                           boolean strict,
+                           int depth,
+                           @Nullable Boolean result,
+                           @NotNull CacheOutcome outcome,
+                           @Nullable Object token)
+    {
+        if (token != null) {
+            record(TIMER.get().stop());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d, p50=%dns, p99=%dns, max=%dns",
+                             getCount(), getPercentile(50), getPercentile(99), getMax());
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    static long upperBoundOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lowerBound = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+
+    /** Stack of start times of the calls timed at a single thread. */
+    private static class Timer {
+
+        @NotNull private long[] starts = new long[16];
+        private          int    size;
+
+        void start() {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+            }
+            starts[size++] = System.nanoTime();
+        }
+
+        /**
+         * @return      duration of the call which is timed the last
+         */
+        long stop() {
+            return System.nanoTime() - starts[--size];
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package tech.harmonysoft.oss.jenome.management;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.management.openmbean.CompositeData;
+
+/**
+ * <p>
+ *      Holds {@link LatencyHistogram} statistics snapshot, all durations are in nanoseconds. It's exposed as
+ *      {@link CompositeData} by {@link JenomeMXBean}.
+ * </p>
+ * <p>Immutable.</p>
+ */
+public class LatencyStats {
+
+    private final long count;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+    private final long p999;
+    private final long max;
+
+    public LatencyStats(long count, long p50, long p90, long p99, long p999, long max) {
+        this.count = count;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.p999 = p999;
+        this.max = max;
+    }
+
+    /**
+     * @param histogram     target histogram
+     * @return              statistics of the given histogram
+     */
+    @NotNull
+    public static LatencyStats of(@NotNull LatencyHistogram histogram) {
+        return new LatencyStats(histogram.getCount(),
+                                histogram.getPercentile(50),
+                                histogram.getPercentile(90),
+                                histogram.getPercentile(99),
+                                histogram.getPercentile(99.9),
+                                histogram.getMax());
+    }
+
+    /**
+     * Is used by JMX in order to restore statistics exposed via an {@link JenomeMXBean} proxy.
+     *
+     * @param data      composite data built from a {@link LatencyStats} object
+     * @return          restored statistics
+     */
+    @NotNull
+    public static LatencyStats from(@NotNull CompositeData data) {
+        return new LatencyStats((Long) data.get("count"),
+                                (Long) data.get("p50"),
+                                (Long) data.get("p90"),
+                                (Long) data.get("p99"),
+                                (Long) data.get("p999"),
+                                (Long) data.get("max"));
+    }
+
+    /**
+     * @return      number of recorded calls
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return      median call duration
+     */
+    public long getP50() {
+        return p50;
+    }
+
+    /**
+     * @return      90th percentile of call durations
+     */
+    public long getP90() {
+        return p90;
+    }
+
+    /**
+     * @return      99th percentile of call durations
+     */
+    public long getP99() {
+        return p99;
+    }
+
+    /**
+     * @return      99.9th percentile of call durations
+     */
+    public long getP999() {
+        return p999;
+    }
+
+    /**
+     * @return      maximum call duration
+     */
+    public long getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d, p50=%dns, p90=%dns, p99=%dns, p99.9=%dns, max=%dns",
+                             count, p50, p90, p99, p999, max);
+    }
+}
@@ -0,0 +1,135 @@
+package tech.harmonysoft.oss.jenome.management;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+
+/**
+ * <p>Describes a top-level call captured by a {@link SlowCallLog}.</p>
+ * <p>Immutable.</p>
+ */
+public class SlowCall {
+
+    /** Type of the captured call. */
+    public enum Kind {
+        /** Type argument resolution, {@link #getIndex()} holds type argument index. */
+        RESOLVE,
+        /** Compliance check, {@link #isStrict()} holds {@code 'strict'} flag. */
+        MATCH
+    }
+
+    @NotNull private final Kind              kind;
+    @NotNull private final String            baseType;
+    @NotNull private final String            otherType;
+    private final          boolean           strict;
+    private final          int               index;
+    private final          long              timestamp;
+    private final          long              durationNanos;
+    private final          int               depth;
+    @NotNull private final Map<String, Long> breakdown;
+
+    SlowCall(@NotNull Kind kind,
+             @NotNull String baseType,
+             @NotNull String otherType,
+             boolean strict,
+             int index,
+             long timestamp,
+             long durationNanos,
+             int depth,
+             @NotNull Map<String, Long> breakdown)
+    {
+        this.kind = kind;
+        this.baseType = baseType;
+        this.otherType = otherType;
+        this.strict = strict;
+        this.index = index;
+        this.timestamp = timestamp;
+        this.durationNanos = durationNanos;
+        this.depth = depth;
+        this.breakdown = breakdown;
+    }
+
+    @NotNull
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return      name of the base type
+     */
+    @NotNull
+    public String getBaseType() {
+        return baseType;
+    }
+
+    /**
+     * @return      name of the candidate type for {@link Kind#MATCH} and target type for {@link Kind#RESOLVE}
+     */
+    @NotNull
+    public String getOtherType() {
+        return otherType;
+    }
+
+    /**
+     * @return      {@code 'strict'} flag of a compliance check; {@code false} for {@link Kind#RESOLVE}
+     */
+    public boolean isStrict() {
+        return strict;
+    }
+
+    /**
+     * @return      type argument index of a resolution; {@code -1} for {@link Kind#MATCH}
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return      time when the call is finished, in milliseconds since epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * @return      maximum nesting level of the traced calls (sub-matchers and resolutions) performed during
+     *              the current call; {@code 0} if there were no nested calls
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return      own time (excluding the time of the nested traced calls) in nanoseconds by the name of
+     *              a traced call, ordered by time descending
+     */
+    @NotNull
+    public Map<String, Long> getBreakdown() {
+        return breakdown;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buffer = new StringBuilder();
+        buffer.append(String.format("%tFT%<tT.%<tL %s %dus ", timestamp, kind, durationNanos / 1000));
+        if (kind == Kind.MATCH) {
+            buffer.append(String.format("base=%s candidate=%s strict=%b", baseType, otherType, strict));
+        } else {
+            buffer.append(String.format("base=%s target=%s index=%d", baseType, otherType, index));
+        }
+        buffer.append(" depth=").append(depth).append(" breakdown=[");
+        boolean first = true;
+        for (Map.Entry<String, Long> entry : breakdown.entrySet()) {
+            if (!first) {
+                buffer.append(", ");
+            }
+            first = false;
+            buffer.append(entry.getKey()).append('=').append(entry.getValue() / 1000).append("us");
+        }
+        return buffer.append(']').toString();
+    }
+}
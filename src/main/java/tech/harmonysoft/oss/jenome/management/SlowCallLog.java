@@ -0,0 +1,323 @@
+package tech.harmonysoft.oss.jenome.management;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import tech.harmonysoft.oss.jenome.match.MatchListener;
+import tech.harmonysoft.oss.jenome.match.TypeComplianceMatcher;
+import tech.harmonysoft.oss.jenome.resolve.CacheOutcome;
+import tech.harmonysoft.oss.jenome.resolve.ResolutionListener;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>
+ *      Captures top-level resolutions and compliance checks which take more than the configured threshold.
+ *      Every captured call holds the types, nesting depth and time breakdown by nested traced calls, i.e. by the
+ *      specialized matchers and the type argument resolver which did the job.
+ * </p>
+ * <p>
+ *      The log is attached as a listener via {@code addListener()} of {@code DefaultTypeArgumentResolver} and
+ *      {@code CompositeTypeComplianceMatcher} (it's fine to use the same log for both). Only the last
+ *      {@link #getCapacity() capacity} slow calls are kept, they can be {@link #dump(Writer) dumped} at any time.
+ * </p>
+ * <p>
+ *      Tracing costs a couple of {@link System#nanoTime()} calls per nested call, so, the log is assumed to be
+ *      attached only when there is a problem to investigate.
+ * </p>
+ * <p>Thread-safe.</p>
+ */
+public class SlowCallLog implements ResolutionListener, MatchListener {
+
+    public static final long DEFAULT_THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    public static final int  DEFAULT_CAPACITY        = 256;
+
+    /** Name of the traced type argument resolution call. */
+    public static final String RESOLVE = "resolve";
+
+    /** Name of the traced top-level compliance check call. */
+    public static final String MATCH = "match";
+
+    /** Trace of the top-level call in progress at the current thread. */
+    private static final ThreadLocal<Trace> TRACE = ThreadLocal.withInitial(Trace::new);
+
+    @NotNull private final AtomicReferenceArray<SlowCall> entries;
+    @NotNull private final AtomicLong                     counter   = new AtomicLong();
+    @NotNull private final AtomicLong                     threshold = new AtomicLong();
+
+    public SlowCallLog() {
+        this(DEFAULT_THRESHOLD_NANOS, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param thresholdNanos    minimum duration of a captured call
+     * @param capacity          maximum number of captured calls to keep
+     * @throws IllegalArgumentException     if given threshold is negative or given capacity is not positive
+     */
+    public SlowCallLog(long thresholdNanos, int capacity) throws IllegalArgumentException {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Can't create a slow call log. Reason: capacity must be positive but got %d", capacity));
+        }
+        entries = new AtomicReferenceArray<>(capacity);
+        setThresholdNanos(thresholdNanos);
+    }
+
+    public long getThresholdNanos() {
+        return threshold.get();
+    }
+
+    /**
+     * @param thresholdNanos    minimum duration of a captured call
+     * @throws IllegalArgumentException     if given threshold is negative
+     */
+    public void setThresholdNanos(long thresholdNanos) throws IllegalArgumentException {
+        if (thresholdNanos < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Can't set slow call threshold. Reason: it must not be negative but got %d", thresholdNanos));
+        }
+        threshold.set(thresholdNanos);
+    }
+
+    /**
+     * @return      maximum number of captured calls to keep
+     */
+    public int getCapacity() {
+        return entries.length();
+    }
+
+    /**
+     * @return      total number of captured calls including the ones which are already dropped from the log
+     */
+    public long getCapturedCount() {
+        return counter.get();
+    }
+
+    /**
+     * @return      calls kept at the current log, the oldest first
+     */
+    @NotNull
+    public List<SlowCall> getEntries() {
+        long end = counter.get();
+        long start = Math.max(0, end - entries.length());
+        List<SlowCall> result = new ArrayList<>((int) (end - start));
+        for (long i = start; i < end; ++i) {
+            SlowCall entry = entries.get((int) (i % entries.length()));
+            if (entry != null) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes all {@link #getEntries() kept calls} to the given writer, one call per line.
+     *
+     * @param writer    target writer
+     * @throws IOException      in case of I/O problem
+     */
+    public void dump(@NotNull Writer writer) throws IOException {
+        for (SlowCall entry : getEntries()) {
+            writer.write(entry.toString());
+            writer.write(System.lineSeparator());
+        }
+        writer.flush();
+    }
+
+    /**
+     * Drops all kept calls.
+     */
+    public void clear() {
+        for (int i = 0; i < entries.length(); ++i) {
+            entries.set(i, null);
+        }
+    }
+
+    /**
+     * @return      {@code true} if a top-level call is traced at the current thread; {@code false} otherwise
+     */
+    public static boolean isTracing() {
+        return TRACE.get().size > 0;
+    }
+
+    @Nullable
+    @Override
+    public Object onResolveStart(@NotNull Type base, @NotNull Type target, int index) {
+        enter();
+        return this;
+    }
+
+    @Override
+    public void onResolveEnd(@NotNull Type base,
+                             @NotNull Type target,
+                             int index,
+                             @Nullable Type result,
+                             @NotNull CacheOutcome outcome,
+                             @Nullable Object token)
+    {
+        exitResolve(base, target, index);
+    }
+
+    @Nullable
+    @Override
+    public Object onMatchStart(@NotNull Type base, @NotNull Type candidate, boolean strict, int depth) {
+        if (depth > 0) {
+            // Nested checks are broken down by the specialized matchers which perform them.
+            return null;
+        }
+        enter();
+        return this;
+    }
+
+    @Override
+    public void onMatchEnd(@NotNull Type base,
+                           @NotNull Type candidate,
+                           boolean strict,
+                           int depth,
+                           @Nullable Boolean result,
+                           @NotNull CacheOutcome outcome,
+                           @Nullable Object token)
+    {
+        if (token != null) {
+            exitMatch(base, candidate, strict);
+        }
+    }
+
+    @Nullable
+    @Override
+    public Object onDelegateStart(@NotNull TypeComplianceMatcher<?> matcher, int depth) {
+        if (!isTracing()) {
+            return null;
+        }
+        enter();
+        return this;
+    }
+
+    @Override
+    public void onDelegateEnd(@NotNull TypeComplianceMatcher<?> matcher, int depth, @Nullable Object token) {
+        if (token != null) {
+            exit(matcher.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Starts timing of a traced call at the current thread. It's either a top-level call or a nested call of
+     * the top-level call traced at the current thread. Every call to this method must be followed by
+     * a call to {@link #exit(String)}, {@link #exitResolve(Type, Type, int)} or
+     * {@link #exitMatch(Type, Type, boolean)}.
+     */
+    private void enter() {
+        TRACE.get().enter(this);
+    }
+
+    /**
+     * Finishes timing of the nested call {@link #enter() started} at the current thread.
+     *
+     * @param name      name of the nested call used at the {@link SlowCall#getBreakdown() breakdown}
+     */
+    private static void exit(@NotNull String name) {
+        TRACE.get().exit(name);
+    }
+
+    /**
+     * Finishes timing of the resolution {@link #enter() started} at the current thread, it's captured if it's
+     * a top-level call which takes more than the {@link #getThresholdNanos() threshold}.
+     *
+     * @param base      base type
+     * @param target    target type
+     * @param index     type argument index
+     */
+    private static void exitResolve(@NotNull Type base, @NotNull Type target, int index) {
+        Trace trace = TRACE.get();
+        long duration = trace.exit(RESOLVE);
+        SlowCallLog owner = trace.owner;
+        if (trace.size == 0 && owner != null) {
+            owner.capture(trace, SlowCall.Kind.RESOLVE, base, target, false, index, duration);
+        }
+    }
+
+    /**
+     * Finishes timing of the compliance check {@link #enter() started} at the current thread, it's captured if
+     * it's a top-level call which takes more than the {@link #getThresholdNanos() threshold}.
+     *
+     * @param base          base type
+     * @param candidate     candidate type
+     * @param strict        {@code 'strict'} flag
+     */
+    private static void exitMatch(@NotNull Type base, @NotNull Type candidate, boolean strict) {
+        Trace trace = TRACE.get();
+        long duration = trace.exit(MATCH);
+        SlowCallLog owner = trace.owner;
+        if (trace.size == 0 && owner != null) {
+            owner.capture(trace, SlowCall.Kind.MATCH, base, candidate, strict, -1, duration);
+        }
+    }
+
+    private void capture(@NotNull Trace trace,
+                         @NotNull SlowCall.Kind kind,
+                         @NotNull Type base,
+                         @NotNull Type other,
+                         boolean strict,
+                         int index,
+                         long duration)
+    {
+        trace.owner = null;
+        if (duration < threshold.get()) {
+            return;
+        }
+        List<Map.Entry<String, long[]>> times = new ArrayList<>(trace.breakdown.entrySet());
+        times.sort((e1, e2) -> Long.compare(e2.getValue()[0], e1.getValue()[0]));
+        Map<String, Long> breakdown = new LinkedHashMap<>();
+        for (Map.Entry<String, long[]> entry : times) {
+            breakdown.put(entry.getKey(), entry.getValue()[0]);
+        }
+        SlowCall entry = new SlowCall(kind, base.getTypeName(), other.getTypeName(), strict, index,
+                                      System.currentTimeMillis(), duration, trace.maxDepth,
+                                      Collections.unmodifiableMap(breakdown));
+        entries.set((int) (counter.getAndIncrement() % entries.length()), entry);
+    }
+
+    /** Stack of the traced calls in progress at a single thread. */
+    private static class Trace {
+
+        @NotNull private final Map<String, long[]> breakdown = new HashMap<>();
+        @NotNull private       long[]              starts    = new long[16];
+        @NotNull private       long[]              nested    = new long[16];
+        @Nullable private      SlowCallLog         owner;
+        private                int                 size;
+        private                int                 maxDepth;
+
+        void enter(@NotNull SlowCallLog log) {
+            if (size == 0) {
+                owner = log;
+                breakdown.clear();
+                maxDepth = 0;
+            } else {
+                maxDepth = Math.max(maxDepth, size);
+            }
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                nested = Arrays.copyOf(nested, size * 2);
+            }
+            nested[size] = 0;
+            starts[size++] = System.nanoTime();
+        }
+
+        /**
+         * @return      duration of the finished call
+         */
+        long exit(@NotNull String name) {
+            long duration = System.nanoTime() - starts[--size];
+            breakdown.computeIfAbsent(name, key -> new long[1])[0] += duration - nested[size];
+            if (size > 0) {
+                nested[size - 1] += duration;
+            }
+            return duration;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package tech.harmonysoft.oss.jenome.match;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import tech.harmonysoft.oss.jenome.resolve.CacheOutcome;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>
+ *      Dispatches notifications to several {@link MatchListener listeners}, they are notified about a check
+ *      start in the order they are added and about the check end in the reverse order.
+ * </p>
+ * <p>
+ *      Holders of a single listener reference are expected to update it via {@link #add(MatchListener,
+ *      MatchListener)} and {@link #remove(MatchListener, MatchListener)}, so, there is no indirection when only
+ *      one listener is attached.
+ * </p>
+ * <p>Thread-safe.</p>
+ */
+public final class CompositeMatchListener implements MatchListener {
+
+    @NotNull private final MatchListener[] listeners;
+
+    private CompositeMatchListener(@NotNull List<MatchListener> listeners) {
+        this.listeners = listeners.toArray(new MatchListener[listeners.size()]);
+    }
+
+    /**
+     * @param current   current listener if any
+     * @param listener  listener to add
+     * @return          listener which notifies both given listeners; {@code 'current'} if it already notifies
+     *                  the given listener
+     */
+    @NotNull
+    public static MatchListener add(@Nullable MatchListener current, @NotNull MatchListener listener) {
+        List<MatchListener> listeners = toList(current);
+        if (listeners.contains(listener)) {
+            return current;
+        }
+        listeners.add(listener);
+        return listeners.size() == 1 ? listener : new CompositeMatchListener(listeners);
+    }
+
+    /**
+     * @param current   current listener if any
+     * @param listener  listener to remove
+     * @return          listener which notifies all listeners notified by the {@code 'current'} one except the
+     *                  given one; {@code null} if there are no such listeners
+     */
+    @Nullable
+    public static MatchListener remove(@Nullable MatchListener current, @NotNull MatchListener listener) {
+        List<MatchListener> listeners = toList(current);
+        if (!listeners.remove(listener)) {
+            return current;
+        }
+        if (listeners.isEmpty()) {
+            return null;
+        }
+        return listeners.size() == 1 ? listeners.get(0) : new CompositeMatchListener(listeners);
+    }
+
+    @NotNull
+    private static List<MatchListener> toList(@Nullable MatchListener listener) {
+        if (listener instanceof CompositeMatchListener) {
+            return new ArrayList<>(Arrays.asList(((CompositeMatchListener) listener).listeners));
+        }
+        List<MatchListener> result = new ArrayList<>();
+        if (listener != null) {
+            result.add(listener);
+        }
+        return result;
+    }
+
+    @Nullable
+    @Override
+    public Object onMatchStart(@NotNull Type base, @NotNull Type candidate, boolean strict, int depth) {
+        // Token array is allocated only if some listener returns a token.
+        Object[] tokens = null;
+        for (int i = 0; i < listeners.length; ++i) {
+            Object token = listeners[i].onMatchStart(base, candidate, strict, depth);
+            if (token != null) {
+                if (tokens == null) {
+                    tokens = new Object[listeners.length];
+                }
+                tokens[i] = token;
+            }
+        }
+        return tokens;
+    }
+
+    @Override
+    public void onMatchEnd(@NotNull Type base,
+                           @NotNull Type candidate,
+                           boolean strict,
+                           int depth,
+                           @Nullable Boolean result,
+                           @NotNull CacheOutcome outcome,
+                           @Nullable Object token)
+    {
+        Object[] tokens = (Object[]) token;
+        for (int i = listeners.length - 1; i >= 0; --i) {
+            listeners[i].onMatchEnd(base, candidate, strict, depth, result, outcome,
+                                    tokens == null ? null : tokens[i]);
+        }
+    }
+
+    @Nullable
+    @Override
+    public Object onDelegateStart(@NotNull TypeComplianceMatcher<?> matcher, int depth) {
+        Object[] tokens = null;
+        for (int i = 0; i < listeners.length; ++i) {
+            Object token = listeners[i].onDelegateStart(matcher, depth);
+            if (token != null) {
+                if (tokens == null) {
+                    tokens = new Object[listeners.length];
+                }
+                tokens[i] = token;
+            }
+        }
+        return tokens;
+    }
+
+    @Override
+    public void onDelegateEnd(@NotNull TypeComplianceMatcher<?> matcher, int depth, @Nullable Object token) {
+        Object[] tokens = (Object[]) token;
+        for (int i = listeners.length - 1; i >= 0; --i) {
+            listeners[i].onDelegateEnd(matcher, depth, tokens == null ? null : tokens[i]);
+        }
+    }
+}
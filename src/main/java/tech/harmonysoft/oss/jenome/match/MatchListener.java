@@ -0,0 +1,85 @@
+package tech.harmonysoft.oss.jenome.match;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import tech.harmonysoft.oss.jenome.resolve.CacheOutcome;
+
+import java.lang.reflect.Type;
+
+/**
+ * <p>
+ *      Receives notifications about compliance checks, it's an extension point for optional features like
+ *      profiling, persistence and monitoring. Listeners are attached via
+ *      {@code CompositeTypeComplianceMatcher.addListener()}, several listeners can be
+ *      {@link CompositeMatchListener combined}.
+ * </p>
+ * <p>
+ *      Listeners are called at the checking thread for top-level and nested checks (including cache hits), so,
+ *      they are expected to be cheap. Every {@link #onMatchStart(Type, Type, boolean, int)} call is followed by
+ *      {@link #onMatchEnd(Type, Type, boolean, int, Boolean, CacheOutcome, Object)} for the same check, nested
+ *      checks, type argument resolutions and specialized matchers' work are reported between them.
+ * </p>
+ * <p>Implementations of this interface are assumed to be thread-safe.</p>
+ */
+public interface MatchListener {
+
+    /**
+     * Is called before a compliance check.
+     *
+     * @param base          base type
+     * @param candidate     candidate type
+     * @param strict        {@code 'strict'} flag
+     * @param depth         nesting depth of the check, top-level checks have zero depth
+     * @return              object to give to {@link #onMatchEnd(Type, Type, boolean, int, Boolean, CacheOutcome,
+     *                      Object)} for the current check, e.g. a timer; {@code null} if nothing should be given
+     */
+    @Nullable
+    default Object onMatchStart(@NotNull Type base, @NotNull Type candidate, boolean strict, int depth) {
+        return null;
+    }
+
+    /**
+     * Is called after a compliance check even if it has failed.
+     *
+     * @param base          base type
+     * @param candidate     candidate type
+     * @param strict        {@code 'strict'} flag
+     * @param depth         nesting depth of the check, top-level checks have zero depth
+     * @param result        check result; {@code null} if the check has failed
+     * @param outcome       identifies how the result is obtained
+     * @param token         object returned from {@link #onMatchStart(Type, Type, boolean, int)} for the current
+     *                      check
+     */
+    default void onMatchEnd(@NotNull Type base,
+                            @NotNull Type candidate,
+                            boolean strict,
+                            int depth,
+                            @Nullable Boolean result,
+                            @NotNull CacheOutcome outcome,
+                            @Nullable Object token)
+    {
+    }
+
+    /**
+     * Is called when a check which is not found at caches is delegated to a specialized matcher.
+     *
+     * @param matcher       specialized matcher which does the job
+     * @param depth         nesting depth of the check
+     * @return              object to give to {@link #onDelegateEnd(TypeComplianceMatcher, int, Object)};
+     *                      {@code null} if nothing should be given
+     */
+    @Nullable
+    default Object onDelegateStart(@NotNull TypeComplianceMatcher<?> matcher, int depth) {
+        return null;
+    }
+
+    /**
+     * Is called when a specialized matcher finishes the check even if it has failed.
+     *
+     * @param matcher       specialized matcher which did the job
+     * @param depth         nesting depth of the check
+     * @param token         object returned from {@link #onDelegateStart(TypeComplianceMatcher, int)}
+     */
+    default void onDelegateEnd(@NotNull TypeComplianceMatcher<?> matcher, int depth, @Nullable Object token) {
+    }
+}
@@ -2,6 +2,7 @@ package tech.harmonysoft.oss.jenome.match.impl;
 
 import tech.harmonysoft.oss.jenome.match.TypeComplianceMatcher;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.lang.reflect.*;
 
@@ -52,4 +53,10 @@ public abstract class AbstractDelegatingTypeComplianceMatcher<T extends Type> ex
     public AbstractTypeComplianceMatcher<Type> getDelegate() {
         return delegate;
     }
+
+    @Nullable
+    @Override
+    CompositeTypeComplianceMatcher getSessionMatcher() {
+        return delegate.getSessionMatcher();
+    }
 }
\ No newline at end of file
@@ -1,14 +1,15 @@
 package tech.harmonysoft.oss.jenome.match.impl;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import tech.harmonysoft.oss.jenome.match.TypeComplianceMatcher;
 import tech.harmonysoft.oss.jenome.resolve.TypeArgumentResolver;
+import tech.harmonysoft.oss.jenome.resolve.TypeFunction;
 import tech.harmonysoft.oss.jenome.resolve.TypeVisitor;
 import tech.harmonysoft.oss.jenome.resolve.impl.DefaultTypeArgumentResolver;
 import tech.harmonysoft.oss.jenome.resolve.util.TypeDispatcher;
 
-import java.lang.reflect.ParameterizedType;
-import java.lang.reflect.Type;
+import java.lang.reflect.*;
 import java.util.Collection;
 import java.util.Stack;
 import java.util.concurrent.atomic.AtomicReference;
@@ -30,25 +31,27 @@ public abstract class AbstractTypeComplianceMatcher<T extends Type> implements T
 
     /**
      * <p>
-     *      Holds stack of flags that indicate if {@code 'strict'} check is performed
-     *      (check {@link #match(Type, Type, boolean)}) contract for more details.
+     *      Holds stack of contexts of the checks which are performed by {@link #getVisitor() visitors} at the
+     *      current thread. Visitors get {@code 'strict'} flag from there via {@link #isStrict()}.
+     *      {@link #getFunction() Functions} get their {@link MatchContext context} as a parameter instead.
      * </p>
      * <p>
      *      We use static variable here in order to be able to keep track of {@code 'strict'} value across
      *      multiple instances of underlying classes.
      * </p>
      */
-    private static final ThreadLocal<Stack<Boolean>> STRICT = new ThreadLocal<>();
-    static {
-        Stack<Boolean> stack = new Stack<>();
-        stack.push(false);
-        STRICT.set(stack);
-    }
+    private static final ThreadLocal<Stack<MatchContext<?>>> VISITOR_CONTEXT = ThreadLocal.withInitial(Stack::new);
+
+    /**
+     * Is set when the first check is performed by a {@link #getVisitor() visitor}, {@link #VISITOR_CONTEXT} is not
+     * even looked at before that.
+     */
+    private static volatile boolean visitorsUsed;
 
     /**
      * <p>
-     *      Stores {@code 'base'} type used in comparison. That type is available to actual implementations
-     *      via {@link #getBaseType()} method.
+     *      Stores contexts of the checks performed by the current matcher's {@link #getVisitor() visitor}. The
+     *      {@code 'base'} type is available to it via {@link #getBaseType()} method.
      * </p>
      * <p>
      *      We use stack of values here in order to be able to handle the situation when the same matcher
@@ -59,13 +62,73 @@ public abstract class AbstractTypeComplianceMatcher<T extends Type> implements T
      *      track of base type between those comparisons.
      * </p>
      */
-    private final ThreadLocal<Stack<T>>                 baseType             = ThreadLocal.withInitial(Stack::new);
+    private final ThreadLocal<Stack<MatchContext<T>>>   context              = ThreadLocal.withInitial(Stack::new);
     private final ThreadLocal<Boolean>                  matched              = new ThreadLocal<>();
     private final AtomicReference<TypeArgumentResolver> typeArgumentResolver = new AtomicReference<>();
     private final TypeDispatcher                        typeDispatcher       = new TypeDispatcher();
 
+    /**
+     * {@code true} if {@link #getVisitor()} is overridden by a subclass of the class which provides
+     * {@link #getFunction() function}, the visitor is used then.
+     */
+    private final boolean visitorOverridden = isVisitorOverridden(getClass());
+
+    /** Adapts a {@link #getVisitor() visitor} of a matcher which doesn't provide a {@link #getFunction() function}. */
+    private final TypeFunction<MatchContext<T>, Boolean> visitorFunction
+            = new TypeFunction<MatchContext<T>, Boolean>()
+    {
+        @Override
+        public Boolean visitParameterizedType(@NotNull ParameterizedType type, @Nullable MatchContext<T> context) {
+            return visit(type, context);
+        }
+
+        @Override
+        public Boolean visitWildcardType(@NotNull WildcardType type, @Nullable MatchContext<T> context) {
+            return visit(type, context);
+        }
+
+        @Override
+        public Boolean visitGenericArrayType(@NotNull GenericArrayType type, @Nullable MatchContext<T> context) {
+            return visit(type, context);
+        }
+
+        @Override
+        public Boolean visitTypeVariable(@NotNull TypeVariable<? extends GenericDeclaration> type,
+                                         @Nullable MatchContext<T> context)
+        {
+            return visit(type, context);
+        }
+
+        @Override
+        public Boolean visitClass(@NotNull Class<?> clazz, @Nullable MatchContext<T> context) {
+            return visit(clazz, context);
+        }
+
+        @Override
+        public Boolean visitType(@NotNull Type type, @Nullable MatchContext<T> context) {
+            return visit(type, context);
+        }
+
+        @NotNull
+        private Boolean visit(@NotNull Type candidate, @Nullable MatchContext<T> context) {
+            if (!visitorsUsed) {
+                visitorsUsed = true;
+            }
+            Stack<MatchContext<?>> visitorContext = VISITOR_CONTEXT.get();
+            visitorContext.push(context);
+            AbstractTypeComplianceMatcher.this.context.get().push(context);
+            try {
+                typeDispatcher.dispatch(candidate, getVisitor());
+                return isMatched();
+            } finally {
+                AbstractTypeComplianceMatcher.this.context.get().pop();
+                visitorContext.pop();
+                matched.set(null);
+            }
+        }
+    };
+
     protected AbstractTypeComplianceMatcher() {
-        matched.set(false);
         setTypeArgumentResolver(DefaultTypeArgumentResolver.INSTANCE);
     }
 
@@ -78,15 +141,15 @@ public abstract class AbstractTypeComplianceMatcher<T extends Type> implements T
      * Template method that defines basic match algorithm:
      * <ol>
      *     <li>
-     *          given {@code 'base'} type is remembered at thread-local variable and is available
-     *          to subclasses via {@link #getBaseType()};
+     *          subclass is asked for {@link TypeFunction} implementation that contains all evaluation
+     *          logic ({@link #getFunction()}). Given {@code 'candidate'} type is dispatched to it with a
+     *          {@link MatchContext} which holds the {@code 'base'} type and given {@code 'strict'} flag as a
+     *          parameter. The function is assumed to return {@code true} if the types are matched, any other
+     *          result (including {@code null}) means that they are not matched;
      *     </li>
-     *     <li>given {@code 'strict'} parameter value is exposed to subclasses via {@link #isStrict()} method;</li>
      *     <li>
-     *          subclass is asked for {@link TypeVisitor} implementation that contains all evaluation
-     *          logic ({@link #getVisitor()}). That logic is assumed to store its processing result
-     *          via {@link #setMatched(boolean)} method. If that method is not called it's assumed that
-     *          result is {@code false};
+     *          the function performs nested checks via {@link #match(Type, Type, boolean, MatchContext)}, so,
+     *          the matchers know how deep the current check is;
      *     </li>
      * </ol>
      *
@@ -100,16 +163,46 @@ public abstract class AbstractTypeComplianceMatcher<T extends Type> implements T
      *                          of {@code 'base'} type; {@code false} otherwise
      */
     public boolean match(@NotNull T base, @NotNull Type candidate, boolean strict) {
-        baseType.get().push(base);
-        STRICT.get().push(strict);
-        try {
-            typeDispatcher.dispatch(candidate, getVisitor());
-            return isMatched();
-        } finally {
-            baseType.get().pop();
-            matched.set(null);
-            STRICT.get().pop();
+        int depth = 0;
+        if (visitorsUsed) {
+            // Visitors perform nested checks via this method, so, their depth is taken from the visitor context.
+            Stack<MatchContext<?>> visitorContext = VISITOR_CONTEXT.get();
+            if (!visitorContext.isEmpty()) {
+                depth = visitorContext.peek().getDepth() + 1;
+            }
         }
+        return match(base, candidate, strict, depth);
+    }
+
+    /**
+     * Performs a check nested into the one described by the given context, e.g. a check for type arguments
+     * of the parameterized types being checked. Follows {@link #match(Type, Type, boolean)} contract otherwise.
+     *
+     * @param base              base type
+     * @param candidate         candidate type
+     * @param strict            {@code 'strict'} flag as defined by {@link #match(Type, Type, boolean)}
+     * @param parent            context of the check which performs the current check
+     * @return                  {@code true} if given {@code 'candidate'} type may be used in place
+     *                          of {@code 'base'} type; {@code false} otherwise
+     */
+    public boolean match(@NotNull T base, @NotNull Type candidate, boolean strict, @NotNull MatchContext<?> parent) {
+        return match(base, candidate, strict, parent.getDepth() + 1);
+    }
+
+    /**
+     * Follows {@link #match(Type, Type, boolean)} contract for a check performed at the given depth.
+     *
+     * @param base              base type
+     * @param candidate         candidate type
+     * @param strict            {@code 'strict'} flag as defined by {@link #match(Type, Type, boolean)}
+     * @param depth             number of checks which are in progress at the current thread and which
+     *                          perform the current check, i.e. {@code 0} for a top-level check
+     * @return                  {@code true} if given {@code 'candidate'} type may be used in place
+     *                          of {@code 'base'} type; {@code false} otherwise
+     */
+    protected boolean match(@NotNull T base, @NotNull Type candidate, boolean strict, int depth) {
+        TypeFunction<MatchContext<T>, Boolean> function = visitorOverridden ? visitorFunction : getFunction();
+        return typeDispatcher.apply(candidate, function, new MatchContext<>(base, strict, depth)) == Boolean.TRUE;
     }
 
     /**
@@ -133,10 +226,62 @@ public abstract class AbstractTypeComplianceMatcher<T extends Type> implements T
     }
 
     /**
-     * <p>Assumed to be implemented at subclass and contain actual comparison logic.</p>
+     * Resolves type argument via {@link #getTypeArgumentResolver() current resolver}. The result is memoized
+     * if there is a {@link MatchSession} opened at the current thread.
+     *
+     * @param base      base type
+     * @param target    target type
+     * @param index     type argument index
+     * @return          resolved type argument
+     * @throws IllegalArgumentException     as defined by {@link TypeArgumentResolver#resolve(Type, Type, int)}
+     */
+    @NotNull
+    protected Type resolveTypeArgument(@NotNull Type base, @NotNull Type target, int index)
+            throws IllegalArgumentException
+    {
+        return MatchSession.wrap(getTypeArgumentResolver(), getSessionMatcher()).resolve(base, target, index);
+    }
+
+    /**
+     * @return      composite matcher which {@link MatchSession sessions} are used by the current matcher;
+     *              {@code null} if the current matcher is not driven by a composite matcher
+     */
+    @Nullable
+    CompositeTypeComplianceMatcher getSessionMatcher() {
+        return null;
+    }
+
+    /**
+     * <p>Assumed to be overridden at subclass and contain actual comparison logic.</p>
+     * <p>
+     *      Check {@link #match(Type, Type, boolean)} contract for more details about how the function should
+     *      use various processing parameters and return processing result.
+     * </p>
+     * <p>
+     *      Default implementation adapts the {@link #getVisitor() visitor} for the subclasses which are not
+     *      migrated to functions yet. The visitor is used instead of the function as well if it's overridden
+     *      by a subclass of the class which provides the function.
+     * </p>
+     *
+     * @return      function that contains target comparison logic, it receives {@link MatchContext context}
+     *              of the current check as a parameter
+     */
+    @NotNull
+    protected TypeFunction<MatchContext<T>, Boolean> getFunction() {
+        return visitorFunction;
+    }
+
+    /**
      * <p>
-     *      Check {@link #match(Type, Type, boolean)} contract for more details about how the visitor should
-     *      use various processing parameters and store processing result.
+     *      Visitor-based alternative to {@link #getFunction()}. The visitor uses {@link #getBaseType()} and
+     *      {@link #isStrict()} as processing parameters and stores its processing result via
+     *      {@link #setMatched(boolean)}. If that method is not called it's assumed that result is {@code false}.
+     * </p>
+     * <p>
+     *      It's used only if {@link #getFunction()} is not overridden or if this method is overridden by
+     *      a subclass of the class which overrides {@link #getFunction()}. Matchers which provide a function
+     *      are expected to return it {@link #asVisitor(TypeFunction) adapted} to a visitor here, so, their
+     *      subclasses can decorate it.
      * </p>
      *
      * @return      visitor that contains target comparison logic
@@ -144,38 +289,86 @@ public abstract class AbstractTypeComplianceMatcher<T extends Type> implements T
     @NotNull
     protected abstract TypeVisitor getVisitor();
 
+    /**
+     * Adapts given function to the {@link #getVisitor() visitor} contract, i.e. the function receives context
+     * of the current visitor-based check as a parameter and its result is stored via {@link #setMatched(boolean)}.
+     * The result is expected to be created once per matcher.
+     *
+     * @param function      function which contains target comparison logic
+     * @return              visitor which delegates to the given function
+     */
+    @SuppressWarnings("deprecation")
+    @NotNull
+    protected final TypeVisitor asVisitor(@NotNull TypeFunction<MatchContext<T>, Boolean> function) {
+        return new TypeVisitor() {
+            @Override
+            public void visitParameterizedType(@NotNull ParameterizedType type) {
+                setMatched(function.visitParameterizedType(type, getContext()) == Boolean.TRUE);
+            }
+
+            @Override
+            public void visitWildcardType(@NotNull WildcardType type) {
+                setMatched(function.visitWildcardType(type, getContext()) == Boolean.TRUE);
+            }
+
+            @Override
+            public void visitGenericArrayType(@NotNull GenericArrayType type) {
+                setMatched(function.visitGenericArrayType(type, getContext()) == Boolean.TRUE);
+            }
+
+            @Override
+            public void visitTypeVariable(@NotNull TypeVariable<? extends GenericDeclaration> type) {
+                setMatched(function.visitTypeVariable(type, getContext()) == Boolean.TRUE);
+            }
+
+            @Override
+            public void visitClass(@NotNull Class<?> clazz) {
+                setMatched(function.visitClass(clazz, getContext()) == Boolean.TRUE);
+            }
+
+            @Override
+            public void visitType(@NotNull Type type) {
+                setMatched(function.visitType(type, getContext()) == Boolean.TRUE);
+            }
+        };
+    }
+
     /**
      * Allows to retrieve {@code 'base'} type given to {@link #match(Type, Type, boolean)}
-     * ({@link #match(Type, Type)}).
+     * ({@link #match(Type, Type)}), is available only to a {@link #getVisitor() visitor}.
      *
      * @return      {@code 'base'} type given to {@link #match(Type, Type, boolean)} ({@link #match(Type, Type)})
-     *              if this method is called during {@code 'match()'} method call; {@code null} if this
-     *              method is called before or after {@code 'match()'} call
+     *              if this method is called during {@code 'match()'} method call
+     * @throws IllegalStateException    if this method is called not from a {@link #getVisitor() visitor}
      */
     @NotNull
-    protected T getBaseType() {
-        T result = baseType.get().peek();
-        if (result == null) {
-            throw new IllegalStateException("Can't find a base type. Make sure that the call is performed during "
-                                            + "match() processing");
-        }
-        return result;
+    protected T getBaseType() throws IllegalStateException {
+        return getContext().getBase();
     }
 
     /**
-     * Allows to define matching result.
+     * Allows to define matching result from a {@link #getVisitor() visitor}.
      *
      * @param matched       flag that shows if types are matched
+     * @deprecated  {@link #getFunction() functions} return the result instead
      */
+    @Deprecated
     protected void setMatched(boolean matched) {
         this.matched.set(matched);
     }
 
     /**
-     * @return      {@code 'strict'} parameter given to {@link #match(Type, Type, boolean)} method
+     * @return      {@code 'strict'} parameter given to {@link #match(Type, Type, boolean)} method, is available
+     *              only to a {@link #getVisitor() visitor}
+     * @deprecated  {@link #getFunction() functions} get it from the {@link MatchContext#isStrict() context}
      */
+    @Deprecated
     protected boolean isStrict() {
-        return STRICT.get().peek();
+        if (!visitorsUsed) {
+            return false;
+        }
+        Stack<MatchContext<?>> visitorContext = VISITOR_CONTEXT.get();
+        return !visitorContext.isEmpty() && visitorContext.peek().isStrict();
     }
 
     /**
@@ -189,8 +382,106 @@ public abstract class AbstractTypeComplianceMatcher<T extends Type> implements T
         typeDispatcher.dispatch(type, visitor);
     }
 
+    /**
+     * <p>Allows to apply given function to the given type.</p>
+     * <p>Follows {@link TypeDispatcher#apply(Type, TypeFunction, Object)} contract.</p>
+     *
+     * @param type          type to dispatch
+     * @param function      function to apply
+     * @param parameter     parameter to give to the function
+     * @param <P>           parameter type
+     * @param <R>           result type
+     * @return              function result
+     */
+    @Nullable
+    protected <P, R> R apply(@NotNull Type type, @NotNull TypeFunction<P, R> function, @Nullable P parameter) {
+        return typeDispatcher.apply(type, function, parameter);
+    }
+
     private boolean isMatched() {
         Boolean matched = this.matched.get();
         return matched == Boolean.TRUE;
     }
-}
\ No newline at end of file
+
+    @NotNull
+    private MatchContext<T> getContext() throws IllegalStateException {
+        Stack<MatchContext<T>> stack = context.get();
+        if (stack.isEmpty()) {
+            throw new IllegalStateException("Can't find a base type. Make sure that the call is performed during "
+                                            + "match() processing by a visitor");
+        }
+        return stack.peek();
+    }
+
+    /**
+     * @param clazz     matcher class
+     * @return          {@code true} if the closest class which overrides {@link #getVisitor()} is a subclass
+     *                  of the closest class which overrides {@link #getFunction()}; {@code false} otherwise
+     */
+    private static boolean isVisitorOverridden(@NotNull Class<?> clazz) {
+        for (Class<?> c = clazz; c != AbstractTypeComplianceMatcher.class; c = c.getSuperclass()) {
+            if (declares(c, "getFunction")) {
+                return false;
+            }
+            if (declares(c, "getVisitor")) {
+                // Default function adapts the visitor anyway if no class overrides it.
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean declares(@NotNull Class<?> clazz, @NotNull String methodName) {
+        try {
+            clazz.getDeclaredMethod(methodName);
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * <p>
+     *      Context of a single {@link #match(Type, Type, boolean)} call, is given to
+     *      {@link #getFunction() functions}.
+     * </p>
+     * <p>Thread-safe.</p>
+     *
+     * @param <T>   target {@code 'base'} type
+     */
+    public static final class MatchContext<T extends Type> {
+
+        @NotNull private final T       base;
+        private final          boolean strict;
+        private final          int     depth;
+
+        MatchContext(@NotNull T base, boolean strict, int depth) {
+            this.base = base;
+            this.strict = strict;
+            this.depth = depth;
+        }
+
+        /**
+         * @return      {@code 'base'} type given to {@link #match(Type, Type, boolean)}
+         */
+        @NotNull
+        public T getBase() {
+            return base;
+        }
+
+        /**
+         * @return      {@code 'strict'} flag given to {@link #match(Type, Type, boolean)}
+         */
+        public boolean isStrict() {
+            return strict;
+        }
+
+        /**
+         * @return      number of checks which are in progress at the current thread and which perform
+         *              the current check, i.e. {@code 0} for a top-level check
+         */
+        public int getDepth() {
+            return depth;
+        }
+    }
+}
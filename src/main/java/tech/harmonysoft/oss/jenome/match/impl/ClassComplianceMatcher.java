@@ -1,58 +1,67 @@
 package tech.harmonysoft.oss.jenome.match.impl;
 
 import org.jetbrains.annotations.NotNull;
+import tech.harmonysoft.oss.jenome.resolve.TypeFunction;
 import tech.harmonysoft.oss.jenome.resolve.TypeVisitor;
-import tech.harmonysoft.oss.jenome.resolve.impl.TypeVisitorAdapter;
+import tech.harmonysoft.oss.jenome.resolve.impl.TypeFunctionAdapter;
+import tech.harmonysoft.oss.jenome.resolve.util.ReflectionCache;
 
 import java.lang.reflect.*;
 
 public class ClassComplianceMatcher extends AbstractDelegatingTypeComplianceMatcher<Class<?>> {
 
-    private final TypeVisitor visitor = new TypeVisitorAdapter() {
+    private final TypeFunction<MatchContext<Class<?>>, Boolean> function
+            = new TypeFunctionAdapter<MatchContext<Class<?>>, Boolean>()
+    {
         @Override
-        public void visitParameterizedType(@NotNull ParameterizedType type) {
-            setMatched(getDelegate().match(getBaseType(), type.getRawType()));
+        public Boolean visitParameterizedType(@NotNull ParameterizedType type, MatchContext<Class<?>> context) {
+            return getDelegate().match(context.getBase(), type.getRawType(), false, context);
         }
 
         @Override
-        public void visitWildcardType(@NotNull WildcardType type) {
-            for (Type upperBoundType : type.getUpperBounds()) {
-                if (!getDelegate().match(getBaseType(), upperBoundType, true)) {
-                    return;
+        public Boolean visitWildcardType(@NotNull WildcardType type, MatchContext<Class<?>> context) {
+            Class<?> base = context.getBase();
+            for (Type upperBoundType : ReflectionCache.getUpperBounds(type)) {
+                if (!getDelegate().match(base, upperBoundType, true, context)) {
+                    return false;
                 }
             }
 
-            setMatched(type.getLowerBounds().length <= 0 || getBaseType() == Object.class);
+            return ReflectionCache.getLowerBounds(type).length <= 0 || base == Object.class;
         }
 
         @Override
-        public void visitGenericArrayType(@NotNull GenericArrayType type) {
-            if (!getBaseType().isArray()) {
-                setMatched(false);
-                return;
+        public Boolean visitGenericArrayType(@NotNull GenericArrayType type, MatchContext<Class<?>> context) {
+            Class<?> base = context.getBase();
+            if (!base.isArray()) {
+                return false;
             }
 
-            setMatched(getDelegate().match(getBaseType().getComponentType(), type.getGenericComponentType(), true));
+            return getDelegate().match(base.getComponentType(), type.getGenericComponentType(), true, context);
         }
 
         @Override
-        public void visitTypeVariable(@NotNull TypeVariable<? extends GenericDeclaration> type) {
+        public Boolean visitTypeVariable(@NotNull TypeVariable<? extends GenericDeclaration> type,
+                                         MatchContext<Class<?>> context)
+        {
             // We know that java.lang.Object is returned if no upper bound is defined explicitly.
-            for (Type upperBoundType : type.getBounds()) {
-                if (!getDelegate().match(getBaseType(), upperBoundType)) {
-                    return;
+            for (Type upperBoundType : ReflectionCache.getBounds(type)) {
+                if (!getDelegate().match(context.getBase(), upperBoundType, false, context)) {
+                    return false;
                 }
             }
-            setMatched(true);
+            return true;
         }
 
         @Override
-        public void visitClass(@NotNull Class<?> clazz) {
-            boolean matched = isStrict() ? getBaseType() == clazz : getBaseType().isAssignableFrom(clazz);
-            setMatched(matched);
+        public Boolean visitClass(@NotNull Class<?> clazz, MatchContext<Class<?>> context) {
+            Class<?> base = context.getBase();
+            return context.isStrict() ? base == clazz : base.isAssignableFrom(clazz);
         }
     };
 
+    private final TypeVisitor visitor = asVisitor(function);
+
     public ClassComplianceMatcher() {
     }
 
@@ -60,9 +69,15 @@ public class ClassComplianceMatcher extends AbstractDelegatingTypeComplianceMatc
         super(delegate);
     }
 
+    @NotNull
+    @Override
+    protected TypeFunction<MatchContext<Class<?>>, Boolean> getFunction() {
+        return function;
+    }
+
     @NotNull
     @Override
     protected TypeVisitor getVisitor() {
         return visitor;
     }
-}
\ No newline at end of file
+}
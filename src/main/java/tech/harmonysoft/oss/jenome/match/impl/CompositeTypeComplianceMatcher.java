@@ -1,16 +1,43 @@
 package tech.harmonysoft.oss.jenome.match.impl;
 
+import tech.harmonysoft.oss.jenome.cache.CacheStats;
+import tech.harmonysoft.oss.jenome.cache.JenomeCache;
+import tech.harmonysoft.oss.jenome.cache.JenomeCacheFactory;
+import tech.harmonysoft.oss.jenome.cache.UnboundedJenomeCache;
+import tech.harmonysoft.oss.jenome.match.CompositeMatchListener;
+import tech.harmonysoft.oss.jenome.match.MatchListener;
 import tech.harmonysoft.oss.jenome.match.TypeComplianceMatcher;
+import tech.harmonysoft.oss.jenome.resolve.CacheOutcome;
+import tech.harmonysoft.oss.jenome.resolve.TypeArgumentResolver;
+import tech.harmonysoft.oss.jenome.resolve.TypeFunction;
 import tech.harmonysoft.oss.jenome.resolve.TypeVisitor;
+import tech.harmonysoft.oss.jenome.resolve.util.ClassLoaderAwareCache;
+import tech.harmonysoft.oss.jenome.resolve.util.ReflectionCache;
 import org.jetbrains.annotations.NotNull;
 
 import java.lang.reflect.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * <p>
  *      Generalizes {@link TypeComplianceMatcher} contract in order to perform double dispatch for the
  *      {@code 'base'} type in order to delegate the job to more specialized implementation.
  * </p>
+ * <p>
+ *      Match results are kept at a {@link ClassLoaderAwareCache class loader-aware cache}. That covers nested
+ *      checks as well because specialized implementations delegate back to this matcher.
+ * </p>
+ * <p>
+ *      Results found at that shared cache are also remembered at a small per-thread
+ *      {@link DirectMappedMatchCache direct-mapped cache} which is checked first, so, the hottest checks don't
+ *      touch shared memory at all.
+ * </p>
+ * <p>
+ *      Trivial checks (e.g. class vs class) are decided by a {@link MatchPrefilter} even before that, their
+ *      results are not cached.
+ * </p>
  * <p>This class is not singleton but offers single-point-of-usage field ({@link #INSTANCE}).</p>
  * <p>Thread-safe.</p>
  */
@@ -19,6 +46,9 @@ public class CompositeTypeComplianceMatcher extends AbstractTypeComplianceMatche
     /** Single-point-of-usage field. */
     public static final CompositeTypeComplianceMatcher INSTANCE = new CompositeTypeComplianceMatcher();
 
+    /** Name of the match results cache given to a {@link JenomeCacheFactory}. */
+    public static final String CACHE_NAME = "matcher";
+
     private final ClassComplianceMatcher classComplianceMatcher = new ClassComplianceMatcher(this);
     private final WildcardTypeComplianceMatcher wildcardTypeComplianceMatcher
                                                                 = new WildcardTypeComplianceMatcher(this);
@@ -29,52 +59,338 @@ public class CompositeTypeComplianceMatcher extends AbstractTypeComplianceMatche
     private final TypeVariableComplianceMatcher typeVariableComplianceMatcher = new TypeVariableComplianceMatcher(this);
     private final TopLevelTypeComplianceMatcher topLevelTypeComplianceMatcher = new TopLevelTypeComplianceMatcher(this);
 
-    private final TypeVisitor visitor = new TypeVisitor() {
+    /** Number of slots in every thread-local match results cache. */
+    private static final int THREAD_LOCAL_CACHE_SIZE = 256;
+
+    /** Cache outcomes by their ordinals, see {@link #matchCached(Type, Type, boolean, int)}. */
+    private static final CacheOutcome[] OUTCOMES = CacheOutcome.values();
+
+    /** Holds match results. */
+    private final ClassLoaderAwareCache<MatchKey, Boolean> cache = new ClassLoaderAwareCache<>();
+
+    /**
+     * Holds the hottest match results for the current thread. Only results for the types which are visible
+     * to jenome's class loader are stored there, otherwise long-living threads would prevent classes unloading.
+     */
+    private final ThreadLocal<DirectMappedMatchCache> threadLocalCache
+            = ThreadLocal.withInitial(() -> new DirectMappedMatchCache(THREAD_LOCAL_CACHE_SIZE));
+
+    /** Is incremented on every cache clear, thread-local caches drop their content when it changes. */
+    private final AtomicInteger cacheGeneration = new AtomicInteger();
+
+    /**
+     * {@link TypeArgumentResolver#getConfigurationGeneration() Configuration generation} of the type argument
+     * resolver the cached results are calculated with, the caches are cleared when it changes.
+     */
+    private final AtomicInteger resolverGeneration = new AtomicInteger(-1);
+
+    private final MatchPrefilter prefilter        = new MatchPrefilter();
+    private final AtomicBoolean  prefilterEnabled = new AtomicBoolean(true);
+
+    private final AtomicReference<MatchListener> listener = new AtomicReference<>();
+
+    /**
+     * Receives {@code 'base'} type to dispatch and a context which holds {@code 'candidate'} type as its
+     * {@link MatchContext#getBase() base} as a parameter.
+     */
+    private final TypeFunction<MatchContext<Type>, Boolean> function = new TypeFunction<MatchContext<Type>, Boolean>() {
         @Override
-        public void visitParameterizedType(@NotNull ParameterizedType type) {
-            setMatched(parameterizedTypeComplianceMatcher.match(type, getBaseType(), isStrict()));
+        public Boolean visitParameterizedType(@NotNull ParameterizedType type, MatchContext<Type> context) {
+            return delegate(parameterizedTypeComplianceMatcher, type, context);
         }
 
         @Override
-        public void visitWildcardType(@NotNull WildcardType type) {
-            setMatched(wildcardTypeComplianceMatcher.match(type, getBaseType(), isStrict()));
+        public Boolean visitWildcardType(@NotNull WildcardType type, MatchContext<Type> context) {
+            return delegate(wildcardTypeComplianceMatcher, type, context);
         }
 
         @Override
-        public void visitGenericArrayType(@NotNull GenericArrayType type) {
-            setMatched(genericArrayTypeComplianceMatcher.match(type, getBaseType(), isStrict()));
+        public Boolean visitGenericArrayType(@NotNull GenericArrayType type, MatchContext<Type> context) {
+            return delegate(genericArrayTypeComplianceMatcher, type, context);
         }
 
         @Override
-        public void visitTypeVariable(@NotNull TypeVariable<? extends GenericDeclaration> type) {
-            setMatched(typeVariableComplianceMatcher.match(type, getBaseType(), isStrict()));
+        public Boolean visitTypeVariable(@NotNull TypeVariable<? extends GenericDeclaration> type,
+                                         MatchContext<Type> context)
+        {
+            return delegate(typeVariableComplianceMatcher, type, context);
         }
 
         @Override
-        public void visitClass(@NotNull Class<?> clazz) {
-            setMatched(classComplianceMatcher.match(clazz, getBaseType(), isStrict()));
+        public Boolean visitClass(@NotNull Class<?> clazz, MatchContext<Type> context) {
+            return delegate(classComplianceMatcher, clazz, context);
         }
 
         @Override
-        public void visitType(@NotNull Type type) {
-            setMatched(topLevelTypeComplianceMatcher.match(type, getBaseType(), isStrict()));
+        public Boolean visitType(@NotNull Type type, MatchContext<Type> context) {
+            return delegate(topLevelTypeComplianceMatcher, type, context);
         }
     };
 
+    private final TypeVisitor visitor = asVisitor(function);
+
     @Override
     public boolean match(@NotNull Type base, @NotNull Type candidate) throws IllegalArgumentException {
-        // Overrides basic method in order to perform triple dispatch. I.e. first type dispatch is performed
-        // against 'base' type in order to find corresponding TypeComplianceMatcher implementation and that
-        // implementation is asked to check given 'candidate' type.
-        return super.match(candidate, base, false);
+        return match(base, candidate, false);
     }
 
     @Override
-    public boolean match(@NotNull Type base, @NotNull Type candidate, boolean topLevelCheck) {
+    protected boolean match(@NotNull Type base, @NotNull Type candidate, boolean topLevelCheck, int depth) {
+        MatchListener listener = this.listener.get();
+        if (listener == null) {
+            return matchCached(base, candidate, topLevelCheck, depth) % 2 != 0;
+        }
+        Object token = listener.onMatchStart(base, candidate, topLevelCheck, depth);
+        int result = -1;
+        try {
+            result = matchCached(base, candidate, topLevelCheck, depth);
+            return result % 2 != 0;
+        } finally {
+            if (result < 0) {
+                listener.onMatchEnd(base, candidate, topLevelCheck, depth, null, CacheOutcome.UNCACHED, token);
+            } else {
+                listener.onMatchEnd(base, candidate, topLevelCheck, depth, result % 2 != 0, OUTCOMES[result / 2],
+                                    token);
+            }
+        }
+    }
+
+    /**
+     * Puts given match result to the cache as if it was calculated by the current matcher, e.g. when it's
+     * restored from a persistent storage. Nothing is done if there is a cached result already.
+     *
+     * @param base          base type
+     * @param candidate     candidate type
+     * @param strict        {@code 'strict'} flag
+     * @param result        match result
+     */
+    public void preload(@NotNull Type base, @NotNull Type candidate, boolean strict, boolean result) {
+        Class<?> owner = ReflectionCache.getCommonCacheOwner(ReflectionCache.getCacheOwner(base),
+                                                             ReflectionCache.getCacheOwner(candidate));
+        cache.put(new MatchKey(base, candidate, strict, getResolverGeneration()), result, owner);
+    }
+
+    /**
+     * Uses given resolver at all type-specific matchers and drops all cached match results.
+     *
+     * @param typeArgumentResolver      custom type argument resolver to use
+     */
+    @Override
+    public void setTypeArgumentResolver(@NotNull TypeArgumentResolver typeArgumentResolver) {
+        super.setTypeArgumentResolver(typeArgumentResolver);
+        if (cache == null) {
+            // Is called from the super class constructor, the default resolver is used by all matchers then.
+            return;
+        }
+        classComplianceMatcher.setTypeArgumentResolver(typeArgumentResolver);
+        wildcardTypeComplianceMatcher.setTypeArgumentResolver(typeArgumentResolver);
+        parameterizedTypeComplianceMatcher.setTypeArgumentResolver(typeArgumentResolver);
+        genericArrayTypeComplianceMatcher.setTypeArgumentResolver(typeArgumentResolver);
+        typeVariableComplianceMatcher.setTypeArgumentResolver(typeArgumentResolver);
+        topLevelTypeComplianceMatcher.setTypeArgumentResolver(typeArgumentResolver);
+        clearCache();
+    }
+
+    /**
+     * Opens a {@link MatchSession} bound to the current thread. All match results and type argument resolutions
+     * performed by the current matcher at the current thread are memoized by the session until it's closed.
+     *
+     * @return      new session
+     */
+    @NotNull
+    public MatchSession openSession() {
+        return new MatchSession(this);
+    }
+
+    /**
+     * Drops all cached match results.
+     */
+    public void clearCache() {
+        cache.clear();
+        cacheGeneration.incrementAndGet();
+    }
+
+    /**
+     * @return      number of cached match results
+     */
+    public int getCacheSize() {
+        return cache.size();
+    }
+
+    /**
+     * @return      match cache statistics
+     */
+    @NotNull
+    public CacheStats getCacheStats() {
+        return cache.getStats();
+    }
+
+    /**
+     * @return      maximum number of cached match results which don't reference classes invisible to jenome;
+     *              {@link JenomeCache#UNBOUNDED} if it's not limited
+     */
+    public int getCacheMaximumSize() {
+        return cache.getSharedCache().getMaximumSize();
+    }
+
+    /**
+     * <p>
+     *      Starts notifying given listener about all top-level and nested checks performed by the current
+     *      matcher, e.g. in order to record or time them. Nothing is done if the listener is already attached.
+     * </p>
+     * <p>No listeners are attached by default.</p>
+     *
+     * @param listener      listener to attach
+     */
+    public void addListener(@NotNull MatchListener listener) {
+        this.listener.updateAndGet(current -> CompositeMatchListener.add(current, listener));
+    }
+
+    /**
+     * Stops notifying given listener, nothing is done if it's not attached.
+     *
+     * @param listener      listener to detach
+     */
+    public void removeListener(@NotNull MatchListener listener) {
+        this.listener.updateAndGet(current -> CompositeMatchListener.remove(current, listener));
+    }
+
+    /**
+     * <p>
+     *      Allows to define custom cache implementation to use for match results, current cache content
+     *      is dropped.
+     * </p>
+     * <p>{@link UnboundedJenomeCache#FACTORY} is used by default.</p>
+     *
+     * @param cacheFactory      factory to create the cache
+     */
+    public void setCacheFactory(@NotNull JenomeCacheFactory cacheFactory) {
+        cache.setSharedCache(cacheFactory.newCache(CACHE_NAME));
+        clearCache();
+    }
+
+    /**
+     * @return      prefilter which decides trivial checks, it holds number of checks decided by every its rule
+     */
+    @NotNull
+    public MatchPrefilter getPrefilter() {
+        return prefilter;
+    }
+
+    /**
+     * @return      {@code true} if trivial checks are decided by the {@link #getPrefilter() prefilter};
+     *              {@code false} otherwise
+     */
+    public boolean isPrefilterEnabled() {
+        return prefilterEnabled.get();
+    }
+
+    /**
+     * <p>
+     *      Allows to define if trivial checks should be decided by the {@link #getPrefilter() prefilter}.
+     *      Match results are the same either way, the prefilter just makes them cheaper.
+     * </p>
+     * <p>The prefilter is enabled by default.</p>
+     *
+     * @param enabled       flag which identifies if the prefilter should be used
+     */
+    public void setPrefilterEnabled(boolean enabled) {
+        prefilterEnabled.set(enabled);
+    }
+
+    /**
+     * @return      match result and its cache outcome packed as {@code 'outcome.ordinal() * 2 + (result ? 1 : 0)'},
+     *              that way listeners get the outcome without allocations
+     */
+    private int matchCached(@NotNull Type base, @NotNull Type candidate, boolean topLevelCheck, int depth) {
+        if (prefilterEnabled.get()) {
+            int prefiltered = prefilter.check(base, candidate, topLevelCheck);
+            if (prefiltered != MatchPrefilter.UNDECIDED) {
+                return pack(prefiltered != 0, CacheOutcome.PREFILTERED);
+            }
+        }
+
+        int configuration = getResolverGeneration();
+        DirectMappedMatchCache localCache = threadLocalCache.get();
+        int generation = cacheGeneration.get();
+        int localResult = localCache.get(base, candidate, topLevelCheck, generation);
+        if (localResult != DirectMappedMatchCache.ABSENT) {
+            return pack(localResult != 0, CacheOutcome.THREAD_LOCAL_HIT);
+        }
+
+        MatchKey key = new MatchKey(base, candidate, topLevelCheck, configuration);
+        MatchSession session = MatchSession.current(this);
+        if (session != null) {
+            Boolean sessionResult = session.getMatch(key);
+            if (sessionResult != null) {
+                return pack(sessionResult, CacheOutcome.SESSION_HIT);
+            }
+        }
+
+        Class<?> owner = ReflectionCache.getCommonCacheOwner(ReflectionCache.getCacheOwner(base),
+                                                             ReflectionCache.getCacheOwner(candidate));
+        Boolean result = cache.get(key, owner);
+        if (result != null) {
+            if (owner != null && ReflectionCache.isCacheSafe(owner)) {
+                localCache.put(base, candidate, topLevelCheck, result, generation);
+            }
+            return pack(result, CacheOutcome.HIT);
+        }
+
         // Overrides basic method in order to perform triple dispatch. I.e. first type dispatch is performed
         // against 'base' type in order to find corresponding TypeComplianceMatcher implementation and that
         // implementation is asked to check given 'candidate' type.
-        return super.match(candidate, base, topLevelCheck);
+        result = super.match(candidate, base, topLevelCheck, depth);
+        cache.put(key, result, owner);
+        if (session != null) {
+            session.putMatch(key, result);
+        }
+        return pack(result, owner == null ? CacheOutcome.UNCACHED : CacheOutcome.MISS);
+    }
+
+    private static int pack(boolean result, @NotNull CacheOutcome outcome) {
+        return outcome.ordinal() * 2 + (result ? 1 : 0);
+    }
+
+    /**
+     * @return      configuration generation of the current type argument resolver; all cached results are
+     *              dropped if it's changed since the previous call
+     */
+    private int getResolverGeneration() {
+        int result = getTypeArgumentResolver().getConfigurationGeneration();
+        if (resolverGeneration.getAndSet(result) != result) {
+            clearCache();
+        }
+        return result;
+    }
+
+    @NotNull
+    @Override
+    CompositeTypeComplianceMatcher getSessionMatcher() {
+        return this;
+    }
+
+    private <T extends Type> boolean delegate(@NotNull AbstractTypeComplianceMatcher<T> matcher,
+                                              @NotNull T base,
+                                              @NotNull MatchContext<Type> context)
+    {
+        // The context holds the candidate type as its base, see matchCached().
+        MatchListener listener = this.listener.get();
+        if (listener == null) {
+            return matcher.match(base, context.getBase(), context.isStrict(), context);
+        }
+        Object token = listener.onDelegateStart(matcher, context.getDepth());
+        try {
+            return matcher.match(base, context.getBase(), context.isStrict(), context);
+        } finally {
+            listener.onDelegateEnd(matcher, context.getDepth(), token);
+        }
+    }
+
+    @NotNull
+    @Override
+    protected TypeFunction<MatchContext<Type>, Boolean> getFunction() {
+        return function;
     }
 
     @NotNull
@@ -82,4 +398,44 @@ public class CompositeTypeComplianceMatcher extends AbstractTypeComplianceMatche
     protected TypeVisitor getVisitor() {
         return visitor;
     }
+
+    private static class MatchKey {
+
+        @NotNull private final Type    base;
+        @NotNull private final Type    candidate;
+        private final          boolean strict;
+        private final          int     resolverGeneration;
+        private final          int     hashCode;
+
+        MatchKey(@NotNull Type base, @NotNull Type candidate, boolean strict, int resolverGeneration) {
+            this.base = base;
+            this.candidate = candidate;
+            this.strict = strict;
+            this.resolverGeneration = resolverGeneration;
+            hashCode = 31 * (31 * base.hashCode() + candidate.hashCode()) + (strict ? 1 : 0);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof MatchKey)) {
+                return false;
+            }
+            MatchKey that = (MatchKey) o;
+            return hashCode == that.hashCode && strict == that.strict && resolverGeneration == that.resolverGeneration
+                   && base.equals(that.base) && candidate.equals(that.candidate);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("match(%s, %s, %b)", base.getTypeName(), candidate.getTypeName(), strict);
+        }
+    }
 }
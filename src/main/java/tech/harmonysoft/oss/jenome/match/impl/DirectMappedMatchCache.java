@@ -0,0 +1,99 @@
+package tech.harmonysoft.oss.jenome.match.impl;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Type;
+import java.util.Arrays;
+
+/**
+ * <p>
+ *      Small fixed-size cache of match results which is intended to be confined to a single thread. Every
+ *      {@code (base, candidate, strict)} triple is mapped to a single slot by the identity hash codes of the types,
+ *      a new entry just overwrites the previous one at the same slot.
+ * </p>
+ * <p>
+ *      Neither lookups nor updates allocate or synchronize - types are compared by identity and results are
+ *      stored at flat arrays. Entries are bound to a {@code 'generation'} number, a lookup with a generation
+ *      different from the current one drops all entries.
+ * </p>
+ * <p>Not thread-safe.</p>
+ */
+class DirectMappedMatchCache {
+
+    /** Is returned from {@link #get(Type, Type, boolean, int)} when there is no cached result. */
+    static final int ABSENT = -1;
+
+    private static final byte MATCHED = 1;
+    private static final byte STRICT  = 2;
+
+    @NotNull private final Type[] bases;
+    @NotNull private final Type[] candidates;
+    @NotNull private final byte[] flags;
+    private final          int    mask;
+    private                int    generation;
+
+    /**
+     * @param capacity      number of slots, is rounded up to the closest power of two
+     */
+    DirectMappedMatchCache(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        bases = new Type[size];
+        candidates = new Type[size];
+        flags = new byte[size];
+        mask = size - 1;
+    }
+
+    /**
+     * @param base          base type
+     * @param candidate     candidate type
+     * @param strict        strict check flag
+     * @param generation    current generation
+     * @return              {@code 1} if given types are cached as matched, {@code 0} if they are cached as not
+     *                      matched; {@link #ABSENT} otherwise
+     */
+    int get(@NotNull Type base, @NotNull Type candidate, boolean strict, int generation) {
+        if (this.generation != generation) {
+            reset(generation);
+            return ABSENT;
+        }
+        int i = indexOf(base, candidate, strict);
+        byte flag = flags[i];
+        if (bases[i] != base || candidates[i] != candidate || ((flag & STRICT) != 0) != strict) {
+            return ABSENT;
+        }
+        return flag & MATCHED;
+    }
+
+    /**
+     * Remembers given match result.
+     *
+     * @param base          base type
+     * @param candidate     candidate type
+     * @param strict        strict check flag
+     * @param matched       match result
+     * @param generation    current generation
+     */
+    void put(@NotNull Type base, @NotNull Type candidate, boolean strict, boolean matched, int generation) {
+        if (this.generation != generation) {
+            reset(generation);
+        }
+        int i = indexOf(base, candidate, strict);
+        bases[i] = base;
+        candidates[i] = candidate;
+        flags[i] = (byte) ((matched ? MATCHED : 0) | (strict ? STRICT : 0));
+    }
+
+    private void reset(int generation) {
+        Arrays.fill(bases, null);
+        Arrays.fill(candidates, null);
+        this.generation = generation;
+    }
+
+    private int indexOf(@NotNull Type base, @NotNull Type candidate, boolean strict) {
+        int h = System.identityHashCode(base) * 0x9e3779b9 + System.identityHashCode(candidate);
+        if (strict) {
+            h = ~h;
+        }
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -1,23 +1,27 @@
 package tech.harmonysoft.oss.jenome.match.impl;
 
 import org.jetbrains.annotations.NotNull;
+import tech.harmonysoft.oss.jenome.resolve.TypeFunction;
 import tech.harmonysoft.oss.jenome.resolve.TypeVisitor;
-import tech.harmonysoft.oss.jenome.resolve.impl.TypeVisitorAdapter;
+import tech.harmonysoft.oss.jenome.resolve.impl.TypeFunctionAdapter;
 
 import java.lang.reflect.GenericArrayType;
 import java.lang.reflect.Type;
 
 public class GenericArrayTypeComplianceMatcher extends AbstractDelegatingTypeComplianceMatcher<GenericArrayType> {
 
-    private final TypeVisitor visitor = new TypeVisitorAdapter() {
+    private final TypeFunction<MatchContext<GenericArrayType>, Boolean> function
+            = new TypeFunctionAdapter<MatchContext<GenericArrayType>, Boolean>()
+    {
         @Override
-        public void visitGenericArrayType(@NotNull GenericArrayType type) {
-            setMatched(getDelegate().match(
-                    getBaseType().getGenericComponentType(), type.getGenericComponentType(), isStrict()
-            ));
+        public Boolean visitGenericArrayType(@NotNull GenericArrayType type, MatchContext<GenericArrayType> context) {
+            return getDelegate().match(context.getBase().getGenericComponentType(), type.getGenericComponentType(),
+                                       context.isStrict(), context);
         }
     };
 
+    private final TypeVisitor visitor = asVisitor(function);
+
     public GenericArrayTypeComplianceMatcher() {
     }
 
@@ -25,9 +29,15 @@ public class GenericArrayTypeComplianceMatcher extends AbstractDelegatingTypeCom
         super(delegate);
     }
 
+    @NotNull
+    @Override
+    protected TypeFunction<MatchContext<GenericArrayType>, Boolean> getFunction() {
+        return function;
+    }
+
     @NotNull
     @Override
     protected TypeVisitor getVisitor() {
         return visitor;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,179 @@
+package tech.harmonysoft.oss.jenome.match.impl;
+
+import org.jetbrains.annotations.NotNull;
+import tech.harmonysoft.oss.jenome.resolve.util.ReflectionCache;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ *      Decides trivial compliance checks without the full {@link CompositeTypeComplianceMatcher} machinery
+ *      (caches, thread-local state and type dispatching). Every {@link Rule} gives exactly the same result as
+ *      the full check, checks which are not covered by the rules are {@link #UNDECIDED}.
+ * </p>
+ * <p>Number of checks decided by every rule is counted.</p>
+ * <p>Thread-safe.</p>
+ */
+public class MatchPrefilter {
+
+    /** Is returned by {@link #check(Type, Type, boolean)} when the check is not decided by the prefilter. */
+    public static final int UNDECIDED = -1;
+
+    /**
+     * Prefilter rules in order of application.
+     */
+    public enum Rule {
+
+        /** The same instance is given as the base and candidate types, it's a class or a ground parameterized type. */
+        IDENTICAL,
+
+        /** Base and candidate types are equal ground parameterized types, e.g. {@code List<String>}. */
+        EQUAL,
+
+        /** Base and candidate types are classes. */
+        CLASSES,
+
+        /** Base type is a class and candidate type is a parameterized type, only raw types matter then. */
+        RAW_TYPES,
+
+        /** Base type is a parameterized type which raw type is not compliant to the candidate's raw type. */
+        RAW_TYPE_MISMATCH,
+
+        /** Base type is an unbounded wildcard type ({@code ?} or {@code ? extends Object}), it's never matched. */
+        UNBOUNDED_WILDCARD
+    }
+
+    private static final Rule[] RULES = Rule.values();
+
+    @NotNull private final LongAdder[] hits = new LongAdder[RULES.length];
+
+    public MatchPrefilter() {
+        for (int i = 0; i < hits.length; ++i) {
+            hits[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Tries to decide given check.
+     *
+     * @param base          base type
+     * @param candidate     candidate type
+     * @param strict        {@code 'strict'} flag as defined by
+     *                      {@link AbstractTypeComplianceMatcher#match(Type, Type, boolean)}
+     * @return              {@code 1} if given types are matched; {@code 0} if they are not matched;
+     *                      {@link #UNDECIDED} if the check is not decided by the prefilter
+     */
+    public int check(@NotNull Type base, @NotNull Type candidate, boolean strict) {
+        if (base instanceof Class) {
+            Class<?> baseClass = (Class<?>) base;
+            if (candidate instanceof Class) {
+                if (base == candidate) {
+                    return hit(Rule.IDENTICAL, true);
+                }
+                return hit(Rule.CLASSES, !strict && baseClass.isAssignableFrom((Class<?>) candidate));
+            }
+            if (candidate instanceof ParameterizedType) {
+                Type candidateRawType = ((ParameterizedType) candidate).getRawType();
+                if (candidateRawType instanceof Class) {
+                    // Type arguments are not checked when the base type is raw, 'strict' flag is not used either.
+                    return hit(Rule.RAW_TYPES, baseClass.isAssignableFrom((Class<?>) candidateRawType));
+                }
+            }
+            return UNDECIDED;
+        }
+
+        if (base instanceof ParameterizedType) {
+            ParameterizedType baseType = (ParameterizedType) base;
+            Type baseRawType = baseType.getRawType();
+            if (!(baseRawType instanceof Class)) {
+                return UNDECIDED;
+            }
+            Type candidateRawType;
+            if (candidate instanceof Class) {
+                candidateRawType = candidate;
+            } else if (candidate instanceof ParameterizedType) {
+                if (isGround(baseType)) {
+                    if (base == candidate) {
+                        return hit(Rule.IDENTICAL, true);
+                    }
+                    if (base.equals(candidate)) {
+                        return hit(Rule.EQUAL, true);
+                    }
+                }
+                candidateRawType = ((ParameterizedType) candidate).getRawType();
+            } else {
+                return UNDECIDED;
+            }
+            if (!(candidateRawType instanceof Class)) {
+                return UNDECIDED;
+            }
+            boolean rawTypesMatched = strict ? baseRawType == candidateRawType
+                                             : ((Class<?>) baseRawType).isAssignableFrom((Class<?>) candidateRawType);
+            return rawTypesMatched ? UNDECIDED : hit(Rule.RAW_TYPE_MISMATCH, false);
+        }
+
+        if (base instanceof WildcardType) {
+            WildcardType baseType = (WildcardType) base;
+            Type[] upperBounds = ReflectionCache.getUpperBounds(baseType);
+            if (ReflectionCache.getLowerBounds(baseType).length == 0
+                && upperBounds.length == 1 && upperBounds[0] == Object.class)
+            {
+                return hit(Rule.UNBOUNDED_WILDCARD, false);
+            }
+        }
+        return UNDECIDED;
+    }
+
+    /**
+     * @param rule      target rule
+     * @return          number of checks decided by the given rule
+     */
+    public long getHits(@NotNull Rule rule) {
+        return hits[rule.ordinal()].sum();
+    }
+
+    /**
+     * @return      number of checks decided by every rule
+     */
+    @NotNull
+    public Map<Rule, Long> getHits() {
+        Map<Rule, Long> result = new EnumMap<>(Rule.class);
+        for (Rule rule : RULES) {
+            result.put(rule, getHits(rule));
+        }
+        return result;
+    }
+
+    /**
+     * Drops all counters.
+     */
+    public void reset() {
+        for (LongAdder counter : hits) {
+            counter.reset();
+        }
+    }
+
+    private int hit(@NotNull Rule rule, boolean matched) {
+        hits[rule.ordinal()].increment();
+        return matched ? 1 : 0;
+    }
+
+    /**
+     * @param type      parameterized type to check
+     * @return          {@code true} if all type arguments of the given type are classes, such a type is always
+     *                  compliant to itself; {@code false} otherwise
+     */
+    private static boolean isGround(@NotNull ParameterizedType type) {
+        for (Type argument : ReflectionCache.getActualTypeArguments(type)) {
+            if (!(argument instanceof Class)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
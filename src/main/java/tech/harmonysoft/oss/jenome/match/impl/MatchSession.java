@@ -0,0 +1,234 @@
+package tech.harmonysoft.oss.jenome.match.impl;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import tech.harmonysoft.oss.jenome.resolve.TypeArgumentResolver;
+
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ *      Memoizes all match results and type argument resolutions performed during a batch of related compliance
+ *      checks, e.g. during a DI container refresh:
+ * </p>
+ * <pre>
+ *     try (MatchSession session = CompositeTypeComplianceMatcher.INSTANCE.openSession()) {
+ *         for (Candidate candidate : candidates) {
+ *             if (session.match(injectionPointType, candidate.getType())) {
+ *                 ...
+ *             }
+ *         }
+ *     }
+ * </pre>
+ * <p>
+ *      Nested checks (e.g. {@code Number} vs {@code Integer} inside {@code List<? extends Number>} vs
+ *      {@code List<Integer>}) are memoized as well, that's true even for the types which are not stored at
+ *      the matcher's shared cache, e.g. types from foreign class loaders. All memoized data is held by plain
+ *      hash maps and is discarded on {@link #close()}.
+ * </p>
+ * <p>
+ *      A session is bound to the thread which opened it. Sessions might be nested, closing a nested session
+ *      re-activates the closest enclosing session which is not closed yet. Closed sessions are never used, even
+ *      if they are closed before the sessions nested into them.
+ * </p>
+ * <p>Not thread-safe.</p>
+ */
+public class MatchSession implements AutoCloseable {
+
+    private static final ThreadLocal<MatchSession> CURRENT = new ThreadLocal<>();
+
+    private final Map<Object, Boolean>                            matches     = new HashMap<>();
+    private final Map<ResolutionKey, Type>                        resolutions = new HashMap<>();
+    private final Map<TypeArgumentResolver, TypeArgumentResolver> resolvers   = new IdentityHashMap<>();
+
+    @NotNull  private final CompositeTypeComplianceMatcher matcher;
+    @NotNull  private final Thread                         thread;
+    @Nullable private final MatchSession                   enclosing;
+    private                 boolean                        closed;
+
+    MatchSession(@NotNull CompositeTypeComplianceMatcher matcher) {
+        this.matcher = matcher;
+        thread = Thread.currentThread();
+        enclosing = CURRENT.get();
+        CURRENT.set(this);
+    }
+
+    /**
+     * @param matcher   target matcher
+     * @return          session opened for the given matcher at the current thread if any; {@code null} otherwise
+     */
+    @Nullable
+    static MatchSession current(@NotNull CompositeTypeComplianceMatcher matcher) {
+        for (MatchSession session = CURRENT.get(); session != null; session = session.enclosing) {
+            if (!session.closed && session.matcher == matcher) {
+                return session;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param resolver      target resolver
+     * @param matcher       matcher which uses the resolver; {@code null} if it's not driven by a composite matcher
+     * @return              given resolver wrapped into a memoizing resolver of the session opened for the given
+     *                      matcher at the current thread if any; given resolver otherwise
+     */
+    @NotNull
+    static TypeArgumentResolver wrap(@NotNull TypeArgumentResolver resolver,
+                                     @Nullable CompositeTypeComplianceMatcher matcher)
+    {
+        MatchSession session = matcher == null ? null : current(matcher);
+        return session == null ? resolver : session.resolvers.computeIfAbsent(resolver, session::newResolver);
+    }
+
+    /**
+     * Delegates to {@link CompositeTypeComplianceMatcher#match(Type, Type)} within the current session.
+     *
+     * @param base          base type
+     * @param candidate     candidate type
+     * @return              {@code true} if given {@code 'candidate'} type may be used in place of {@code 'base'}
+     *                      type; {@code false} otherwise
+     * @throws IllegalStateException    if current session is closed or it's used from a thread different
+     *                                  from the one which opened it
+     */
+    public boolean match(@NotNull Type base, @NotNull Type candidate) throws IllegalStateException {
+        return match(base, candidate, false);
+    }
+
+    /**
+     * Delegates to {@link CompositeTypeComplianceMatcher#match(Type, Type, boolean)} within the current session.
+     *
+     * @param base          base type
+     * @param candidate     candidate type
+     * @param strict        strict check flag
+     * @return              {@code true} if given {@code 'candidate'} type may be used in place of {@code 'base'}
+     *                      type; {@code false} otherwise
+     * @throws IllegalStateException    if current session is closed or it's used from a thread different
+     *                                  from the one which opened it
+     */
+    public boolean match(@NotNull Type base, @NotNull Type candidate, boolean strict) throws IllegalStateException {
+        checkState();
+        return matcher.match(base, candidate, strict);
+    }
+
+    /**
+     * @return      number of memoized match results
+     */
+    public int getMatchesNumber() {
+        return matches.size();
+    }
+
+    /**
+     * @return      number of memoized type argument resolutions
+     */
+    public int getResolutionsNumber() {
+        return resolutions.size();
+    }
+
+    /**
+     * Discards all memoized data and detaches current session from the thread. Subsequent calls
+     * don't have any effect.
+     *
+     * @throws IllegalStateException    if this method is called from a thread different from the one which
+     *                                  opened current session
+     */
+    @Override
+    public void close() throws IllegalStateException {
+        if (closed) {
+            return;
+        }
+        checkThread();
+        closed = true;
+        matches.clear();
+        resolutions.clear();
+        resolvers.clear();
+        if (CURRENT.get() == this) {
+            // Enclosing sessions might be closed before the current one.
+            MatchSession active = enclosing;
+            while (active != null && active.closed) {
+                active = active.enclosing;
+            }
+            if (active == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(active);
+            }
+        }
+    }
+
+    @Nullable
+    Boolean getMatch(@NotNull Object key) {
+        return matches.get(key);
+    }
+
+    void putMatch(@NotNull Object key, boolean matched) {
+        matches.put(key, matched);
+    }
+
+    private void checkState() throws IllegalStateException {
+        if (closed) {
+            throw new IllegalStateException("Can't use a closed match session");
+        }
+        checkThread();
+    }
+
+    private void checkThread() throws IllegalStateException {
+        if (Thread.currentThread() != thread) {
+            throw new IllegalStateException(String.format(
+                    "Match session is bound to thread '%s' but is used from thread '%s'",
+                    thread.getName(), Thread.currentThread().getName()));
+        }
+    }
+
+    @NotNull
+    private TypeArgumentResolver newResolver(@NotNull TypeArgumentResolver delegate) {
+        return (base, target, index) -> {
+            ResolutionKey key = new ResolutionKey(delegate, base, target, index);
+            Type result = resolutions.get(key);
+            if (result == null) {
+                result = delegate.resolve(base, target, index);
+                resolutions.put(key, result);
+            }
+            return result;
+        };
+    }
+
+    private static class ResolutionKey {
+
+        @NotNull private final TypeArgumentResolver resolver;
+        @NotNull private final Type                 base;
+        @NotNull private final Type                 target;
+        private final          int                  index;
+        private final          int                  hashCode;
+
+        ResolutionKey(@NotNull TypeArgumentResolver resolver, @NotNull Type base, @NotNull Type target, int index) {
+            this.resolver = resolver;
+            this.base = base;
+            this.target = target;
+            this.index = index;
+            hashCode = 31 * (31 * (31 * System.identityHashCode(resolver) + base.hashCode()) + target.hashCode())
+                       + index;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ResolutionKey)) {
+                return false;
+            }
+            ResolutionKey that = (ResolutionKey) o;
+            return hashCode == that.hashCode && resolver == that.resolver && index == that.index
+                   && base.equals(that.base) && target.equals(that.target);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
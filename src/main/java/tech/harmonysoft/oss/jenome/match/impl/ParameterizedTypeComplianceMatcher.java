@@ -1,8 +1,10 @@
 package tech.harmonysoft.oss.jenome.match.impl;
 
 import org.jetbrains.annotations.NotNull;
+import tech.harmonysoft.oss.jenome.resolve.TypeFunction;
 import tech.harmonysoft.oss.jenome.resolve.TypeVisitor;
-import tech.harmonysoft.oss.jenome.resolve.impl.TypeVisitorAdapter;
+import tech.harmonysoft.oss.jenome.resolve.impl.TypeFunctionAdapter;
+import tech.harmonysoft.oss.jenome.resolve.util.ReflectionCache;
 
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
@@ -13,23 +15,30 @@ import java.lang.reflect.WildcardType;
  */
 public class ParameterizedTypeComplianceMatcher extends AbstractDelegatingTypeComplianceMatcher<ParameterizedType> {
 
-    private final TypeVisitor visitor = new TypeVisitorAdapter() {
+    private final TypeFunction<MatchContext<ParameterizedType>, Boolean> function
+            = new TypeFunctionAdapter<MatchContext<ParameterizedType>, Boolean>()
+    {
         @Override
-        public void visitParameterizedType(@NotNull ParameterizedType candidateType) {
+        public Boolean visitParameterizedType(@NotNull ParameterizedType candidateType,
+                                              MatchContext<ParameterizedType> context)
+        {
             // Return eagerly if raw types don't match.
-            if (!getDelegate().match(getBaseType().getRawType(), candidateType.getRawType(), isStrict())) {
-                return;
+            ParameterizedType base = context.getBase();
+            if (!getDelegate().match(base.getRawType(), candidateType.getRawType(), context.isStrict(), context)) {
+                return false;
             }
 
-            Type[] baseTypeArguments = getBaseType().getActualTypeArguments();
-            Type[] candidateTypeArguments = new Type[baseTypeArguments.length];
-
-            // Resolve actual type argument types.
-            for (int i = 0; i < baseTypeArguments.length; ++i) {
-                if (getBaseType().getRawType() == candidateType.getRawType()) {
-                    candidateTypeArguments[i] = candidateType.getActualTypeArguments()[i];
-                } else {
-                    candidateTypeArguments[i] = getTypeArgumentResolver().resolve(getBaseType(), candidateType, i);
+            Type[] baseTypeArguments = ReflectionCache.getActualTypeArguments(base);
+            Type[] candidateTypeArguments;
+
+            // Resolve actual type argument types. Candidate's own arguments are used as-is when raw types are
+            // the same, the array is shared, so, it must not be modified.
+            if (base.getRawType() == candidateType.getRawType()) {
+                candidateTypeArguments = ReflectionCache.getActualTypeArguments(candidateType);
+            } else {
+                candidateTypeArguments = new Type[baseTypeArguments.length];
+                for (int i = 0; i < baseTypeArguments.length; ++i) {
+                    candidateTypeArguments[i] = resolveTypeArgument(base, candidateType, i);
                 }
             }
 
@@ -37,61 +46,57 @@ public class ParameterizedTypeComplianceMatcher extends AbstractDelegatingTypeCo
             for (int i = 0; i < baseTypeArguments.length; ++i) {
                 // Note that we explicitly set 'strict' to 'true' here because there is no covariance
                 // for type arguments in java.
-                boolean result = getDelegate().match(baseTypeArguments[i], candidateTypeArguments[i], true);
+                boolean result = getDelegate().match(baseTypeArguments[i], candidateTypeArguments[i], true, context);
                 if (!result) {
-                    return;
+                    return false;
                 }
             }
 
-            if (getBaseType().getRawType() == candidateType.getRawType()) {
-                setMatched(true);
-                return;
+            if (base.getRawType() == candidateType.getRawType()) {
+                return true;
             }
 
             // Check that pairs of corresponding arguments conform to each other (1st vs 1st, 2nd vs 2nd etc).
             // I.e. there is a possible situation that we have two parameterized types and one of them has the
             // same type argument repeated at more than one position and another has different arguments
             // (MyType<A, A> vs MyType<X, Y>). We want to consider such types to be inconsistent.
-            if (!checkTypeArgumentsRepetition(baseTypeArguments, candidateTypeArguments)) {
-                return;
-            }
-
-            setMatched(true);
+            return checkTypeArgumentsRepetition(baseTypeArguments, candidateTypeArguments);
         }
 
         @Override
-        public void visitWildcardType(@NotNull WildcardType wildcardType) {
-            for (Type type : wildcardType.getUpperBounds()) {
-                if (!getDelegate().match(getBaseType(), type, true)) {
-                    return;
+        public Boolean visitWildcardType(@NotNull WildcardType wildcardType, MatchContext<ParameterizedType> context) {
+            for (Type type : ReflectionCache.getUpperBounds(wildcardType)) {
+                if (!getDelegate().match(context.getBase(), type, true, context)) {
+                    return false;
                 }
             }
-            setMatched(true);
+            return true;
         }
 
         @Override
-        public void visitClass(@NotNull Class<?> clazz) {
-            if (!getDelegate().match(getBaseType().getRawType(), clazz, isStrict())) {
-                return;
+        public Boolean visitClass(@NotNull Class<?> clazz, MatchContext<ParameterizedType> context) {
+            ParameterizedType base = context.getBase();
+            if (!getDelegate().match(base.getRawType(), clazz, context.isStrict(), context)) {
+                return false;
             }
 
-            Type[] baseTypeArguments = getBaseType().getActualTypeArguments();
+            Type[] baseTypeArguments = ReflectionCache.getActualTypeArguments(base);
             Type[] candidateTypeArguments = new Type[baseTypeArguments.length];
             for (int i = 0; i < baseTypeArguments.length; ++i) {
-                candidateTypeArguments[i] = getTypeArgumentResolver().resolve(getBaseType(), clazz, i);
-                if (!getDelegate().match(baseTypeArguments[i], candidateTypeArguments[i], isStrict())) {
-                    return;
+                candidateTypeArguments[i] = resolveTypeArgument(base, clazz, i);
+                boolean result = getDelegate().match(baseTypeArguments[i], candidateTypeArguments[i],
+                                                     context.isStrict(), context);
+                if (!result) {
+                    return false;
                 }
             }
 
-            if (!checkTypeArgumentsRepetition(baseTypeArguments, candidateTypeArguments)) {
-                return;
-            }
-
-            setMatched(true);
+            return checkTypeArgumentsRepetition(baseTypeArguments, candidateTypeArguments);
         }
     };
 
+    private final TypeVisitor visitor = asVisitor(function);
+
     public ParameterizedTypeComplianceMatcher() {
     }
 
@@ -99,6 +104,12 @@ public class ParameterizedTypeComplianceMatcher extends AbstractDelegatingTypeCo
         super(delegate);
     }
 
+    @NotNull
+    @Override
+    protected TypeFunction<MatchContext<ParameterizedType>, Boolean> getFunction() {
+        return function;
+    }
+
     @NotNull
     @Override
     protected TypeVisitor getVisitor() {
@@ -2,44 +2,51 @@ package tech.harmonysoft.oss.jenome.match.impl;
 
 import org.jetbrains.annotations.NotNull;
 import tech.harmonysoft.oss.jenome.resolve.TypeArgumentResolver;
+import tech.harmonysoft.oss.jenome.resolve.TypeFunction;
 import tech.harmonysoft.oss.jenome.resolve.TypeVisitor;
 
 import java.lang.reflect.*;
 
 public class TopLevelTypeComplianceMatcher extends AbstractDelegatingTypeComplianceMatcher<Type> {
 
-    private final TypeVisitor visitor = new TypeVisitor() {
+    private static final TypeFunction<MatchContext<Type>, Boolean> FUNCTION
+            = new TypeFunction<MatchContext<Type>, Boolean>()
+    {
         @Override
-        public void visitParameterizedType(@NotNull ParameterizedType type) {
-            setMatched(getBaseType() == TypeArgumentResolver.RAW_TYPE);
+        public Boolean visitParameterizedType(@NotNull ParameterizedType type, MatchContext<Type> context) {
+            return context.getBase() == TypeArgumentResolver.RAW_TYPE;
         }
 
         @Override
-        public void visitWildcardType(@NotNull WildcardType type) {
-            setMatched(getBaseType() == TypeArgumentResolver.RAW_TYPE);
+        public Boolean visitWildcardType(@NotNull WildcardType type, MatchContext<Type> context) {
+            return context.getBase() == TypeArgumentResolver.RAW_TYPE;
         }
 
         @Override
-        public void visitGenericArrayType(@NotNull GenericArrayType type) {
-            setMatched(getBaseType() == TypeArgumentResolver.RAW_TYPE);
+        public Boolean visitGenericArrayType(@NotNull GenericArrayType type, MatchContext<Type> context) {
+            return context.getBase() == TypeArgumentResolver.RAW_TYPE;
         }
 
         @Override
-        public void visitTypeVariable(@NotNull TypeVariable<? extends GenericDeclaration> type) {
-            setMatched(getBaseType() == TypeArgumentResolver.RAW_TYPE);
+        public Boolean visitTypeVariable(@NotNull TypeVariable<? extends GenericDeclaration> type,
+                                         MatchContext<Type> context)
+        {
+            return context.getBase() == TypeArgumentResolver.RAW_TYPE;
         }
 
         @Override
-        public void visitClass(@NotNull Class<?> clazz) {
-            setMatched(getBaseType() == TypeArgumentResolver.RAW_TYPE);
+        public Boolean visitClass(@NotNull Class<?> clazz, MatchContext<Type> context) {
+            return context.getBase() == TypeArgumentResolver.RAW_TYPE;
         }
 
         @Override
-        public void visitType(@NotNull Type type) {
-            setMatched(getBaseType() == TypeArgumentResolver.RAW_TYPE);
+        public Boolean visitType(@NotNull Type type, MatchContext<Type> context) {
+            return context.getBase() == TypeArgumentResolver.RAW_TYPE;
         }
     };
 
+    private final TypeVisitor visitor = asVisitor(FUNCTION);
+
     public TopLevelTypeComplianceMatcher() {
     }
 
@@ -47,9 +54,15 @@ public class TopLevelTypeComplianceMatcher extends AbstractDelegatingTypeComplia
         super(delegate);
     }
 
+    @NotNull
+    @Override
+    protected TypeFunction<MatchContext<Type>, Boolean> getFunction() {
+        return FUNCTION;
+    }
+
     @NotNull
     @Override
     protected TypeVisitor getVisitor() {
         return visitor;
     }
-}
\ No newline at end of file
+}
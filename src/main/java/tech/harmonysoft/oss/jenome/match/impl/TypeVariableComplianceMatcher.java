@@ -1,8 +1,10 @@
 package tech.harmonysoft.oss.jenome.match.impl;
 
 import org.jetbrains.annotations.NotNull;
+import tech.harmonysoft.oss.jenome.resolve.TypeFunction;
 import tech.harmonysoft.oss.jenome.resolve.TypeVisitor;
-import tech.harmonysoft.oss.jenome.resolve.impl.TypeVisitorAdapter;
+import tech.harmonysoft.oss.jenome.resolve.impl.TypeFunctionAdapter;
+import tech.harmonysoft.oss.jenome.resolve.util.ReflectionCache;
 
 import java.lang.reflect.*;
 
@@ -10,25 +12,35 @@ public class TypeVariableComplianceMatcher
         extends AbstractDelegatingTypeComplianceMatcher<TypeVariable<? extends GenericDeclaration>>
 {
 
-    private final TypeVisitor visitor = new TypeVisitorAdapter() {
+    private final TypeFunction<MatchContext<TypeVariable<? extends GenericDeclaration>>, Boolean> function
+            = new TypeFunctionAdapter<MatchContext<TypeVariable<? extends GenericDeclaration>>, Boolean>()
+    {
         @Override
-        public void visitParameterizedType(@NotNull ParameterizedType type) {
-            checkBounds(type);
+        public Boolean visitParameterizedType(@NotNull ParameterizedType type,
+                                              MatchContext<TypeVariable<? extends GenericDeclaration>> context)
+        {
+            return checkBounds(context, type);
         }
 
         @Override
-        public void visitWildcardType(@NotNull WildcardType type) {
-            checkBounds(type);
+        public Boolean visitWildcardType(@NotNull WildcardType type,
+                                         MatchContext<TypeVariable<? extends GenericDeclaration>> context)
+        {
+            return checkBounds(context, type);
         }
 
         @Override
-        public void visitGenericArrayType(@NotNull GenericArrayType type) {
-            checkBounds(type);
+        public Boolean visitGenericArrayType(@NotNull GenericArrayType type,
+                                             MatchContext<TypeVariable<? extends GenericDeclaration>> context)
+        {
+            return checkBounds(context, type);
         }
 
         @Override
-        public void visitTypeVariable(@NotNull TypeVariable<? extends GenericDeclaration> type) {
-            for (Type baseBound : getBaseType().getBounds()) {
+        public Boolean visitTypeVariable(@NotNull TypeVariable<? extends GenericDeclaration> type,
+                                         MatchContext<TypeVariable<? extends GenericDeclaration>> context)
+        {
+            for (Type baseBound : ReflectionCache.getBounds(context.getBase())) {
                 if (baseBound == Object.class) {
                     // java.lang.Object as a type variable bound means that type is actually inbound, so, we just
                     // skip it here.
@@ -38,25 +50,31 @@ public class TypeVariableComplianceMatcher
                 // We assume that base type variable bound restriction is satisfied if base type bound is matched
                 // at least to one candidate type variable bound.
                 boolean matched = false;
-                for (Type candidateBound : type.getBounds()) {
-                    if (candidateBound != Object.class && getDelegate().match(baseBound, candidateBound)) {
+                for (Type candidateBound : ReflectionCache.getBounds(type)) {
+                    if (candidateBound != Object.class
+                        && getDelegate().match(baseBound, candidateBound, false, context))
+                    {
                         matched = true;
                         break;
                     }
                 }
                 if (!matched) {
-                    return;
+                    return false;
                 }
             }
-            setMatched(true);
+            return true;
         }
 
         @Override
-        public void visitClass(@NotNull Class<?> clazz) {
-            checkBounds(clazz);
+        public Boolean visitClass(@NotNull Class<?> clazz,
+                                  MatchContext<TypeVariable<? extends GenericDeclaration>> context)
+        {
+            return checkBounds(context, clazz);
         }
     };
 
+    private final TypeVisitor visitor = asVisitor(function);
+
     public TypeVariableComplianceMatcher() {
     }
 
@@ -64,19 +82,27 @@ public class TypeVariableComplianceMatcher
         super(delegate);
     }
 
+    @NotNull
+    @Override
+    protected TypeFunction<MatchContext<TypeVariable<? extends GenericDeclaration>>, Boolean> getFunction() {
+        return function;
+    }
+
     @NotNull
     @Override
     protected TypeVisitor getVisitor() {
         return visitor;
     }
 
-    private void checkBounds(@NotNull Type type) {
-        for (Type boundType : getBaseType().getBounds()) {
+    private boolean checkBounds(@NotNull MatchContext<TypeVariable<? extends GenericDeclaration>> context,
+                                @NotNull Type type)
+    {
+        for (Type boundType : ReflectionCache.getBounds(context.getBase())) {
             // java.lang.Object as a bound type means that type is actually inbound, so, we just skip it here.
-            if (boundType != Object.class && !getDelegate().match(boundType, type)) {
-                return;
+            if (boundType != Object.class && !getDelegate().match(boundType, type, false, context)) {
+                return false;
             }
         }
-        setMatched(true);
+        return true;
     }
-}
\ No newline at end of file
+}
@@ -1,8 +1,10 @@
 package tech.harmonysoft.oss.jenome.match.impl;
 
 import org.jetbrains.annotations.NotNull;
+import tech.harmonysoft.oss.jenome.resolve.TypeFunction;
 import tech.harmonysoft.oss.jenome.resolve.TypeVisitor;
-import tech.harmonysoft.oss.jenome.resolve.impl.TypeVisitorAdapter;
+import tech.harmonysoft.oss.jenome.resolve.impl.TypeFunctionAdapter;
+import tech.harmonysoft.oss.jenome.resolve.util.ReflectionCache;
 
 import java.lang.reflect.*;
 
@@ -11,136 +13,146 @@ import java.lang.reflect.*;
  */
 public class WildcardTypeComplianceMatcher extends AbstractDelegatingTypeComplianceMatcher<WildcardType> {
 
-    private final TypeVisitor visitor = new TypeVisitorAdapter() {
+    /**
+     * This function checks if dispatched type is {@link ParameterizedType} and returns it in the case of success.
+     *
+     * @see #checkParameterizedTypeSpecialCase(Type, Type, MatchContext)
+     */
+    private static final TypeFunction<Void, ParameterizedType> PARAMETERIZED_TYPE_RETRIEVER
+            = new TypeFunctionAdapter<Void, ParameterizedType>()
+    {
+        @Override
+        public ParameterizedType visitParameterizedType(@NotNull ParameterizedType type, Void parameter) {
+            return type;
+        }
+    };
+
+    /**
+     * This function checks if dispatched type is {@link GenericArrayType} and returns it in the case of success.
+     *
+     * @see #checkGenericArraySpecialCase(Type, Type, MatchContext)
+     */
+    private static final TypeFunction<Void, GenericArrayType> GENERIC_ARRAY_RETRIEVER
+            = new TypeFunctionAdapter<Void, GenericArrayType>()
+    {
+        @Override
+        public GenericArrayType visitGenericArrayType(@NotNull GenericArrayType type, Void parameter) {
+            return type;
+        }
+    };
+
+    private final TypeFunction<MatchContext<WildcardType>, Boolean> function
+            = new TypeFunctionAdapter<MatchContext<WildcardType>, Boolean>()
+    {
         @Override
-        public void visitParameterizedType(@NotNull ParameterizedType type) {
-            if (isUnboundWildcard()) {
-                return;
+        public Boolean visitParameterizedType(@NotNull ParameterizedType type, MatchContext<WildcardType> context) {
+            WildcardType base = context.getBase();
+            if (isUnboundWildcard(base)) {
+                return false;
             }
-            for (Type upperBound : getBaseType().getUpperBounds()) {
-                if (!getDelegate().match(upperBound, type)) {
-                    return;
+            for (Type upperBound : ReflectionCache.getUpperBounds(base)) {
+                if (!getDelegate().match(upperBound, type, false, context)) {
+                    return false;
                 }
             }
-            setMatched(checkBaseLowerBounds(type));
+            return checkBaseLowerBounds(context, type);
         }
 
         @Override
-        public void visitWildcardType(@NotNull WildcardType type) {
-            if (isUnboundWildcard()) {
-                return;
+        public Boolean visitWildcardType(@NotNull WildcardType type, MatchContext<WildcardType> context) {
+            WildcardType base = context.getBase();
+            if (isUnboundWildcard(base)) {
+                return false;
             }
-            Type[] baseUpperBounds = getBaseType().getUpperBounds();
-            Type[] candidateUpperBounds = type.getUpperBounds();
+            Type[] baseUpperBounds = ReflectionCache.getUpperBounds(base);
+            Type[] candidateUpperBounds = ReflectionCache.getUpperBounds(type);
 
             for (Type baseUpperBound : baseUpperBounds) {
                 boolean matched = false;
                 for (Type candidateUpperBound : candidateUpperBounds) {
-                    if (getDelegate().match(baseUpperBound, candidateUpperBound)) {
+                    if (getDelegate().match(baseUpperBound, candidateUpperBound, false, context)) {
                         matched = true;
                         break;
                     }
                 }
                 if (!matched) {
-                    return;
+                    return false;
                 }
             }
 
-            Type[] baseLowerBounds = getBaseType().getLowerBounds();
+            Type[] baseLowerBounds = ReflectionCache.getLowerBounds(base);
 
             // We assume here that the match is always failed if base type has lower bounds and candidate type
             // has upper bound.
             if (baseLowerBounds.length > 0
                 && (candidateUpperBounds.length > 1 || candidateUpperBounds[0] != Object.class))
             {
-                return;
+                return false;
             }
-            setMatched(checkWildcardCandidateLowerBounds(type));
+            return checkWildcardCandidateLowerBounds(context, type);
         }
 
         @Override
-        public void visitGenericArrayType(@NotNull GenericArrayType type) {
-            if (isUnboundWildcard()) {
-                return;
+        public Boolean visitGenericArrayType(@NotNull GenericArrayType type, MatchContext<WildcardType> context) {
+            WildcardType base = context.getBase();
+            if (isUnboundWildcard(base)) {
+                return false;
             }
-            for (Type upperBound : getBaseType().getUpperBounds()) {
-                if (!getDelegate().match(upperBound, type)) {
-                    return;
+            for (Type upperBound : ReflectionCache.getUpperBounds(base)) {
+                if (!getDelegate().match(upperBound, type, false, context)) {
+                    return false;
                 }
             }
-            setMatched(checkBaseLowerBounds(type));
+            return checkBaseLowerBounds(context, type);
         }
 
         @Override
-        public void visitTypeVariable(@NotNull TypeVariable<? extends GenericDeclaration> type) {
-            if (isUnboundWildcard()) {
-                return;
+        public Boolean visitTypeVariable(@NotNull TypeVariable<? extends GenericDeclaration> type,
+                                         MatchContext<WildcardType> context)
+        {
+            WildcardType base = context.getBase();
+            if (isUnboundWildcard(base)) {
+                return false;
             }
 
-            if (getBaseType().getLowerBounds().length > 0) {
-                return;
+            if (ReflectionCache.getLowerBounds(base).length > 0) {
+                return false;
             }
 
-            for (Type upperBound : getBaseType().getUpperBounds()) {
+            for (Type upperBound : ReflectionCache.getUpperBounds(base)) {
                 boolean matched = false;
-                for (Type typeVariableBound : type.getBounds()) {
+                for (Type typeVariableBound : ReflectionCache.getBounds(type)) {
                     if (typeVariableBound == Object.class) {
                         continue;
                     }
-                    matched = getDelegate().match(upperBound, typeVariableBound);
+                    matched = getDelegate().match(upperBound, typeVariableBound, false, context);
                     if (!matched) {
-                        return;
+                        return false;
                     }
                 }
                 if (!matched) {
-                    return;
+                    return false;
                 }
             }
-            setMatched(checkBaseLowerBounds(type));
+            return checkBaseLowerBounds(context, type);
         }
 
         @Override
-        public void visitClass(@NotNull Class<?> clazz) {
-            if (isUnboundWildcard()) {
-                return;
+        public Boolean visitClass(@NotNull Class<?> clazz, MatchContext<WildcardType> context) {
+            WildcardType base = context.getBase();
+            if (isUnboundWildcard(base)) {
+                return false;
             }
-            for (Type type : getBaseType().getUpperBounds()) {
-                if (!getDelegate().match(type, clazz)) {
-                    return;
+            for (Type type : ReflectionCache.getUpperBounds(base)) {
+                if (!getDelegate().match(type, clazz, false, context)) {
+                    return false;
                 }
             }
-            setMatched(checkBaseLowerBounds(clazz));
+            return checkBaseLowerBounds(context, clazz);
         }
     };
 
-    /**
-     * This visitor checks if dispatched type is {@link ParameterizedType} and stored it at the
-     * {@link #parameterizedTypeHolder} in the case of success.
-     *
-     * @see #checkParameterizedTypeSpecialCase(Type, Type)
-     */
-    private final TypeVisitor parameterizedTypeRetriever = new TypeVisitorAdapter() {
-        @Override
-        public void visitParameterizedType(@NotNull ParameterizedType type) {
-            parameterizedTypeHolder.set(type);
-        }
-    };
-
-    /**
-     * This visitor checks if dispatched type is {@link GenericArrayType} and stored it at the
-     * {@link #genericArrayHolder} in the case of success.
-     *
-     * @see #checkGenericArraySpecialCase(Type, Type)
-     */
-    private final TypeVisitor genericArrayRetriever = new TypeVisitorAdapter() {
-        @Override
-        public void visitGenericArrayType(@NotNull GenericArrayType type) {
-            genericArrayHolder.set(type);
-        }
-    };
-
-    private final ThreadLocal<ParameterizedType> parameterizedTypeHolder = new ThreadLocal<>();
-    private final ThreadLocal<GenericArrayType> genericArrayHolder = new ThreadLocal<>();
+    private final TypeVisitor visitor = asVisitor(function);
 
     public WildcardTypeComplianceMatcher() {
     }
@@ -149,32 +161,39 @@ public class WildcardTypeComplianceMatcher extends AbstractDelegatingTypeComplia
         super(delegate);
     }
 
+    @NotNull
+    @Override
+    protected TypeFunction<MatchContext<WildcardType>, Boolean> getFunction() {
+        return function;
+    }
+
     @NotNull
     @Override
     protected TypeVisitor getVisitor() {
         return visitor;
     }
 
-    private boolean isUnboundWildcard() {
-        Type[] lowerBounds = getBaseType().getLowerBounds();
-        Type[] upperBounds = getBaseType().getUpperBounds();
-        return lowerBounds.length == 0 && upperBounds.length == 1 && getBaseType().getUpperBounds()[0] == Object.class;
+    private static boolean isUnboundWildcard(@NotNull WildcardType base) {
+        Type[] lowerBounds = ReflectionCache.getLowerBounds(base);
+        Type[] upperBounds = ReflectionCache.getUpperBounds(base);
+        return lowerBounds.length == 0 && upperBounds.length == 1 && upperBounds[0] == Object.class;
     }
 
     /**
      * <p>
-     *      Allows to check if lower bounds (if any) of the {@link #getBaseType() base wildcard type} prevent given
-     *      type to be used in place of it.
+     *      Allows to check if lower bounds (if any) of the given base wildcard type prevent given type to be used
+     *      in place of it.
      * </p>
      * <p>It's assumed that given type is not a wildcard type.</p>
      *
-     * @param type      type to check against {@link #getBaseType() base wildcard type} lower bounds
-     * @return          {@code true} if lower bounds of the {@link #getBaseType() base wildcard type}
-     *                  don't prevent given type to be used in place of it; {@code false} otherwise
+     * @param context   context of the check against the base wildcard type
+     * @param type      type to check against base wildcard type lower bounds
+     * @return          {@code true} if lower bounds of the base wildcard type don't prevent given type
+     *                  to be used in place of it; {@code false} otherwise
      */
-    private boolean checkBaseLowerBounds(@NotNull Type type) {
-        for (Type boundType : getBaseType().getLowerBounds()) {
-            if (!getDelegate().match(type, boundType)) {
+    private boolean checkBaseLowerBounds(@NotNull MatchContext<WildcardType> context, @NotNull Type type) {
+        for (Type boundType : ReflectionCache.getLowerBounds(context.getBase())) {
+            if (!getDelegate().match(type, boundType, false, context)) {
                 return false;
             }
         }
@@ -191,26 +210,24 @@ public class WildcardTypeComplianceMatcher extends AbstractDelegatingTypeComplia
      *     {@code ? super List<? super Set<Intget>>'} vs {@code ? super Collection<? super Collection<Integer>>}
      * </p>
      *
+     * @param context   context of the check against the base wildcard type
      * @param type      candidate wildcard type
      * @return          {@code true} if wildcard lower bound don't prevent given wildcard type to be used
-     *                  in place of the {@link #getBaseType() base wildcard type}; {@code false} otherwise
+     *                  in place of the base wildcard type; {@code false} otherwise
      */
-    private boolean checkWildcardCandidateLowerBounds(@NotNull WildcardType type) {
-        for (Type baseLowerBound : getBaseType().getLowerBounds()) {
-            for (Type candidateLowerBound : type.getLowerBounds()) {
-                Boolean specialCaseResult;
-                try {
-                    specialCaseResult = checkParameterizedTypeSpecialCase(baseLowerBound, candidateLowerBound);
-                    if (specialCaseResult == null) {
-                        specialCaseResult = checkGenericArraySpecialCase(baseLowerBound, candidateLowerBound);
-                    }
-                } finally {
-                    parameterizedTypeHolder.set(null);
-                    genericArrayHolder.set(null);
+    private boolean checkWildcardCandidateLowerBounds(@NotNull MatchContext<WildcardType> context,
+                                                      @NotNull WildcardType type)
+    {
+        for (Type baseLowerBound : ReflectionCache.getLowerBounds(context.getBase())) {
+            for (Type candidateLowerBound : ReflectionCache.getLowerBounds(type)) {
+                Boolean specialCaseResult
+                        = checkParameterizedTypeSpecialCase(baseLowerBound, candidateLowerBound, context);
+                if (specialCaseResult == null) {
+                    specialCaseResult = checkGenericArraySpecialCase(baseLowerBound, candidateLowerBound, context);
                 }
                 boolean matched;
                 if (specialCaseResult == null) {
-                    matched = getDelegate().match(candidateLowerBound, baseLowerBound);
+                    matched = getDelegate().match(candidateLowerBound, baseLowerBound, false, context);
                 } else {
                     matched = specialCaseResult;
                 }
@@ -224,8 +241,8 @@ public class WildcardTypeComplianceMatcher extends AbstractDelegatingTypeComplia
 
     /**
      * <p>
-     *      Follows the contract of {@link #checkWildcardCandidateLowerBounds(WildcardType)} for the special case
-     *      when two lower bounds are {@link ParameterizedType} instances.
+     *      Follows the contract of {@link #checkWildcardCandidateLowerBounds(MatchContext, WildcardType)} for
+     *      the special case when two lower bounds are {@link ParameterizedType} instances.
      * </p>
      * <p>
      *      The general idea is to correctly perform checking for the comparisons
@@ -235,6 +252,7 @@ public class WildcardTypeComplianceMatcher extends AbstractDelegatingTypeComplia
      *
      * @param baseLowerBound            {@code 'base'} type lower bound
      * @param candidateLowerBound       {@code 'candidate'} type lower bound
+     * @param context                   context of the check against the base wildcard type
      * @return                          {@code true} if given lower bounds are {@link ParameterizedType} and
      *                                  {@code 'candidate'} lower bound usage doesn't contradict to
      *                                  {@code 'base'} lower bound usage; {@code false} if both given
@@ -244,29 +262,27 @@ public class WildcardTypeComplianceMatcher extends AbstractDelegatingTypeComplia
      *
      */
     private Boolean checkParameterizedTypeSpecialCase(@NotNull Type baseLowerBound,
-                                                      @NotNull Type candidateLowerBound)
+                                                      @NotNull Type candidateLowerBound,
+                                                      @NotNull MatchContext<WildcardType> context)
     {
-        dispatch(baseLowerBound, parameterizedTypeRetriever);
-        ParameterizedType baseType = parameterizedTypeHolder.get();
+        ParameterizedType baseType = apply(baseLowerBound, PARAMETERIZED_TYPE_RETRIEVER, null);
         if (baseType == null) {
             return null;
         }
 
-        parameterizedTypeHolder.set(null);
-        dispatch(candidateLowerBound, parameterizedTypeRetriever);
-        ParameterizedType candidateType = parameterizedTypeHolder.get();
+        ParameterizedType candidateType = apply(candidateLowerBound, PARAMETERIZED_TYPE_RETRIEVER, null);
         if (candidateType == null) {
             return null;
         }
 
-        if (!getDelegate().match(candidateType.getRawType(), baseType.getRawType())) {
+        if (!getDelegate().match(candidateType.getRawType(), baseType.getRawType(), false, context)) {
             return false;
         }
 
-        Type[] candidateArguments = candidateType.getActualTypeArguments();
+        Type[] candidateArguments = ReflectionCache.getActualTypeArguments(candidateType);
         for (int i = 0; i < candidateArguments.length; ++i) {
-            Type baseArgument = getTypeArgumentResolver().resolve(candidateType, baseType, i);
-            if (!getDelegate().match(baseArgument, candidateArguments[i])) {
+            Type baseArgument = resolveTypeArgument(candidateType, baseType, i);
+            if (!getDelegate().match(baseArgument, candidateArguments[i], false, context)) {
                 return false;
             }
         }
@@ -275,16 +291,17 @@ public class WildcardTypeComplianceMatcher extends AbstractDelegatingTypeComplia
 
     /**
      * <p>
-     *      Follows the contract of {@link #checkWildcardCandidateLowerBounds(WildcardType)} for the special case
-     *      when two lower bounds are {@link ParameterizedType} instances.
+     *      Follows the contract of {@link #checkWildcardCandidateLowerBounds(MatchContext, WildcardType)} for
+     *      the special case when two lower bounds are {@link ParameterizedType} instances.
      * </p>
      * <p>
-     *     Just delegates to {@link #checkParameterizedTypeSpecialCase(Type, Type)} for the generic arrays
+     *     Just delegates to {@link #checkParameterizedTypeSpecialCase(Type, Type, MatchContext)} for the generic arrays
      *     component types.
      * </p>
      *
      * @param baseLowerBound          {@code 'base'} type lower bound
      * @param candidateLowerBound     {@code 'candidate'} type lower bound
+     * @param context                 context of the check against the base wildcard type
      * @return                        {@code true} if given lower bounds are {@link GenericArrayType} and
      *                                {@code 'candidate'} lower bound usage doesn't contradict to
      *                                {@code 'base'} lower bound usage; {@code false} if both given
@@ -292,22 +309,22 @@ public class WildcardTypeComplianceMatcher extends AbstractDelegatingTypeComplia
      *                                contradicts to {@code 'base'} bound; {@code null} if any of the
      *                                given types is not {@link GenericArrayType}
      */
-    private Boolean checkGenericArraySpecialCase(@NotNull Type baseLowerBound, @NotNull Type candidateLowerBound) {
-        dispatch(baseLowerBound, genericArrayRetriever);
-        GenericArrayType baseType = genericArrayHolder.get();
+    private Boolean checkGenericArraySpecialCase(@NotNull Type baseLowerBound,
+                                                 @NotNull Type candidateLowerBound,
+                                                 @NotNull MatchContext<WildcardType> context)
+    {
+        GenericArrayType baseType = apply(baseLowerBound, GENERIC_ARRAY_RETRIEVER, null);
         if (baseType == null) {
             return null;
         }
 
-        genericArrayHolder.set(null);
-        dispatch(candidateLowerBound, genericArrayRetriever);
-        GenericArrayType candidateType = genericArrayHolder.get();
+        GenericArrayType candidateType = apply(candidateLowerBound, GENERIC_ARRAY_RETRIEVER, null);
         if (candidateType == null) {
             return null;
         }
 
         return checkParameterizedTypeSpecialCase(
-                baseType.getGenericComponentType(), candidateType.getGenericComponentType()
+                baseType.getGenericComponentType(), candidateType.getGenericComponentType(), context
         );
     }
 }
\ No newline at end of file
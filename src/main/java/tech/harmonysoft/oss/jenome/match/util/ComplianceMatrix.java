@@ -0,0 +1,354 @@
+package tech.harmonysoft.oss.jenome.match.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import tech.harmonysoft.oss.jenome.match.TypeComplianceMatcher;
+import tech.harmonysoft.oss.jenome.match.impl.CompositeTypeComplianceMatcher;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ *      Holds results of {@link TypeComplianceMatcher#match(Type, Type) compliance checks} of every given base type
+ *      against every given candidate type, e.g. of all injection points against all bean types during
+ *      a container startup. It's built by {@link #compute(Collection, Collection)} which avoids most of
+ *      the {@code N x M} checks:
+ * </p>
+ * <ul>
+ *     <li>equal base types and equal candidate types are checked only once;</li>
+ *     <li>
+ *          base and candidate types are grouped by their raw types. A candidate can't be used in place of a class
+ *          or a parameterized type if its raw type is not assignable to the base's raw type, so, every such
+ *          group of cells is pruned by a single {@link Class#isAssignableFrom(Class)} call;
+ *     </li>
+ *     <li>remaining cells are checked in parallel at a {@link ForkJoinPool};</li>
+ * </ul>
+ * <p>Results are kept as a bitset, one bit per distinct base and candidate types pair.</p>
+ * <p>Thread-safe.</p>
+ */
+public class ComplianceMatrix {
+
+    /** Maximum number of cells checked by a single fork/join task. */
+    static final int THRESHOLD = 1024;
+
+    @NotNull private final List<Type> bases;
+    @NotNull private final List<Type> candidates;
+    @NotNull private final int[]      rowByBase;
+    @NotNull private final int[]      columnByCandidate;
+    @NotNull private final long[]     bits;
+    private final          int        wordsPerRow;
+    private final          long       checkedCells;
+    private final          long       prunedCells;
+
+    private ComplianceMatrix(@NotNull List<Type> bases,
+                             @NotNull List<Type> candidates,
+                             @NotNull int[] rowByBase,
+                             @NotNull int[] columnByCandidate,
+                             @NotNull long[] bits,
+                             int wordsPerRow,
+                             long checkedCells,
+                             long prunedCells)
+    {
+        this.bases = bases;
+        this.candidates = candidates;
+        this.rowByBase = rowByBase;
+        this.columnByCandidate = columnByCandidate;
+        this.bits = bits;
+        this.wordsPerRow = wordsPerRow;
+        this.checkedCells = checkedCells;
+        this.prunedCells = prunedCells;
+    }
+
+    /**
+     * Delegates to {@link #compute(Collection, Collection, TypeComplianceMatcher, ForkJoinPool)} using
+     * {@link CompositeTypeComplianceMatcher#INSTANCE} and {@link ForkJoinPool#commonPool()}.
+     *
+     * @param bases         base types
+     * @param candidates    candidate types
+     * @return              compliance matrix for the given types
+     * @throws IllegalArgumentException     if any of the checks fails
+     */
+    @NotNull
+    public static ComplianceMatrix compute(@NotNull Collection<? extends Type> bases,
+                                           @NotNull Collection<? extends Type> candidates)
+            throws IllegalArgumentException
+    {
+        return compute(bases, candidates, CompositeTypeComplianceMatcher.INSTANCE, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Checks every given base type against every given candidate type.
+     *
+     * @param bases         base types
+     * @param candidates    candidate types
+     * @param matcher       matcher to use for the checks
+     * @param pool          pool to use for the checks
+     * @return              compliance matrix for the given types
+     * @throws IllegalArgumentException     if any of the checks fails
+     */
+    @NotNull
+    public static ComplianceMatrix compute(@NotNull Collection<? extends Type> bases,
+                                           @NotNull Collection<? extends Type> candidates,
+                                           @NotNull TypeComplianceMatcher<Type> matcher,
+                                           @NotNull ForkJoinPool pool)
+            throws IllegalArgumentException
+    {
+        List<Type> baseList = Collections.unmodifiableList(new ArrayList<>(bases));
+        List<Type> candidateList = Collections.unmodifiableList(new ArrayList<>(candidates));
+        Axis rows = new Axis(baseList);
+        Axis columns = new Axis(candidateList);
+
+        int wordsPerRow = (columns.types.length + Long.SIZE - 1) >>> 6;
+        long[] bits = new long[rows.types.length * wordsPerRow];
+        Computation computation = new Computation(rows, columns, matcher, bits, wordsPerRow);
+        MatrixTask task = new MatrixTask(computation, 0, rows.types.length);
+        if ((long) rows.types.length * columns.types.length <= THRESHOLD) {
+            task.compute();
+        } else {
+            pool.invoke(task);
+        }
+        return new ComplianceMatrix(baseList, candidateList, rows.indexByType, columns.indexByType, bits,
+                                    wordsPerRow, computation.checked.sum(), computation.pruned.sum());
+    }
+
+    /**
+     * @return      base types in order given to {@link #compute(Collection, Collection)}, they are referenced
+     *              by their indexes in this list
+     */
+    @NotNull
+    public List<Type> getBases() {
+        return bases;
+    }
+
+    /**
+     * @return      candidate types in order given to {@link #compute(Collection, Collection)}, they are
+     *              referenced by their indexes in this list
+     */
+    @NotNull
+    public List<Type> getCandidates() {
+        return candidates;
+    }
+
+    /**
+     * @param baseIndex         index of the target base type at {@link #getBases()}
+     * @param candidateIndex    index of the target candidate type at {@link #getCandidates()}
+     * @return                  {@code true} if the candidate type may be used in place of the base type;
+     *                          {@code false} otherwise
+     * @throws IndexOutOfBoundsException    if any of the given indexes is out of range
+     */
+    public boolean matches(int baseIndex, int candidateIndex) throws IndexOutOfBoundsException {
+        int column = columnByCandidate[candidateIndex];
+        return (bits[rowByBase[baseIndex] * wordsPerRow + (column >>> 6)] & (1L << column)) != 0;
+    }
+
+    /**
+     * @param baseIndex     index of the target base type at {@link #getBases()}
+     * @return              indexes of the candidate types (at {@link #getCandidates()}) which may be used
+     *                      in place of the target base type
+     * @throws IndexOutOfBoundsException    if given index is out of range
+     */
+    @NotNull
+    public BitSet getMatches(int baseIndex) throws IndexOutOfBoundsException {
+        int offset = rowByBase[baseIndex] * wordsPerRow;
+        BitSet result = new BitSet(candidates.size());
+        for (int i = 0; i < columnByCandidate.length; ++i) {
+            int column = columnByCandidate[i];
+            if ((bits[offset + (column >>> 6)] & (1L << column)) != 0) {
+                result.set(i);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return      number of distinct base and candidate types pairs which were checked by the matcher
+     */
+    public long getCheckedCells() {
+        return checkedCells;
+    }
+
+    /**
+     * @return      number of distinct base and candidate types pairs which were pruned by raw types check
+     */
+    public long getPrunedCells() {
+        return prunedCells;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d bases x %d candidates (checked: %d, pruned: %d)",
+                             bases.size(), candidates.size(), checkedCells, prunedCells);
+    }
+
+    /**
+     * @param type      target type
+     * @return          raw type of the given type if it's a class or a parameterized type, that raw type can be
+     *                  used for pruning; {@code null} otherwise
+     */
+    @Nullable
+    private static Class<?> getRawType(@NotNull Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        }
+        if (type instanceof ParameterizedType) {
+            Type rawType = ((ParameterizedType) type).getRawType();
+            if (rawType instanceof Class) {
+                return (Class<?>) rawType;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * <p>Distinct types of a matrix axis, types with the same raw type are adjacent.</p>
+     * <p>Types without a {@link #getRawType(Type) raw type} are at the end, they form a group of their own.</p>
+     */
+    private static class Axis {
+
+        /** Distinct types. */
+        @NotNull final Type[]     types;
+
+        /** Maps index of a given type to index of a distinct type at {@link #types}. */
+        @NotNull final int[]      indexByType;
+
+        /** Raw types of the groups, {@code null} for the group of types without raw type. */
+        @NotNull final Class<?>[] groupRawTypes;
+
+        /** Index of the first type of every group at {@link #types} followed by number of distinct types. */
+        @NotNull final int[]      groupStarts;
+
+        Axis(@NotNull List<Type> types) {
+            Map<Class<?>, List<Type>> groups = new LinkedHashMap<>();
+            Map<Type, Boolean> distinct = new HashMap<>();
+            for (Type type : types) {
+                if (distinct.put(type, Boolean.TRUE) == null) {
+                    groups.computeIfAbsent(getRawType(type), key -> new ArrayList<>()).add(type);
+                }
+            }
+            List<Type> noRawType = groups.remove(null);
+            if (noRawType != null) {
+                groups.put(null, noRawType);
+            }
+
+            this.types = new Type[distinct.size()];
+            groupRawTypes = new Class<?>[groups.size()];
+            groupStarts = new int[groups.size() + 1];
+            Map<Type, Integer> indexes = new HashMap<>();
+            int group = 0;
+            int index = 0;
+            for (Map.Entry<Class<?>, List<Type>> entry : groups.entrySet()) {
+                groupRawTypes[group] = entry.getKey();
+                groupStarts[group++] = index;
+                for (Type type : entry.getValue()) {
+                    indexes.put(type, index);
+                    this.types[index++] = type;
+                }
+            }
+            groupStarts[group] = index;
+
+            indexByType = new int[types.size()];
+            for (int i = 0; i < indexByType.length; ++i) {
+                indexByType[i] = indexes.get(types.get(i));
+            }
+        }
+    }
+
+    /**
+     * State shared by all tasks of a single matrix computation.
+     */
+    private static class Computation {
+
+        @NotNull final Axis                        rows;
+        @NotNull final Axis                        columns;
+        @NotNull final TypeComplianceMatcher<Type> matcher;
+        @NotNull final long[]                      bits;
+        @NotNull final LongAdder                   checked = new LongAdder();
+        @NotNull final LongAdder                   pruned  = new LongAdder();
+        final          int                         wordsPerRow;
+
+        Computation(@NotNull Axis rows,
+                    @NotNull Axis columns,
+                    @NotNull TypeComplianceMatcher<Type> matcher,
+                    @NotNull long[] bits,
+                    int wordsPerRow)
+        {
+            this.rows = rows;
+            this.columns = columns;
+            this.matcher = matcher;
+            this.bits = bits;
+            this.wordsPerRow = wordsPerRow;
+        }
+    }
+
+    /**
+     * Fills a range of matrix rows, splits the range if it has too many cells. Every row occupies its own
+     * words at the bitset, so, different tasks never write to the same word.
+     */
+    private static class MatrixTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        @NotNull private final Computation computation;
+        private final          int         from;
+        private final          int         to;
+
+        MatrixTask(@NotNull Computation computation, int from, int to) {
+            this.computation = computation;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            Axis columns = computation.columns;
+            if (to - from > 1 && (long) (to - from) * columns.types.length > THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new MatrixTask(computation, from, middle), new MatrixTask(computation, middle, to));
+                return;
+            }
+
+            Type[] rowTypes = computation.rows.types;
+            int groups = columns.groupRawTypes.length;
+            boolean[] compliantGroups = new boolean[groups];
+            Class<?> compliantGroupsRawType = null;
+            long checked = 0;
+            long pruned = 0;
+            for (int row = from; row < to; ++row) {
+                Type base = rowTypes[row];
+                Class<?> baseRawType = getRawType(base);
+                if (baseRawType != compliantGroupsRawType || baseRawType == null) {
+                    // Rows are grouped by raw type, so, raw types are checked once per group of rows.
+                    for (int group = 0; group < groups; ++group) {
+                        Class<?> candidateRawType = columns.groupRawTypes[group];
+                        compliantGroups[group] = baseRawType == null
+                                                 || candidateRawType == null
+                                                 || baseRawType.isAssignableFrom(candidateRawType);
+                    }
+                    compliantGroupsRawType = baseRawType;
+                }
+                int offset = row * computation.wordsPerRow;
+                for (int group = 0; group < groups; ++group) {
+                    int start = columns.groupStarts[group];
+                    int end = columns.groupStarts[group + 1];
+                    if (!compliantGroups[group]) {
+                        pruned += end - start;
+                        continue;
+                    }
+                    for (int column = start; column < end; ++column) {
+                        if (computation.matcher.match(base, columns.types[column])) {
+                            computation.bits[offset + (column >>> 6)] |= 1L << column;
+                        }
+                    }
+                    checked += end - start;
+                }
+            }
+            computation.checked.add(checked);
+            computation.pruned.add(pruned);
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package tech.harmonysoft.oss.jenome.match.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import tech.harmonysoft.oss.jenome.cache.CacheStats;
+import tech.harmonysoft.oss.jenome.cache.JenomeCache;
+import tech.harmonysoft.oss.jenome.cache.JenomeCacheFactory;
+import tech.harmonysoft.oss.jenome.cache.UnboundedJenomeCache;
+import tech.harmonysoft.oss.jenome.match.TypeComplianceMatcher;
+import tech.harmonysoft.oss.jenome.match.impl.CompositeTypeComplianceMatcher;
+import tech.harmonysoft.oss.jenome.resolve.TypeFunction;
+import tech.harmonysoft.oss.jenome.resolve.impl.TypeFunctionAdapter;
+import tech.harmonysoft.oss.jenome.resolve.util.ReflectionCache;
+import tech.harmonysoft.oss.jenome.resolve.util.TypeDispatcher;
+
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * <p>
+ *      Selects the most specific of the given candidate types which may be used in place of a given type, e.g.
+ *      when handlers of {@code Number} and {@code Integer} are registered, the {@code Integer} one should
+ *      process an {@code Integer} payload and the {@code Number} one should process a {@code Long} payload:
+ * </p>
+ * <pre>
+ *     SpecificityLattice lattice = new SpecificityLattice(Arrays.asList(Number.class, Integer.class));
+ *     lattice.selectMostSpecific(Integer.class); // Integer.class
+ *     lattice.selectMostSpecific(Long.class);    // Number.class
+ * </pre>
+ * <p>
+ *      Candidate {@code A} is more specific than candidate {@code B} if {@code A} may be used in place of
+ *      {@code B} but not vice versa. That order is calculated once by a {@link ComplianceMatrix} of the
+ *      candidates and kept as a graph where every candidate references directly more specific candidates.
+ *      Queries walk that graph from the most general candidates and go down only from the candidates which
+ *      accept the queried type, i.e. most of the candidates are not checked at all. Query results are cached.
+ * </p>
+ * <p>
+ *      The walk relies on the fact that less specific candidates accept everything which is accepted by more
+ *      specific candidates. That's not true for raw types, e.g. raw {@code List} is accepted by
+ *      {@code List<Integer>} but not by {@code Collection<Integer>}. So, all candidates are checked if
+ *      the queried type or any of the candidates references a raw type.
+ * </p>
+ * <p>
+ *      If there are several most specific candidates, the query is ambiguous, all of them are returned by
+ *      {@link #getMostSpecific(Type)}. Different candidates which may be used in place of each other (e.g.
+ *      {@code List} and {@code List<String>}) are not more specific than each other, so, they make a query
+ *      ambiguous as well. They are not merged because compliance of raw types is not transitive, e.g. both
+ *      {@code List<Integer>} and {@code List<? extends Number>} may be used in place of {@code List} and vice
+ *      versa but only the first one may be used in place of the second one.
+ * </p>
+ * <p>Thread-safe.</p>
+ */
+public class SpecificityLattice {
+
+    /** Name of the query results cache given to a {@link JenomeCacheFactory}. */
+    public static final String CACHE_NAME = "specificity";
+
+    private static final byte UNKNOWN       = 0;
+    private static final byte COMPLIANT     = 1;
+    private static final byte NOT_COMPLIANT = 2;
+
+    /** Returns {@code true} if given type is or references a raw type, e.g. {@code List} or {@code Set<List>}. */
+    private static final TypeFunction<Void, Boolean> RAW_TYPE_CHECKER = new TypeFunctionAdapter<Void, Boolean>() {
+        @Override
+        public Boolean visitParameterizedType(@NotNull ParameterizedType type, Void parameter) {
+            return anyRaw(ReflectionCache.getActualTypeArguments(type));
+        }
+
+        @Override
+        public Boolean visitWildcardType(@NotNull WildcardType type, Void parameter) {
+            return anyRaw(ReflectionCache.getUpperBounds(type)) || anyRaw(ReflectionCache.getLowerBounds(type));
+        }
+
+        @Override
+        public Boolean visitGenericArrayType(@NotNull GenericArrayType type, Void parameter) {
+            return isRaw(type.getGenericComponentType());
+        }
+
+        @Override
+        public Boolean visitClass(@NotNull Class<?> clazz, Void parameter) {
+            return clazz.isArray() ? isRaw(clazz.getComponentType())
+                                   : ReflectionCache.getTypeParameters(clazz).length > 0;
+        }
+    };
+
+    @NotNull private final List<Type>                    candidates;
+    @NotNull private final TypeComplianceMatcher<Type>   matcher;
+    @NotNull private final JenomeCache<Type, List<Type>> cache;
+
+    /** Distinct candidates in order of their first occurrence, they are referenced by their indexes. */
+    @NotNull private final Type[] distinct;
+
+    /** All more specific candidates of every candidate. */
+    @NotNull private final BitSet[] descendants;
+
+    /** Directly more specific candidates of every candidate. */
+    @NotNull private final int[][] children;
+
+    /** Candidates which are not more specific than any other candidate. */
+    @NotNull private final int[] roots;
+
+    /** Is {@code true} if any of the candidates references a raw type, i.e. the graph can't be walked. */
+    private final boolean rawCandidates;
+
+    /**
+     * Uses {@link CompositeTypeComplianceMatcher#INSTANCE} and an unbounded query results cache.
+     *
+     * @param candidates    candidate types
+     * @throws IllegalArgumentException     if any of the candidates can't be checked against the others
+     */
+    public SpecificityLattice(@NotNull Collection<? extends Type> candidates) throws IllegalArgumentException {
+        this(candidates, CompositeTypeComplianceMatcher.INSTANCE, UnboundedJenomeCache.FACTORY);
+    }
+
+    /**
+     * @param candidates        candidate types
+     * @param matcher           matcher to use for ordering the candidates and for queries
+     * @param cacheFactory      factory to create query results cache
+     * @throws IllegalArgumentException     if any of the candidates can't be checked against the others
+     */
+    public SpecificityLattice(@NotNull Collection<? extends Type> candidates,
+                              @NotNull TypeComplianceMatcher<Type> matcher,
+                              @NotNull JenomeCacheFactory cacheFactory)
+            throws IllegalArgumentException
+    {
+        this.candidates = Collections.unmodifiableList(new ArrayList<>(candidates));
+        this.matcher = matcher;
+        cache = cacheFactory.newCache(CACHE_NAME);
+
+        List<Type> distinctList = new ArrayList<>(new LinkedHashSet<>(this.candidates));
+        distinct = distinctList.toArray(new Type[distinctList.size()]);
+        // matrix.matches(i, j) means that candidate 'j' may be used in place of candidate 'i'.
+        ComplianceMatrix matrix = ComplianceMatrix.compute(distinctList, distinctList, matcher,
+                                                           ForkJoinPool.commonPool());
+
+        int nodes = distinct.length;
+        descendants = new BitSet[nodes];
+        BitSet nonRoots = new BitSet(nodes);
+        for (int node = 0; node < nodes; ++node) {
+            descendants[node] = new BitSet(nodes);
+            for (int other = 0; other < nodes; ++other) {
+                if (other != node && matrix.matches(node, other) && !matrix.matches(other, node)) {
+                    descendants[node].set(other);
+                    nonRoots.set(other);
+                }
+            }
+        }
+
+        children = new int[nodes][];
+        for (int node = 0; node < nodes; ++node) {
+            BitSet direct = (BitSet) descendants[node].clone();
+            for (int descendant = descendants[node].nextSetBit(0);
+                 descendant >= 0;
+                 descendant = descendants[node].nextSetBit(descendant + 1))
+            {
+                direct.andNot(descendants[descendant]);
+            }
+            children[node] = direct.stream().toArray();
+        }
+        BitSet roots = new BitSet(nodes);
+        roots.set(0, nodes);
+        roots.andNot(nonRoots);
+        this.roots = roots.stream().toArray();
+        rawCandidates = distinctList.stream().anyMatch(SpecificityLattice::isRaw);
+    }
+
+    /**
+     * @return      candidate types in order given to the constructor
+     */
+    @NotNull
+    public List<Type> getCandidates() {
+        return candidates;
+    }
+
+    /**
+     * @param type      target type
+     * @return          candidates which accept the given type (i.e. the type may be used in place of them) and
+     *                  are not less specific than any other such candidate, in order given to the constructor;
+     *                  empty list if no candidate accepts the given type. More than one candidate means that
+     *                  the selection is ambiguous
+     * @throws IllegalArgumentException     if the type can't be checked against the candidates
+     */
+    @NotNull
+    public List<Type> getMostSpecific(@NotNull Type type) throws IllegalArgumentException {
+        List<Type> result = cache.get(type);
+        if (result == null) {
+            result = cache.putIfAbsent(type, select(type));
+        }
+        return result;
+    }
+
+    /**
+     * @param type      target type
+     * @return          the most specific candidate which accepts the given type if any; {@code null} if no
+     *                  candidate accepts it
+     * @throws IllegalArgumentException     if the type can't be checked against the candidates or if there is
+     *                                      more than one most specific candidate
+     */
+    @Nullable
+    public Type selectMostSpecific(@NotNull Type type) throws IllegalArgumentException {
+        List<Type> result = getMostSpecific(type);
+        if (result.size() > 1) {
+            throw new IllegalArgumentException(String.format(
+                    "Can't select the most specific candidate for %s. Reason: %d candidates accept it and none of "
+                    + "them is more specific than the others: %s", type.getTypeName(), result.size(), result));
+        }
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    /**
+     * @return      query results cache statistics
+     */
+    @NotNull
+    public CacheStats getCacheStats() {
+        return cache.getStats();
+    }
+
+    @NotNull
+    private List<Type> select(@NotNull Type type) {
+        BitSet mostSpecific = rawCandidates || isRaw(type) ? selectExhaustively(type) : walk(type);
+        if (mostSpecific.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Type> result = new ArrayList<>(mostSpecific.cardinality());
+        for (int node = mostSpecific.nextSetBit(0); node >= 0; node = mostSpecific.nextSetBit(node + 1)) {
+            result.add(distinct[node]);
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    @NotNull
+    private BitSet selectExhaustively(@NotNull Type type) {
+        BitSet accepting = new BitSet(distinct.length);
+        for (int node = 0; node < distinct.length; ++node) {
+            if (matcher.match(distinct[node], type)) {
+                accepting.set(node);
+            }
+        }
+        BitSet result = (BitSet) accepting.clone();
+        for (int node = accepting.nextSetBit(0); node >= 0; node = accepting.nextSetBit(node + 1)) {
+            if (descendants[node].intersects(accepting)) {
+                result.clear(node);
+            }
+        }
+        return result;
+    }
+
+    @NotNull
+    private BitSet walk(@NotNull Type type) {
+        byte[] compliance = new byte[distinct.length];
+        int[] stack = new int[distinct.length];
+        int size = 0;
+        for (int root : roots) {
+            if (check(root, type, compliance)) {
+                stack[size++] = root;
+            }
+        }
+
+        // Every candidate which accepts the type is pushed once, all less specific candidates accept it as well.
+        BitSet mostSpecific = new BitSet(distinct.length);
+        while (size > 0) {
+            int node = stack[--size];
+            boolean refined = false;
+            for (int child : children[node]) {
+                byte known = compliance[child];
+                if (known == UNKNOWN) {
+                    if (check(child, type, compliance)) {
+                        stack[size++] = child;
+                        refined = true;
+                    }
+                } else if (known == COMPLIANT) {
+                    refined = true;
+                }
+            }
+            if (!refined) {
+                mostSpecific.set(node);
+            }
+        }
+        return mostSpecific;
+    }
+
+    private boolean check(int node, @NotNull Type type, @NotNull byte[] compliance) {
+        boolean result = matcher.match(distinct[node], type);
+        compliance[node] = result ? COMPLIANT : NOT_COMPLIANT;
+        return result;
+    }
+
+    private static boolean isRaw(@NotNull Type type) {
+        return TypeDispatcher.INSTANCE.apply(type, RAW_TYPE_CHECKER, null) == Boolean.TRUE;
+    }
+
+    private static boolean anyRaw(@NotNull Type[] types) {
+        for (Type type : types) {
+            if (isRaw(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
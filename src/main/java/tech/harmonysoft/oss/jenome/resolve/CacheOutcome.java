@@ -0,0 +1,25 @@
+package tech.harmonysoft.oss.jenome.resolve;
+
+/**
+ * Identifies how a result reported to a {@link ResolutionListener} or a {@code MatchListener} is obtained.
+ */
+public enum CacheOutcome {
+
+    /** The result is found at the shared cache. */
+    HIT,
+
+    /** The result is found at the per-thread cache which is checked before the shared one. */
+    THREAD_LOCAL_HIT,
+
+    /** The result is found at the current {@code MatchSession}. */
+    SESSION_HIT,
+
+    /** The result is calculated and cached. */
+    MISS,
+
+    /** The result is calculated and is not cached (or the call has failed). */
+    UNCACHED,
+
+    /** The result is decided by a {@code MatchPrefilter} without caches and the full check. */
+    PREFILTERED
+}
@@ -0,0 +1,109 @@
+package tech.harmonysoft.oss.jenome.resolve;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>
+ *      Dispatches notifications to several {@link ResolutionListener listeners}, they are notified about
+ *      a call start in the order they are added and about the call end in the reverse order.
+ * </p>
+ * <p>
+ *      Holders of a single listener reference are expected to update it via {@link #add(ResolutionListener,
+ *      ResolutionListener)} and {@link #remove(ResolutionListener, ResolutionListener)}, so, there is no
+ *      indirection when only one listener is attached.
+ * </p>
+ * <p>Thread-safe.</p>
+ */
+public final class CompositeResolutionListener implements ResolutionListener {
+
+    @NotNull private final ResolutionListener[] listeners;
+
+    private CompositeResolutionListener(@NotNull List<ResolutionListener> listeners) {
+        this.listeners = listeners.toArray(new ResolutionListener[listeners.size()]);
+    }
+
+    /**
+     * @param current   current listener if any
+     * @param listener  listener to add
+     * @return          listener which notifies both given listeners; {@code 'current'} if it already notifies
+     *                  the given listener
+     */
+    @NotNull
+    public static ResolutionListener add(@Nullable ResolutionListener current, @NotNull ResolutionListener listener) {
+        List<ResolutionListener> listeners = toList(current);
+        if (listeners.contains(listener)) {
+            return current;
+        }
+        listeners.add(listener);
+        return listeners.size() == 1 ? listener : new CompositeResolutionListener(listeners);
+    }
+
+    /**
+     * @param current   current listener if any
+     * @param listener  listener to remove
+     * @return          listener which notifies all listeners notified by the {@code 'current'} one except the
+     *                  given one; {@code null} if there are no such listeners
+     */
+    @Nullable
+    public static ResolutionListener remove(@Nullable ResolutionListener current,
+                                            @NotNull ResolutionListener listener)
+    {
+        List<ResolutionListener> listeners = toList(current);
+        if (!listeners.remove(listener)) {
+            return current;
+        }
+        if (listeners.isEmpty()) {
+            return null;
+        }
+        return listeners.size() == 1 ? listeners.get(0) : new CompositeResolutionListener(listeners);
+    }
+
+    @NotNull
+    private static List<ResolutionListener> toList(@Nullable ResolutionListener listener) {
+        if (listener instanceof CompositeResolutionListener) {
+            return new ArrayList<>(Arrays.asList(((CompositeResolutionListener) listener).listeners));
+        }
+        List<ResolutionListener> result = new ArrayList<>();
+        if (listener != null) {
+            result.add(listener);
+        }
+        return result;
+    }
+
+    @Nullable
+    @Override
+    public Object onResolveStart(@NotNull Type base, @NotNull Type target, int index) {
+        // Token array is allocated only if some listener returns a token.
+        Object[] tokens = null;
+        for (int i = 0; i < listeners.length; ++i) {
+            Object token = listeners[i].onResolveStart(base, target, index);
+            if (token != null) {
+                if (tokens == null) {
+                    tokens = new Object[listeners.length];
+                }
+                tokens[i] = token;
+            }
+        }
+        return tokens;
+    }
+
+    @Override
+    public void onResolveEnd(@NotNull Type base,
+                             @NotNull Type target,
+                             int index,
+                             @Nullable Type result,
+                             @NotNull CacheOutcome outcome,
+                             @Nullable Object token)
+    {
+        Object[] tokens = (Object[]) token;
+        for (int i = listeners.length - 1; i >= 0; --i) {
+            listeners[i].onResolveEnd(base, target, index, result, outcome, tokens == null ? null : tokens[i]);
+        }
+    }
+}
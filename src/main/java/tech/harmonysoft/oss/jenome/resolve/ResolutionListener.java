@@ -0,0 +1,57 @@
+package tech.harmonysoft.oss.jenome.resolve;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Type;
+
+/**
+ * <p>
+ *      Receives notifications about type argument resolutions, it's an extension point for optional features
+ *      like profiling, persistence and monitoring. Listeners are attached via {@code addListener()} of
+ *      {@code DefaultTypeArgumentResolver} and {@code GenericsHelper}, several listeners can be
+ *      {@link CompositeResolutionListener combined}.
+ * </p>
+ * <p>
+ *      Listeners are called at the resolving thread on every call (including cache hits), so, they are expected
+ *      to be cheap. Every {@link #onResolveStart(Type, Type, int)} call is followed by
+ *      {@link #onResolveEnd(Type, Type, int, Type, CacheOutcome, Object)} for the same call, nested resolutions
+ *      (e.g. performed during a compliance check) are reported between them.
+ * </p>
+ * <p>Implementations of this interface are assumed to be thread-safe.</p>
+ */
+public interface ResolutionListener {
+
+    /**
+     * Is called before a type argument resolution.
+     *
+     * @param base      base type
+     * @param target    target type
+     * @param index     type argument index
+     * @return          object to give to {@link #onResolveEnd(Type, Type, int, Type, CacheOutcome, Object)}
+     *                  for the current call, e.g. a timer; {@code null} if nothing should be given
+     */
+    @Nullable
+    default Object onResolveStart(@NotNull Type base, @NotNull Type target, int index) {
+        return null;
+    }
+
+    /**
+     * Is called after a type argument resolution even if it has failed.
+     *
+     * @param base      base type
+     * @param target    target type
+     * @param index     type argument index
+     * @param result    resolved type argument; {@code null} if the resolution has failed
+     * @param outcome   identifies how the result is obtained
+     * @param token     object returned from {@link #onResolveStart(Type, Type, int)} for the current call
+     */
+    default void onResolveEnd(@NotNull Type base,
+                              @NotNull Type target,
+                              int index,
+                              @Nullable Type result,
+                              @NotNull CacheOutcome outcome,
+                              @Nullable Object token)
+    {
+    }
+}
@@ -61,4 +61,16 @@ public interface TypeArgumentResolver {
      */
     @NotNull
     Type resolve(@NotNull Type base, @NotNull Type target, int index) throws IllegalArgumentException;
-}
\ No newline at end of file
+
+    /**
+     * Allows to find out if results calculated by the current resolver before are still valid, e.g. results
+     * memoized by a type compliance matcher.
+     *
+     * @return      a number which is changed every time the resolver is configured in a way which may affect
+     *              its results; default implementation always returns zero, i.e. it's assumed that resolver
+     *              results never change
+     */
+    default int getConfigurationGeneration() {
+        return 0;
+    }
+}
@@ -0,0 +1,38 @@
+package tech.harmonysoft.oss.jenome.resolve;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.*;
+
+/**
+ * <p>A value-returning {@code GoF Visitor} for {@link Type} dispatching.</p>
+ * <p>
+ *      Unlike {@link TypeVisitor}, it receives a parameter and returns a result, so, an implementation doesn't need
+ *      to keep per-call state anywhere. A stateless instance can be shared by all threads and re-entered from
+ *      nested dispatches.
+ * </p>
+ *
+ * @param <P>   parameter type
+ * @param <R>   result type
+ */
+public interface TypeFunction<P, R> {
+
+    @Nullable
+    R visitParameterizedType(@NotNull ParameterizedType type, @Nullable P parameter);
+
+    @Nullable
+    R visitWildcardType(@NotNull WildcardType type, @Nullable P parameter);
+
+    @Nullable
+    R visitGenericArrayType(@NotNull GenericArrayType type, @Nullable P parameter);
+
+    @Nullable
+    R visitTypeVariable(@NotNull TypeVariable<? extends GenericDeclaration> type, @Nullable P parameter);
+
+    @Nullable
+    R visitClass(@NotNull Class<?> clazz, @Nullable P parameter);
+
+    @Nullable
+    R visitType(@NotNull Type type, @Nullable P parameter);
+}
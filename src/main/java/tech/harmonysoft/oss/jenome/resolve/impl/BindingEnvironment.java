@@ -0,0 +1,163 @@
+package tech.harmonysoft.oss.jenome.resolve.impl;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import tech.harmonysoft.oss.jenome.resolve.TypeArgumentResolver;
+import tech.harmonysoft.oss.jenome.resolve.util.TypeSubstitutor;
+
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.Arrays;
+
+/**
+ * <p>
+ *      Holds values of the type parameters of a single generic declaration as parallel arrays, i.e. value of the
+ *      {@code i}-th type parameter (in {@link Class#getTypeParameters()} order) is stored at the {@code i}-th
+ *      position.
+ * </p>
+ * <p>
+ *      Is intended to be reused - moving to another declaration during hierarchy traversal
+ *      ({@link #rebind(TypeVariable[], Type[], TypeSubstitutor)}) is an array remap without allocations
+ *      (backing arrays are only grown when necessary).
+ * </p>
+ * <p>Not thread-safe.</p>
+ */
+class BindingEnvironment implements TypeSubstitutor.Bindings {
+
+    private static final TypeVariable<?>[] NO_VARIABLES = new TypeVariable<?>[0];
+
+    @NotNull private TypeVariable<?>[] variables = NO_VARIABLES;
+    @NotNull private Type[]            values    = new Type[4];
+    @NotNull private Type[]            buffer    = new Type[4];
+    private          int               size;
+
+    /**
+     * @return      number of bound type parameters
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index     target type parameter index
+     * @return          value of the type parameter at the given index
+     */
+    @NotNull
+    public Type get(int index) {
+        return values[index];
+    }
+
+    @Nullable
+    @Override
+    public Type lookup(@NotNull TypeVariable<?> variable) {
+        int index = indexOf(variable);
+        return index < 0 ? null : values[index];
+    }
+
+    /**
+     * @param type      type to check
+     * @return          index of the given type at the current type parameters if it's one of them;
+     *                  negative value otherwise
+     */
+    public int indexOf(@NotNull Type type) {
+        if (!(type instanceof TypeVariable)) {
+            return -1;
+        }
+        for (int i = 0; i < size; ++i) {
+            if (variables[i] == type) {
+                return i;
+            }
+        }
+        // Type variables are normally the same objects as the ones returned from getTypeParameters(), we fall
+        // back to equals() for custom type variable implementations.
+        for (int i = 0; i < size; ++i) {
+            if (variables[i].equals(type)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Binds given type parameters to the given arguments. Arguments which are type parameters bound at the
+     * current environment are replaced by their values.
+     *
+     * @param variables     type parameters of the new generic declaration
+     * @param arguments     actual type arguments for the given type parameters
+     * @param substitutor   substitutor to apply for the arguments which reference current type parameters
+     *                      at nested positions, {@code null} to keep such arguments as-is
+     */
+    public void rebind(@NotNull TypeVariable<?>[] variables,
+                       @NotNull Type[] arguments,
+                       @Nullable TypeSubstitutor substitutor)
+    {
+        ensureBufferCapacity(variables.length);
+        for (int i = 0; i < variables.length; ++i) {
+            Type resolved = arguments[i];
+            int index = indexOf(resolved);
+            if (index >= 0) {
+                resolved = values[index];
+            } else if (substitutor != null && size > 0) {
+                resolved = substitutor.substitute(resolved, this);
+            }
+            buffer[i] = resolved;
+        }
+        swap(variables);
+    }
+
+    /**
+     * Binds all given type parameters to {@link TypeArgumentResolver#RAW_TYPE}.
+     *
+     * @param variables     type parameters of the new generic declaration
+     */
+    public void rebindRaw(@NotNull TypeVariable<?>[] variables) {
+        ensureBufferCapacity(variables.length);
+        Arrays.fill(buffer, 0, variables.length, TypeArgumentResolver.RAW_TYPE);
+        swap(variables);
+    }
+
+    /**
+     * Makes current environment to hold the same bindings as the given one.
+     *
+     * @param other     environment to copy
+     */
+    public void copyFrom(@NotNull BindingEnvironment other) {
+        if (values.length < other.size) {
+            values = new Type[other.values.length];
+            buffer = new Type[other.values.length];
+        }
+        System.arraycopy(other.values, 0, values, 0, other.size);
+        if (other.size < size) {
+            Arrays.fill(values, other.size, size, null);
+        }
+        variables = other.variables;
+        size = other.size;
+    }
+
+    /**
+     * Drops all bindings.
+     */
+    public void clear() {
+        Arrays.fill(values, 0, size, null);
+        variables = NO_VARIABLES;
+        size = 0;
+    }
+
+    private void ensureBufferCapacity(int capacity) {
+        if (buffer.length < capacity) {
+            int newCapacity = Math.max(capacity, buffer.length * 2);
+            buffer = new Type[newCapacity];
+            values = Arrays.copyOf(values, newCapacity);
+        }
+    }
+
+    private void swap(@NotNull TypeVariable<?>[] variables) {
+        Type[] tmp = values;
+        values = buffer;
+        buffer = tmp;
+        // Keep the buffer clean, so, it holds non-null values only during rebind()
+        Arrays.fill(buffer, 0, size, null);
+        this.variables = variables;
+        size = variables.length;
+    }
+}
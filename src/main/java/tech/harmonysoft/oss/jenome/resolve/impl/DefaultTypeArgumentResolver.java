@@ -1,18 +1,38 @@
 package tech.harmonysoft.oss.jenome.resolve.impl;
 
+import tech.harmonysoft.oss.jenome.cache.CacheStats;
+import tech.harmonysoft.oss.jenome.cache.JenomeCache;
+import tech.harmonysoft.oss.jenome.cache.JenomeCacheFactory;
+import tech.harmonysoft.oss.jenome.cache.UnboundedJenomeCache;
+import tech.harmonysoft.oss.jenome.resolve.CacheOutcome;
+import tech.harmonysoft.oss.jenome.resolve.CompositeResolutionListener;
+import tech.harmonysoft.oss.jenome.resolve.ResolutionListener;
 import tech.harmonysoft.oss.jenome.resolve.TypeArgumentResolver;
-import tech.harmonysoft.oss.jenome.resolve.TypeVisitor;
+import tech.harmonysoft.oss.jenome.resolve.TypeFunction;
+import tech.harmonysoft.oss.jenome.resolve.util.ClassLoaderAwareCache;
+import tech.harmonysoft.oss.jenome.resolve.util.ReflectionCache;
 import tech.harmonysoft.oss.jenome.resolve.util.TypeDispatcher;
+import tech.harmonysoft.oss.jenome.resolve.util.TypeSubstitutor;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.lang.reflect.*;
-import java.util.Arrays;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * <p>Default {@link TypeArgumentResolver} implementation.</p>
+ * <p>
+ *      Resolution results are cached, i.e. repeated calls for the same arguments don't traverse the type hierarchy
+ *      again. The cache is {@link ClassLoaderAwareCache class loader-aware}, so, it doesn't prevent classes
+ *      from being unloaded.
+ * </p>
+ * <p>
+ *      Results found at that shared cache are also remembered at a small per-thread
+ *      {@link DirectMappedResolutionCache direct-mapped cache} which is checked first, so, repeated resolutions
+ *      neither allocate nor touch shared memory.
+ * </p>
  * <p>This class is not singleton but offers single-point-of-usage field ({@link #INSTANCE}).</p>
  * <p>Thread-safe.</p>
  */
@@ -21,103 +41,111 @@ public class DefaultTypeArgumentResolver implements TypeArgumentResolver {
     /** Single-point-of-usage field. */
     public static final DefaultTypeArgumentResolver INSTANCE = new DefaultTypeArgumentResolver();
 
-    /** Builds actual type arguments mappings. */
-    private final TypeVisitor typeArgumentsMapper = new TypeVisitorAdapter() {
+    /** Name of the resolution results cache given to a {@link JenomeCacheFactory}. */
+    public static final String CACHE_NAME = "resolver";
+
+    /** Number of slots in every thread-local resolution results cache. */
+    private static final int THREAD_LOCAL_CACHE_SIZE = 256;
+
+    /** Builds actual type arguments mappings, returns {@code true} if the base class is reached. */
+    private final TypeFunction<ResolutionContext, Boolean> typeArgumentsMapper
+            = new TypeFunctionAdapter<ResolutionContext, Boolean>()
+    {
         @Override
-        public void visitParameterizedType(@NotNull ParameterizedType type) {
-            rememberMappings(type);
-            if (type.getRawType() == baseClass.get()) {
-                matched.set(true);
-                return;
+        public Boolean visitParameterizedType(@NotNull ParameterizedType type, ResolutionContext context) {
+            rememberMappings(context, type);
+            if (type.getRawType() == context.baseClass) {
+                return true;
             }
-            typeDispatcher.get().dispatch(type.getRawType(), this);
+            return typeDispatcher.get().apply(type.getRawType(), this, context);
         }
 
         @Override
-        public void visitClass(@NotNull Class<?> clazz) {
-            if (clazz == baseClass.get()) {
-                matched.set(true);
-                return;
+        public Boolean visitClass(@NotNull Class<?> clazz, ResolutionContext context) {
+            if (clazz == context.baseClass) {
+                return true;
             }
 
-            interfaceFlag.set(true);
-            Type[] genericInterfaces = clazz.getGenericInterfaces();
-            Class<?>[] rawInterfaces = clazz.getInterfaces();
+            context.interfaceFlag = true;
+            Type[] genericInterfaces = ReflectionCache.getGenericInterfaces(clazz);
+            Class<?>[] rawInterfaces = ReflectionCache.getInterfaces(clazz);
             for (int i = 0; i < genericInterfaces.length; ++i) {
                 if (!clazz.isInterface()) {
-                    Map<Type, Type> map = interfaceArgumentsMap.get();
-                    map.clear();
-                    map.putAll(classArgumentsMap.get());
+                    context.interfaceArguments.copyFrom(context.classArguments);
                 }
                 if (genericInterfaces[i] == rawInterfaces[i]) {
-                    rememberRawMappings(rawInterfaces[i]);
+                    rememberRawMappings(context, rawInterfaces[i]);
                 }
-                typeDispatcher.get().dispatch(genericInterfaces[i], this);
-                if (matched.get()) {
-                    return;
+                if (typeDispatcher.get().apply(genericInterfaces[i], this, context) == Boolean.TRUE) {
+                    return true;
                 }
             }
 
             if (clazz.isInterface()) {
                 // There is no point in asking interface for superclass
-                return;
+                return false;
             }
 
-            interfaceFlag.set(false);
+            context.interfaceFlag = false;
             Type genericSuperclass = clazz.getGenericSuperclass();
-            if (genericSuperclass == Object.class) {
-                return;
+            if (genericSuperclass == null || genericSuperclass == Object.class) {
+                return false;
             }
             Class<?> rawSuperclass = clazz.getSuperclass();
             if (genericSuperclass == rawSuperclass) {
-                rememberRawMappings(rawSuperclass);
-            }
-            if (genericSuperclass != null) {
-                typeDispatcher.get().dispatch(genericSuperclass, this);
+                rememberRawMappings(context, rawSuperclass);
             }
+            return typeDispatcher.get().apply(genericSuperclass, this, context);
         }
     };
 
     /** Identifies base class to check. */
-    private final TypeVisitor baseClassInitializer = new TypeVisitor() {
+    private final TypeFunction<ResolutionContext, Class<?>> baseClassInitializer
+            = new TypeFunction<ResolutionContext, Class<?>>()
+    {
         @Override
-        public void visitParameterizedType(@NotNull ParameterizedType type) {
+        public Class<?> visitParameterizedType(@NotNull ParameterizedType type, ResolutionContext context) {
             // We remember the mappings assuming that given type is not interface but class. They are moved to the
             // corresponding collection from visitClass() otherwise.
-            rememberMappings(type);
-            typeDispatcher.get().dispatch(type.getRawType(), this);
+            rememberMappings(context, type);
+            return typeDispatcher.get().apply(type.getRawType(), this, context);
         }
 
         @Override
-        public void visitWildcardType(@NotNull WildcardType type) throws IllegalArgumentException {
+        public Class<?> visitWildcardType(@NotNull WildcardType type, ResolutionContext context)
+                throws IllegalArgumentException
+        {
             throw new IllegalArgumentException(getErrorMessage(WildcardType.class));
         }
 
         @Override
-        public void visitGenericArrayType(@NotNull GenericArrayType type) throws IllegalArgumentException {
+        public Class<?> visitGenericArrayType(@NotNull GenericArrayType type, ResolutionContext context)
+                throws IllegalArgumentException
+        {
             throw new IllegalArgumentException(getErrorMessage(GenericArrayType.class));
         }
 
         @Override
-        public void visitTypeVariable(@NotNull TypeVariable<? extends GenericDeclaration> type)
+        public Class<?> visitTypeVariable(@NotNull TypeVariable<? extends GenericDeclaration> type,
+                                          ResolutionContext context)
                 throws IllegalArgumentException
         {
             throw new IllegalArgumentException(getErrorMessage(TypeVariable.class));
         }
 
         @Override
-        public void visitClass(@NotNull Class<?> clazz) {
-            // We know that parameterized type mappings are remembered at 'class' map by default, so,
-            // if target raw type is interface just move the mappings to 'interface' map.
+        public Class<?> visitClass(@NotNull Class<?> clazz, ResolutionContext context) {
+            // We know that parameterized type mappings are remembered at 'class' environment by default, so,
+            // if target raw type is interface just move the mappings to 'interface' environment.
             if (clazz.isInterface()) {
-                interfaceArgumentsMap.get().putAll(classArgumentsMap.get());
-                classArgumentsMap.get().clear();
+                context.interfaceArguments.copyFrom(context.classArguments);
+                context.classArguments.clear();
             }
-            baseClass.set(clazz);
+            return clazz;
         }
 
         @Override
-        public void visitType(@NotNull Type type) throws IllegalArgumentException {
+        public Class<?> visitType(@NotNull Type type, ResolutionContext context) throws IllegalArgumentException {
             throw new IllegalArgumentException(getErrorMessage(Type.class));
         }
 
@@ -126,29 +154,42 @@ public class DefaultTypeArgumentResolver implements TypeArgumentResolver {
         }
     };
 
-    /** This visitor is served for correct {@link #interfaceFlag} initialization for the 'target' type */
-    private final TypeVisitor interfaceFlagInitializer = new TypeVisitorAdapter() {
+    /** Retrieves raw class of the 'target' type for correct {@link ResolutionContext#interfaceFlag} initialization. */
+    private final TypeFunction<Void, Class<?>> rawClassRetriever = new TypeFunctionAdapter<Void, Class<?>>() {
         @Override
-        public void visitParameterizedType(@NotNull ParameterizedType type) {
-            typeDispatcher.get().dispatch(type.getRawType(), this);
+        public Class<?> visitParameterizedType(@NotNull ParameterizedType type, Void parameter) {
+            return typeDispatcher.get().apply(type.getRawType(), this, null);
         }
 
         @Override
-        public void visitClass(@NotNull Class<?> clazz) {
-            interfaceFlag.set(clazz.isInterface());
+        public Class<?> visitClass(@NotNull Class<?> clazz, Void parameter) {
+            return clazz;
         }
     };
 
-    private final ThreadLocal<Map<Type, Type>> classArgumentsMap = ThreadLocal.withInitial(LinkedHashMap::new);
+    /** Resolution state of the current thread, it's given to the functions above as a parameter. */
+    private final ThreadLocal<ResolutionContext> context = ThreadLocal.withInitial(ResolutionContext::new);
+
+    private final AtomicReference<TypeDispatcher> typeDispatcher = new AtomicReference<>(TypeDispatcher.INSTANCE);
+    private final AtomicReference<TypeSubstitutor> typeSubstitutor = new AtomicReference<>(TypeSubstitutor.INSTANCE);
+    private final AtomicBoolean deepSubstitution = new AtomicBoolean();
+    private final AtomicReference<ResolutionListener> listener = new AtomicReference<>();
 
-    private final ThreadLocal<Map<Type, Type>> interfaceArgumentsMap = ThreadLocal.withInitial(LinkedHashMap::new);
+    /** Holds resolution results, is dropped on any configuration change. */
+    private final ClassLoaderAwareCache<ResolutionKey, Type> cache = new ClassLoaderAwareCache<>();
 
-    private final ThreadLocal<Map<Type, Type>> tempMap = ThreadLocal.withInitial(LinkedHashMap::new);
+    /**
+     * Holds the hottest resolution results for the current thread. Only results for the types which are visible
+     * to jenome's class loader are stored there, otherwise long-living threads would prevent classes unloading.
+     */
+    private final ThreadLocal<DirectMappedResolutionCache> threadLocalCache
+            = ThreadLocal.withInitial(() -> new DirectMappedResolutionCache(THREAD_LOCAL_CACHE_SIZE));
 
-    private final ThreadLocal<Boolean> interfaceFlag = new ThreadLocal<>();
-    private final ThreadLocal<Boolean> matched = new ThreadLocal<>();
-    private final ThreadLocal<Class<?>> baseClass = new ThreadLocal<>();
-    private final AtomicReference<TypeDispatcher> typeDispatcher = new AtomicReference<>(TypeDispatcher.INSTANCE);
+    /** Is incremented on every cache clear, thread-local caches drop their content when it changes. */
+    private final AtomicInteger cacheGeneration = new AtomicInteger();
+
+    /** Is incremented on every configuration change which may affect resolution results. */
+    private final AtomicInteger configurationGeneration = new AtomicInteger();
 
     @NotNull
     @Override
@@ -159,33 +200,214 @@ public class DefaultTypeArgumentResolver implements TypeArgumentResolver {
                     + "is negative (%d)", base, target, index));
         }
 
-        interfaceFlag.set(false);
-        typeDispatcher.get().dispatch(base, baseClassInitializer);
-        if (baseClass.get().getTypeParameters().length <= index) {
-            throw new IllegalArgumentException(String.format(
-                    "Can't resolve type parameter of the type '%s' against type '%s'. Reason: given index "
-                    + "is too big (%d). Available type arguments number is %d",
-                    base, target, index, baseClass.get().getTypeParameters().length));
+        ResolutionListener listener = this.listener.get();
+        if (listener == null) {
+            return resolveCached(base, target, index, null);
+        }
+        ResolutionContext context = this.context.get();
+        Object token = listener.onResolveStart(base, target, index);
+        Type result = null;
+        try {
+            result = resolveCached(base, target, index, context);
+            return result;
+        } finally {
+            listener.onResolveEnd(base, target, index, result,
+                                  result == null ? CacheOutcome.UNCACHED : context.outcome, token);
         }
+    }
 
-        typeDispatcher.get().dispatch(target, interfaceFlagInitializer);
-        matched.set(false);
-        typeDispatcher.get().dispatch(target, typeArgumentsMapper);
+    /**
+     * Puts given resolution result to the cache as if it was calculated by the current resolver, e.g. when
+     * it's restored from a persistent storage. Nothing is done if there is a cached result already.
+     *
+     * @param base      base type
+     * @param target    target type
+     * @param index     type argument index
+     * @param result    resolved type argument
+     */
+    public void preload(@NotNull Type base, @NotNull Type target, int index, @NotNull Type result) {
+        Class<?> owner = ReflectionCache.getCommonCacheOwner(ReflectionCache.getCacheOwner(base),
+                                                             ReflectionCache.getCacheOwner(target));
+        cache.put(new ResolutionKey(base, target, index, configurationGeneration.get()),
+                  result,
+                  ReflectionCache.getCommonCacheOwner(owner, ReflectionCache.getCacheOwner(result)));
+    }
 
-        if (!matched.get()) {
-            throw new IllegalArgumentException(String.format(
-                    "Can't resolve type parameter #%d of the type '%s' against type '%s'. Reason: there "
-                    + "is no IS-A relation between them", index, base, target));
+    /**
+     * Drops all cached resolution results.
+     */
+    public void clearCache() {
+        cache.clear();
+        cacheGeneration.incrementAndGet();
+    }
+
+    /**
+     * @return      a number which is changed on every {@link #setTypeDispatcher(TypeDispatcher)},
+     *              {@link #setTypeSubstitutor(TypeSubstitutor)} and {@link #setDeepSubstitution(boolean)} call
+     *              which may affect resolution results
+     */
+    @Override
+    public int getConfigurationGeneration() {
+        return configurationGeneration.get();
+    }
+
+    /**
+     * @return      number of cached resolution results
+     */
+    public int getCacheSize() {
+        return cache.size();
+    }
+
+    /**
+     * @return      resolution cache statistics
+     */
+    @NotNull
+    public CacheStats getCacheStats() {
+        return cache.getStats();
+    }
+
+    /**
+     * @return      maximum number of cached resolution results which don't reference classes invisible to jenome;
+     *              {@link JenomeCache#UNBOUNDED} if it's not limited
+     */
+    public int getCacheMaximumSize() {
+        return cache.getSharedCache().getMaximumSize();
+    }
+
+    /**
+     * <p>
+     *      Starts notifying given listener about all {@link #resolve(Type, Type, int)} calls, e.g. in order to
+     *      record or time them. Nothing is done if the listener is already attached.
+     * </p>
+     * <p>No listeners are attached by default.</p>
+     *
+     * @param listener      listener to attach
+     */
+    public void addListener(@NotNull ResolutionListener listener) {
+        this.listener.updateAndGet(current -> CompositeResolutionListener.add(current, listener));
+    }
+
+    /**
+     * Stops notifying given listener, nothing is done if it's not attached.
+     *
+     * @param listener      listener to detach
+     */
+    public void removeListener(@NotNull ResolutionListener listener) {
+        this.listener.updateAndGet(current -> CompositeResolutionListener.remove(current, listener));
+    }
+
+    /**
+     * <p>
+     *      Allows to define custom cache implementation to use for resolution results, current cache content
+     *      is dropped.
+     * </p>
+     * <p>{@link UnboundedJenomeCache#FACTORY} is used by default.</p>
+     *
+     * @param cacheFactory      factory to create the cache
+     */
+    public void setCacheFactory(@NotNull JenomeCacheFactory cacheFactory) {
+        cache.setSharedCache(cacheFactory.newCache(CACHE_NAME));
+        clearCache();
+    }
+
+    /**
+     * @param tracked   context of the current thread to remember the result's {@link ResolutionContext#outcome
+     *                  cache outcome} at; {@code null} if it's not necessary
+     */
+    @NotNull
+    private Type resolveCached(@NotNull Type base,
+                               @NotNull Type target,
+                               int index,
+                               @Nullable ResolutionContext tracked)
+            throws IllegalArgumentException
+    {
+        DirectMappedResolutionCache localCache = threadLocalCache.get();
+        int generation = cacheGeneration.get();
+        Type result = localCache.get(base, target, index, generation);
+        if (result != null) {
+            if (tracked != null) {
+                tracked.outcome = CacheOutcome.THREAD_LOCAL_HIT;
+            }
+            return result;
         }
 
-        Map<Type, Type> argumentTypes = baseClass.get().isInterface()
-                                        ? interfaceArgumentsMap.get() : classArgumentsMap.get();
-        for (Map.Entry<Type, Type> entry : argumentTypes.entrySet()) {
-            if (--index < 0) {
-                return entry.getValue();
+        // The configuration is a part of the key, so, a result calculated by an in-flight resolution with
+        // a previous configuration can't be served after the configuration change even if it's cached after it.
+        ResolutionKey key = new ResolutionKey(base, target, index, configurationGeneration.get());
+        Class<?> owner = ReflectionCache.getCommonCacheOwner(ReflectionCache.getCacheOwner(base),
+                                                             ReflectionCache.getCacheOwner(target));
+        result = cache.get(key, owner);
+        if (result != null) {
+            if (isThreadLocalCacheable(owner, result)) {
+                localCache.put(base, target, index, result, generation);
             }
+            if (tracked != null) {
+                tracked.outcome = CacheOutcome.HIT;
+            }
+            return result;
+        }
+        result = doResolve(base, target, index);
+        Class<?> resultOwner = ReflectionCache.getCommonCacheOwner(owner, ReflectionCache.getCacheOwner(result));
+        cache.put(key, result, resultOwner);
+        if (tracked != null) {
+            tracked.outcome = resultOwner == null ? CacheOutcome.UNCACHED : CacheOutcome.MISS;
+        }
+        return result;
+    }
+
+    private static boolean isThreadLocalCacheable(@Nullable Class<?> owner, @NotNull Type result) {
+        return owner != null && ReflectionCache.isCacheSafe(owner) && ReflectionCache.isCacheSafe(result);
+    }
+
+    @NotNull
+    private Type doResolve(@NotNull Type base, @NotNull Type target, int index) throws IllegalArgumentException {
+        ResolutionContext context = this.context.get();
+        if (context.busy) {
+            // Re-entrant call from the same thread, e.g. from a custom type substitutor.
+            context = new ResolutionContext();
+        }
+        context.busy = true;
+        try {
+            TypeDispatcher dispatcher = typeDispatcher.get();
+            Class<?> baseClass = dispatcher.apply(base, baseClassInitializer, context);
+            if (baseClass == null) {
+                throw new IllegalArgumentException(String.format(
+                        "Type argument resolving rule from '%s' type is undefined", base));
+            }
+            int typeParametersNumber = ReflectionCache.getTypeParameters(baseClass).length;
+            if (typeParametersNumber <= index) {
+                throw new IllegalArgumentException(String.format(
+                        "Can't resolve type parameter of the type '%s' against type '%s'. Reason: given index "
+                        + "is too big (%d). Available type arguments number is %d",
+                        base, target, index, typeParametersNumber));
+            }
+
+            Class<?> targetClass = dispatcher.apply(target, rawClassRetriever, null);
+            context.interfaceFlag = targetClass != null && targetClass.isInterface();
+            context.baseClass = baseClass;
+            if (dispatcher.apply(target, typeArgumentsMapper, context) != Boolean.TRUE) {
+                throw new IllegalArgumentException(String.format(
+                        "Can't resolve type parameter #%d of the type '%s' against type '%s'. Reason: there "
+                        + "is no IS-A relation between them", index, base, target));
+            }
+
+            BindingEnvironment arguments = baseClass.isInterface() ? context.interfaceArguments
+                                                                   : context.classArguments;
+            return index < arguments.size() ? arguments.get(index) : RAW_TYPE;
+        } finally {
+            // The context is shared between calls on the same thread, so, we don't want bindings from
+            // the previous call to be visible here.
+            context.clear();
         }
-        return RAW_TYPE;
+    }
+
+    /**
+     * @return      type dispatcher to use
+     * @see #setTypeDispatcher(TypeDispatcher)
+     */
+    @NotNull
+    public TypeDispatcher getTypeDispatcher() {
+        return typeDispatcher.get();
     }
 
     /**
@@ -196,37 +418,152 @@ public class DefaultTypeArgumentResolver implements TypeArgumentResolver {
      */
     public void setTypeDispatcher(@NotNull TypeDispatcher typeDispatcher) {
         this.typeDispatcher.set(typeDispatcher);
+        configurationGeneration.incrementAndGet();
+        clearCache();
+    }
+
+    /**
+     * @return      type substitutor to use in {@link #setDeepSubstitution(boolean) deep mode}
+     * @see #setTypeSubstitutor(TypeSubstitutor)
+     */
+    @NotNull
+    public TypeSubstitutor getTypeSubstitutor() {
+        return typeSubstitutor.get();
+    }
+
+    /**
+     * <p>Allows to define custom type substitutor to use in {@link #setDeepSubstitution(boolean) deep mode}.</p>
+     * <p>{@link TypeSubstitutor#INSTANCE} is used by default.</p>
+     *
+     * @param typeSubstitutor   custom type substitutor to use
+     */
+    public void setTypeSubstitutor(@NotNull TypeSubstitutor typeSubstitutor) {
+        this.typeSubstitutor.set(typeSubstitutor);
+        configurationGeneration.incrementAndGet();
+        clearCache();
+    }
+
+    /**
+     * @return      {@code true} if type variables nested into resolved type arguments are substituted;
+     *              {@code false} otherwise
+     * @see #setDeepSubstitution(boolean)
+     */
+    public boolean isDeepSubstitution() {
+        return deepSubstitution.get();
+    }
+
+    /**
+     * <p>
+     *      Allows to define if type variables nested into resolved type arguments should be substituted
+     *      by their values. Consider the following example:
+     * </p>
+     * <pre>
+     *     class Parent&lt;T&gt; {}
+     *     class Child&lt;T&gt; extends Parent&lt;List&lt;T&gt;&gt; {}
+     *     class GrandChild extends Child&lt;String&gt; {}
+     * </pre>
+     * <p>
+     *      {@code resolve(Parent.class, GrandChild.class, 0)} returns {@code List<T>} by default and
+     *      {@code List<String>} if deep substitution is on.
+     * </p>
+     * <p>Deep substitution is off by default.</p>
+     *
+     * @param deepSubstitution      flag which identifies if nested type variables should be substituted
+     */
+    public void setDeepSubstitution(boolean deepSubstitution) {
+        if (this.deepSubstitution.getAndSet(deepSubstitution) != deepSubstitution) {
+            configurationGeneration.incrementAndGet();
+            clearCache();
+        }
     }
 
-    private void rememberMappings(@NotNull ParameterizedType type) {
-        Type[] actualArguments = type.getActualTypeArguments();
+    private void rememberMappings(@NotNull ResolutionContext context, @NotNull ParameterizedType type) {
         Class<?> clazz = (Class<?>) type.getRawType();
-        TypeVariable<? extends Class<?>>[] typeVariables = clazz.getTypeParameters();
-        rememberMappings(typeVariables, actualArguments);
+        context.getCurrentEnvironment().rebind(ReflectionCache.getTypeParameters(clazz),
+                                               ReflectionCache.getActualTypeArguments(type),
+                                               deepSubstitution.get() ? typeSubstitutor.get() : null);
     }
 
-    private void rememberRawMappings(@NotNull Class<?> rawClass) {
-        Type[] typeVariables = rawClass.getTypeParameters();
+    private static void rememberRawMappings(@NotNull ResolutionContext context, @NotNull Class<?> rawClass) {
+        TypeVariable<?>[] typeVariables = ReflectionCache.getTypeParameters(rawClass);
         if (typeVariables.length <= 0) {
             return;
         }
-        Type[] rawVariables = new Type[typeVariables.length];
-        Arrays.fill(rawVariables, RAW_TYPE);
-        rememberMappings(typeVariables, rawVariables);
+        context.getCurrentEnvironment().rebindRaw(typeVariables);
     }
 
-    private void rememberMappings(@NotNull Type[] from, @NotNull Type[] to) {
-        Map<Type, Type> previousMappings = interfaceFlag.get() ? interfaceArgumentsMap.get() : classArgumentsMap.get();
-        Map<Type, Type> currentMappings = tempMap.get();
-        for (int i = 0; i < from.length; ++i) {
-            Type resolved = to[i];
-            if (previousMappings.containsKey(resolved)) {
-                resolved = previousMappings.get(resolved);
+    /**
+     * Holds state of a single resolution. Every thread reuses its own instance, so, resolution doesn't allocate it.
+     */
+    private static class ResolutionContext {
+
+        @NotNull final BindingEnvironment classArguments     = new BindingEnvironment();
+        @NotNull final BindingEnvironment interfaceArguments = new BindingEnvironment();
+
+        /** Identifies if the mappings are remembered at the 'interface' environment. */
+        boolean  interfaceFlag;
+        Class<?> baseClass;
+        boolean  busy;
+
+        /**
+         * Cache outcome of the last resolution {@link #resolveCached(Type, Type, int, ResolutionContext) tracked}
+         * at the current thread, it's reported to the listeners.
+         */
+        @NotNull CacheOutcome outcome = CacheOutcome.UNCACHED;
+
+        @NotNull
+        BindingEnvironment getCurrentEnvironment() {
+            return interfaceFlag ? interfaceArguments : classArguments;
+        }
+
+        void clear() {
+            classArguments.clear();
+            interfaceArguments.clear();
+            interfaceFlag = false;
+            // Don't keep a reference to the class, it would prevent it from being unloaded.
+            baseClass = null;
+            busy = false;
+        }
+    }
+
+    private static class ResolutionKey {
+
+        @NotNull private final Type base;
+        @NotNull private final Type target;
+        private final          int  index;
+        private final          int  configurationGeneration;
+        private final          int  hashCode;
+
+        ResolutionKey(@NotNull Type base, @NotNull Type target, int index, int configurationGeneration) {
+            this.base = base;
+            this.target = target;
+            this.index = index;
+            this.configurationGeneration = configurationGeneration;
+            hashCode = 31 * (31 * base.hashCode() + target.hashCode()) + index;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
             }
-            currentMappings.put(from[i], resolved);
+            if (!(o instanceof ResolutionKey)) {
+                return false;
+            }
+            ResolutionKey that = (ResolutionKey) o;
+            return hashCode == that.hashCode && index == that.index
+                   && configurationGeneration == that.configurationGeneration
+                   && base.equals(that.base) && target.equals(that.target);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("resolve(%s, %s, %d)", base.getTypeName(), target.getTypeName(), index);
         }
-        previousMappings.clear();
-        previousMappings.putAll(currentMappings);
-        currentMappings.clear();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,94 @@
+package tech.harmonysoft.oss.jenome.resolve.impl;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Type;
+import java.util.Arrays;
+
+/**
+ * <p>
+ *      Small fixed-size cache of type argument resolution results which is intended to be confined to a single
+ *      thread. Every {@code (base, target, index)} triple is mapped to a single slot by the identity hash codes
+ *      of the types, a new entry just overwrites the previous one at the same slot.
+ * </p>
+ * <p>
+ *      Neither lookups nor updates allocate or synchronize - types are compared by identity and results are
+ *      stored at flat arrays. Entries are bound to a {@code 'generation'} number, a lookup with a generation
+ *      different from the current one drops all entries.
+ * </p>
+ * <p>Not thread-safe.</p>
+ */
+class DirectMappedResolutionCache {
+
+    @NotNull private final Type[] bases;
+    @NotNull private final Type[] targets;
+    @NotNull private final int[]  indexes;
+    @NotNull private final Type[] results;
+    private final          int    mask;
+    private                int    generation;
+
+    /**
+     * @param capacity      number of slots, is rounded up to the closest power of two
+     */
+    DirectMappedResolutionCache(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        bases = new Type[size];
+        targets = new Type[size];
+        indexes = new int[size];
+        results = new Type[size];
+        mask = size - 1;
+    }
+
+    /**
+     * @param base          base type
+     * @param target        target type
+     * @param index         type argument index
+     * @param generation    current generation
+     * @return              cached resolution result if any; {@code null} otherwise
+     */
+    @Nullable
+    Type get(@NotNull Type base, @NotNull Type target, int index, int generation) {
+        if (this.generation != generation) {
+            reset(generation);
+            return null;
+        }
+        int i = indexOf(base, target, index);
+        if (bases[i] != base || targets[i] != target || indexes[i] != index) {
+            return null;
+        }
+        return results[i];
+    }
+
+    /**
+     * Remembers given resolution result.
+     *
+     * @param base          base type
+     * @param target        target type
+     * @param index         type argument index
+     * @param result        resolution result
+     * @param generation    current generation
+     */
+    void put(@NotNull Type base, @NotNull Type target, int index, @NotNull Type result, int generation) {
+        if (this.generation != generation) {
+            reset(generation);
+        }
+        int i = indexOf(base, target, index);
+        bases[i] = base;
+        targets[i] = target;
+        indexes[i] = index;
+        results[i] = result;
+    }
+
+    private void reset(int generation) {
+        Arrays.fill(bases, null);
+        Arrays.fill(targets, null);
+        Arrays.fill(results, null);
+        this.generation = generation;
+    }
+
+    private int indexOf(@NotNull Type base, @NotNull Type target, int index) {
+        int h = (System.identityHashCode(base) * 0x9e3779b9 + System.identityHashCode(target)) * 31 + index;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,48 @@
+package tech.harmonysoft.oss.jenome.resolve.impl;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Type;
+
+/**
+ * <p>{@link GenericArrayType} implementation for the types built by jenome itself (e.g. during substitution).</p>
+ * <p>
+ *      {@link #equals(Object)} and {@link #hashCode()} follow the JDK implementation, i.e. an instance of this
+ *      class is equal to a reflection-provided {@link GenericArrayType} with the same component type.
+ * </p>
+ * <p>Immutable, thread-safe.</p>
+ */
+public class GenericArrayTypeImpl implements GenericArrayType {
+
+    @NotNull private final Type genericComponentType;
+
+    public GenericArrayTypeImpl(@NotNull Type genericComponentType) {
+        this.genericComponentType = genericComponentType;
+    }
+
+    @NotNull
+    @Override
+    public Type getGenericComponentType() {
+        return genericComponentType;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof GenericArrayType
+               && genericComponentType.equals(((GenericArrayType) o).getGenericComponentType());
+    }
+
+    @Override
+    public int hashCode() {
+        return genericComponentType.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return genericComponentType.getTypeName() + "[]";
+    }
+}
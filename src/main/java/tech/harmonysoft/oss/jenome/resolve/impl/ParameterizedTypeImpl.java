@@ -0,0 +1,91 @@
+package tech.harmonysoft.oss.jenome.resolve.impl;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * <p>{@link ParameterizedType} implementation for the types built by jenome itself (e.g. during substitution).</p>
+ * <p>
+ *      {@link #equals(Object)} and {@link #hashCode()} follow the JDK implementation, i.e. an instance of this
+ *      class is equal to a reflection-provided {@link ParameterizedType} with the same components.
+ * </p>
+ * <p>Immutable, thread-safe.</p>
+ */
+public class ParameterizedTypeImpl implements ParameterizedType {
+
+    @NotNull  private final Class<?> rawType;
+    @NotNull  private final Type[]   actualTypeArguments;
+    @Nullable private final Type     ownerType;
+
+    public ParameterizedTypeImpl(@NotNull Class<?> rawType,
+                                 @NotNull Type[] actualTypeArguments,
+                                 @Nullable Type ownerType)
+    {
+        this.rawType = rawType;
+        this.actualTypeArguments = actualTypeArguments.clone();
+        this.ownerType = ownerType;
+    }
+
+    @NotNull
+    @Override
+    public Type[] getActualTypeArguments() {
+        return actualTypeArguments.clone();
+    }
+
+    @NotNull
+    @Override
+    public Type getRawType() {
+        return rawType;
+    }
+
+    @Nullable
+    @Override
+    public Type getOwnerType() {
+        return ownerType;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ParameterizedType)) {
+            return false;
+        }
+        ParameterizedType that = (ParameterizedType) o;
+        return rawType.equals(that.getRawType())
+               && Objects.equals(ownerType, that.getOwnerType())
+               && Arrays.equals(actualTypeArguments, that.getActualTypeArguments());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(actualTypeArguments) ^ Objects.hashCode(ownerType) ^ rawType.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buffer = new StringBuilder();
+        if (ownerType instanceof ParameterizedType) {
+            buffer.append(ownerType.getTypeName()).append('$').append(rawType.getSimpleName());
+        } else {
+            buffer.append(rawType.getName());
+        }
+        if (actualTypeArguments.length > 0) {
+            buffer.append('<');
+            for (int i = 0; i < actualTypeArguments.length; ++i) {
+                if (i > 0) {
+                    buffer.append(", ");
+                }
+                buffer.append(actualTypeArguments[i].getTypeName());
+            }
+            buffer.append('>');
+        }
+        return buffer.toString();
+    }
+}
@@ -0,0 +1,52 @@
+package tech.harmonysoft.oss.jenome.resolve.impl;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import tech.harmonysoft.oss.jenome.resolve.TypeFunction;
+
+import java.lang.reflect.*;
+
+/**
+ * Implements {@link TypeFunction} with method bodies which return {@code null}.
+ *
+ * @param <P>   parameter type
+ * @param <R>   result type
+ */
+public abstract class TypeFunctionAdapter<P, R> implements TypeFunction<P, R> {
+
+    @Nullable
+    @Override
+    public R visitParameterizedType(@NotNull ParameterizedType type, @Nullable P parameter) {
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public R visitWildcardType(@NotNull WildcardType type, @Nullable P parameter) {
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public R visitGenericArrayType(@NotNull GenericArrayType type, @Nullable P parameter) {
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public R visitTypeVariable(@NotNull TypeVariable<? extends GenericDeclaration> type, @Nullable P parameter) {
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public R visitClass(@NotNull Class<?> clazz, @Nullable P parameter) {
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public R visitType(@NotNull Type type, @Nullable P parameter) {
+        return null;
+    }
+}
@@ -0,0 +1,85 @@
+package tech.harmonysoft.oss.jenome.resolve.impl;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.Arrays;
+
+/**
+ * <p>{@link WildcardType} implementation for the types built by jenome itself (e.g. during substitution).</p>
+ * <p>
+ *      {@link #equals(Object)} and {@link #hashCode()} follow the JDK implementation, i.e. an instance of this
+ *      class is equal to a reflection-provided {@link WildcardType} with the same bounds.
+ * </p>
+ * <p>Immutable, thread-safe.</p>
+ */
+public class WildcardTypeImpl implements WildcardType {
+
+    private static final Type[] OBJECT_UPPER_BOUND = { Object.class };
+
+    @NotNull private final Type[] upperBounds;
+    @NotNull private final Type[] lowerBounds;
+
+    /**
+     * Creates new {@code WildcardTypeImpl} object.
+     *
+     * @param upperBounds   upper bounds to use; {@code java.lang.Object} is used if given array is empty
+     * @param lowerBounds   lower bounds to use
+     */
+    public WildcardTypeImpl(@NotNull Type[] upperBounds, @NotNull Type[] lowerBounds) {
+        this.upperBounds = upperBounds.length == 0 ? OBJECT_UPPER_BOUND : upperBounds.clone();
+        this.lowerBounds = lowerBounds.clone();
+    }
+
+    @NotNull
+    @Override
+    public Type[] getUpperBounds() {
+        return upperBounds.clone();
+    }
+
+    @NotNull
+    @Override
+    public Type[] getLowerBounds() {
+        return lowerBounds.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof WildcardType)) {
+            return false;
+        }
+        WildcardType that = (WildcardType) o;
+        return Arrays.equals(lowerBounds, that.getLowerBounds()) && Arrays.equals(upperBounds, that.getUpperBounds());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(lowerBounds) ^ Arrays.hashCode(upperBounds);
+    }
+
+    @Override
+    public String toString() {
+        Type[] bounds;
+        StringBuilder buffer = new StringBuilder("?");
+        if (lowerBounds.length > 0) {
+            bounds = lowerBounds;
+            buffer.append(" super ");
+        } else if (upperBounds.length > 0 && upperBounds[0] != Object.class) {
+            bounds = upperBounds;
+            buffer.append(" extends ");
+        } else {
+            return buffer.toString();
+        }
+        for (int i = 0; i < bounds.length; ++i) {
+            if (i > 0) {
+                buffer.append(" & ");
+            }
+            buffer.append(bounds[i].getTypeName());
+        }
+        return buffer.toString();
+    }
+}
@@ -0,0 +1,187 @@
+package tech.harmonysoft.oss.jenome.resolve.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import tech.harmonysoft.oss.jenome.cache.CacheStats;
+import tech.harmonysoft.oss.jenome.cache.JenomeCache;
+import tech.harmonysoft.oss.jenome.cache.UnboundedJenomeCache;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ *      A cache which doesn't prevent class loaders from being collected. Every entry is stored with an
+ *      {@code 'owner'} class which class loader sees all classes referenced by the entry
+ *      (check {@link ReflectionCache#getCacheOwner(java.lang.reflect.Type)}):
+ * </p>
+ * <ul>
+ *     <li>
+ *          entries which owner is {@link ReflectionCache#isCacheSafe(java.lang.reflect.Type) visible} to the
+ *          jenome's class loader are kept at a shared {@link JenomeCache} which implementation is
+ *          {@link #setSharedCache(JenomeCache) configurable};
+ *     </li>
+ *     <li>
+ *          other entries are kept together with the owner class via {@link ClassValue}, i.e. they become
+ *          collectable as soon as the owner class is unloaded (e.g. on application redeploy). Their total size
+ *          is bounded by the {@link JenomeCache#getMaximumSize() maximum size} of the shared cache - all per-class
+ *          caches are dropped as soon as the number of entries stored in them exceeds it;
+ *     </li>
+ *     <li>entries without owner are not cached at all;</li>
+ * </ul>
+ * <p>Thread-safe.</p>
+ *
+ * @param <K>   key type
+ * @param <V>   value type
+ */
+public class ClassLoaderAwareCache<K, V> {
+
+    /** Holds weak references to all per-class caches, they are used only for size and statistics calculation. */
+    private final Queue<WeakReference<JenomeCache<K, V>>> localCaches = new ConcurrentLinkedQueue<>();
+
+    /** Approximate number of entries stored in per-class caches, it's reset when they are dropped. */
+    private final AtomicInteger localSize = new AtomicInteger();
+
+    private volatile JenomeCache<K, V> shared;
+
+    /** Is re-created on clear(), entries of the previous instance are dropped when it's collected. */
+    private volatile ClassValue<JenomeCache<K, V>> local = newLocal();
+
+    public ClassLoaderAwareCache() {
+        this(new UnboundedJenomeCache<>());
+    }
+
+    public ClassLoaderAwareCache(@NotNull JenomeCache<K, V> shared) {
+        this.shared = shared;
+    }
+
+    /**
+     * @param key       target key
+     * @param owner     owner of the given key, {@code null} means that the key is not cacheable
+     * @return          value mapped to the given key if any; {@code null} otherwise
+     */
+    @Nullable
+    public V get(@NotNull K key, @Nullable Class<?> owner) {
+        if (owner == null) {
+            return null;
+        }
+        return getCache(owner).get(key);
+    }
+
+    /**
+     * Maps given value to the given key unless there is an existing mapping for it.
+     *
+     * @param key       target key
+     * @param value     value to store
+     * @param owner     owner of the given key and value, {@code null} means that the entry is not cacheable
+     * @return          value mapped to the given key after this method call; given value if the entry
+     *                  is not stored
+     */
+    @NotNull
+    public V put(@NotNull K key, @NotNull V value, @Nullable Class<?> owner) {
+        if (owner == null) {
+            return value;
+        }
+        if (ReflectionCache.isCacheSafe(owner)) {
+            return shared.putIfAbsent(key, value);
+        }
+        int maximumSize = shared.getMaximumSize();
+        if (maximumSize != JenomeCache.UNBOUNDED && localSize.incrementAndGet() > maximumSize) {
+            clearLocal();
+            localSize.incrementAndGet();
+        }
+        return local.get(owner).putIfAbsent(key, value);
+    }
+
+    /**
+     * @return      number of cached entries (including the ones which owners are already unloaded but the entries
+     *              are not collected yet)
+     */
+    public int size() {
+        int result = shared.size();
+        for (Iterator<WeakReference<JenomeCache<K, V>>> it = localCaches.iterator(); it.hasNext(); ) {
+            JenomeCache<K, V> cache = it.next().get();
+            if (cache == null) {
+                it.remove();
+            } else {
+                result += cache.size();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return      aggregated statistics of the shared cache and all per-class caches
+     */
+    @NotNull
+    public CacheStats getStats() {
+        CacheStats result = shared.getStats();
+        for (WeakReference<JenomeCache<K, V>> reference : localCaches) {
+            JenomeCache<K, V> cache = reference.get();
+            if (cache != null) {
+                result = result.plus(cache.getStats());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Drops all entries.
+     */
+    public void clear() {
+        clearLocal();
+        shared.clear();
+    }
+
+    /**
+     * @return      cache used for the entries which don't reference classes invisible to jenome
+     */
+    @NotNull
+    public JenomeCache<K, V> getSharedCache() {
+        return shared;
+    }
+
+    /**
+     * <p>
+     *      Allows to define custom cache to use for the entries which don't reference classes invisible to jenome.
+     *      Entries of the current cache are not moved to the given one.
+     * </p>
+     * <p>
+     *      {@link UnboundedJenomeCache} is used by default. Maximum size of the given cache bounds total size
+     *      of per-class caches as well.
+     * </p>
+     *
+     * @param shared    cache to use
+     */
+    public void setSharedCache(@NotNull JenomeCache<K, V> shared) {
+        this.shared = shared;
+    }
+
+    @NotNull
+    private JenomeCache<K, V> getCache(@NotNull Class<?> owner) {
+        return ReflectionCache.isCacheSafe(owner) ? shared : local.get(owner);
+    }
+
+    private void clearLocal() {
+        local = newLocal();
+        localCaches.clear();
+        localSize.set(0);
+    }
+
+    @NotNull
+    private ClassValue<JenomeCache<K, V>> newLocal() {
+        return new ClassValue<JenomeCache<K, V>>() {
+            @Override
+            protected JenomeCache<K, V> computeValue(Class<?> type) {
+                // Per-class caches are unbounded - they hold only entries specific to a single class and
+                // they are collected together with it. Their total size is bounded at put().
+                JenomeCache<K, V> result = new UnboundedJenomeCache<>();
+                localCaches.add(new WeakReference<>(result));
+                return result;
+            }
+        };
+    }
+}
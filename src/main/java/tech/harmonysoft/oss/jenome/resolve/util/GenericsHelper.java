@@ -1,11 +1,14 @@
 package tech.harmonysoft.oss.jenome.resolve.util;
 
 import org.jetbrains.annotations.NotNull;
+import tech.harmonysoft.oss.jenome.resolve.CacheOutcome;
+import tech.harmonysoft.oss.jenome.resolve.CompositeResolutionListener;
+import tech.harmonysoft.oss.jenome.resolve.ResolutionListener;
 
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
-import java.util.Stack;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * <p>Holds various generics processing-related utility methods.</p>
@@ -16,6 +19,8 @@ public class GenericsHelper {
 
     public static final GenericsHelper INSTANCE = new GenericsHelper();
 
+    private final AtomicReference<ResolutionListener> listener = new AtomicReference<>();
+
     /**
      * <p>
      *      Assumes that class of given {@code 'target'} object implements given generic
@@ -48,7 +53,48 @@ public class GenericsHelper {
     public Type resolveTypeParameterValue(@NotNull Class<?> targetInterface, @NotNull Object target, int index)
             throws IllegalArgumentException
     {
+        ResolutionListener listener = this.listener.get();
+        if (listener == null) {
+            return doResolveTypeParameterValue(targetInterface, target, index);
+        }
+        Class<?> targetClass = target.getClass();
+        Object token = listener.onResolveStart(targetInterface, targetClass, index);
+        Type result = null;
+        try {
+            result = doResolveTypeParameterValue(targetInterface, target, index);
+            return result;
+        } finally {
+            listener.onResolveEnd(targetInterface, targetClass, index, result, CacheOutcome.UNCACHED, token);
+        }
+    }
+
+    /**
+     * <p>
+     *      Starts notifying given listener about all {@link #resolveTypeParameterValue(Class, Object, int)} calls
+     *      (target object's class is reported as the target type). Nothing is done if the listener is already
+     *      attached.
+     * </p>
+     * <p>No listeners are attached by default.</p>
+     *
+     * @param listener      listener to attach
+     */
+    public void addListener(@NotNull ResolutionListener listener) {
+        this.listener.updateAndGet(current -> CompositeResolutionListener.add(current, listener));
+    }
 
+    /**
+     * Stops notifying given listener, nothing is done if it's not attached.
+     *
+     * @param listener      listener to detach
+     */
+    public void removeListener(@NotNull ResolutionListener listener) {
+        this.listener.updateAndGet(current -> CompositeResolutionListener.remove(current, listener));
+    }
+
+    @NotNull
+    private Type doResolveTypeParameterValue(@NotNull Class<?> targetInterface, @NotNull Object target, int index)
+            throws IllegalArgumentException
+    {
         if (!targetInterface.isAssignableFrom(target.getClass())) {
             throw new IllegalArgumentException(String.format(
                     "Can't derive type parameter #%d of the '%s' interface for the object of class '%s'. "
@@ -61,118 +107,90 @@ public class GenericsHelper {
                     + "Reason: given index is negative (%d)", targetInterface, target.getClass(), index));
         }
 
-        if (targetInterface.getTypeParameters().length <= index) {
+        int typeParametersNumber = ReflectionCache.getTypeParameters(targetInterface).length;
+        if (typeParametersNumber <= index) {
             throw new IllegalArgumentException(String.format(
                     "Can't derive type parameter #%d of the '%s' interface for the object of class '%s'. "
                     + "Reason: given interface doesn't have enough type parameters (%d type parameters are found)",
-                    index, targetInterface, target.getClass(), targetInterface.getTypeParameters().length));
+                    index, targetInterface, target.getClass(), typeParametersNumber));
         }
 
         // The algorithm is the follows:
         //    1. Find top-level class in given object's class hierarchy that implements target interface;
         //    2. Try to find the first non-type variable target generic type parameter going down from the found class;
+        // The classes between the found class and the object's class are not collected anywhere but walked
+        // recursively instead, that way the resolution doesn't allocate.
 
-        Stack<Class<?>> classes = getHierarchyFromDirectImplementation(targetInterface, target.getClass());
-        Type targetType = null;
-        for (Type type : classes.pop().getGenericInterfaces()) {
-            if (!(type instanceof ParameterizedType)) {
-                continue;
-            }
-
-            ParameterizedType parameterizedType = (ParameterizedType) type;
-            if (parameterizedType.getRawType() != targetInterface) {
-                continue;
-            }
-
-            targetType = parameterizedType.getActualTypeArguments()[index];
-            if (!(targetType instanceof TypeVariable)) {
-                return targetType;
-            }
-        }
-
-        // If we are here we know that there is a parent generic class that implements target interface and
-        // target type parameter is a type variable, so, we try to check is there are child classes that define
-        // that type variable as a concrete type.
-        return targetType == null ? Object.class : resolveTypeVariable(classes, (TypeVariable) targetType);
+        return resolveFromDirectImplementation(targetInterface, target.getClass(), index);
     }
 
     /**
      * <p>
-     *      Allows to build stack of classes started from the given and ending by its first direct or indirect parent
-     *      that explicitly implements given interface.
+     *      Resolves target type parameter of the given interface as it's seen by the given class, i.e. the result is
+     *      either a concrete type or a type variable of the given class.
      * </p>
-     * <p>Note that target parent class is located at the top of resulting classes stack.</p>
      * <p>Also note that it's assumed that given class IS-A given interface.</p>
      *
      * @param targetInterface   target interface
-     * @param startClass        class that is assumed to implements given interface
-     * @return                  stack of the given class and its ancestors finishing by the class that directly
-     *                          implements given interface
+     * @param clazz             class that is assumed to implement given interface
+     * @param index             target type parameter index
+     * @return                  resolved type parameter; {@code 'Object.class'} if one of the classes in hierarchy
+     *                          is not parameterized
      */
     @NotNull
-    private Stack<Class<?>> getHierarchyFromDirectImplementation(@NotNull Class<?> targetInterface,
-                                                                 @NotNull Class<?> startClass)
+    private Type resolveFromDirectImplementation(@NotNull Class<?> targetInterface,
+                                                 @NotNull Class<?> clazz,
+                                                 int index)
     {
-        assert targetInterface.isAssignableFrom(startClass);
-        Stack<Class<?>> result = new Stack<>();
-        Class<?> classToCheck = startClass;
-        while (classToCheck != null) {
-            result.push(classToCheck);
-            for (Class<?> i : classToCheck.getInterfaces()) {
-                if (i == targetInterface) {
-                    return result;
-                }
+        for (Class<?> i : ReflectionCache.getInterfaces(clazz)) {
+            if (i == targetInterface) {
+                return getDirectTypeArgument(targetInterface, clazz, index);
+            }
+        }
+        Class<?> superClass = clazz.getSuperclass();
+        if (superClass == null) {
+            return Object.class;
+        }
+        Type parentResult = resolveFromDirectImplementation(targetInterface, superClass, index);
+        if (!(parentResult instanceof TypeVariable)) {
+            return parentResult;
+        }
+
+        // There is a parent generic class that implements target interface and target type parameter is
+        // a type variable, so, we check if current class defines that type variable as a concrete type.
+        Type genericSuperClass = clazz.getGenericSuperclass();
+        if (!(genericSuperClass instanceof ParameterizedType)) {
+            return Object.class;
+        }
+        TypeVariable<?>[] typeParameters = ReflectionCache.getTypeParameters(superClass);
+        for (int i = 0; i < typeParameters.length; ++i) {
+            if (typeParameters[i] == parentResult) {
+                return ReflectionCache.getActualTypeArguments((ParameterizedType) genericSuperClass)[i];
             }
-            classToCheck = classToCheck.getSuperclass();
         }
-        return result;
+        // The type variable is declared by an enclosing class, it's not bound by the class hierarchy.
+        return parentResult;
     }
 
     /**
-     * <p>
-     *      This method assumes that given type variable belongs to the parameterized type that is located
-     *      on top of the given classes stack and that the stack holds particular classes hierarchy (parent
-     *      is assumed to be located at the top of the stack).
-     * </p>
-     * <p>
-     *     It tries to resolve given type variable to any type that is not a type variable (e.g. concrete type class).
-     * </p>
-     * <p>
-     *     If the method detects that one of the classes from the given hierarchy is not parameterized, it returns
-     *      {@code 'Object.class'}.
-     * </p>
-     *
-     * @param classes           target classes hierarchy
-     * @param targetVariable    type variable to resolve
-     * @return                  resolved type variable if any; {@code 'Object.class'} otherwise
+     * @param targetInterface   target interface
+     * @param clazz             class which directly implements given interface
+     * @param index             target type parameter index
+     * @return                  type argument given by the class to the interface; {@code 'Object.class'} if
+     *                          the interface is implemented as raw type
      */
     @NotNull
-    private Type resolveTypeVariable(@NotNull Stack<Class<?>> classes, @NotNull TypeVariable targetVariable) {
-        Type result = null;
-        while (!classes.isEmpty()) {
-            int typeVariableIndex = -1;
-            boolean found = false;
-            for (TypeVariable typeVariable : targetVariable.getGenericDeclaration().getTypeParameters()) {
-                ++typeVariableIndex;
-                if (typeVariable == targetVariable) {
-                    found = true;
-                    break;
-                }
-            }
-            assert found;
-            Class<?> childClass = classes.pop();
-            Type superClass = childClass.getGenericSuperclass();
-            if (!(superClass instanceof ParameterizedType)) {
-                return Object.class;
-            }
-            ParameterizedType parameterizedSuperClass = (ParameterizedType) superClass;
-            result = parameterizedSuperClass.getActualTypeArguments()[typeVariableIndex];
-            if (result instanceof TypeVariable) {
-                targetVariable = (TypeVariable) result;
+    private Type getDirectTypeArgument(@NotNull Class<?> targetInterface, @NotNull Class<?> clazz, int index) {
+        for (Type type : ReflectionCache.getGenericInterfaces(clazz)) {
+            if (!(type instanceof ParameterizedType)) {
                 continue;
             }
-            return result;
+
+            ParameterizedType parameterizedType = (ParameterizedType) type;
+            if (parameterizedType.getRawType() == targetInterface) {
+                return ReflectionCache.getActualTypeArguments(parameterizedType)[index];
+            }
         }
-        return result == null ? targetVariable : result;
+        return Object.class;
     }
-}
\ No newline at end of file
+}
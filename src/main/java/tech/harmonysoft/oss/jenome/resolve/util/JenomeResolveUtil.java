@@ -1,23 +1,74 @@
 package tech.harmonysoft.oss.jenome.resolve.util;
 
 import org.jetbrains.annotations.NotNull;
-import tech.harmonysoft.oss.jenome.resolve.TypeVisitor;
+import org.jetbrains.annotations.Nullable;
+import tech.harmonysoft.oss.jenome.resolve.TypeFunction;
 import tech.harmonysoft.oss.jenome.resolve.impl.DefaultTypeArgumentResolver;
-import tech.harmonysoft.oss.jenome.resolve.impl.TypeVisitorAdapter;
+import tech.harmonysoft.oss.jenome.resolve.impl.TypeFunctionAdapter;
 
 import java.lang.reflect.GenericDeclaration;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
-import java.util.Collection;
-import java.util.Map;
-import java.util.Stack;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class JenomeResolveUtil {
 
+    /**
+     * Holds {@link #getTypeArgument(Class)} results. The results reference only classes visible to the target
+     * class, so, they don't prevent its class loader from being collected. Every result remembers
+     * {@link DefaultTypeArgumentResolver#getConfigurationGeneration() configuration generation} of the resolver
+     * it's calculated by and is re-calculated when the resolver is re-configured.
+     *
+     * @see #getTypeArgumentResult(Class)
+     */
+    private static final ClassValue<TypeArgument> TYPE_ARGUMENTS = new ClassValue<TypeArgument>() {
+        @Override
+        protected TypeArgument computeValue(Class<?> type) {
+            int generation = DefaultTypeArgumentResolver.INSTANCE.getConfigurationGeneration();
+            try {
+                return new TypeArgument(calculateTypeArgument(type), null, generation);
+            } catch (IllegalArgumentException e) {
+                return new TypeArgument(null, e.getMessage(), generation);
+            }
+        }
+    };
+
+    /**
+     * Returns given type if it's a {@link ParameterizedType}, pushes types to examine next to the given stack.
+     *
+     * @see #calculateTypeArgument(Class)
+     */
+    private static final TypeFunction<Stack<Type>, ParameterizedType> PARENTS_COLLECTOR
+            = new TypeFunctionAdapter<Stack<Type>, ParameterizedType>()
+    {
+        @Override
+        public ParameterizedType visitParameterizedType(@NotNull ParameterizedType type, Stack<Type> toProcess) {
+            toProcess.push(type.getRawType());
+            return type;
+        }
+
+        @Override
+        public ParameterizedType visitClass(@NotNull Class<?> clazz, Stack<Type> toProcess) {
+            for (Type type : ReflectionCache.getGenericInterfaces(clazz)) {
+                toProcess.push(type);
+            }
+            return null;
+        }
+    };
+
+    /** Returns {@code true} for {@link TypeVariable} and {@code null} for other types. */
+    private static final TypeFunction<Void, Boolean> TYPE_VARIABLE_CHECKER = new TypeFunctionAdapter<Void, Boolean>() {
+        @Override
+        public Boolean visitTypeVariable(@NotNull TypeVariable<? extends GenericDeclaration> type, Void parameter) {
+            return true;
+        }
+    };
+
     private JenomeResolveUtil() {
     }
 
@@ -56,71 +107,94 @@ public class JenomeResolveUtil {
      */
     @NotNull
     public static Type getTypeArgument(@NotNull Object o) throws IllegalArgumentException {
-        AtomicReference<ParameterizedType> parameterizedTypeRef = new AtomicReference<>();
+        TypeArgument typeArgument = getTypeArgumentResult(o.getClass());
+        if (typeArgument.value == null) {
+            throw new IllegalArgumentException(String.format("%s. Given object: '%s'", typeArgument.error, o));
+        }
+        return typeArgument.value;
+    }
+
+    /**
+     * <p>Follows {@link #getTypeArgument(Object)} contract for the instances of the given class.</p>
+     * <p>
+     *      The result (or failure reason) is calculated once per class and is re-calculated only if
+     *      {@link DefaultTypeArgumentResolver#INSTANCE} is re-configured after that.
+     * </p>
+     *
+     * @param clazz target class in which payload type we're interested in
+     * @return      given class' payload type
+     * @throws IllegalArgumentException     in case it's not possible to find out given class' payload type
+     */
+    @NotNull
+    public static Type getTypeArgument(@NotNull Class<?> clazz) throws IllegalArgumentException {
+        TypeArgument typeArgument = getTypeArgumentResult(clazz);
+        if (typeArgument.value == null) {
+            throw new IllegalArgumentException(typeArgument.error);
+        }
+        return typeArgument.value;
+    }
+
+    @NotNull
+    private static TypeArgument getTypeArgumentResult(@NotNull Class<?> clazz) {
+        TypeArgument result = TYPE_ARGUMENTS.get(clazz);
+        if (result.generation != DefaultTypeArgumentResolver.INSTANCE.getConfigurationGeneration()) {
+            TYPE_ARGUMENTS.remove(clazz);
+            result = TYPE_ARGUMENTS.get(clazz);
+        }
+        return result;
+    }
+
+    @NotNull
+    private static Type calculateTypeArgument(@NotNull Class<?> target) throws IllegalArgumentException {
+        ParameterizedType parameterizedType = null;
         Stack<Type> toProcess = new Stack<>();
-        toProcess.push(o.getClass());
-        TypeVisitor visitor = new TypeVisitorAdapter() {
-            @Override
-            public void visitParameterizedType(@NotNull ParameterizedType type) {
-                ParameterizedType found = parameterizedTypeRef.get();
-                if (found != null) {
-                    throw new IllegalArgumentException(String.format(
-                            "Expected to get an instance of a class which extends a single parameterized " +
-                                    "type/implements a single parameterized interface but there are at least " +
-                                    "two such parents for the given object '%s' of class %s: %s and %s",
-                            o, o.getClass().getName(), found, type));
-                }
-                parameterizedTypeRef.set(type);
-                toProcess.push(type.getRawType());
+        toProcess.push(target);
+        while (!toProcess.isEmpty()) {
+            ParameterizedType found = TypeDispatcher.INSTANCE.apply(toProcess.pop(), PARENTS_COLLECTOR, toProcess);
+            if (found == null) {
+                continue;
             }
-
-            @Override
-            public void visitClass(@NotNull Class<?> clazz) {
-                for (Type type : clazz.getGenericInterfaces()) {
-                    toProcess.push(type);
-                }
+            if (parameterizedType != null) {
+                throw new IllegalArgumentException(String.format(
+                        "Expected to get a class which extends a single parameterized type/implements a single "
+                        + "parameterized interface but there are at least two such parents for the given "
+                        + "class %s: %s and %s",
+                        target.getName(), parameterizedType, found));
             }
-        };
-        while (!toProcess.isEmpty()) {
-            Type type = toProcess.pop();
-            TypeDispatcher.INSTANCE.dispatch(type, visitor);
+            parameterizedType = found;
         }
 
-        ParameterizedType parameterizedType = parameterizedTypeRef.get();
         if (parameterizedType == null) {
             throw new IllegalArgumentException(String.format(
-                    "Expected to get an instance of a class which extends a single parameterized type/implements " +
-                            "a single parameterized interface but there are no such parents for the given object " +
-                            "'%s' of class %s ", o, o.getClass().getName()));
+                    "Expected to get a class which extends a single parameterized type/implements a single "
+                    + "parameterized interface but there are no such parents for the given class %s",
+                    target.getName()));
         }
 
-        int typeArgumentsNumber = parameterizedType.getActualTypeArguments().length;
+        int typeArgumentsNumber = ReflectionCache.getActualTypeArguments(parameterizedType).length;
         if (typeArgumentsNumber != 1) {
             throw new IllegalArgumentException(String.format(
-                    "Expected to get an instance of a class which extends a single parameterized type/implements " +
-                            "a parameterized interface with a single type argument but target parent class (%s) " +
-                            "has %d type arguments. Given object is '%s' of class %s ",
-                    parameterizedType.getRawType(), typeArgumentsNumber, o, o.getClass().getName()));
+                    "Expected to get a class which extends a single parameterized type/implements a parameterized "
+                    + "interface with a single type argument but target parent class (%s) has %d type arguments. "
+                    + "Given class is %s",
+                    parameterizedType.getRawType(), typeArgumentsNumber, target.getName()));
         }
 
-        Type result = DefaultTypeArgumentResolver.INSTANCE.resolve(parameterizedType, o.getClass(), 0);
-        TypeDispatcher.INSTANCE.dispatch(result, new TypeVisitorAdapter() {
-            @Override
-            public void visitTypeVariable(@NotNull TypeVariable<? extends GenericDeclaration> type) {
-                throw new IllegalArgumentException(String.format(
-                        "Expected to get an instance of a class which extends a single parameterized type/implements " +
-                                "a parameterized interface with a single type argument. Given object '%s' of " +
-                                "class %s extends a parameterized type %s but doesn't specify a concrete " +
-                                "type argument value",
-                        o, o.getClass().getName(), parameterizedType.getRawType()));
-            }
-        });
+        Type result = DefaultTypeArgumentResolver.INSTANCE.resolve(parameterizedType, target, 0);
+        if (TypeDispatcher.INSTANCE.apply(result, TYPE_VARIABLE_CHECKER, null) == Boolean.TRUE) {
+            throw new IllegalArgumentException(String.format(
+                    "Expected to get a class which extends a single parameterized type/implements a parameterized "
+                    + "interface with a single type argument. Given class %s extends a parameterized type %s "
+                    + "but doesn't specify a concrete type argument value",
+                    target.getName(), parameterizedType.getRawType()));
+        }
         return result;
     }
 
     /**
      * Calls {@link #getTypeArgument(Object)} for any given bean and returns a map where target type argument's value
-     * is a key and given bean is a value
+     * is a key and given bean is a value. Consider using {@link #byTypeValueParallel(Collection)} for large
+     * bean collections.
      *
      * @param beans     beans to process
      * @param <T>       target bean's type
@@ -130,4 +204,145 @@ public class JenomeResolveUtil {
     public static <T> Map<Type, T> byTypeValue(@NotNull Collection<T> beans) {
         return beans.stream().collect(Collectors.toMap(JenomeResolveUtil::getTypeArgument, Function.identity()));
     }
-}
+
+    /**
+     * Delegates to {@link #byTypeValueParallel(Collection, ForkJoinPool)} using {@link ForkJoinPool#commonPool()}.
+     *
+     * @param beans     beans to process
+     * @param <T>       target bean's type
+     * @return          given beans organized by their type argument's values
+     * @throws IllegalArgumentException     if type argument can't be found out for any of the given beans or
+     *                                      if there are beans with the same type argument value
+     */
+    @NotNull
+    public static <T> Map<Type, T> byTypeValueParallel(@NotNull Collection<T> beans)
+            throws IllegalArgumentException
+    {
+        return byTypeValueParallel(beans, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * <p>Bulk version of {@link #byTypeValue(Collection)} intended for large bean collections:</p>
+     * <ul>
+     *     <li>
+     *          beans are grouped by class and {@link #getTypeArgument(Class) type argument} of every class is
+     *          calculated only once, different classes are processed in parallel at the given pool;
+     *     </li>
+     *     <li>
+     *          all problems (beans which type argument can't be found out and beans with the same type argument
+     *          value) are reported at once by a single exception;
+     *     </li>
+     *     <li>
+     *          the result is an immutable {@link TypeLookupMap} optimized for read-mostly lookups;
+     *     </li>
+     * </ul>
+     *
+     * @param beans     beans to process
+     * @param pool      pool to use for type arguments calculation
+     * @param <T>       target bean's type
+     * @return          given beans organized by their type argument's values
+     * @throws IllegalArgumentException     if type argument can't be found out for any of the given beans or
+     *                                      if there are beans with the same type argument value
+     */
+    @NotNull
+    public static <T> Map<Type, T> byTypeValueParallel(@NotNull Collection<T> beans, @NotNull ForkJoinPool pool)
+            throws IllegalArgumentException
+    {
+        Map<Class<?>, List<T>> beansByClass = new LinkedHashMap<>();
+        for (T bean : beans) {
+            beansByClass.computeIfAbsent(bean.getClass(), key -> new ArrayList<>(1)).add(bean);
+        }
+
+        Class<?>[] classes = beansByClass.keySet().toArray(new Class<?>[beansByClass.size()]);
+        TypeArgument[] typeArguments = new TypeArgument[classes.length];
+        TypeArgumentsTask task = new TypeArgumentsTask(classes, typeArguments, 0, classes.length);
+        if (classes.length <= TypeArgumentsTask.THRESHOLD) {
+            task.compute();
+        } else {
+            pool.invoke(task);
+        }
+
+        List<String> problems = new ArrayList<>();
+        Map<Type, List<T>> beansByType = new LinkedHashMap<>();
+        for (int i = 0; i < classes.length; ++i) {
+            List<T> classBeans = beansByClass.get(classes[i]);
+            if (typeArguments[i].value == null) {
+                problems.add(String.format("%s (beans: %s)", typeArguments[i].error, classBeans));
+            } else {
+                beansByType.computeIfAbsent(typeArguments[i].value, key -> new ArrayList<>(1)).addAll(classBeans);
+            }
+        }
+
+        Map<Type, T> result = new HashMap<>();
+        for (Map.Entry<Type, List<T>> entry : beansByType.entrySet()) {
+            if (entry.getValue().size() > 1) {
+                problems.add(String.format("type argument %s is shared by beans %s",
+                                           entry.getKey().getTypeName(), entry.getValue()));
+            } else {
+                result.put(entry.getKey(), entry.getValue().get(0));
+            }
+        }
+
+        if (!problems.isEmpty()) {
+            StringBuilder buffer = new StringBuilder(String.format(
+                    "Can't organize %d beans by their type argument values, found %d problem(s):",
+                    beans.size(), problems.size()));
+            for (String problem : problems) {
+                buffer.append("\n  - ").append(problem);
+            }
+            throw new IllegalArgumentException(buffer.toString());
+        }
+        return new TypeLookupMap<>(result);
+    }
+
+    /**
+     * Calculates type arguments for a range of classes, splits the range if it's too big.
+     */
+    private static class TypeArgumentsTask extends RecursiveAction {
+
+        static final int THRESHOLD = 16;
+
+        private static final long serialVersionUID = 1L;
+
+        @NotNull private final Class<?>[]     classes;
+        @NotNull private final TypeArgument[] results;
+        private final          int            from;
+        private final          int            to;
+
+        TypeArgumentsTask(@NotNull Class<?>[] classes, @NotNull TypeArgument[] results, int from, int to) {
+            this.classes = classes;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= THRESHOLD) {
+                for (int i = from; i < to; ++i) {
+                    results[i] = getTypeArgumentResult(classes[i]);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new TypeArgumentsTask(classes, results, from, middle),
+                      new TypeArgumentsTask(classes, results, middle, to));
+        }
+    }
+
+    /**
+     * Holds either type argument value or a reason why it can't be found out.
+     */
+    private static class TypeArgument {
+
+        @Nullable private final Type   value;
+        @Nullable private final String error;
+        private final           int    generation;
+
+        TypeArgument(@Nullable Type value, @Nullable String error, int generation) {
+            this.value = value;
+            this.error = error;
+            this.generation = generation;
+        }
+    }
+}
\ No newline at end of file
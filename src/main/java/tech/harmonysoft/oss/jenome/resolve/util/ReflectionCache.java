@@ -0,0 +1,343 @@
+package tech.harmonysoft.oss.jenome.resolve.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import tech.harmonysoft.oss.jenome.resolve.TypeArgumentResolver;
+
+import java.lang.reflect.*;
+
+/**
+ * <p>
+ *      Caches reflective metadata which standard API returns as defensive copies, e.g.
+ *      {@link Class#getGenericInterfaces()} or {@link WildcardType#getUpperBounds()}.
+ * </p>
+ * <p>
+ *      Class-level data is kept via {@link ClassValue}, i.e. it's stored together with the class and doesn't
+ *      prevent its unloading. {@link Type}-level data is kept at a {@link WeakIdentityMap}. We cache
+ *      {@link Type}-level data only if all the classes it references are visible to the jenome's class loader,
+ *      i.e. it doesn't prevent any class loader from being collected.
+ * </p>
+ * <p>
+ *      <b>Note:</b> this class is intended to be used by jenome internals. All methods return shared arrays which
+ *      must not be modified.
+ * </p>
+ * <p>Thread-safe.</p>
+ */
+public class ReflectionCache {
+
+    private static final ClassValue<ClassMetadata> CLASS_METADATA = new ClassValue<ClassMetadata>() {
+        @Override
+        protected ClassMetadata computeValue(Class<?> type) {
+            return new ClassMetadata(type);
+        }
+    };
+
+    private static final ClassValue<Boolean> CACHE_SAFE = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return isVisible(type.getClassLoader(), ReflectionCache.class.getClassLoader());
+        }
+    };
+
+    /** Marks {@link Type} objects which metadata is not cached because it's not cache-safe. */
+    private static final Type[][] NOT_CACHED = new Type[0][];
+
+    /** Holds {@link Type}-level metadata as an array of sub-arrays, check {@link TypeMetadataKind} */
+    private static final WeakIdentityMap<Type, Type[][]> TYPE_METADATA = new WeakIdentityMap<>();
+
+    private ReflectionCache() {
+    }
+
+    /**
+     * @param clazz     target class
+     * @return          shared result of the {@link Class#getGenericInterfaces()} call for the given class
+     */
+    @NotNull
+    public static Type[] getGenericInterfaces(@NotNull Class<?> clazz) {
+        return CLASS_METADATA.get(clazz).genericInterfaces;
+    }
+
+    /**
+     * @param clazz     target class
+     * @return          shared result of the {@link Class#getInterfaces()} call for the given class
+     */
+    @NotNull
+    public static Class<?>[] getInterfaces(@NotNull Class<?> clazz) {
+        return CLASS_METADATA.get(clazz).interfaces;
+    }
+
+    /**
+     * @param clazz     target class
+     * @return          shared result of the {@link Class#getTypeParameters()} call for the given class
+     */
+    @NotNull
+    public static TypeVariable<?>[] getTypeParameters(@NotNull Class<?> clazz) {
+        return CLASS_METADATA.get(clazz).typeParameters;
+    }
+
+    /**
+     * @param declaration   target generic declaration
+     * @return              shared result of the {@link GenericDeclaration#getTypeParameters()} call for
+     *                      the given class; a new array if given declaration is not a class
+     */
+    @NotNull
+    public static TypeVariable<?>[] getTypeParameters(@NotNull GenericDeclaration declaration) {
+        if (declaration instanceof Class) {
+            return getTypeParameters((Class<?>) declaration);
+        }
+        return declaration.getTypeParameters();
+    }
+
+    /**
+     * @param type      target type variable
+     * @return          shared result of the {@link TypeVariable#getBounds()} call for the given type variable
+     */
+    @NotNull
+    public static Type[] getBounds(@NotNull TypeVariable<?> type) {
+        return getTypeMetadata(type, TypeMetadataKind.BOUNDS);
+    }
+
+    /**
+     * @param type      target wildcard type
+     * @return          shared result of the {@link WildcardType#getUpperBounds()} call for the given wildcard type
+     */
+    @NotNull
+    public static Type[] getUpperBounds(@NotNull WildcardType type) {
+        return getTypeMetadata(type, TypeMetadataKind.UPPER_BOUNDS);
+    }
+
+    /**
+     * @param type      target wildcard type
+     * @return          shared result of the {@link WildcardType#getLowerBounds()} call for the given wildcard type
+     */
+    @NotNull
+    public static Type[] getLowerBounds(@NotNull WildcardType type) {
+        return getTypeMetadata(type, TypeMetadataKind.LOWER_BOUNDS);
+    }
+
+    /**
+     * @param type      target parameterized type
+     * @return          shared result of the {@link ParameterizedType#getActualTypeArguments()} call for the given
+     *                  parameterized type
+     */
+    @NotNull
+    public static Type[] getActualTypeArguments(@NotNull ParameterizedType type) {
+        return getTypeMetadata(type, TypeMetadataKind.ACTUAL_TYPE_ARGUMENTS);
+    }
+
+    /**
+     * Drops cached {@link Type}-level metadata. Class-level metadata is not affected as it's bound to the
+     * classes lifecycle.
+     */
+    public static void clear() {
+        TYPE_METADATA.clear();
+    }
+
+    /**
+     * Allows to check if given type may be referenced from a cache held by jenome without affecting class
+     * unloading, i.e. if all classes referenced by the given type are visible to jenome's class loader.
+     *
+     * @param type      type to check
+     * @return          {@code true} if given type may be referenced from jenome caches; {@code false} otherwise
+     */
+    public static boolean isCacheSafe(@NotNull Type type) {
+        Class<?> owner = getCacheOwner(type);
+        return owner != null && CACHE_SAFE.get(owner);
+    }
+
+    /**
+     * @param types     types to check
+     * @return          {@code true} if all given types are {@link #isCacheSafe(Type) cache-safe}
+     */
+    public static boolean isCacheSafe(@NotNull Type[] types) {
+        for (Type type : types) {
+            if (!isCacheSafe(type)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * <p>
+     *      Finds a class which class loader sees all classes referenced by the given type, e.g. {@code MyData}
+     *      for {@code List<MyData>}. Data which references the given type might be stored together with that
+     *      class (e.g. via {@link ClassValue}), that way it's collected when the class is unloaded.
+     * </p>
+     * <p>
+     *      {@link Object} is returned when given type doesn't reference any class, e.g. for
+     *      {@link TypeArgumentResolver#RAW_TYPE}.
+     * </p>
+     *
+     * @param type      target type
+     * @return          class which class loader sees all classes referenced by the given type;
+     *                  {@code null} if there is no such class, e.g. when given type references classes from
+     *                  unrelated class loaders or it's an unknown {@link Type} implementation
+     */
+    @Nullable
+    public static Class<?> getCacheOwner(@NotNull Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        }
+        if (type == TypeArgumentResolver.RAW_TYPE) {
+            return Object.class;
+        }
+        if (type instanceof ParameterizedType) {
+            ParameterizedType parameterizedType = (ParameterizedType) type;
+            Type ownerType = parameterizedType.getOwnerType();
+            Class<?> result = getCacheOwner(parameterizedType.getRawType());
+            if (ownerType != null) {
+                result = getCommonCacheOwner(result, getCacheOwner(ownerType));
+            }
+            return getCommonCacheOwner(result, getCacheOwner(getActualTypeArguments(parameterizedType)));
+        }
+        if (type instanceof WildcardType) {
+            WildcardType wildcardType = (WildcardType) type;
+            return getCommonCacheOwner(getCacheOwner(getUpperBounds(wildcardType)),
+                                       getCacheOwner(getLowerBounds(wildcardType)));
+        }
+        if (type instanceof GenericArrayType) {
+            return getCacheOwner(((GenericArrayType) type).getGenericComponentType());
+        }
+        if (type instanceof TypeVariable) {
+            // Bounds are not checked here in order to avoid infinite recursion for the declarations like
+            // 'T extends Comparable<T>'. They are visible to the declaring class anyway.
+            GenericDeclaration declaration = ((TypeVariable<?>) type).getGenericDeclaration();
+            if (declaration instanceof Class) {
+                return (Class<?>) declaration;
+            }
+            if (declaration instanceof Member) {
+                return ((Member) declaration).getDeclaringClass();
+            }
+        }
+        // Unknown Type implementation, it might hold references to anything.
+        return null;
+    }
+
+    /**
+     * @param types     target types
+     * @return          {@link #getCommonCacheOwner(Class, Class) common} {@link #getCacheOwner(Type) cache owner}
+     *                  of the given types; {@link Object} for an empty array
+     */
+    @Nullable
+    public static Class<?> getCacheOwner(@NotNull Type[] types) {
+        Class<?> result = Object.class;
+        for (int i = 0; result != null && i < types.length; ++i) {
+            result = getCommonCacheOwner(result, getCacheOwner(types[i]));
+        }
+        return result;
+    }
+
+    /**
+     * @param first     first cache owner
+     * @param second    second cache owner
+     * @return          given class which class loader sees another given class; {@code null} if any of
+     *                  the given classes is {@code null} or they are loaded by unrelated class loaders
+     */
+    @Nullable
+    public static Class<?> getCommonCacheOwner(@Nullable Class<?> first, @Nullable Class<?> second) {
+        if (first == null || second == null) {
+            return null;
+        }
+        if (first == second) {
+            return first;
+        }
+        ClassLoader firstLoader = first.getClassLoader();
+        ClassLoader secondLoader = second.getClassLoader();
+        if (isVisible(secondLoader, firstLoader)) {
+            return first;
+        }
+        if (isVisible(firstLoader, secondLoader)) {
+            return second;
+        }
+        return null;
+    }
+
+    @NotNull
+    private static Type[] getTypeMetadata(@NotNull Type type, @NotNull TypeMetadataKind kind) {
+        Type[][] metadata = TYPE_METADATA.get(type);
+        if (metadata == null) {
+            metadata = computeTypeMetadata(type);
+            TYPE_METADATA.putIfAbsent(type, metadata);
+        }
+        if (metadata == NOT_CACHED) {
+            return kind.compute(type);
+        }
+        return metadata[kind.ordinal()];
+    }
+
+    @NotNull
+    private static Type[][] computeTypeMetadata(@NotNull Type type) {
+        Type[][] result = new Type[TypeMetadataKind.values().length][];
+        for (TypeMetadataKind kind : TypeMetadataKind.values()) {
+            Type[] data = kind.compute(type);
+            if (!isCacheSafe(data)) {
+                return NOT_CACHED;
+            }
+            result[kind.ordinal()] = data;
+        }
+        return result;
+    }
+
+    private static boolean isVisible(ClassLoader loader, ClassLoader from) {
+        if (loader == null) {
+            return true;
+        }
+        for (ClassLoader l = from; l != null; l = l.getParent()) {
+            if (l == loader) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private enum TypeMetadataKind {
+        BOUNDS {
+            @NotNull
+            @Override
+            Type[] compute(@NotNull Type type) {
+                return type instanceof TypeVariable ? ((TypeVariable<?>) type).getBounds() : NO_TYPES;
+            }
+        },
+        UPPER_BOUNDS {
+            @NotNull
+            @Override
+            Type[] compute(@NotNull Type type) {
+                return type instanceof WildcardType ? ((WildcardType) type).getUpperBounds() : NO_TYPES;
+            }
+        },
+        LOWER_BOUNDS {
+            @NotNull
+            @Override
+            Type[] compute(@NotNull Type type) {
+                return type instanceof WildcardType ? ((WildcardType) type).getLowerBounds() : NO_TYPES;
+            }
+        },
+        ACTUAL_TYPE_ARGUMENTS {
+            @NotNull
+            @Override
+            Type[] compute(@NotNull Type type) {
+                return type instanceof ParameterizedType
+                       ? ((ParameterizedType) type).getActualTypeArguments() : NO_TYPES;
+            }
+        };
+
+        private static final Type[] NO_TYPES = new Type[0];
+
+        @NotNull
+        abstract Type[] compute(@NotNull Type type);
+    }
+
+    private static class ClassMetadata {
+
+        @NotNull final Type[]            genericInterfaces;
+        @NotNull final Class<?>[]        interfaces;
+        @NotNull final TypeVariable<?>[] typeParameters;
+
+        ClassMetadata(@NotNull Class<?> clazz) {
+            genericInterfaces = clazz.getGenericInterfaces();
+            interfaces = clazz.getInterfaces();
+            typeParameters = clazz.getTypeParameters();
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package tech.harmonysoft.oss.jenome.resolve.util;
 
+import tech.harmonysoft.oss.jenome.resolve.TypeFunction;
 import tech.harmonysoft.oss.jenome.resolve.TypeVisitor;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.lang.reflect.*;
 
@@ -65,4 +67,44 @@ public class TypeDispatcher {
             visitor.visitType(type);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * <p>Allows to dispatch given {@code 'type'} to the actual type to the given function.</p>
+     * <p>
+     *      Unlike {@link #dispatch(Type, TypeVisitor)}, exactly one function method is called. If given
+     *      {@code 'type'} implements more than one {@link Type} sub-interface, the first of
+     *      {@link ParameterizedType}, {@link WildcardType}, {@link GenericArrayType} and {@link TypeVariable}
+     *      is used. {@link TypeFunction#visitType(Type, Object)} is called only when given {@code 'type'} doesn't
+     *      implement any of them and it's not IS-A {@link Class}.
+     * </p>
+     * <p>Thread-safe.</p>
+     *
+     * @param type          target {@link Type} object to dispatch
+     * @param function      function to apply
+     * @param parameter     parameter to give to the function
+     * @param <P>           parameter type
+     * @param <R>           result type
+     * @return              function result
+     */
+    @Nullable
+    public <P, R> R apply(@NotNull Type type, @NotNull TypeFunction<P, R> function, @Nullable P parameter) {
+        // Class is final and doesn't implement other Type sub-interfaces, so, it's safe to check it first. It's
+        // the most frequent case as well.
+        if (type instanceof Class) {
+            return function.visitClass((Class<?>) type, parameter);
+        }
+        if (type instanceof ParameterizedType) {
+            return function.visitParameterizedType((ParameterizedType) type, parameter);
+        }
+        if (type instanceof WildcardType) {
+            return function.visitWildcardType((WildcardType) type, parameter);
+        }
+        if (type instanceof GenericArrayType) {
+            return function.visitGenericArrayType((GenericArrayType) type, parameter);
+        }
+        if (type instanceof TypeVariable) {
+            return function.visitTypeVariable((TypeVariable<?>) type, parameter);
+        }
+        return function.visitType(type, parameter);
+    }
+}
@@ -0,0 +1,139 @@
+package tech.harmonysoft.oss.jenome.resolve.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Type;
+import java.util.*;
+
+/**
+ * <p>Immutable {@link Map} with {@link Type} keys optimized for read-mostly lookups (e.g. payload routing).</p>
+ * <p>
+ *      Entries are stored at flat arrays with open addressing (linear probing) and cached key hashes, i.e.
+ *      {@link #get(Object)} doesn't allocate, doesn't follow bucket chains and calls {@link Object#equals(Object)}
+ *      only for the keys with the same hash.
+ * </p>
+ * <p>Thread-safe.</p>
+ *
+ * @param <V>   value type
+ */
+public class TypeLookupMap<V> extends AbstractMap<Type, V> {
+
+    @NotNull private final Type[]   keys;
+    @NotNull private final Object[] values;
+    @NotNull private final int[]    hashes;
+    private final          int      mask;
+    private final          int      size;
+
+    /**
+     * Creates new {@code TypeLookupMap} object which holds the same mappings as the given map.
+     *
+     * @param source    mappings to use
+     */
+    public TypeLookupMap(@NotNull Map<? extends Type, ? extends V> source) {
+        // Keep load factor at or below 0.5 in order to have short probe sequences.
+        int capacity = Integer.highestOneBit(Math.max(2, source.size()) * 2 - 1) << 1;
+        keys = new Type[capacity];
+        values = new Object[capacity];
+        hashes = new int[capacity];
+        mask = capacity - 1;
+        for (Map.Entry<? extends Type, ? extends V> entry : source.entrySet()) {
+            Type key = entry.getKey();
+            int hash = hash(key);
+            int i = hash & mask;
+            while (keys[i] != null) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = entry.getValue();
+            hashes[i] = hash;
+        }
+        size = source.size();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(@Nullable Object key) {
+        return key != null && indexOf(key) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    @Override
+    public V get(@Nullable Object key) {
+        if (key == null) {
+            return null;
+        }
+        int i = indexOf(key);
+        return i < 0 ? null : (V) values[i];
+    }
+
+    @NotNull
+    @Override
+    public Set<Entry<Type, V>> entrySet() {
+        return new AbstractSet<Entry<Type, V>>() {
+            @NotNull
+            @Override
+            public Iterator<Entry<Type, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private int indexOf(@NotNull Object key) {
+        int hash = hash(key);
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            Type candidate = keys[i];
+            if (candidate == null) {
+                return -1;
+            }
+            if (candidate == key || (hashes[i] == hash && candidate.equals(key))) {
+                return i;
+            }
+        }
+    }
+
+    private static int hash(@NotNull Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private class EntryIterator implements Iterator<Entry<Type, V>> {
+
+        private int next = advance(0);
+
+        @Override
+        public boolean hasNext() {
+            return next < keys.length;
+        }
+
+        @SuppressWarnings("unchecked")
+        @NotNull
+        @Override
+        public Entry<Type, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Entry<Type, V> result = new SimpleImmutableEntry<>(keys[next], (V) values[next]);
+            next = advance(next + 1);
+            return result;
+        }
+
+        private int advance(int from) {
+            int i = from;
+            while (i < keys.length && keys[i] == null) {
+                i++;
+            }
+            return i;
+        }
+    }
+}
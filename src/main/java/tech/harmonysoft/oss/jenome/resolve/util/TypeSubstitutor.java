@@ -0,0 +1,318 @@
+package tech.harmonysoft.oss.jenome.resolve.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import tech.harmonysoft.oss.jenome.cache.CacheStats;
+import tech.harmonysoft.oss.jenome.cache.JenomeCacheFactory;
+import tech.harmonysoft.oss.jenome.cache.UnboundedJenomeCache;
+import tech.harmonysoft.oss.jenome.resolve.TypeArgumentResolver;
+import tech.harmonysoft.oss.jenome.resolve.impl.GenericArrayTypeImpl;
+import tech.harmonysoft.oss.jenome.resolve.impl.ParameterizedTypeImpl;
+import tech.harmonysoft.oss.jenome.resolve.impl.WildcardTypeImpl;
+
+import java.lang.reflect.*;
+import java.util.*;
+
+/**
+ * <p>
+ *      Replaces type variables by their bound values at any nesting level, i.e. given {@code T -> String} binding
+ *      {@code Map<T, List<? extends T>>} becomes {@code Map<String, List<? extends String>>}.
+ * </p>
+ * <p>
+ *      Substituted types are memoized per {@code (type, values of its type variables)} pair at a
+ *      {@link ClassLoaderAwareCache}, so, the same input produces the same result instance.
+ *      {@link TypeArgumentResolver#RAW_TYPE} bound to any type variable referenced by the given type makes
+ *      the whole type raw, i.e. {@link TypeArgumentResolver#RAW_TYPE} is returned then.
+ * </p>
+ * <p>This class is not singleton but offers single-point-of-usage field {@link #INSTANCE}.</p>
+ * <p>Thread-safe.</p>
+ */
+public class TypeSubstitutor {
+
+    /** 'Single-point-of-usage' field. */
+    public static final TypeSubstitutor INSTANCE = new TypeSubstitutor();
+
+    /** Name of the type variables cache given to a {@link JenomeCacheFactory}. */
+    public static final String FREE_VARIABLES_CACHE_NAME = "substitutor.freeVariables";
+
+    /** Name of the substitution results cache given to a {@link JenomeCacheFactory}. */
+    public static final String SUBSTITUTED_CACHE_NAME = "substitutor.substituted";
+
+    private static final TypeVariable<?>[] NO_VARIABLES = new TypeVariable<?>[0];
+
+    /** Holds type variables referenced by the given type (at any nesting level). */
+    private final ClassLoaderAwareCache<Type, TypeVariable<?>[]> freeVariables = new ClassLoaderAwareCache<>();
+
+    /** Holds substitution results. */
+    private final ClassLoaderAwareCache<SubstitutionKey, Type> substituted = new ClassLoaderAwareCache<>();
+
+    /**
+     * Defines binding environment used during substitution.
+     */
+    public interface Bindings {
+
+        /**
+         * @param variable      target type variable
+         * @return              value bound to the given type variable if any; {@code null} otherwise
+         */
+        @Nullable
+        Type lookup(@NotNull TypeVariable<?> variable);
+    }
+
+    /**
+     * Delegates to {@link #substitute(Type, Bindings)} using the given map as a binding environment.
+     *
+     * @param type          type to process
+     * @param bindings      type variable values
+     * @return              given type with all bound type variables replaced by their values
+     */
+    @NotNull
+    public Type substitute(@NotNull Type type, @NotNull Map<? extends TypeVariable<?>, ? extends Type> bindings) {
+        return substitute(type, bindings::get);
+    }
+
+    /**
+     * Replaces all type variables referenced by the given type by their values from the given environment.
+     * Type variables which are not bound at the given environment are left as-is.
+     *
+     * @param type          type to process
+     * @param bindings      type variable values
+     * @return              given type with all bound type variables replaced by their values;
+     *                      given type itself if it doesn't reference any bound type variable;
+     *                      {@link TypeArgumentResolver#RAW_TYPE} if any referenced type variable is bound to it
+     */
+    @NotNull
+    public Type substitute(@NotNull Type type, @NotNull Bindings bindings) {
+        if (type instanceof Class) {
+            return type;
+        }
+
+        TypeVariable<?>[] variables = getFreeVariables(type);
+        if (variables.length == 0) {
+            return type;
+        }
+
+        Type[] values = new Type[variables.length];
+        boolean bound = false;
+        for (int i = 0; i < variables.length; ++i) {
+            Type value = bindings.lookup(variables[i]);
+            if (value == TypeArgumentResolver.RAW_TYPE) {
+                return TypeArgumentResolver.RAW_TYPE;
+            }
+            if (value == null) {
+                values[i] = variables[i];
+            } else {
+                values[i] = value;
+                bound |= value != variables[i];
+            }
+        }
+        if (!bound) {
+            return type;
+        }
+
+        SubstitutionKey key = new SubstitutionKey(type, values);
+        Class<?> owner = ReflectionCache.getCommonCacheOwner(ReflectionCache.getCacheOwner(type),
+                                                             ReflectionCache.getCacheOwner(values));
+        Type result = substituted.get(key, owner);
+        if (result == null) {
+            result = substituted.put(key, doSubstitute(type, variables, values), owner);
+        }
+        return result;
+    }
+
+    /**
+     * Drops all memoized data.
+     */
+    public void clearCache() {
+        freeVariables.clear();
+        substituted.clear();
+    }
+
+    /**
+     * @return      memoization cache statistics
+     */
+    @NotNull
+    public CacheStats getCacheStats() {
+        return freeVariables.getStats().plus(substituted.getStats());
+    }
+
+    /**
+     * <p>
+     *      Allows to define custom cache implementation to use for memoized data, current cache content
+     *      is dropped.
+     * </p>
+     * <p>{@link UnboundedJenomeCache#FACTORY} is used by default.</p>
+     *
+     * @param cacheFactory      factory to create the cache
+     */
+    public void setCacheFactory(@NotNull JenomeCacheFactory cacheFactory) {
+        freeVariables.setSharedCache(cacheFactory.newCache(FREE_VARIABLES_CACHE_NAME));
+        substituted.setSharedCache(cacheFactory.newCache(SUBSTITUTED_CACHE_NAME));
+        clearCache();
+    }
+
+    @NotNull
+    private TypeVariable<?>[] getFreeVariables(@NotNull Type type) {
+        Class<?> owner = ReflectionCache.getCacheOwner(type);
+        TypeVariable<?>[] result = freeVariables.get(type, owner);
+        if (result == null) {
+            Set<TypeVariable<?>> variables = new LinkedHashSet<>();
+            collectFreeVariables(type, variables);
+            result = variables.isEmpty() ? NO_VARIABLES : variables.toArray(new TypeVariable<?>[variables.size()]);
+            freeVariables.put(type, result, owner);
+        }
+        return result;
+    }
+
+    private void collectFreeVariables(@NotNull Type type, @NotNull Set<TypeVariable<?>> holder) {
+        if (type instanceof TypeVariable) {
+            // We don't go into type variable bounds here - they are not substituted.
+            holder.add((TypeVariable<?>) type);
+        } else if (type instanceof ParameterizedType) {
+            ParameterizedType parameterizedType = (ParameterizedType) type;
+            Type ownerType = parameterizedType.getOwnerType();
+            if (ownerType != null) {
+                collectFreeVariables(ownerType, holder);
+            }
+            for (Type argument : ReflectionCache.getActualTypeArguments(parameterizedType)) {
+                collectFreeVariables(argument, holder);
+            }
+        } else if (type instanceof WildcardType) {
+            WildcardType wildcardType = (WildcardType) type;
+            for (Type bound : ReflectionCache.getUpperBounds(wildcardType)) {
+                collectFreeVariables(bound, holder);
+            }
+            for (Type bound : ReflectionCache.getLowerBounds(wildcardType)) {
+                collectFreeVariables(bound, holder);
+            }
+        } else if (type instanceof GenericArrayType) {
+            collectFreeVariables(((GenericArrayType) type).getGenericComponentType(), holder);
+        }
+    }
+
+    @NotNull
+    private Type doSubstitute(@NotNull Type type, @NotNull TypeVariable<?>[] variables, @NotNull Type[] values) {
+        if (type instanceof TypeVariable) {
+            for (int i = 0; i < variables.length; ++i) {
+                if (variables[i] == type || variables[i].equals(type)) {
+                    return values[i];
+                }
+            }
+            return type;
+        }
+
+        if (type instanceof ParameterizedType) {
+            ParameterizedType parameterizedType = (ParameterizedType) type;
+            Type ownerType = parameterizedType.getOwnerType();
+            Type substitutedOwnerType = ownerType == null ? null : doSubstitute(ownerType, variables, values);
+            boolean changed = ownerType != substitutedOwnerType;
+            Type[] originalArguments = ReflectionCache.getActualTypeArguments(parameterizedType);
+            Type[] arguments = new Type[originalArguments.length];
+            for (int i = 0; i < arguments.length; ++i) {
+                arguments[i] = doSubstitute(originalArguments[i], variables, values);
+                changed |= arguments[i] != originalArguments[i];
+            }
+            if (!changed) {
+                return type;
+            }
+            return new ParameterizedTypeImpl((Class<?>) parameterizedType.getRawType(),
+                                             arguments,
+                                             substitutedOwnerType);
+        }
+
+        if (type instanceof WildcardType) {
+            WildcardType wildcardType = (WildcardType) type;
+            Type[] originalUpperBounds = ReflectionCache.getUpperBounds(wildcardType);
+            Type[] originalLowerBounds = ReflectionCache.getLowerBounds(wildcardType);
+            List<Type> upperBounds = new ArrayList<>(originalUpperBounds.length);
+            List<Type> lowerBounds = new ArrayList<>(originalLowerBounds.length);
+            boolean changed = false;
+            for (Type bound : originalUpperBounds) {
+                changed |= addBounds(bound, doSubstitute(bound, variables, values), true, upperBounds);
+            }
+            for (Type bound : originalLowerBounds) {
+                changed |= addBounds(bound, doSubstitute(bound, variables, values), false, lowerBounds);
+            }
+            if (!changed) {
+                return type;
+            }
+            return new WildcardTypeImpl(upperBounds.toArray(new Type[upperBounds.size()]),
+                                        lowerBounds.toArray(new Type[lowerBounds.size()]));
+        }
+
+        if (type instanceof GenericArrayType) {
+            Type componentType = ((GenericArrayType) type).getGenericComponentType();
+            Type substitutedComponentType = doSubstitute(componentType, variables, values);
+            if (substitutedComponentType == componentType) {
+                return type;
+            }
+            if (substitutedComponentType instanceof Class) {
+                // Reflection represents arrays of non-generic types as classes, e.g. String[].class.
+                return Array.newInstance((Class<?>) substitutedComponentType, 0).getClass();
+            }
+            return new GenericArrayTypeImpl(substitutedComponentType);
+        }
+
+        return type;
+    }
+
+    /**
+     * Adds given substituted wildcard bound to the given holder. Wildcard bound values are flattened, e.g.
+     * {@code ? extends T} with {@code T -> ? extends Number} becomes {@code ? extends Number}.
+     *
+     * @param original      original bound
+     * @param substituted   substituted bound
+     * @param upper         flag which identifies if given bound is an upper bound
+     * @param holder        bounds holder
+     * @return              {@code true} if substituted bound differs from the original one; {@code false} otherwise
+     */
+    private static boolean addBounds(@NotNull Type original,
+                                     @NotNull Type substituted,
+                                     boolean upper,
+                                     @NotNull List<Type> holder)
+    {
+        if (!(substituted instanceof WildcardType)) {
+            holder.add(substituted);
+            return substituted != original;
+        }
+        WildcardType wildcardType = (WildcardType) substituted;
+        Type[] bounds = upper ? ReflectionCache.getUpperBounds(wildcardType)
+                              : ReflectionCache.getLowerBounds(wildcardType);
+        for (Type bound : bounds) {
+            if (!upper || bound != Object.class) {
+                holder.add(bound);
+            }
+        }
+        return true;
+    }
+
+    private static class SubstitutionKey {
+
+        @NotNull private final Type   type;
+        @NotNull private final Type[] values;
+        private final          int    hashCode;
+
+        SubstitutionKey(@NotNull Type type, @NotNull Type[] values) {
+            this.type = type;
+            this.values = values;
+            hashCode = 31 * type.hashCode() + Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SubstitutionKey)) {
+                return false;
+            }
+            SubstitutionKey that = (SubstitutionKey) o;
+            return hashCode == that.hashCode && type.equals(that.type) && Arrays.equals(values, that.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
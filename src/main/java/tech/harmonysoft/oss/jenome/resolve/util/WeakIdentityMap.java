@@ -0,0 +1,173 @@
+package tech.harmonysoft.oss.jenome.resolve.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+/**
+ * <p>
+ *      A map which compares keys by identity and references them weakly, i.e. an entry is dropped automatically
+ *      when its key becomes unreachable.
+ * </p>
+ * <p>
+ *      Is optimized for read-mostly usage: {@link #get(Object)} is lock-free and doesn't allocate, modifications
+ *      are serialized. Note that values are referenced strongly, so, a value which references its key (directly
+ *      or indirectly) prevents the entry from being dropped.
+ * </p>
+ * <p>Thread-safe.</p>
+ *
+ * @param <K>   key type
+ * @param <V>   value type
+ */
+public class WeakIdentityMap<K, V> {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final ReferenceQueue<K> queue = new ReferenceQueue<>();
+
+    /** Entries are immutable, so, it's safe to read the table without synchronization. */
+    private volatile Entry<K, V>[] table = newTable(INITIAL_CAPACITY);
+    private int size;
+
+    /**
+     * @param key   target key
+     * @return      value mapped to the given key if any; {@code null} otherwise
+     */
+    @Nullable
+    public V get(@NotNull K key) {
+        int hash = System.identityHashCode(key);
+        Entry<K, V>[] tab = table;
+        for (Entry<K, V> e = tab[hash & (tab.length - 1)]; e != null; e = e.next) {
+            if (e.hash == hash && e.get() == key) {
+                return e.value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Maps given value to the given key unless there is an existing mapping for it.
+     *
+     * @param key       target key
+     * @param value     value to store
+     * @return          value mapped to the given key after this method call
+     */
+    @NotNull
+    public synchronized V putIfAbsent(@NotNull K key, @NotNull V value) {
+        expungeStaleEntries();
+        V existing = get(key);
+        if (existing != null) {
+            return existing;
+        }
+        Entry<K, V>[] tab = table;
+        if (size >= tab.length - (tab.length >>> 2)) {
+            tab = resize(tab);
+        }
+        int hash = System.identityHashCode(key);
+        int index = hash & (tab.length - 1);
+        tab[index] = new Entry<>(key, hash, value, tab[index], queue);
+        size++;
+        return value;
+    }
+
+    /**
+     * @return      number of entries (including the ones which keys are already collected but the entries
+     *              are not expunged yet)
+     */
+    public synchronized int size() {
+        expungeStaleEntries();
+        return size;
+    }
+
+    /**
+     * Drops all entries.
+     */
+    public synchronized void clear() {
+        while (queue.poll() != null) {
+            // Just drain the queue
+        }
+        table = newTable(INITIAL_CAPACITY);
+        size = 0;
+    }
+
+    @NotNull
+    private Entry<K, V>[] resize(@NotNull Entry<K, V>[] tab) {
+        Entry<K, V>[] newTab = newTable(tab.length * 2);
+        for (Entry<K, V> head : tab) {
+            for (Entry<K, V> e = head; e != null; e = e.next) {
+                K key = e.get();
+                if (key == null) {
+                    size--;
+                    continue;
+                }
+                int index = e.hash & (newTab.length - 1);
+                newTab[index] = new Entry<>(key, e.hash, e.value, newTab[index], queue);
+            }
+        }
+        table = newTab;
+        return newTab;
+    }
+
+    private void expungeStaleEntries() {
+        boolean stale = false;
+        while (queue.poll() != null) {
+            stale = true;
+        }
+        if (!stale) {
+            return;
+        }
+
+        // Entries are immutable, so, we re-create chains which contain collected keys.
+        Entry<K, V>[] tab = table;
+        for (int i = 0; i < tab.length; ++i) {
+            Entry<K, V> head = tab[i];
+            boolean hasStale = false;
+            for (Entry<K, V> e = head; e != null; e = e.next) {
+                if (e.get() == null) {
+                    hasStale = true;
+                    break;
+                }
+            }
+            if (!hasStale) {
+                continue;
+            }
+            Entry<K, V> newHead = null;
+            for (Entry<K, V> e = head; e != null; e = e.next) {
+                K key = e.get();
+                if (key == null) {
+                    size--;
+                } else {
+                    newHead = new Entry<>(key, e.hash, e.value, newHead, queue);
+                }
+            }
+            tab[i] = newHead;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @NotNull
+    private static <K, V> Entry<K, V>[] newTable(int capacity) {
+        return (Entry<K, V>[]) new Entry<?, ?>[capacity];
+    }
+
+    private static class Entry<K, V> extends WeakReference<K> {
+
+        @Nullable private final Entry<K, V> next;
+        @NotNull  private final V           value;
+        private final           int         hash;
+
+        Entry(@NotNull K key,
+              int hash,
+              @NotNull V value,
+              @Nullable Entry<K, V> next,
+              @NotNull ReferenceQueue<K> queue)
+        {
+            super(key, queue);
+            this.hash = hash;
+            this.value = value;
+            this.next = next;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package tech.harmonysoft.oss.jenome.warmup;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import tech.harmonysoft.oss.jenome.match.MatchListener;
+import tech.harmonysoft.oss.jenome.match.impl.CompositeTypeComplianceMatcher;
+import tech.harmonysoft.oss.jenome.resolve.ResolutionListener;
+import tech.harmonysoft.oss.jenome.resolve.impl.DefaultTypeArgumentResolver;
+import tech.harmonysoft.oss.jenome.resolve.util.ReflectionCache;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ *      Collects type argument resolutions and top-level compliance checks performed by
+ *      {@link DefaultTypeArgumentResolver#addListener(ResolutionListener) resolvers} and
+ *      {@link CompositeTypeComplianceMatcher#addListener(MatchListener) matchers} it's attached to (nested checks
+ *      are not recorded because they are performed anyway when the top-level check is replayed) and allows to
+ *      {@link #write(Path, int) store} the hottest of them at a profile file. The file is assumed to be
+ *      {@link AccessProfileReplayer replayed} on the next application start, e.g.:
+ * </p>
+ * <pre>
+ *     AccessProfileRecorder recorder = new AccessProfileRecorder();
+ *     DefaultTypeArgumentResolver.INSTANCE.addListener(recorder);
+ *     CompositeTypeComplianceMatcher.INSTANCE.addListener(recorder);
+ *     ...
+ *     // on shutdown
+ *     recorder.write(profileFile, 10_000);
+ * </pre>
+ * <p>
+ *      Only accesses for the types which are visible to jenome's class loader are recorded (check
+ *      {@link ReflectionCache#isCacheSafe(Type)}), so, the recorder doesn't prevent classes unloading. Number of
+ *      distinct recorded entries is limited, new entries are ignored when the limit is reached.
+ * </p>
+ * <p>Thread-safe.</p>
+ */
+public class AccessProfileRecorder implements ResolutionListener, MatchListener {
+
+    /** Default max number of distinct recorded entries. */
+    public static final int DEFAULT_MAX_ENTRIES = 100_000;
+
+    /** The first line of every profile file. */
+    static final String HEADER = "# jenome access profile v1";
+
+    @NotNull private final ConcurrentMap<ProfileEntry, LongAdder> counters = new ConcurrentHashMap<>();
+    private final          int                                    maxEntries;
+
+    public AccessProfileRecorder() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param maxEntries    max number of distinct recorded entries
+     * @throws IllegalArgumentException     if given number is not positive
+     */
+    public AccessProfileRecorder(int maxEntries) throws IllegalArgumentException {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Can't create access profile recorder. Reason: max entries number must be positive but "
+                    + "got %d", maxEntries));
+        }
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Records {@link DefaultTypeArgumentResolver#resolve(Type, Type, int) type argument resolution}.
+     *
+     * @param base      base type
+     * @param target    target type
+     * @param index     type argument index
+     */
+    public void recordResolution(@NotNull Type base, @NotNull Type target, int index) {
+        if (ReflectionCache.isCacheSafe(base) && ReflectionCache.isCacheSafe(target)) {
+            record(new ProfileEntry(ProfileEntry.RESOLUTION, base, target, index));
+        }
+    }
+
+    /**
+     * Records {@link CompositeTypeComplianceMatcher#match(Type, Type, boolean) compliance check}.
+     *
+     * @param base          base type
+     * @param candidate     candidate type
+     * @param strict        {@code 'strict'} flag
+     */
+    public void recordMatch(@NotNull Type base, @NotNull Type candidate, boolean strict) {
+        if (ReflectionCache.isCacheSafe(base) && ReflectionCache.isCacheSafe(candidate)) {
+            record(new ProfileEntry(ProfileEntry.MATCH, base, candidate, strict ? 1 : 0));
+        }
+    }
+
+    @Nullable
+    @Override
+    public Object onResolveStart(@NotNull Type base, @NotNull Type target, int index) {
+        recordResolution(base, target, index);
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public Object onMatchStart(@NotNull Type base, @NotNull Type candidate, boolean strict, int depth) {
+        if (depth == 0) {
+            recordMatch(base, candidate, strict);
+        }
+        return null;
+    }
+
+    /**
+     * @return      number of distinct recorded entries
+     */
+    public int size() {
+        return counters.size();
+    }
+
+    /**
+     * Drops all recorded entries.
+     */
+    public void clear() {
+        counters.clear();
+    }
+
+    /**
+     * Writes the hottest recorded entries to the given file. The file is replaced atomically, i.e. concurrent
+     * {@link AccessProfileReplayer#replay(Path) replay} never sees a partially written profile.
+     *
+     * @param file      target file
+     * @param limit     max number of entries to write
+     * @return          number of written entries
+     * @throws IOException      in case of a problem on writing to the given file
+     */
+    public int write(@NotNull Path file, int limit) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            int result;
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                result = write(writer, limit);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return result;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Writes the hottest recorded entries to the given writer, most frequently accessed entries go first.
+     * Entries which reference types without textual form (e.g. type variables declared by methods) are skipped.
+     *
+     * @param writer    target writer
+     * @param limit     max number of entries to write
+     * @return          number of written entries
+     * @throws IOException      in case of a problem on writing to the given writer
+     */
+    public int write(@NotNull Writer writer, int limit) throws IOException {
+        List<Map.Entry<ProfileEntry, Long>> entries = new ArrayList<>(counters.size());
+        for (Map.Entry<ProfileEntry, LongAdder> entry : counters.entrySet()) {
+            entries.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue().sum()));
+        }
+        entries.sort((e1, e2) -> Long.compare(e2.getValue(), e1.getValue()));
+
+        BufferedWriter bufferedWriter = writer instanceof BufferedWriter ? (BufferedWriter) writer
+                                                                         : new BufferedWriter(writer);
+        bufferedWriter.write(HEADER);
+        bufferedWriter.newLine();
+        int result = 0;
+        for (Map.Entry<ProfileEntry, Long> entry : entries) {
+            if (result >= limit) {
+                break;
+            }
+            String line = entry.getKey().format(entry.getValue());
+            if (line != null) {
+                bufferedWriter.write(line);
+                bufferedWriter.newLine();
+                result++;
+            }
+        }
+        bufferedWriter.flush();
+        return result;
+    }
+
+    private void record(@NotNull ProfileEntry entry) {
+        LongAdder counter = counters.get(entry);
+        if (counter == null) {
+            if (counters.size() >= maxEntries) {
+                return;
+            }
+            counter = counters.computeIfAbsent(entry, key -> new LongAdder());
+        }
+        counter.increment();
+    }
+}
@@ -0,0 +1,188 @@
+package tech.harmonysoft.oss.jenome.warmup;
+
+import org.jetbrains.annotations.NotNull;
+import tech.harmonysoft.oss.jenome.match.impl.CompositeTypeComplianceMatcher;
+import tech.harmonysoft.oss.jenome.resolve.impl.DefaultTypeArgumentResolver;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * <p>
+ *      Replays a profile written by {@link AccessProfileRecorder}, i.e. performs all recorded type argument
+ *      resolutions and compliance checks, so, that caches are populated by the working set of the previous run
+ *      before the application starts serving requests:
+ * </p>
+ * <pre>
+ *     if (Files.exists(profileFile)) {
+ *         WarmupReport report = new AccessProfileReplayer().replay(profileFile);
+ *         log.info("Jenome profile {}", report);
+ *     }
+ * </pre>
+ * <p>
+ *      Profile entries are split into chunks which are processed in parallel at the given executor
+ *      ({@link ForkJoinPool#commonPool()} by default). Entries which can't be replayed anymore (e.g. because
+ *      of removed classes) are counted as {@link WarmupReport#getFailures() failures}.
+ * </p>
+ * <p>Thread-safe.</p>
+ */
+public class AccessProfileReplayer {
+
+    /** Number of chunks per available processor, a bigger number gives better balancing for uneven chunks. */
+    private static final int CHUNKS_PER_PROCESSOR = 4;
+
+    @NotNull private final DefaultTypeArgumentResolver    resolver;
+    @NotNull private final CompositeTypeComplianceMatcher matcher;
+
+    public AccessProfileReplayer() {
+        this(DefaultTypeArgumentResolver.INSTANCE, CompositeTypeComplianceMatcher.INSTANCE);
+    }
+
+    public AccessProfileReplayer(@NotNull DefaultTypeArgumentResolver resolver,
+                                 @NotNull CompositeTypeComplianceMatcher matcher)
+    {
+        this.resolver = resolver;
+        this.matcher = matcher;
+    }
+
+    /**
+     * Delegates to {@link #replay(Reader, ClassLoader, ExecutorService)} using the context class loader of the
+     * current thread and {@link ForkJoinPool#commonPool()}.
+     *
+     * @param file      profile file
+     * @return          replay statistics
+     * @throws IOException      in case of a problem on reading the given file
+     */
+    @NotNull
+    public WarmupReport replay(@NotNull Path file) throws IOException {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return replay(reader,
+                          loader == null ? AccessProfileReplayer.class.getClassLoader() : loader,
+                          ForkJoinPool.commonPool());
+        }
+    }
+
+    /**
+     * Replays all entries of the given profile.
+     *
+     * @param reader    profile content
+     * @param loader    class loader to use for loading classes referenced from the profile
+     * @param executor  executor to use
+     * @return          replay statistics
+     * @throws IOException              in case of a problem on reading the profile
+     * @throws IllegalArgumentException if given profile is not an access profile
+     * @throws IllegalStateException    if current thread is interrupted during replay or replay task fails
+     *                                  unexpectedly
+     */
+    @NotNull
+    public WarmupReport replay(@NotNull Reader reader, @NotNull ClassLoader loader, @NotNull ExecutorService executor)
+            throws IOException, IllegalArgumentException, IllegalStateException
+    {
+        long startNanos = System.nanoTime();
+        int cacheSizeBefore = resolver.getCacheSize() + matcher.getCacheSize();
+
+        List<String> lines = readEntries(reader);
+        int chunksNumber = Math.min(lines.size(), Runtime.getRuntime().availableProcessors() * CHUNKS_PER_PROCESSOR);
+        List<Callable<Counts>> tasks = new ArrayList<>(chunksNumber);
+        for (int i = 0; i < chunksNumber; ++i) {
+            // Entries are sorted by hotness, so, round-robin distribution gives every chunk a similar share
+            // of hot and cold entries.
+            int chunk = i;
+            tasks.add(() -> replay(lines, chunk, chunksNumber, loader));
+        }
+
+        Counts total = new Counts();
+        try {
+            for (Future<Counts> future : executor.invokeAll(tasks)) {
+                total.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Jenome access profile replay is interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Unexpected exception during jenome access profile replay", e.getCause());
+        }
+
+        return new WarmupReport(Duration.ofNanos(System.nanoTime() - startNanos),
+                                lines.size(),
+                                total.resolutions,
+                                total.matches,
+                                total.failures,
+                                Math.max(0, resolver.getCacheSize() + matcher.getCacheSize() - cacheSizeBefore));
+    }
+
+    @NotNull
+    private static List<String> readEntries(@NotNull Reader reader) throws IOException, IllegalArgumentException {
+        BufferedReader bufferedReader = reader instanceof BufferedReader ? (BufferedReader) reader
+                                                                         : new BufferedReader(reader);
+        String header = bufferedReader.readLine();
+        if (header != null && !AccessProfileRecorder.HEADER.equals(header)) {
+            throw new IllegalArgumentException(String.format(
+                    "Can't replay jenome access profile. Reason: unexpected header '%s', expected '%s'",
+                    header, AccessProfileRecorder.HEADER));
+        }
+        List<String> result = new ArrayList<>();
+        for (String line = bufferedReader.readLine(); line != null; line = bufferedReader.readLine()) {
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                result.add(line);
+            }
+        }
+        return result;
+    }
+
+    @NotNull
+    private Counts replay(@NotNull List<String> lines, int from, int step, @NotNull ClassLoader loader) {
+        Counts counts = new Counts();
+        for (int i = from; i < lines.size(); i += step) {
+            ProfileEntry entry;
+            try {
+                entry = ProfileEntry.parse(lines.get(i), loader);
+            } catch (IllegalArgumentException e) {
+                counts.failures++;
+                continue;
+            }
+
+            Type base = entry.getBase();
+            Type target = entry.getTarget();
+            try {
+                if (entry.getKind() == ProfileEntry.MATCH) {
+                    counts.matches++;
+                    matcher.match(base, target, entry.getArgument() != 0);
+                } else {
+                    counts.resolutions++;
+                    resolver.resolve(base, target, entry.getArgument());
+                }
+            } catch (IllegalArgumentException e) {
+                counts.failures++;
+            }
+        }
+        return counts;
+    }
+
+    private static class Counts {
+
+        int resolutions;
+        int matches;
+        int failures;
+
+        void add(@NotNull Counts other) {
+            resolutions += other.resolutions;
+            matches += other.matches;
+            failures += other.failures;
+        }
+    }
+}
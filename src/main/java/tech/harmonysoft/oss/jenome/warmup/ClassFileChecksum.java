@@ -0,0 +1,147 @@
+package tech.harmonysoft.oss.jenome.warmup;
+
+import org.jetbrains.annotations.NotNull;
+import tech.harmonysoft.oss.jenome.resolve.util.ReflectionCache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.*;
+import java.util.zip.CRC32;
+
+/**
+ * <p>
+ *      Calculates checksums of class files. Checksum of a class covers its class file and checksums of all its
+ *      supertypes, i.e. it changes if the class or any of its supertypes changes.
+ * </p>
+ * <p>
+ *      Classes loaded by the bootstrap class loader are not read, their checksum is derived from the class name
+ *      and JVM version.
+ * </p>
+ * <p>Thread-safe.</p>
+ */
+class ClassFileChecksum {
+
+    /** Means that a checksum can't be calculated, e.g. because the class is generated at runtime. */
+    static final long UNAVAILABLE = 0;
+
+    private static final long   MULTIPLIER  = 0x9E3779B97F4A7C15L;
+    private static final String JVM_VERSION = System.getProperty("java.vm.version", "")
+                                              + System.getProperty("java.version", "");
+
+    /** Doesn't prevent classes unloading, checksums hold no references to the classes. */
+    private static final ClassValue<Long> CHECKSUMS = new ClassValue<Long>() {
+        @Override
+        protected Long computeValue(Class<?> type) {
+            return calculate(type);
+        }
+    };
+
+    private ClassFileChecksum() {
+    }
+
+    /**
+     * @param types     target types
+     * @return          combined checksum of all classes referenced from the given types;
+     *                  {@link #UNAVAILABLE} if it can't be calculated for any of them
+     */
+    static long of(@NotNull Type... types) {
+        long result = 1;
+        for (Type type : types) {
+            result = combine(result, ofType(type));
+            if (result == UNAVAILABLE) {
+                return UNAVAILABLE;
+            }
+        }
+        return result;
+    }
+
+    private static long ofType(@NotNull Type type) {
+        if (type instanceof Class) {
+            Class<?> clazz = (Class<?>) type;
+            while (clazz.isArray()) {
+                clazz = clazz.getComponentType();
+            }
+            return CHECKSUMS.get(clazz);
+        }
+        if (type instanceof ParameterizedType) {
+            ParameterizedType parameterizedType = (ParameterizedType) type;
+            long result = ofType(parameterizedType.getRawType());
+            for (Type argument : ReflectionCache.getActualTypeArguments(parameterizedType)) {
+                result = combine(result, ofType(argument));
+            }
+            return result;
+        }
+        if (type instanceof WildcardType) {
+            WildcardType wildcardType = (WildcardType) type;
+            long result = 1;
+            for (Type bound : ReflectionCache.getUpperBounds(wildcardType)) {
+                result = combine(result, ofType(bound));
+            }
+            for (Type bound : ReflectionCache.getLowerBounds(wildcardType)) {
+                result = combine(result, ofType(bound));
+            }
+            return result;
+        }
+        if (type instanceof GenericArrayType) {
+            return ofType(((GenericArrayType) type).getGenericComponentType());
+        }
+        if (type instanceof TypeVariable) {
+            GenericDeclaration declaration = ((TypeVariable<?>) type).getGenericDeclaration();
+            return declaration instanceof Class ? CHECKSUMS.get((Class<?>) declaration) : UNAVAILABLE;
+        }
+        return UNAVAILABLE;
+    }
+
+    private static long calculate(@NotNull Class<?> clazz) {
+        long result;
+        if (clazz.isPrimitive()) {
+            return clazz.getName().hashCode();
+        }
+        if (clazz.getClassLoader() == null) {
+            result = (clazz.getName() + JVM_VERSION).hashCode();
+        } else {
+            result = readClassFile(clazz);
+            if (result == UNAVAILABLE) {
+                return UNAVAILABLE;
+            }
+        }
+
+        Class<?> superclass = clazz.getSuperclass();
+        if (superclass != null) {
+            result = combine(result, CHECKSUMS.get(superclass));
+        }
+        for (Class<?> anInterface : ReflectionCache.getInterfaces(clazz)) {
+            result = combine(result, CHECKSUMS.get(anInterface));
+        }
+        return result;
+    }
+
+    private static long readClassFile(@NotNull Class<?> clazz) {
+        String name = clazz.getName();
+        String resource = name.substring(name.lastIndexOf('.') + 1) + ".class";
+        try (InputStream in = clazz.getResourceAsStream(resource)) {
+            if (in == null) {
+                return UNAVAILABLE;
+            }
+            CRC32 crc = new CRC32();
+            byte[] buffer = new byte[8192];
+            long length = 0;
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                crc.update(buffer, 0, read);
+                length += read;
+            }
+            return (length << 32) | crc.getValue();
+        } catch (IOException e) {
+            return UNAVAILABLE;
+        }
+    }
+
+    private static long combine(long current, long next) {
+        if (current == UNAVAILABLE || next == UNAVAILABLE) {
+            return UNAVAILABLE;
+        }
+        long result = (current ^ next) * MULTIPLIER;
+        result ^= result >>> 29;
+        return result == UNAVAILABLE ? 1 : result;
+    }
+}
@@ -0,0 +1,178 @@
+package tech.harmonysoft.oss.jenome.warmup;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import tech.harmonysoft.oss.jenome.match.impl.CompositeTypeComplianceMatcher;
+import tech.harmonysoft.oss.jenome.resolve.impl.DefaultTypeArgumentResolver;
+import tech.harmonysoft.oss.jenome.resolve.util.JenomeResolveUtil;
+import tech.harmonysoft.oss.jenome.resolve.util.ReflectionCache;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * <p>
+ *      Pre-computes type argument resolutions and compliance checks for the given types, so, that the
+ *      results are already cached when real requests come. Is assumed to be called on application startup, e.g.:
+ * </p>
+ * <pre>
+ *     WarmupReport report = new JenomeWarmup().run(handlerClasses, Collections.singleton(Handler.class));
+ *     log.info("Jenome {}", report);
+ * </pre>
+ * <p>
+ *      Every target type is processed by a separate task, i.e. the work is spread across all threads of the
+ *      given executor ({@link ForkJoinPool#commonPool()} by default). Any {@link ExecutorService} can be used,
+ *      e.g. a virtual-thread-per-task executor on Java 21+.
+ * </p>
+ * <p>Thread-safe.</p>
+ */
+public class JenomeWarmup {
+
+    @NotNull private final DefaultTypeArgumentResolver    resolver;
+    @NotNull private final CompositeTypeComplianceMatcher matcher;
+
+    public JenomeWarmup() {
+        this(DefaultTypeArgumentResolver.INSTANCE, CompositeTypeComplianceMatcher.INSTANCE);
+    }
+
+    public JenomeWarmup(@NotNull DefaultTypeArgumentResolver resolver,
+                        @NotNull CompositeTypeComplianceMatcher matcher)
+    {
+        this.resolver = resolver;
+        this.matcher = matcher;
+    }
+
+    /**
+     * Delegates to {@link #run(Collection, Collection, ExecutorService)} using {@link ForkJoinPool#commonPool()}.
+     *
+     * @param targets   types to warm up, e.g. handler classes
+     * @param bases     base types to check the targets against, e.g. handler interfaces
+     * @return          warm-up statistics
+     */
+    @NotNull
+    public WarmupReport run(@NotNull Collection<? extends Type> targets, @NotNull Collection<? extends Type> bases) {
+        return run(targets, bases, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * <p>Performs the following for every given target type:</p>
+     * <ul>
+     *     <li>checks if it {@link CompositeTypeComplianceMatcher#match(Type, Type) matches} every given base type;</li>
+     *     <li>
+     *          {@link DefaultTypeArgumentResolver#resolve(Type, Type, int) resolves} all type arguments of every
+     *          given base type which raw class is a supertype of the target's raw class;
+     *     </li>
+     *     <li>{@link JenomeResolveUtil#getTypeArgument(Class) calculates} its type argument if it's a class;</li>
+     * </ul>
+     * <p>Returns when all the work is done.</p>
+     *
+     * @param targets   types to warm up, e.g. handler classes
+     * @param bases     base types to check the targets against, e.g. handler interfaces
+     * @param executor  executor to use
+     * @return          warm-up statistics
+     * @throws IllegalStateException    if current thread is interrupted during warm-up or warm-up task fails
+     *                                  unexpectedly
+     */
+    @NotNull
+    public WarmupReport run(@NotNull Collection<? extends Type> targets,
+                            @NotNull Collection<? extends Type> bases,
+                            @NotNull ExecutorService executor) throws IllegalStateException
+    {
+        long startNanos = System.nanoTime();
+        int cacheSizeBefore = getCacheSize();
+
+        List<Callable<Counts>> tasks = new ArrayList<>(targets.size());
+        for (Type target : targets) {
+            tasks.add(() -> warmUp(target, bases));
+        }
+
+        Counts total = new Counts();
+        try {
+            for (Future<Counts> future : executor.invokeAll(tasks)) {
+                total.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Jenome warm-up is interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Unexpected exception during jenome warm-up", e.getCause());
+        }
+
+        return new WarmupReport(Duration.ofNanos(System.nanoTime() - startNanos),
+                                targets.size(),
+                                total.resolutions,
+                                total.matches,
+                                total.failures,
+                                Math.max(0, getCacheSize() - cacheSizeBefore));
+    }
+
+    @NotNull
+    private Counts warmUp(@NotNull Type target, @NotNull Collection<? extends Type> bases) {
+        Counts counts = new Counts();
+        Class<?> rawTarget = getRawClass(target);
+        for (Type base : bases) {
+            matcher.match(base, target);
+            counts.matches++;
+
+            Class<?> rawBase = getRawClass(base);
+            if (rawBase == null || rawTarget == null || !rawBase.isAssignableFrom(rawTarget)) {
+                continue;
+            }
+            int typeParametersNumber = ReflectionCache.getTypeParameters(rawBase).length;
+            for (int i = 0; i < typeParametersNumber; ++i) {
+                counts.resolutions++;
+                try {
+                    resolver.resolve(rawBase, target, i);
+                } catch (IllegalArgumentException e) {
+                    counts.failures++;
+                }
+            }
+        }
+
+        if (target instanceof Class) {
+            try {
+                JenomeResolveUtil.getTypeArgument((Class<?>) target);
+            } catch (IllegalArgumentException ignore) {
+                // Most classes don't have a single type argument, that's not a warm-up failure.
+            }
+        }
+        return counts;
+    }
+
+    private int getCacheSize() {
+        return resolver.getCacheSize() + matcher.getCacheSize();
+    }
+
+    @Nullable
+    private static Class<?> getRawClass(@NotNull Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        }
+        if (type instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        }
+        return null;
+    }
+
+    private static class Counts {
+
+        int resolutions;
+        int matches;
+        int failures;
+
+        void add(@NotNull Counts other) {
+            resolutions += other.resolutions;
+            matches += other.matches;
+            failures += other.failures;
+        }
+    }
+}
@@ -0,0 +1,548 @@
+package tech.harmonysoft.oss.jenome.warmup;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import tech.harmonysoft.oss.jenome.match.MatchListener;
+import tech.harmonysoft.oss.jenome.match.impl.CompositeTypeComplianceMatcher;
+import tech.harmonysoft.oss.jenome.resolve.CacheOutcome;
+import tech.harmonysoft.oss.jenome.resolve.ResolutionListener;
+import tech.harmonysoft.oss.jenome.resolve.TypeArgumentResolver;
+import tech.harmonysoft.oss.jenome.resolve.impl.DefaultTypeArgumentResolver;
+import tech.harmonysoft.oss.jenome.resolve.util.TypeDispatcher;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>
+ *      Opt-in on-disk storage for type argument resolution and compliance check results. It allows to skip
+ *      reflective resolution on restart, e.g. for plugin classes which are not known at build time:
+ * </p>
+ * <pre>
+ *     PersistentResultCache cache = new PersistentResultCache();
+ *     cache.load(cacheFile);
+ *     cache.preload(applicationClassLoader);
+ *     cache.attach();
+ *     ...
+ *     // when a plugin is loaded
+ *     cache.preload(pluginClassLoader);
+ *     ...
+ *     // on shutdown
+ *     cache.write(cacheFile);
+ * </pre>
+ * <p>
+ *      Every stored result is accompanied by a {@link ClassFileChecksum checksum} of all classes it references
+ *      (including their supertypes). Results which checksum doesn't match the currently loaded classes are
+ *      dropped on {@link #preload(ClassLoader) preload}, i.e. changed classes are invalidated automatically.
+ *      Results which reference classes unavailable to the given class loader are kept until they are preloaded
+ *      via another class loader or written back as-is.
+ * </p>
+ * <p>
+ *      Every stored result also records a fingerprint of the configuration it's calculated with, e.g.
+ *      {@link DefaultTypeArgumentResolver#setDeepSubstitution(boolean) deep substitution} mode or custom
+ *      {@link DefaultTypeArgumentResolver#setTypeDispatcher(TypeDispatcher) type dispatcher}. Results calculated
+ *      with a configuration different from the current one are dropped on {@link #preload(ClassLoader) preload}.
+ * </p>
+ * <p>
+ *      Only top-level resolutions and checks are stored - nested ones are performed anyway when a top-level
+ *      result is not found at the cache. Results calculated by the current process are kept as-is and are
+ *      converted to their textual form (with checksums calculation) only on {@link #write(Writer) write}, so,
+ *      storing is cheap but the types stay referenced until the next write. Loaded results are kept in their
+ *      textual form, so, they don't prevent classes unloading. Results for the types without textual form
+ *      (e.g. type variables declared by methods) and for the classes without class files (e.g. generated at
+ *      runtime) are not written.
+ * </p>
+ * <p>Thread-safe.</p>
+ */
+public class PersistentResultCache implements ResolutionListener, MatchListener {
+
+    /** The first line of every cache file. */
+    static final String HEADER = "# jenome result cache v2";
+
+    /** The first line of the cache files which don't record configuration fingerprints, they are ignored. */
+    private static final String LEGACY_HEADER = "# jenome result cache v1";
+
+    private static final String RAW_TYPE  = "!raw";
+    private static final char   SEPARATOR = '\t';
+
+    /** Holds entry lines by their keys (entry line without checksum and result). */
+    @NotNull private final ConcurrentMap<String, Entry>   entries = new ConcurrentHashMap<>();
+
+    /** Holds results calculated by the current process which are not converted to entries yet. */
+    @NotNull private final Set<PendingEntry> pending = ConcurrentHashMap.newKeySet();
+
+    /** Number of resolutions and checks reported to the current cache which are in progress at the current thread. */
+    @NotNull private final ThreadLocal<int[]> callDepth = ThreadLocal.withInitial(() -> new int[1]);
+
+    @NotNull private final AtomicReference<Fingerprint> resolutionFingerprint = new AtomicReference<>();
+    @NotNull private final AtomicReference<Fingerprint> matchFingerprint      = new AtomicReference<>();
+
+    @NotNull private final DefaultTypeArgumentResolver    resolver;
+    @NotNull private final CompositeTypeComplianceMatcher matcher;
+
+    public PersistentResultCache() {
+        this(DefaultTypeArgumentResolver.INSTANCE, CompositeTypeComplianceMatcher.INSTANCE);
+    }
+
+    public PersistentResultCache(@NotNull DefaultTypeArgumentResolver resolver,
+                                 @NotNull CompositeTypeComplianceMatcher matcher)
+    {
+        this.resolver = resolver;
+        this.matcher = matcher;
+    }
+
+    /**
+     * Starts storing results calculated by the resolver and matcher given to the constructor.
+     */
+    public void attach() {
+        resolver.addListener(this);
+        matcher.addListener(this);
+    }
+
+    /**
+     * Stops storing results calculated by the resolver and matcher given to the constructor.
+     */
+    public void detach() {
+        resolver.removeListener(this);
+        matcher.removeListener(this);
+    }
+
+    /**
+     * @return      number of stored results
+     */
+    public int size() {
+        flush();
+        return entries.size();
+    }
+
+    /**
+     * Reads results from the given file, does nothing if it doesn't exist.
+     *
+     * @param file      cache file
+     * @return          number of read results
+     * @throws IOException      in case of a problem on reading the given file
+     */
+    public int load(@NotNull Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return load(reader);
+        }
+    }
+
+    /**
+     * Reads results from the given reader. Results are not checked and not applied until
+     * {@link #preload(ClassLoader)} is called.
+     *
+     * @param reader    cache content
+     * @return          number of read results
+     * @throws IOException                  in case of a problem on reading the given reader
+     * @throws IllegalArgumentException     if given content is not a jenome result cache
+     */
+    public int load(@NotNull Reader reader) throws IOException, IllegalArgumentException {
+        BufferedReader bufferedReader = reader instanceof BufferedReader ? (BufferedReader) reader
+                                                                         : new BufferedReader(reader);
+        String header = bufferedReader.readLine();
+        if (LEGACY_HEADER.equals(header)) {
+            // Configuration which legacy results are calculated with is unknown.
+            return 0;
+        }
+        if (header != null && !HEADER.equals(header)) {
+            throw new IllegalArgumentException(String.format(
+                    "Can't load jenome result cache. Reason: unexpected header '%s', expected '%s'",
+                    header, HEADER));
+        }
+        int result = 0;
+        for (String line = bufferedReader.readLine(); line != null; line = bufferedReader.readLine()) {
+            Entry entry = Entry.parse(line);
+            if (entry != null) {
+                entries.putIfAbsent(entry.key, entry);
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * <p>
+     *      Puts all loaded results which reference only classes available to the given class loader to the
+     *      resolver and matcher caches. Results which are calculated for outdated classes or with a configuration
+     *      different from the current one are dropped.
+     * </p>
+     * <p>Is assumed to be called on startup and every time a new class loader (e.g. a plugin) appears.</p>
+     *
+     * @param loader    class loader to use for loading classes referenced from the results
+     * @return          number of applied results
+     */
+    public int preload(@NotNull ClassLoader loader) {
+        String resolutionConfiguration = getConfigurationFingerprint(resolver, resolutionFingerprint);
+        String matchConfiguration = getConfigurationFingerprint(matcher.getTypeArgumentResolver(), matchFingerprint);
+        int result = 0;
+        for (Iterator<Entry> iterator = entries.values().iterator(); iterator.hasNext(); ) {
+            Entry entry = iterator.next();
+            if (entry.applied) {
+                continue;
+            }
+            switch (entry.apply(loader, resolver, matcher, resolutionConfiguration, matchConfiguration)) {
+                case APPLIED:
+                    result++;
+                    break;
+                case OUTDATED:
+                    iterator.remove();
+                    break;
+                default:
+                    // Referenced classes are not available to the given class loader, keep the entry.
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes all stored results to the given file, the file is replaced atomically.
+     *
+     * @param file      target file
+     * @return          number of written results
+     * @throws IOException      in case of a problem on writing to the given file
+     */
+    public int write(@NotNull Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            int result;
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                result = write(writer);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return result;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Writes all stored results to the given writer.
+     *
+     * @param writer    target writer
+     * @return          number of written results
+     * @throws IOException      in case of a problem on writing to the given writer
+     */
+    public int write(@NotNull Writer writer) throws IOException {
+        BufferedWriter bufferedWriter = writer instanceof BufferedWriter ? (BufferedWriter) writer
+                                                                         : new BufferedWriter(writer);
+        bufferedWriter.write(HEADER);
+        bufferedWriter.newLine();
+        flush();
+        int result = 0;
+        for (Entry entry : entries.values()) {
+            bufferedWriter.write(entry.line);
+            bufferedWriter.newLine();
+            result++;
+        }
+        bufferedWriter.flush();
+        return result;
+    }
+
+    @Nullable
+    @Override
+    public Object onResolveStart(@NotNull Type base, @NotNull Type target, int index) {
+        callDepth.get()[0]++;
+        return null;
+    }
+
+    @Override
+    public void onResolveEnd(@NotNull Type base,
+                             @NotNull Type target,
+                             int index,
+                             @Nullable Type result,
+                             @NotNull CacheOutcome outcome,
+                             @Nullable Object token)
+    {
+        // Only newly calculated top-level results are stored, the other ones are already stored or
+        // are not cacheable.
+        if (--callDepth.get()[0] == 0 && result != null && outcome == CacheOutcome.MISS) {
+            pending.add(new PendingEntry(ProfileEntry.RESOLUTION, base, target, index,
+                                         getConfigurationFingerprint(resolver, resolutionFingerprint), result));
+        }
+    }
+
+    @Nullable
+    @Override
+    public Object onMatchStart(@NotNull Type base, @NotNull Type candidate, boolean strict, int depth) {
+        if (depth == 0) {
+            // Resolutions performed during the check are nested ones.
+            callDepth.get()[0]++;
+        }
+        return null;
+    }
+
+    @Override
+    public void onMatchEnd(@NotNull Type base,
+                           @NotNull Type candidate,
+                           boolean strict,
+                           int depth,
+                           @Nullable Boolean result,
+                           @NotNull CacheOutcome outcome,
+                           @Nullable Object token)
+    {
+        if (depth == 0 && --callDepth.get()[0] == 0 && result != null && outcome == CacheOutcome.MISS) {
+            pending.add(new PendingEntry(ProfileEntry.MATCH, base, candidate, strict ? 1 : 0,
+                                         getConfigurationFingerprint(matcher.getTypeArgumentResolver(),
+                                                                     matchFingerprint),
+                                         result));
+        }
+    }
+
+    /**
+     * @param resolver      target resolver
+     * @param cached        holder of the fingerprint calculated for the given resolver before
+     * @return              {@link #getConfigurationFingerprint(TypeArgumentResolver) fingerprint} of the given
+     *                      resolver's configuration, it's recalculated only when the resolver's
+     *                      {@link TypeArgumentResolver#getConfigurationGeneration() configuration} changes
+     */
+    @NotNull
+    private static String getConfigurationFingerprint(@NotNull TypeArgumentResolver resolver,
+                                                      @NotNull AtomicReference<Fingerprint> cached)
+    {
+        int generation = resolver.getConfigurationGeneration();
+        Fingerprint fingerprint = cached.get();
+        if (fingerprint == null || fingerprint.resolver != resolver || fingerprint.generation != generation) {
+            fingerprint = new Fingerprint(resolver, generation, getConfigurationFingerprint(resolver));
+            if (resolver.getConfigurationGeneration() == generation) {
+                // Don't remember a fingerprint which might be calculated for a newer configuration.
+                cached.set(fingerprint);
+            }
+        }
+        return fingerprint.value;
+    }
+
+    /**
+     * @param resolver      target resolver
+     * @return              short textual form of the given resolver's configuration, it's the same for the
+     *                      resolvers which calculate the same results
+     */
+    @NotNull
+    static String getConfigurationFingerprint(@NotNull TypeArgumentResolver resolver) {
+        String description;
+        if (resolver instanceof DefaultTypeArgumentResolver) {
+            DefaultTypeArgumentResolver defaultResolver = (DefaultTypeArgumentResolver) resolver;
+            description = defaultResolver.getTypeDispatcher().getClass().getName() + SEPARATOR
+                          + defaultResolver.getTypeSubstitutor().getClass().getName() + SEPARATOR
+                          + defaultResolver.isDeepSubstitution();
+        } else {
+            description = resolver.getClass().getName();
+        }
+        return Integer.toHexString(description.hashCode());
+    }
+
+    /**
+     * Converts all {@link #pending} results to entries.
+     */
+    private void flush() {
+        for (Iterator<PendingEntry> iterator = pending.iterator(); iterator.hasNext(); ) {
+            PendingEntry entry = iterator.next();
+            Entry converted = entry.convert();
+            if (converted != null) {
+                // The result is calculated by the current process, so, it's already in the resolver/matcher cache.
+                entries.put(converted.key, converted);
+            }
+            iterator.remove();
+        }
+    }
+
+    private enum ApplyResult {
+        APPLIED, OUTDATED, UNAVAILABLE
+    }
+
+    /** Configuration fingerprint calculated for a particular resolver's configuration generation. */
+    private static class Fingerprint {
+
+        @NotNull private final TypeArgumentResolver resolver;
+        private final          int                  generation;
+        @NotNull private final String               value;
+
+        Fingerprint(@NotNull TypeArgumentResolver resolver, int generation, @NotNull String value) {
+            this.resolver = resolver;
+            this.generation = generation;
+            this.value = value;
+        }
+    }
+
+    /** Result calculated by the current process which is converted to an {@link Entry} on write. */
+    private static class PendingEntry {
+
+        private final          char   kind;
+        @NotNull private final Type   base;
+        @NotNull private final Type   target;
+        private final          int    argument;
+        @NotNull private final String configuration;
+        @NotNull private final Object result;
+        private final          int    hashCode;
+
+        /**
+         * @param argument      type argument index or {@code 'strict'} flag ({@code 1} or {@code 0})
+         * @param result        resolved type argument or match result
+         */
+        PendingEntry(char kind,
+                     @NotNull Type base,
+                     @NotNull Type target,
+                     int argument,
+                     @NotNull String configuration,
+                     @NotNull Object result)
+        {
+            this.kind = kind;
+            this.base = base;
+            this.target = target;
+            this.argument = argument;
+            this.configuration = configuration;
+            this.result = result;
+            hashCode = 31 * (31 * (31 * base.hashCode() + target.hashCode()) + argument) + kind;
+        }
+
+        @Nullable
+        Entry convert() {
+            String encodedResult;
+            long checksum;
+            if (kind == ProfileEntry.MATCH) {
+                encodedResult = result.toString();
+                checksum = ClassFileChecksum.of(base, target);
+            } else if (result == TypeArgumentResolver.RAW_TYPE) {
+                encodedResult = RAW_TYPE;
+                checksum = ClassFileChecksum.of(base, target);
+            } else {
+                encodedResult = TypeCodec.encode((Type) result);
+                checksum = ClassFileChecksum.of(base, target, (Type) result);
+            }
+            if (encodedResult == null || checksum == ClassFileChecksum.UNAVAILABLE) {
+                return null;
+            }
+            String encodedBase = TypeCodec.encode(base);
+            String encodedTarget = TypeCodec.encode(target);
+            if (encodedBase == null || encodedTarget == null) {
+                return null;
+            }
+            String encodedArgument = kind == ProfileEntry.MATCH ? String.valueOf(argument != 0)
+                                                                : String.valueOf(argument);
+            String key = String.valueOf(kind) + SEPARATOR + encodedBase + SEPARATOR + encodedTarget + SEPARATOR
+                         + encodedArgument + SEPARATOR + configuration;
+            return new Entry(key, key + SEPARATOR + encodedResult + SEPARATOR + Long.toHexString(checksum), true);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof PendingEntry)) {
+                return false;
+            }
+            PendingEntry that = (PendingEntry) o;
+            return hashCode == that.hashCode && kind == that.kind && argument == that.argument
+                   && base.equals(that.base) && target.equals(that.target)
+                   && configuration.equals(that.configuration);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * Textual entry form is a tab-separated line: kind ({@code R} or {@code M}), {@link TypeCodec encoded}
+     * {@code 'base'} and {@code 'target'} types, type argument index or {@code 'strict'} flag, configuration
+     * fingerprint, result and checksum.
+     */
+    private static class Entry {
+
+        @NotNull private final String  key;
+        @NotNull private final String  line;
+        private volatile       boolean applied;
+
+        Entry(@NotNull String key, @NotNull String line, boolean applied) {
+            this.key = key;
+            this.line = line;
+            this.applied = applied;
+        }
+
+        @Nullable
+        static Entry parse(@NotNull String line) {
+            if (line.isEmpty() || line.startsWith("#")) {
+                return null;
+            }
+            int checksumStart = line.lastIndexOf(SEPARATOR);
+            int resultStart = checksumStart <= 0 ? -1 : line.lastIndexOf(SEPARATOR, checksumStart - 1);
+            if (resultStart <= 0) {
+                return null;
+            }
+            return new Entry(line.substring(0, resultStart), line, false);
+        }
+
+        @NotNull
+        ApplyResult apply(@NotNull ClassLoader loader,
+                          @NotNull DefaultTypeArgumentResolver resolver,
+                          @NotNull CompositeTypeComplianceMatcher matcher,
+                          @NotNull String resolutionConfiguration,
+                          @NotNull String matchConfiguration)
+        {
+            String[] parts = line.split(String.valueOf(SEPARATOR));
+            if (parts.length != 7 || parts[0].length() != 1) {
+                return ApplyResult.OUTDATED;
+            }
+            String configuration = parts[0].charAt(0) == ProfileEntry.RESOLUTION ? resolutionConfiguration
+                                                                                  : matchConfiguration;
+            if (!configuration.equals(parts[4])) {
+                return ApplyResult.OUTDATED;
+            }
+            Type base;
+            Type target;
+            Type result = null;
+            try {
+                base = TypeCodec.decode(parts[1], loader);
+                target = TypeCodec.decode(parts[2], loader);
+                if (parts[0].charAt(0) == ProfileEntry.RESOLUTION && !RAW_TYPE.equals(parts[5])) {
+                    result = TypeCodec.decode(parts[5], loader);
+                }
+            } catch (IllegalArgumentException e) {
+                // Missing class means that it might be available to another class loader, other problems mean
+                // that the class has changed, e.g. a type variable has been renamed.
+                return e.getCause() instanceof ClassNotFoundException || e.getCause() instanceof NoClassDefFoundError
+                       ? ApplyResult.UNAVAILABLE : ApplyResult.OUTDATED;
+            }
+
+            long checksum = result == null ? ClassFileChecksum.of(base, target)
+                                           : ClassFileChecksum.of(base, target, result);
+            if (checksum == ClassFileChecksum.UNAVAILABLE || !Long.toHexString(checksum).equals(parts[6])) {
+                return ApplyResult.OUTDATED;
+            }
+
+            try {
+                if (parts[0].charAt(0) == ProfileEntry.RESOLUTION) {
+                    resolver.preload(base, target, Integer.parseInt(parts[3]),
+                                     result == null ? TypeArgumentResolver.RAW_TYPE : result);
+                } else if (parts[0].charAt(0) == ProfileEntry.MATCH) {
+                    matcher.preload(base, target, Boolean.parseBoolean(parts[3]), Boolean.parseBoolean(parts[5]));
+                } else {
+                    return ApplyResult.OUTDATED;
+                }
+            } catch (NumberFormatException e) {
+                return ApplyResult.OUTDATED;
+            }
+            applied = true;
+            return ApplyResult.APPLIED;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package tech.harmonysoft.oss.jenome.warmup;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Type;
+
+/**
+ * <p>A single access profile record - either type argument resolution or compliance check.</p>
+ * <p>
+ *      Textual form is a tab-separated line: kind ({@code R} or {@code M}), number of accesses and
+ *      {@link TypeCodec encoded} {@code 'base'} and {@code 'target'} ({@code 'candidate'}) types followed by
+ *      type argument index for resolutions and {@code 'strict'} flag for compliance checks.
+ * </p>
+ * <p>Immutable.</p>
+ */
+class ProfileEntry {
+
+    static final char RESOLUTION = 'R';
+    static final char MATCH      = 'M';
+
+    private static final char SEPARATOR = '\t';
+
+    @NotNull private final Type base;
+    @NotNull private final Type target;
+    private final          char kind;
+    private final          int  argument;
+    private final          int  hashCode;
+
+    ProfileEntry(char kind, @NotNull Type base, @NotNull Type target, int argument) {
+        this.kind = kind;
+        this.base = base;
+        this.target = target;
+        this.argument = argument;
+        hashCode = 31 * (31 * (31 * kind + base.hashCode()) + target.hashCode()) + argument;
+    }
+
+    /**
+     * @param line      textual form of a profile entry
+     * @param loader    class loader to use for loading referenced classes
+     * @return          parsed entry
+     * @throws IllegalArgumentException     if given line is malformed or references types which aren't
+     *                                      available anymore
+     */
+    @NotNull
+    static ProfileEntry parse(@NotNull String line, @NotNull ClassLoader loader) throws IllegalArgumentException {
+        String[] parts = line.split(String.valueOf(SEPARATOR));
+        if (parts.length != 5 || parts[0].length() != 1
+            || (parts[0].charAt(0) != RESOLUTION && parts[0].charAt(0) != MATCH))
+        {
+            throw new IllegalArgumentException(String.format("Malformed access profile entry '%s'", line));
+        }
+        char kind = parts[0].charAt(0);
+        int argument;
+        if (kind == RESOLUTION) {
+            try {
+                argument = Integer.parseInt(parts[4]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(String.format(
+                        "Malformed access profile entry '%s'. Reason: invalid type argument index", line), e);
+            }
+        } else {
+            argument = Boolean.parseBoolean(parts[4]) ? 1 : 0;
+        }
+        return new ProfileEntry(kind, TypeCodec.decode(parts[2], loader), TypeCodec.decode(parts[3], loader), argument);
+    }
+
+    /**
+     * @param count     number of accesses to the current entry
+     * @return          textual form of the current entry; {@code null} if any of its types can't be
+     *                  {@link TypeCodec#encode(Type) encoded}
+     */
+    @Nullable
+    String format(long count) {
+        String encodedBase = TypeCodec.encode(base);
+        String encodedTarget = TypeCodec.encode(target);
+        if (encodedBase == null || encodedTarget == null) {
+            return null;
+        }
+        return new StringBuilder().append(kind).append(SEPARATOR)
+                                  .append(count).append(SEPARATOR)
+                                  .append(encodedBase).append(SEPARATOR)
+                                  .append(encodedTarget).append(SEPARATOR)
+                                  .append(kind == RESOLUTION ? String.valueOf(argument) : String.valueOf(argument != 0))
+                                  .toString();
+    }
+
+    char getKind() {
+        return kind;
+    }
+
+    @NotNull
+    Type getBase() {
+        return base;
+    }
+
+    @NotNull
+    Type getTarget() {
+        return target;
+    }
+
+    /**
+     * @return      type argument index for resolutions; {@code 1} for strict compliance checks and {@code 0}
+     *              for non-strict ones
+     */
+    int getArgument() {
+        return argument;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ProfileEntry)) {
+            return false;
+        }
+        ProfileEntry that = (ProfileEntry) o;
+        return hashCode == that.hashCode && kind == that.kind && argument == that.argument && base.equals(that.base)
+               && target.equals(that.target);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+}
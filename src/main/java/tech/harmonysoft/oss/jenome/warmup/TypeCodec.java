@@ -0,0 +1,270 @@
+package tech.harmonysoft.oss.jenome.warmup;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import tech.harmonysoft.oss.jenome.resolve.impl.GenericArrayTypeImpl;
+import tech.harmonysoft.oss.jenome.resolve.impl.ParameterizedTypeImpl;
+import tech.harmonysoft.oss.jenome.resolve.impl.WildcardTypeImpl;
+import tech.harmonysoft.oss.jenome.resolve.util.ReflectionCache;
+
+import java.lang.reflect.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Converts types to their textual form and back. The format is close to the java source form:</p>
+ * <ul>
+ *     <li>class - binary class name, e.g. {@code java.util.Map$Entry}, {@code int};</li>
+ *     <li>array - component type followed by {@code []}, e.g. {@code java.lang.String[]};</li>
+ *     <li>parameterized type - raw class followed by type arguments, e.g. {@code java.util.List<java.lang.Long>};</li>
+ *     <li>wildcard type - {@code ?}, {@code ? extends X} or {@code ? super X};</li>
+ *     <li>
+ *          type variable declared by a class - declaring class and variable name separated by {@code #},
+ *          e.g. {@code java.util.List#E};
+ *     </li>
+ * </ul>
+ * <p>
+ *      Type variables declared by methods and constructors and parameterized types which owner is parameterized
+ *      can't be encoded.
+ * </p>
+ */
+class TypeCodec {
+
+    private static final String EXTENDS = " extends ";
+    private static final String SUPER   = " super ";
+    private static final String ARRAY   = "[]";
+
+    private static final Map<String, Class<?>> PRIMITIVES = new HashMap<>();
+    static {
+        for (Class<?> clazz : new Class<?>[] {
+                boolean.class, byte.class, char.class, short.class, int.class, long.class, float.class,
+                double.class, void.class
+        }) {
+            PRIMITIVES.put(clazz.getName(), clazz);
+        }
+    }
+
+    private TypeCodec() {
+    }
+
+    /**
+     * @param type      type to encode
+     * @return          textual form of the given type; {@code null} if given type can't be encoded
+     */
+    @Nullable
+    static String encode(@NotNull Type type) {
+        StringBuilder buffer = new StringBuilder();
+        return encode(type, buffer) ? buffer.toString() : null;
+    }
+
+    /**
+     * @param text      textual form of a type produced by {@link #encode(Type)}
+     * @param loader    class loader to use for loading referenced classes
+     * @return          decoded type
+     * @throws IllegalArgumentException     if given text is malformed or references a class which can't
+     *                                      be loaded or a type variable which doesn't exist anymore
+     */
+    @NotNull
+    static Type decode(@NotNull String text, @NotNull ClassLoader loader) throws IllegalArgumentException {
+        Parser parser = new Parser(text, loader);
+        Type result = parser.parseType();
+        if (parser.position != text.length()) {
+            throw new IllegalArgumentException(String.format(
+                    "Can't decode type '%s'. Reason: unexpected symbol at position %d", text, parser.position));
+        }
+        return result;
+    }
+
+    private static boolean encode(@NotNull Type type, @NotNull StringBuilder buffer) {
+        if (type instanceof Class) {
+            Class<?> clazz = (Class<?>) type;
+            if (clazz.isArray()) {
+                return encode(clazz.getComponentType(), buffer) && append(buffer, ARRAY);
+            }
+            buffer.append(clazz.getName());
+            return true;
+        }
+
+        if (type instanceof ParameterizedType) {
+            ParameterizedType parameterizedType = (ParameterizedType) type;
+            Class<?> rawType = (Class<?>) parameterizedType.getRawType();
+            Type ownerType = parameterizedType.getOwnerType();
+            if (ownerType != null && ownerType != rawType.getDeclaringClass()) {
+                return false;
+            }
+            buffer.append(rawType.getName()).append('<');
+            Type[] arguments = ReflectionCache.getActualTypeArguments(parameterizedType);
+            for (int i = 0; i < arguments.length; ++i) {
+                if (i > 0) {
+                    buffer.append(',');
+                }
+                if (!encode(arguments[i], buffer)) {
+                    return false;
+                }
+            }
+            buffer.append('>');
+            return true;
+        }
+
+        if (type instanceof WildcardType) {
+            WildcardType wildcardType = (WildcardType) type;
+            Type[] upperBounds = ReflectionCache.getUpperBounds(wildcardType);
+            Type[] lowerBounds = ReflectionCache.getLowerBounds(wildcardType);
+            buffer.append('?');
+            if (lowerBounds.length == 1 && (upperBounds.length == 0 || upperBounds[0] == Object.class)) {
+                return encode(lowerBounds[0], buffer.append(SUPER));
+            }
+            if (lowerBounds.length > 0 || upperBounds.length > 1) {
+                return false;
+            }
+            return upperBounds.length == 0 || upperBounds[0] == Object.class
+                   || encode(upperBounds[0], buffer.append(EXTENDS));
+        }
+
+        if (type instanceof GenericArrayType) {
+            return encode(((GenericArrayType) type).getGenericComponentType(), buffer) && append(buffer, ARRAY);
+        }
+
+        if (type instanceof TypeVariable) {
+            TypeVariable<?> typeVariable = (TypeVariable<?>) type;
+            if (!(typeVariable.getGenericDeclaration() instanceof Class)) {
+                return false;
+            }
+            buffer.append(((Class<?>) typeVariable.getGenericDeclaration()).getName())
+                  .append('#')
+                  .append(typeVariable.getName());
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean append(@NotNull StringBuilder buffer, @NotNull String text) {
+        buffer.append(text);
+        return true;
+    }
+
+    private static class Parser {
+
+        @NotNull private final String      text;
+        @NotNull private final ClassLoader loader;
+        private                int         position;
+
+        Parser(@NotNull String text, @NotNull ClassLoader loader) {
+            this.text = text;
+            this.loader = loader;
+        }
+
+        @NotNull
+        Type parseType() throws IllegalArgumentException {
+            if (text.startsWith("?", position)) {
+                return parseWildcard();
+            }
+
+            String name = parseName();
+            Type result;
+            if (text.startsWith("#", position)) {
+                position++;
+                result = getTypeVariable(loadClass(name), parseName());
+            } else if (text.startsWith("<", position)) {
+                position++;
+                result = parseParameterizedType(loadClass(name));
+            } else {
+                result = loadClass(name);
+            }
+
+            while (text.startsWith(ARRAY, position)) {
+                position += ARRAY.length();
+                if (result instanceof Class) {
+                    result = Array.newInstance((Class<?>) result, 0).getClass();
+                } else {
+                    result = new GenericArrayTypeImpl(result);
+                }
+            }
+            return result;
+        }
+
+        @NotNull
+        private Type parseWildcard() throws IllegalArgumentException {
+            position++;
+            if (text.startsWith(EXTENDS, position)) {
+                position += EXTENDS.length();
+                return new WildcardTypeImpl(new Type[] { parseType() }, new Type[0]);
+            }
+            if (text.startsWith(SUPER, position)) {
+                position += SUPER.length();
+                return new WildcardTypeImpl(new Type[0], new Type[] { parseType() });
+            }
+            return new WildcardTypeImpl(new Type[0], new Type[0]);
+        }
+
+        @NotNull
+        private Type parseParameterizedType(@NotNull Class<?> rawType) throws IllegalArgumentException {
+            List<Type> arguments = new ArrayList<>();
+            while (true) {
+                arguments.add(parseType());
+                if (text.startsWith(">", position)) {
+                    position++;
+                    break;
+                }
+                if (!text.startsWith(",", position)) {
+                    throw new IllegalArgumentException(String.format(
+                            "Can't decode type '%s'. Reason: expected ',' or '>' at position %d", text, position));
+                }
+                position++;
+            }
+
+            int typeParametersNumber = ReflectionCache.getTypeParameters(rawType).length;
+            if (arguments.size() != typeParametersNumber) {
+                throw new IllegalArgumentException(String.format(
+                        "Can't decode type '%s'. Reason: class %s has %d type parameter(s) but %d type argument(s) "
+                        + "are given", text, rawType.getName(), typeParametersNumber, arguments.size()));
+            }
+            return new ParameterizedTypeImpl(rawType,
+                                             arguments.toArray(new Type[arguments.size()]),
+                                             rawType.getDeclaringClass());
+        }
+
+        @NotNull
+        private String parseName() throws IllegalArgumentException {
+            int start = position;
+            while (position < text.length() && "<>,#[".indexOf(text.charAt(position)) < 0) {
+                position++;
+            }
+            if (start == position) {
+                throw new IllegalArgumentException(String.format(
+                        "Can't decode type '%s'. Reason: expected a name at position %d", text, position));
+            }
+            return text.substring(start, position);
+        }
+
+        @NotNull
+        private Class<?> loadClass(@NotNull String name) throws IllegalArgumentException {
+            Class<?> result = PRIMITIVES.get(name);
+            if (result != null) {
+                return result;
+            }
+            try {
+                return Class.forName(name, false, loader);
+            } catch (ClassNotFoundException | LinkageError e) {
+                throw new IllegalArgumentException(String.format(
+                        "Can't decode type '%s'. Reason: class %s can't be loaded (%s)", text, name, e), e);
+            }
+        }
+
+        @NotNull
+        private TypeVariable<?> getTypeVariable(@NotNull Class<?> clazz, @NotNull String name)
+                throws IllegalArgumentException
+        {
+            for (TypeVariable<?> typeVariable : ReflectionCache.getTypeParameters(clazz)) {
+                if (typeVariable.getName().equals(name)) {
+                    return typeVariable;
+                }
+            }
+            throw new IllegalArgumentException(String.format(
+                    "Can't decode type '%s'. Reason: class %s doesn't declare type variable %s",
+                    text, clazz.getName(), name));
+        }
+    }
+}
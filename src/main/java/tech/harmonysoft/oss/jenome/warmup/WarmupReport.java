@@ -0,0 +1,88 @@
+package tech.harmonysoft.oss.jenome.warmup;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+
+/**
+ * <p>
+ *      Holds {@link JenomeWarmup#run(java.util.Collection, java.util.Collection) warm-up} and
+ *      {@link AccessProfileReplayer#replay(java.nio.file.Path) access profile replay} statistics.
+ * </p>
+ * <p>Immutable.</p>
+ */
+public class WarmupReport {
+
+    @NotNull private final Duration duration;
+    private final          int      targets;
+    private final          int      resolutions;
+    private final          int      matches;
+    private final          int      failures;
+    private final          int      entriesProduced;
+
+    public WarmupReport(@NotNull Duration duration,
+                        int targets,
+                        int resolutions,
+                        int matches,
+                        int failures,
+                        int entriesProduced)
+    {
+        this.duration = duration;
+        this.targets = targets;
+        this.resolutions = resolutions;
+        this.matches = matches;
+        this.failures = failures;
+        this.entriesProduced = entriesProduced;
+    }
+
+    /**
+     * @return      wall-clock time spent on warm-up
+     */
+    @NotNull
+    public Duration getDuration() {
+        return duration;
+    }
+
+    /**
+     * @return      number of processed target types (number of processed entries for access profile replay)
+     */
+    public int getTargets() {
+        return targets;
+    }
+
+    /**
+     * @return      number of performed type argument resolutions (including the failed ones)
+     */
+    public int getResolutions() {
+        return resolutions;
+    }
+
+    /**
+     * @return      number of performed compliance checks
+     */
+    public int getMatches() {
+        return matches;
+    }
+
+    /**
+     * @return      number of resolutions which finished by an exception, e.g. because of a type argument
+     *              which can't be resolved, and access profile entries which can't be replayed anymore
+     */
+    public int getFailures() {
+        return failures;
+    }
+
+    /**
+     * @return      number of new cache entries produced by warm-up
+     */
+    public int getEntriesProduced() {
+        return entriesProduced;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("warm-up of %d target(s) took %d ms: %d resolution(s) (%d failed), %d match(es), "
+                             + "%d cache entries produced",
+                             targets, duration.toMillis(), resolutions, failures, matches, entriesProduced);
+    }
+}
@@ -0,0 +1,175 @@
+package tech.harmonysoft.oss.jenome.resolve.util;
+
+import tech.harmonysoft.oss.jenome.resolve.TypeFunction;
+import tech.harmonysoft.oss.jenome.resolve.TypeVisitor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.*;
+
+/**
+ * <p>Allows to dispatch object reference of static type {@link Type} to particular subtype if any.</p>
+ * <p>
+ *      This is java 17+ version of the class which is loaded from {@code META-INF/versions/17} of the
+ *      multi-release jar. It has the same contract as the java 8 version but doesn't run an {@code instanceof}
+ *      chain against {@link Type} sub-interfaces for every call. Instead, a {@link Shape} of every {@link Type}
+ *      implementation class is calculated once and kept at a {@link ClassValue}, dispatching is a lookup and
+ *      a {@code switch} then. That also avoids interface type checks which thrash per-class secondary supers
+ *      cache when the same class is checked against different interfaces.
+ * </p>
+ * <p>This class is not singleton but offers single-point-of-usage field {@link #INSTANCE}.</p>
+ * <p>Thread-safe.</p>
+ */
+public class TypeDispatcher {
+
+    /** 'Single-point-of-usage' field. */
+    public static final TypeDispatcher INSTANCE = new TypeDispatcher();
+
+    /**
+     * Holds shapes of {@link Type} implementation classes. Shapes don't reference the classes, so, they don't
+     * prevent the classes from being unloaded.
+     */
+    private static final ClassValue<Shape> SHAPES = new ClassValue<>() {
+        @Override
+        protected Shape computeValue(Class<?> type) {
+            return Shape.of(type);
+        }
+    };
+
+    /**
+     * <p>Allows to dispatch given {@code 'type'} to the actual type to the given visitor.</p>
+     * <p>
+     *     Note: there is a theoretical possibility that given {@code 'type'} reference corresponds
+     *     to more than one target type defined at {@link TypeVisitor} (e.g. it might implement
+     *     {@link ParameterizedType} and {@link WildcardType} interfaces). All corresponding
+     *     methods are called then (their order is undefined).
+     * </p>
+     * <p>
+     *      The only exception to the rules described above is a {@link TypeVisitor#visitType(Type)} - it's called
+     *      <b>only</b> when given {@code 'type'} object doesn't implement any interested {@link Type}
+     *      sub-interface and it's not IS-A {@link Class}.
+     * </p>
+     * <p>Thread-safe.</p>
+     *
+     * @param type      target {@link Type} object to dispatch
+     * @param visitor   visitor to use for type dispatching
+     */
+    public void dispatch(@NotNull Type type, @NotNull TypeVisitor visitor) {
+        if (type instanceof Class<?> clazz) {
+            visitor.visitClass(clazz);
+            return;
+        }
+        Shape shape = SHAPES.get(type.getClass());
+        if (shape instanceof Single single) {
+            dispatch(single.kind(), type, visitor);
+        } else if (shape instanceof Multiple multiple) {
+            for (Kind kind : multiple.kinds()) {
+                dispatch(kind, type, visitor);
+            }
+        }
+    }
+
+    /**
+     * <p>Allows to dispatch given {@code 'type'} to the actual type to the given function.</p>
+     * <p>
+     *      Unlike {@link #dispatch(Type, TypeVisitor)}, exactly one function method is called. If given
+     *      {@code 'type'} implements more than one {@link Type} sub-interface, the first of
+     *      {@link ParameterizedType}, {@link WildcardType}, {@link GenericArrayType} and {@link TypeVariable}
+     *      is used. {@link TypeFunction#visitType(Type, Object)} is called only when given {@code 'type'} doesn't
+     *      implement any of them and it's not IS-A {@link Class}.
+     * </p>
+     * <p>Thread-safe.</p>
+     *
+     * @param type          target {@link Type} object to dispatch
+     * @param function      function to apply
+     * @param parameter     parameter to give to the function
+     * @param <P>           parameter type
+     * @param <R>           result type
+     * @return              function result
+     */
+    @Nullable
+    public <P, R> R apply(@NotNull Type type, @NotNull TypeFunction<P, R> function, @Nullable P parameter) {
+        if (type instanceof Class<?> clazz) {
+            return function.visitClass(clazz, parameter);
+        }
+        Shape shape = SHAPES.get(type.getClass());
+        Kind kind = shape instanceof Single single ? single.kind() : ((Multiple) shape).kinds()[0];
+        return switch (kind) {
+            case PARAMETERIZED_TYPE -> function.visitParameterizedType((ParameterizedType) type, parameter);
+            case WILDCARD_TYPE -> function.visitWildcardType((WildcardType) type, parameter);
+            case GENERIC_ARRAY_TYPE -> function.visitGenericArrayType((GenericArrayType) type, parameter);
+            case TYPE_VARIABLE -> function.visitTypeVariable((TypeVariable<?>) type, parameter);
+            case OTHER -> function.visitType(type, parameter);
+        };
+    }
+
+    private static void dispatch(@NotNull Kind kind, @NotNull Type type, @NotNull TypeVisitor visitor) {
+        switch (kind) {
+            case PARAMETERIZED_TYPE -> visitor.visitParameterizedType((ParameterizedType) type);
+            case WILDCARD_TYPE -> visitor.visitWildcardType((WildcardType) type);
+            case GENERIC_ARRAY_TYPE -> visitor.visitGenericArrayType((GenericArrayType) type);
+            case TYPE_VARIABLE -> visitor.visitTypeVariable((TypeVariable<?>) type);
+            case OTHER -> visitor.visitType(type);
+        }
+    }
+
+    /** {@link Type} sub-interfaces known to the dispatcher, in order of precedence. */
+    private enum Kind {
+        PARAMETERIZED_TYPE(ParameterizedType.class),
+        WILDCARD_TYPE(WildcardType.class),
+        GENERIC_ARRAY_TYPE(GenericArrayType.class),
+        TYPE_VARIABLE(TypeVariable.class),
+        OTHER(Type.class);
+
+        @NotNull private final Class<?> typeInterface;
+
+        Kind(@NotNull Class<?> typeInterface) {
+            this.typeInterface = typeInterface;
+        }
+    }
+
+    /** Describes which {@link Type} sub-interfaces are implemented by a {@link Type} implementation class. */
+    private sealed interface Shape permits Single, Multiple {
+
+        @NotNull
+        static Shape of(@NotNull Class<?> typeClass) {
+            Kind[] kinds = new Kind[Kind.values().length];
+            int size = 0;
+            for (Kind kind : Kind.values()) {
+                if (kind != Kind.OTHER && kind.typeInterface.isAssignableFrom(typeClass)) {
+                    kinds[size++] = kind;
+                }
+            }
+            if (size == 0) {
+                return Single.of(Kind.OTHER);
+            }
+            if (size == 1) {
+                return Single.of(kinds[0]);
+            }
+            Kind[] result = new Kind[size];
+            System.arraycopy(kinds, 0, result, 0, size);
+            return new Multiple(result);
+        }
+    }
+
+    /** Shape of the classes which implement single {@link Type} sub-interface or none of them. */
+    private record Single(@NotNull Kind kind) implements Shape {
+
+        private static final Single[] VALUES = new Single[Kind.values().length];
+
+        static {
+            for (Kind kind : Kind.values()) {
+                VALUES[kind.ordinal()] = new Single(kind);
+            }
+        }
+
+        @NotNull
+        static Single of(@NotNull Kind kind) {
+            return VALUES[kind.ordinal()];
+        }
+    }
+
+    /** Shape of the classes which implement more than one {@link Type} sub-interface, kinds are in precedence order. */
+    private record Multiple(@NotNull Kind[] kinds) implements Shape {
+    }
+}
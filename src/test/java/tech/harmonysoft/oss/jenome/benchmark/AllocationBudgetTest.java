@@ -0,0 +1,122 @@
+package tech.harmonysoft.oss.jenome.benchmark;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tech.harmonysoft.oss.jenome.benchmark.BenchmarkTypes.StringIntMap;
+import tech.harmonysoft.oss.jenome.benchmark.BenchmarkTypes.StringList;
+import tech.harmonysoft.oss.jenome.management.LatencyHistogram;
+import tech.harmonysoft.oss.jenome.match.impl.CompositeTypeComplianceMatcher;
+import tech.harmonysoft.oss.jenome.resolve.impl.DefaultTypeArgumentResolver;
+import tech.harmonysoft.oss.jenome.resolve.util.GenericsHelper;
+import tech.harmonysoft.oss.jenome.resolve.util.JenomeResolveUtil;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Type;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * <p>
+ *      Checks that warmed-up calls served from the caches don't allocate. Allocated bytes are measured via
+ *      {@code com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)}, the tests are skipped if the
+ *      current JVM doesn't support it.
+ * </p>
+ * <p>
+ *      Every check is warmed up before the measurement, so, one-time allocations like thread-local caches
+ *      initialization are not counted.
+ * </p>
+ */
+@SuppressWarnings({"UnusedDeclaration"})
+public class AllocationBudgetTest {
+
+    private static final int WARMUP_CALLS   = 20_000;
+    private static final int MEASURED_CALLS = 20_000;
+
+    /** Maximum number of bytes a single warmed-up call is allowed to allocate on average. */
+    private static final double BUDGET_BYTES_PER_CALL = 0.5;
+
+    private DefaultTypeArgumentResolver    resolver;
+    private CompositeTypeComplianceMatcher matcher;
+
+    @BeforeEach
+    public void setUp() {
+        resolver = new DefaultTypeArgumentResolver();
+        matcher = new CompositeTypeComplianceMatcher();
+    }
+
+    @Test
+    public void cachedResolve_class() {
+        checkBudget("resolve(Collection, ArrayList)", () -> resolver.resolve(Collection.class, ArrayList.class, 0));
+    }
+
+    @Test
+    public void cachedResolve_parameterizedType() {
+        Type target = StringIntMap.class.getGenericSuperclass();
+        checkBudget("resolve(Map, HashMap<String, Integer>)", () -> resolver.resolve(Map.class, target, 1));
+    }
+
+    @Test
+    public void cachedResolve_instrumented() {
+        resolver.addListener(new LatencyHistogram());
+        checkBudget("instrumented resolve(Comparable, Integer)",
+                    () -> resolver.resolve(Comparable.class, Integer.class, 0));
+    }
+
+    @Test
+    public void cachedMatch_class() {
+        // Class vs class checks are decided by the prefilter otherwise.
+        matcher.setPrefilterEnabled(false);
+        checkBudget("match(Number, Integer)", () -> matcher.match(Number.class, Integer.class));
+    }
+
+    @Test
+    public void cachedMatch_parameterizedType() {
+        Type base = StringList.class.getGenericSuperclass();
+        checkBudget("match(ArrayList<String>, StringList)", () -> matcher.match(base, StringList.class, true));
+    }
+
+    @Test
+    public void genericsHelper() {
+        StringList target = new StringList();
+        checkBudget("resolveTypeParameterValue(Collection, StringList)",
+                    () -> GenericsHelper.INSTANCE.resolveTypeParameterValue(Collection.class, target, 0));
+    }
+
+    @Test
+    public void cachedTypeArgument() {
+        checkBudget("getTypeArgument(StringHandler)",
+                    () -> JenomeResolveUtil.getTypeArgument(StringHandler.class));
+    }
+
+    private static void checkBudget(String description, Runnable call) {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean,
+                   "Thread allocation measurement is not supported by the current JVM");
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported(),
+                   "Thread allocation measurement is not supported by the current JVM");
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < WARMUP_CALLS; ++i) {
+            call.run();
+        }
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_CALLS; ++i) {
+            call.run();
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        double perCall = allocated / (double) MEASURED_CALLS;
+        assertTrue(perCall <= BUDGET_BYTES_PER_CALL, String.format(
+                "%s allocates %.2f bytes per call which exceeds the budget of %.2f bytes",
+                description, perCall, BUDGET_BYTES_PER_CALL));
+    }
+
+    interface Handler<T> {}
+
+    static class StringHandler implements Handler<String> {}
+}
@@ -0,0 +1,63 @@
+package tech.harmonysoft.oss.jenome.benchmark;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Type;
+import java.util.*;
+
+/**
+ * Type pairs used by the benchmarks. They cover raw, parameterized and wildcard types and both class and
+ * interface hierarchies. Nested fixture classes are shared with other tests.
+ */
+@SuppressWarnings({"UnusedDeclaration"})
+public class BenchmarkTypes {
+
+    /** Resolution cases, every case is {@code {base, target, index}}. */
+    static final Object[][] RESOLUTIONS = {
+            { Collection.class, ArrayList.class, 0 },
+            { Map.class, StringIntMap.class, 1 },
+            { Comparable.class, Integer.class, 0 },
+            { Iterable.class, StringList.class, 0 },
+            { Collection.class, field("longList"), 0 },
+            { AbstractMap.class, StringIntMap.class, 0 }
+    };
+
+    /** Compliance check cases, every case is {@code {base, candidate}}. */
+    static final Type[][] MATCHES = {
+            { field("numberList"), field("integerList") },
+            { field("charSequences"), StringList.class },
+            { field("numberMap"), StringIntMap.class },
+            { field("integerComparable"), Integer.class },
+            { Number.class, Long.class },
+            { field("stringList"), field("integerLinkedList") }
+    };
+
+    private List<Long>                         longList;
+    private List<? extends Number>             numberList;
+    private ArrayList<Integer>                 integerList;
+    private Collection<? extends CharSequence> charSequences;
+    private Map<String, ? extends Number>      numberMap;
+    private Comparable<? super Integer>        integerComparable;
+    private List<String>                       stringList;
+    private LinkedList<Integer>                integerLinkedList;
+
+    private BenchmarkTypes() {
+    }
+
+    @NotNull
+    private static Type field(@NotNull String name) {
+        try {
+            return BenchmarkTypes.class.getDeclaredField(name).getGenericType();
+        } catch (NoSuchFieldException e) {
+            throw new IllegalArgumentException(String.format("Can't find benchmark type '%s'", name), e);
+        }
+    }
+
+    public static class StringList extends ArrayList<String> {
+        private static final long serialVersionUID = 1L;
+    }
+
+    public static class StringIntMap extends HashMap<String, Integer> {
+        private static final long serialVersionUID = 1L;
+    }
+}
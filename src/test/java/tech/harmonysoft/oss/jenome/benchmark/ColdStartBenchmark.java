@@ -0,0 +1,253 @@
+package tech.harmonysoft.oss.jenome.benchmark;
+
+import org.jetbrains.annotations.NotNull;
+import tech.harmonysoft.oss.jenome.match.impl.CompositeTypeComplianceMatcher;
+import tech.harmonysoft.oss.jenome.resolve.impl.DefaultTypeArgumentResolver;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Type;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.CodeSource;
+import java.util.*;
+
+/**
+ * <p>
+ *      Measures first-call cost of jenome. Every measurement is performed at a fresh JVM forked from the current
+ *      one, the forked JVM reports the following metrics (all of them are measured from its {@code main()}
+ *      start):
+ * </p>
+ * <ul>
+ *     <li>{@code resolver-init} - class initialization of the resolver;</li>
+ *     <li>{@code matcher-init} - class initialization of the matcher graph (composite and specialized matchers);</li>
+ *     <li>{@code first-resolve} - time to the first resolution result;</li>
+ *     <li>{@code first-match} - time to the first compliance check result;</li>
+ *     <li>{@code resolve-all} - time to resolve type arguments of all requested classes;</li>
+ *     <li>{@code jvm-to-main} - time between the JVM start and {@code main()} start, in milliseconds precision;</li>
+ * </ul>
+ * <p>
+ *      The benchmark also reports {@code process} - wall time of the whole forked process as seen by the current
+ *      JVM. Every metric is reported as median, minimum and maximum in milliseconds.
+ * </p>
+ * <p>Usage:</p>
+ * <pre>
+ *     gradlew benchmark -Pbenchmark=ColdStartBenchmark -PbenchmarkArgs="--forks 20 --classes 20"
+ * </pre>
+ * <p>
+ *      Supported arguments: {@code --forks}, {@code --classes} (number of classes to resolve) and
+ *      {@code --jvm-arg} (option to give to the forked JVMs, may be repeated, e.g. {@code -Xshare:off}).
+ * </p>
+ */
+public class ColdStartBenchmark {
+
+    static final String RESOLVER_INIT = "resolver-init";
+    static final String MATCHER_INIT  = "matcher-init";
+    static final String FIRST_RESOLVE = "first-resolve";
+    static final String FIRST_MATCH   = "first-match";
+    static final String RESOLVE_ALL   = "resolve-all";
+    static final String JVM_TO_MAIN   = "jvm-to-main";
+    static final String PROCESS       = "process";
+
+    /** Prefix of the lines with metrics printed by the forked JVM. */
+    private static final String METRIC_PREFIX = "jenome-cold-start ";
+
+    /** Classes which type arguments are resolved by the forked JVM, every class implements {@link Collection}. */
+    private static final String[] COLLECTIONS = {
+            "java.util.ArrayList", "java.util.LinkedList", "java.util.HashSet", "java.util.LinkedHashSet",
+            "java.util.TreeSet", "java.util.ArrayDeque", "java.util.PriorityQueue", "java.util.Vector",
+            "java.util.Stack", "java.util.concurrent.CopyOnWriteArrayList", "java.util.concurrent.CopyOnWriteArraySet",
+            "java.util.concurrent.ConcurrentLinkedQueue", "java.util.concurrent.ConcurrentLinkedDeque",
+            "java.util.concurrent.LinkedBlockingQueue", "java.util.concurrent.LinkedBlockingDeque",
+            "java.util.concurrent.ArrayBlockingQueue", "java.util.concurrent.PriorityBlockingQueue",
+            "java.util.concurrent.SynchronousQueue", "java.util.concurrent.LinkedTransferQueue",
+            "java.util.concurrent.ConcurrentSkipListSet", "java.util.concurrent.DelayQueue",
+            "java.util.AbstractList", "java.util.AbstractSet", "java.util.AbstractQueue", "java.util.AbstractCollection"
+    };
+
+    private final int          forks;
+    private final int          classes;
+    private final List<String> jvmArgs;
+
+    /**
+     * @param forks     number of JVMs to fork
+     * @param classes   number of classes which type arguments should be resolved by every forked JVM
+     * @param jvmArgs   options to give to the forked JVMs
+     * @throws IllegalArgumentException     if given numbers are out of range
+     */
+    public ColdStartBenchmark(int forks, int classes, @NotNull List<String> jvmArgs)
+            throws IllegalArgumentException
+    {
+        if (forks <= 0 || classes <= 0 || classes > COLLECTIONS.length) {
+            throw new IllegalArgumentException(String.format(
+                    "Can't create cold start benchmark. Reason: forks number must be positive and classes number "
+                    + "must be within [1; %d] but got %d and %d", COLLECTIONS.length, forks, classes));
+        }
+        this.forks = forks;
+        this.classes = classes;
+        this.jvmArgs = new ArrayList<>(jvmArgs);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0 && "--probe".equals(args[0])) {
+            probe(Integer.parseInt(args[1]), System.out);
+            return;
+        }
+        int forks = 10;
+        int classes = COLLECTIONS.length;
+        List<String> jvmArgs = new ArrayList<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--forks": forks = Integer.parseInt(args[i + 1]); break;
+                case "--classes": classes = Integer.parseInt(args[i + 1]); break;
+                case "--jvm-arg": jvmArgs.add(args[i + 1]); break;
+                default: throw new IllegalArgumentException(String.format(
+                        "Can't run cold start benchmark. Reason: unknown argument '%s'", args[i]));
+            }
+        }
+        print(new ColdStartBenchmark(forks, classes, jvmArgs).run(), System.out);
+    }
+
+    /**
+     * Forks configured number of JVMs and collects their metrics.
+     *
+     * @return      metric values in nanoseconds by metric name, in order of forks
+     * @throws IOException              if a JVM can't be forked or it fails
+     * @throws InterruptedException     if current thread is interrupted
+     */
+    @NotNull
+    public Map<String, List<Long>> run() throws IOException, InterruptedException {
+        Map<String, List<Long>> result = new LinkedHashMap<>();
+        for (int i = 0; i < forks; ++i) {
+            long start = System.nanoTime();
+            Map<String, Long> metrics = fork();
+            metrics.put(PROCESS, System.nanoTime() - start);
+            for (Map.Entry<String, Long> entry : metrics.entrySet()) {
+                result.computeIfAbsent(entry.getKey(), key -> new ArrayList<>()).add(entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    @NotNull
+    private Map<String, Long> fork() throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(jvmArgs);
+        command.add("-cp");
+        command.add(getClassPath());
+        command.add(ColdStartBenchmark.class.getName());
+        command.add("--probe");
+        command.add(String.valueOf(classes));
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        Map<String, Long> result = new LinkedHashMap<>();
+        StringBuilder output = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(),
+                                                                              StandardCharsets.UTF_8)))
+        {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (line.startsWith(METRIC_PREFIX)) {
+                    String[] parts = line.substring(METRIC_PREFIX.length()).split("=");
+                    result.put(parts[0], Long.parseLong(parts[1]));
+                } else {
+                    output.append(line).append(System.lineSeparator());
+                }
+            }
+        }
+        int exitCode = process.waitFor();
+        if (exitCode != 0) {
+            throw new IOException(String.format(
+                    "Can't measure cold start. Reason: forked JVM exited with code %d and output%n%s",
+                    exitCode, output));
+        }
+        return result;
+    }
+
+    /**
+     * Builds class path which contains jenome, its dependencies and the benchmark. It's not derived from
+     * {@code java.class.path} because the benchmark might be loaded by a custom class loader, e.g. by a test
+     * runner.
+     */
+    @NotNull
+    private static String getClassPath() throws IOException {
+        Set<String> entries = new LinkedHashSet<>();
+        for (Class<?> clazz : new Class<?>[] { ColdStartBenchmark.class, DefaultTypeArgumentResolver.class,
+                                               NotNull.class })
+        {
+            CodeSource codeSource = clazz.getProtectionDomain().getCodeSource();
+            if (codeSource == null) {
+                throw new IOException(String.format("Can't find class path entry of %s", clazz));
+            }
+            try {
+                entries.add(new File(codeSource.getLocation().toURI()).getPath());
+            } catch (URISyntaxException e) {
+                throw new IOException(String.format("Can't find class path entry of %s", clazz), e);
+            }
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+
+    /**
+     * Is executed at the forked JVM, prints metrics to the given stream.
+     *
+     * @param classes   number of classes which type arguments should be resolved
+     * @param out       target stream
+     */
+    static void probe(int classes, @NotNull PrintStream out) {
+        long start = System.nanoTime();
+        long jvmToMain = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+
+        DefaultTypeArgumentResolver resolver = DefaultTypeArgumentResolver.INSTANCE;
+        long resolverInit = System.nanoTime();
+        CompositeTypeComplianceMatcher matcher = CompositeTypeComplianceMatcher.INSTANCE;
+        long matcherInit = System.nanoTime();
+
+        Type first = resolver.resolve(Comparable.class, Integer.class, 0);
+        long firstResolve = System.nanoTime();
+        boolean matched = matcher.match(Number.class, Integer.class);
+        long firstMatch = System.nanoTime();
+
+        try {
+            for (int i = 0; i < classes; ++i) {
+                resolver.resolve(Collection.class, Class.forName(COLLECTIONS[i]), 0);
+            }
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Can't load a collection class", e);
+        }
+        long resolveAll = System.nanoTime();
+
+        if (first != Integer.class || !matched) {
+            throw new IllegalStateException(String.format("Unexpected results: %s and %b", first, matched));
+        }
+        out.println(METRIC_PREFIX + RESOLVER_INIT + "=" + (resolverInit - start));
+        out.println(METRIC_PREFIX + MATCHER_INIT + "=" + (matcherInit - start));
+        out.println(METRIC_PREFIX + FIRST_RESOLVE + "=" + (firstResolve - start));
+        out.println(METRIC_PREFIX + FIRST_MATCH + "=" + (firstMatch - start));
+        out.println(METRIC_PREFIX + RESOLVE_ALL + "=" + (resolveAll - start));
+        out.println(METRIC_PREFIX + JVM_TO_MAIN + "=" + jvmToMain * 1_000_000);
+    }
+
+    /**
+     * Prints given metrics as a table.
+     *
+     * @param metrics   metric values in nanoseconds by metric name
+     * @param out       target stream
+     */
+    public static void print(@NotNull Map<String, List<Long>> metrics, @NotNull PrintStream out) {
+        out.printf("%-15s %12s %12s %12s%n", "metric", "median, ms", "min, ms", "max, ms");
+        for (Map.Entry<String, List<Long>> entry : metrics.entrySet()) {
+            List<Long> values = new ArrayList<>(entry.getValue());
+            Collections.sort(values);
+            out.printf("%-15s %12.3f %12.3f %12.3f%n",
+                       entry.getKey(),
+                       values.get(values.size() / 2) / 1e6,
+                       values.get(0) / 1e6,
+                       values.get(values.size() - 1) / 1e6);
+        }
+    }
+}
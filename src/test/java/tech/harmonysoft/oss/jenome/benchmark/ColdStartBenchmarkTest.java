@@ -0,0 +1,51 @@
+package tech.harmonysoft.oss.jenome.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColdStartBenchmarkTest {
+
+    @Test
+    public void probeReportsAllMetrics() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ColdStartBenchmark.probe(5, new PrintStream(out, true));
+        String output = out.toString();
+        for (String metric : new String[] { ColdStartBenchmark.RESOLVER_INIT, ColdStartBenchmark.MATCHER_INIT,
+                                            ColdStartBenchmark.FIRST_RESOLVE, ColdStartBenchmark.FIRST_MATCH,
+                                            ColdStartBenchmark.RESOLVE_ALL, ColdStartBenchmark.JVM_TO_MAIN })
+        {
+            assertTrue(output.contains(metric + "="), metric);
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void forkedJvmIsMeasured() throws Exception {
+        Map<String, List<Long>> metrics = new ColdStartBenchmark(1, 3, Collections.emptyList()).run();
+        assertEquals(7, metrics.size());
+        for (List<Long> values : metrics.values()) {
+            assertEquals(1, values.size());
+            assertTrue(values.get(0) >= 0);
+        }
+        assertTrue(metrics.get(ColdStartBenchmark.FIRST_MATCH).get(0)
+                   >= metrics.get(ColdStartBenchmark.FIRST_RESOLVE).get(0));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ColdStartBenchmark.print(metrics, new PrintStream(out, true));
+        assertEquals(8, out.toString().split(System.lineSeparator()).length);
+    }
+
+    @Test
+    public void invalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new ColdStartBenchmark(0, 1, Collections.emptyList()));
+        assertThrows(IllegalArgumentException.class, () -> new ColdStartBenchmark(1, 1000, Collections.emptyList()));
+    }
+}
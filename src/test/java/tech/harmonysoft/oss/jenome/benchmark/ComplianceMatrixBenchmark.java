@@ -0,0 +1,172 @@
+package tech.harmonysoft.oss.jenome.benchmark;
+
+import org.jetbrains.annotations.NotNull;
+import tech.harmonysoft.oss.jenome.generator.GeneratedHierarchy;
+import tech.harmonysoft.oss.jenome.generator.HierarchyGenerator;
+import tech.harmonysoft.oss.jenome.match.impl.CompositeTypeComplianceMatcher;
+import tech.harmonysoft.oss.jenome.match.util.ComplianceMatrix;
+
+import java.io.PrintStream;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * <p>
+ *      Compares container-startup-like matching of every base type against every candidate type via pairwise
+ *      {@code match()} calls and via {@link ComplianceMatrix}. Every pass uses a new matcher, i.e. starts with
+ *      empty caches. Candidates are all classes of a hierarchy produced by a {@link HierarchyGenerator}, bases
+ *      are the same classes, their generic superclasses and the {@code Root} interface.
+ * </p>
+ * <p>Usage:</p>
+ * <pre>
+ *     gradlew benchmark -Pbenchmark=ComplianceMatrixBenchmark -PbenchmarkArgs="--width 64 --depth 8"
+ * </pre>
+ * <p>
+ *      Supported arguments: {@code --width}, {@code --depth} and {@code --iterations} (number of measured
+ *      passes, median time is reported).
+ * </p>
+ */
+public class ComplianceMatrixBenchmark {
+
+    private final int width;
+    private final int depth;
+    private final int iterations;
+
+    /**
+     * @throws IllegalArgumentException     if given numbers are out of range
+     */
+    public ComplianceMatrixBenchmark(int width, int depth, int iterations) throws IllegalArgumentException {
+        if (iterations <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Can't create compliance matrix benchmark. Reason: positive iterations number is expected "
+                    + "but got %d", iterations));
+        }
+        this.width = width;
+        this.depth = depth;
+        this.iterations = iterations;
+    }
+
+    public static void main(String[] args) {
+        int width = 64;
+        int depth = 8;
+        int iterations = 5;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--width": width = Integer.parseInt(args[i + 1]); break;
+                case "--depth": depth = Integer.parseInt(args[i + 1]); break;
+                case "--iterations": iterations = Integer.parseInt(args[i + 1]); break;
+                default: throw new IllegalArgumentException(String.format(
+                        "Can't run compliance matrix benchmark. Reason: unknown argument '%s'", args[i]));
+            }
+        }
+        print(new ComplianceMatrixBenchmark(width, depth, iterations).run(), System.out);
+    }
+
+    /**
+     * @return      measurement result
+     * @throws IllegalStateException    if pairwise checks and the matrix give different results
+     */
+    @NotNull
+    public Result run() throws IllegalStateException {
+        GeneratedHierarchy hierarchy = new HierarchyGenerator().width(width).depth(depth).generate();
+        List<Type> candidates = new ArrayList<>(hierarchy.getClasses());
+        List<Type> bases = new ArrayList<>(candidates);
+        bases.add(hierarchy.getRoot());
+        for (Class<?> clazz : hierarchy.getClasses()) {
+            Type superclass = clazz.getGenericSuperclass();
+            if (superclass != null && superclass != Object.class) {
+                bases.add(superclass);
+            }
+        }
+
+        long[] pairwiseNanos = new long[iterations];
+        long[] matrixNanos = new long[iterations];
+        ComplianceMatrix matrix = null;
+        boolean[][] pairwise = null;
+        for (int i = 0; i < iterations; ++i) {
+            CompositeTypeComplianceMatcher matcher = new CompositeTypeComplianceMatcher();
+            long start = System.nanoTime();
+            pairwise = matchPairwise(bases, candidates, matcher);
+            pairwiseNanos[i] = System.nanoTime() - start;
+
+            matcher = new CompositeTypeComplianceMatcher();
+            start = System.nanoTime();
+            matrix = ComplianceMatrix.compute(bases, candidates, matcher, ForkJoinPool.commonPool());
+            matrixNanos[i] = System.nanoTime() - start;
+        }
+
+        for (int i = 0; i < bases.size(); ++i) {
+            for (int j = 0; j < candidates.size(); ++j) {
+                if (pairwise[i][j] != matrix.matches(i, j)) {
+                    throw new IllegalStateException(String.format(
+                            "Pairwise check of %s vs %s gives %b but the matrix gives %b",
+                            bases.get(i), candidates.get(j), pairwise[i][j], matrix.matches(i, j)));
+                }
+            }
+        }
+        return new Result(bases.size(), candidates.size(), median(pairwiseNanos), median(matrixNanos),
+                          matrix.getCheckedCells(), matrix.getPrunedCells());
+    }
+
+    @NotNull
+    private static boolean[][] matchPairwise(@NotNull List<Type> bases,
+                                             @NotNull List<Type> candidates,
+                                             @NotNull CompositeTypeComplianceMatcher matcher)
+    {
+        boolean[][] result = new boolean[bases.size()][candidates.size()];
+        for (int i = 0; i < result.length; ++i) {
+            for (int j = 0; j < result[i].length; ++j) {
+                result[i][j] = matcher.match(bases.get(i), candidates.get(j));
+            }
+        }
+        return result;
+    }
+
+    private static long median(@NotNull long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    /**
+     * Prints given result as a table.
+     *
+     * @param result    measurement result
+     * @param out       target stream
+     */
+    public static void print(@NotNull Result result, @NotNull PrintStream out) {
+        out.printf("%8s %10s %12s %12s %10s %12s %12s%n",
+                   "bases", "candidates", "pairwise, ms", "matrix, ms", "speedup", "checked", "pruned");
+        out.printf("%8d %10d %12.1f %12.1f %9.1fx %12d %12d%n",
+                   result.bases,
+                   result.candidates,
+                   result.pairwiseNanos / 1_000_000d,
+                   result.matrixNanos / 1_000_000d,
+                   result.pairwiseNanos / (double) Math.max(1L, result.matrixNanos),
+                   result.checkedCells,
+                   result.prunedCells);
+    }
+
+    /** Measurement result. */
+    public static class Result {
+
+        public final int  bases;
+        public final int  candidates;
+        public final long pairwiseNanos;
+        public final long matrixNanos;
+        public final long checkedCells;
+        public final long prunedCells;
+
+        Result(int bases, int candidates, long pairwiseNanos, long matrixNanos, long checkedCells, long prunedCells) {
+            this.bases = bases;
+            this.candidates = candidates;
+            this.pairwiseNanos = pairwiseNanos;
+            this.matrixNanos = matrixNanos;
+            this.checkedCells = checkedCells;
+            this.prunedCells = prunedCells;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package tech.harmonysoft.oss.jenome.benchmark;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ComplianceMatrixBenchmarkTest {
+
+    @Test
+    public void matrixIsMeasuredAndVerified() {
+        ComplianceMatrixBenchmark.Result result = new ComplianceMatrixBenchmark(3, 2, 1).run();
+        assertTrue(result.bases > result.candidates);
+        assertTrue(result.pairwiseNanos > 0);
+        assertTrue(result.matrixNanos > 0);
+        assertTrue(result.prunedCells > 0);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ComplianceMatrixBenchmark.print(result, new PrintStream(out, true));
+        assertEquals(2, out.toString().split(System.lineSeparator()).length);
+    }
+}
@@ -0,0 +1,599 @@
+package tech.harmonysoft.oss.jenome.benchmark;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import tech.harmonysoft.oss.jenome.cache.BoundedJenomeCache;
+import tech.harmonysoft.oss.jenome.cache.JenomeCacheFactory;
+import tech.harmonysoft.oss.jenome.cache.StripedJenomeCache;
+import tech.harmonysoft.oss.jenome.cache.UnboundedJenomeCache;
+import tech.harmonysoft.oss.jenome.generator.GeneratedHierarchy;
+import tech.harmonysoft.oss.jenome.generator.HierarchyGenerator;
+import tech.harmonysoft.oss.jenome.match.impl.CompositeTypeComplianceMatcher;
+import tech.harmonysoft.oss.jenome.resolve.impl.DefaultTypeArgumentResolver;
+import tech.harmonysoft.oss.jenome.resolve.util.GenericsHelper;
+import tech.harmonysoft.oss.jenome.resolve.util.TypeDispatcher;
+import tech.harmonysoft.oss.jenome.resolve.util.TypeSubstitutor;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>
+ *      Checks that the resolver, the matcher and {@link GenericsHelper} return correct results under contention.
+ *      Configured number of worker threads perform random resolutions and compliance checks and compare every
+ *      result to the one calculated in advance by a single-threaded oracle (fresh resolver and matcher instances,
+ *      for both deep substitution modes). Meanwhile two more threads disturb them:
+ * </p>
+ * <ul>
+ *     <li>
+ *          {@code cache-chaos} - clears the caches, switches them between bounded, striped and unbounded
+ *          implementations and changes the resolver configuration: toggles deep substitution and installs new
+ *          type substitutor and dispatcher instances. Results of the operations which overlap with
+ *          a configuration change are not checked, any result of the new configuration is;
+ *     </li>
+ *     <li>
+ *          {@code class-loader} - loads new {@link HierarchyGenerator generated} hierarchies and replaces
+ *          the oldest ones by them, i.e. types from new class loaders appear at the caches all the time;
+ *     </li>
+ * </ul>
+ * <p>
+ *      Any result which differs from the oracle's one (or an unexpected exception) is reported as divergence.
+ *      A worker which doesn't make progress for {@link #STALL_MILLIS} or doesn't stop in time is reported as
+ *      hang together with its stack trace and deadlocked threads, if any.
+ * </p>
+ * <p>Usage:</p>
+ * <pre>
+ *     gradlew benchmark -Pbenchmark=ConcurrencyStressHarness -PbenchmarkArgs="--threads 16 --duration 60000"
+ * </pre>
+ * <p>
+ *      Supported arguments: {@code --threads}, {@code --duration} and {@code --chaos-interval} (pause between
+ *      cache disturbances), durations are in milliseconds. The process exits with non-zero code if any problem
+ *      is found.
+ * </p>
+ */
+public class ConcurrencyStressHarness {
+
+    /** A worker which doesn't complete a single check during this time is reported as hang. */
+    static final long STALL_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    /** Maximum number of divergences to keep at a report, the rest is only counted. */
+    private static final int MAX_REPORTED_DIVERGENCES = 100;
+
+    /** Maximum number of generated hierarchies which checks are performed simultaneously. */
+    private static final int LIVE_HIERARCHIES = 4;
+
+    private final int  threads;
+    private final long durationMillis;
+    private final long chaosIntervalMillis;
+
+    /**
+     * @param threads               number of worker threads
+     * @param durationMillis        stress duration
+     * @param chaosIntervalMillis   pause between cache disturbances
+     * @throws IllegalArgumentException     if given numbers are out of range
+     */
+    public ConcurrencyStressHarness(int threads, long durationMillis, long chaosIntervalMillis)
+            throws IllegalArgumentException
+    {
+        if (threads <= 0 || durationMillis <= 0 || chaosIntervalMillis <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Can't create concurrency stress harness. Reason: threads number, duration and chaos interval "
+                    + "must be positive but got %d, %d and %d", threads, durationMillis, chaosIntervalMillis));
+        }
+        this.threads = threads;
+        this.durationMillis = durationMillis;
+        this.chaosIntervalMillis = chaosIntervalMillis;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+        long duration = TimeUnit.SECONDS.toMillis(30);
+        long chaosInterval = 5;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--threads": threads = Integer.parseInt(args[i + 1]); break;
+                case "--duration": duration = Long.parseLong(args[i + 1]); break;
+                case "--chaos-interval": chaosInterval = Long.parseLong(args[i + 1]); break;
+                default: throw new IllegalArgumentException(String.format(
+                        "Can't run concurrency stress harness. Reason: unknown argument '%s'", args[i]));
+            }
+        }
+        Report report = new ConcurrencyStressHarness(threads, duration, chaosInterval).run();
+        report.print(System.out);
+        if (!report.isClean()) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Stresses new resolver and matcher instances.
+     *
+     * @return      stress results
+     * @throws InterruptedException     if current thread is interrupted
+     */
+    @NotNull
+    public Report run() throws InterruptedException {
+        return run(new DefaultTypeArgumentResolver(), new CompositeTypeComplianceMatcher());
+    }
+
+    /**
+     * Stresses given resolver and matcher, their caches are cleared and re-configured during the run. The matcher
+     * is switched to the given resolver, so, resolver configuration changes affect it as well.
+     *
+     * @param resolver      resolver to check
+     * @param matcher       matcher to check
+     * @return              stress results
+     * @throws InterruptedException     if current thread is interrupted
+     */
+    @NotNull
+    public Report run(@NotNull DefaultTypeArgumentResolver resolver,
+                      @NotNull CompositeTypeComplianceMatcher matcher)
+            throws InterruptedException
+    {
+        matcher.setTypeArgumentResolver(resolver);
+        Oracle oracle = new Oracle();
+        Stress stress = new Stress();
+        stress.deepSubstitution = resolver.isDeepSubstitution();
+        List<Check> fixedChecks = oracle.getFixedChecks(resolver, matcher);
+        Deque<List<Check>> hierarchyChecks = new ArrayDeque<>();
+        hierarchyChecks.add(oracle.getHierarchyChecks(resolver, matcher));
+        stress.loadedHierarchies.incrementAndGet();
+        stress.checks = join(fixedChecks, hierarchyChecks);
+
+        List<Thread> workers = new ArrayList<>();
+        AtomicLongArray progress = new AtomicLongArray(threads);
+        for (int i = 0; i < threads; ++i) {
+            int worker = i;
+            workers.add(new Thread(() -> stress.work(worker, progress), "jenome-stress-worker-" + i));
+        }
+        Thread cacheChaos = new Thread(() -> {
+            JenomeCacheFactory[] factories = {
+                    BoundedJenomeCache.factory(16), StripedJenomeCache.factory(64), UnboundedJenomeCache.FACTORY
+            };
+            for (int step = 0; !stress.stopped; ++step) {
+                switch (step % 8) {
+                    case 3:
+                        resolver.setCacheFactory(factories[step % factories.length]);
+                        matcher.setCacheFactory(factories[(step + 1) % factories.length]);
+                        stress.cacheChanges.incrementAndGet();
+                        break;
+                    case 5:
+                        boolean deepSubstitution = !stress.deepSubstitution;
+                        stress.reconfigure(deepSubstitution, () -> resolver.setDeepSubstitution(deepSubstitution));
+                        break;
+                    case 6:
+                        stress.reconfigure(stress.deepSubstitution,
+                                           () -> resolver.setTypeDispatcher(new TypeDispatcher()));
+                        break;
+                    case 7:
+                        stress.reconfigure(stress.deepSubstitution,
+                                           () -> resolver.setTypeSubstitutor(new TypeSubstitutor()));
+                        break;
+                    default:
+                        resolver.clearCache();
+                        matcher.clearCache();
+                        stress.cacheChanges.incrementAndGet();
+                }
+                stress.pause(chaosIntervalMillis);
+            }
+        }, "jenome-stress-cache-chaos");
+        Thread classLoader = new Thread(() -> {
+            while (!stress.stopped) {
+                try {
+                    hierarchyChecks.add(oracle.getHierarchyChecks(resolver, matcher));
+                } catch (RuntimeException e) {
+                    stress.diverge("class-loader", "generated hierarchy", "loaded", e);
+                    return;
+                }
+                if (hierarchyChecks.size() > LIVE_HIERARCHIES) {
+                    hierarchyChecks.removeFirst();
+                }
+                stress.checks = join(fixedChecks, hierarchyChecks);
+                stress.loadedHierarchies.incrementAndGet();
+            }
+        }, "jenome-stress-class-loader");
+
+        List<Thread> all = new ArrayList<>(workers);
+        all.add(cacheChaos);
+        all.add(classLoader);
+        for (Thread thread : all) {
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        watch(workers, progress, stress);
+        stress.stopped = true;
+        long joinDeadline = System.currentTimeMillis() + STALL_MILLIS;
+        for (Thread thread : all) {
+            thread.join(Math.max(1, joinDeadline - System.currentTimeMillis()));
+            if (thread.isAlive()) {
+                stress.hang(thread, "doesn't stop");
+                thread.interrupt();
+            }
+        }
+
+        long operations = 0;
+        for (int i = 0; i < threads; ++i) {
+            operations += progress.get(i);
+        }
+        return new Report(operations,
+                          stress.divergenceCount.get(),
+                          new ArrayList<>(stress.divergences),
+                          new ArrayList<>(stress.hangs),
+                          stress.cacheChanges.get(),
+                          stress.configurationChanges.get(),
+                          stress.loadedHierarchies.get());
+    }
+
+    /**
+     * Waits for the configured duration checking that every worker makes progress.
+     */
+    private void watch(@NotNull List<Thread> workers, @NotNull AtomicLongArray progress, @NotNull Stress stress)
+            throws InterruptedException
+    {
+        long[] lastProgress = new long[workers.size()];
+        long[] lastProgressTime = new long[workers.size()];
+        boolean[] reported = new boolean[workers.size()];
+        long start = System.currentTimeMillis();
+        Arrays.fill(lastProgressTime, start);
+        for (long now = start; now - start < durationMillis; now = System.currentTimeMillis()) {
+            Thread.sleep(Math.min(100, durationMillis));
+            for (int i = 0; i < workers.size(); ++i) {
+                long current = progress.get(i);
+                if (current != lastProgress[i]) {
+                    lastProgress[i] = current;
+                    lastProgressTime[i] = now;
+                } else if (!reported[i] && now - lastProgressTime[i] > STALL_MILLIS) {
+                    stress.hang(workers.get(i), String.format("makes no progress for %d ms",
+                                                              now - lastProgressTime[i]));
+                    reported[i] = true;
+                }
+            }
+        }
+    }
+
+    @NotNull
+    private static List<Check> join(@NotNull List<Check> fixedChecks,
+                                    @NotNull Collection<List<Check>> hierarchyChecks)
+    {
+        List<Check> result = new ArrayList<>(fixedChecks);
+        for (List<Check> checks : hierarchyChecks) {
+            result.addAll(checks);
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /** A single operation with the results expected by the oracle. */
+    private static class Check {
+
+        @NotNull private final String    description;
+        @NotNull private final Object    expected;
+        @NotNull private final Object    deepExpected;
+        @NotNull private final Operation operation;
+
+        Check(@NotNull String description,
+              @NotNull Object expected,
+              @NotNull Object deepExpected,
+              @NotNull Operation operation)
+        {
+            this.description = description;
+            this.expected = expected;
+            this.deepExpected = deepExpected;
+            this.operation = operation;
+        }
+
+        @NotNull
+        Object getExpected(boolean deepSubstitution) {
+            return deepSubstitution ? deepExpected : expected;
+        }
+    }
+
+    private interface Operation {
+        @NotNull
+        Object perform();
+    }
+
+    /**
+     * Calculates expected results single-threaded by resolver and matcher instances which are not shared with the
+     * stressed code. Results for the generated hierarchies are also checked against the bindings tracked by the
+     * generator.
+     */
+    private static class Oracle {
+
+        @NotNull private final DefaultTypeArgumentResolver    resolver     = new DefaultTypeArgumentResolver();
+        @NotNull private final DefaultTypeArgumentResolver    deepResolver = new DefaultTypeArgumentResolver();
+        @NotNull private final CompositeTypeComplianceMatcher matcher      = new CompositeTypeComplianceMatcher();
+        @NotNull private final CompositeTypeComplianceMatcher deepMatcher  = new CompositeTypeComplianceMatcher();
+        @NotNull private final Random                         random       = new Random(42);
+
+        Oracle() {
+            deepResolver.setDeepSubstitution(true);
+            matcher.setTypeArgumentResolver(resolver);
+            deepMatcher.setTypeArgumentResolver(deepResolver);
+        }
+
+        @NotNull
+        List<Check> getFixedChecks(@NotNull DefaultTypeArgumentResolver stressedResolver,
+                                   @NotNull CompositeTypeComplianceMatcher stressedMatcher)
+        {
+            List<Check> result = new ArrayList<>();
+            for (Object[] resolution : BenchmarkTypes.RESOLUTIONS) {
+                addResolve((Type) resolution[0], (Type) resolution[1], (Integer) resolution[2], stressedResolver,
+                           result);
+            }
+            for (Type[] match : BenchmarkTypes.MATCHES) {
+                addMatches(match[0], match[1], stressedMatcher, result);
+            }
+            // Results of these checks depend on deep substitution mode.
+            addResolve(Wrapper.class, StringListWrapper.class, 0, stressedResolver, result);
+            addMatches(DirectStringListWrapper.class.getGenericSuperclass(), StringListWrapper.class, stressedMatcher,
+                       result);
+            addGenericsHelper(List.class, new BenchmarkTypes.StringList(), 0, result);
+            addGenericsHelper(Map.class, new BenchmarkTypes.StringIntMap(), 1, result);
+            addGenericsHelper(Collection.class, new ArrayList<String>(), 0, result);
+            return result;
+        }
+
+        /**
+         * Is called only by a single thread at a time, generates and loads a new hierarchy.
+         */
+        @NotNull
+        synchronized List<Check> getHierarchyChecks(@NotNull DefaultTypeArgumentResolver stressedResolver,
+                                                    @NotNull CompositeTypeComplianceMatcher stressedMatcher)
+        {
+            HierarchyGenerator.Rebinding[] rebindings = HierarchyGenerator.Rebinding.values();
+            GeneratedHierarchy hierarchy = new HierarchyGenerator()
+                    .depth(1 + random.nextInt(6))
+                    .width(1 + random.nextInt(3))
+                    .typeParameters(1 + random.nextInt(3))
+                    .rebinding(rebindings[random.nextInt(rebindings.length)])
+                    .extraInterfaces(random.nextInt(2))
+                    .diamondEvery(random.nextInt(3))
+                    .generate();
+            List<Check> result = new ArrayList<>();
+            Class<?> root = hierarchy.getRoot();
+            for (int chain = 0; chain < hierarchy.getLeaves().size(); ++chain) {
+                Class<?> leaf = hierarchy.getLeaves().get(chain);
+                Object instance;
+                try {
+                    instance = leaf.newInstance();
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException(String.format("Can't instantiate generated class %s", leaf), e);
+                }
+                for (int index = 0; index < hierarchy.getTypeParametersNumber(); ++index) {
+                    Type expected = hierarchy.getExpectedRootArgument(chain, index);
+                    Check check = addResolve(root, leaf, index, stressedResolver, result);
+                    if (!expected.equals(check.expected)) {
+                        throw new IllegalStateException(String.format(
+                                "Oracle resolves type argument #%d of %s for %s to %s but %s is expected",
+                                index, root, leaf, check.expected, expected));
+                    }
+                    addGenericsHelper(root, instance, index, result);
+                }
+                addMatches(root, leaf, stressedMatcher, result);
+                Class<?> diamondTop = hierarchy.getDiamondTop();
+                if (diamondTop != null && diamondTop.isAssignableFrom(leaf)) {
+                    addResolve(diamondTop, leaf, 0, stressedResolver, result);
+                }
+            }
+            return result;
+        }
+
+        @NotNull
+        private Check addResolve(@NotNull Type base,
+                                 @NotNull Type target,
+                                 int index,
+                                 @NotNull DefaultTypeArgumentResolver stressedResolver,
+                                 @NotNull List<Check> checks)
+        {
+            String description = String.format("resolve(%s, %s, %d)",
+                                               base.getTypeName(), target.getTypeName(), index);
+            Check check = new Check(description,
+                                    resolver.resolve(base, target, index),
+                                    deepResolver.resolve(base, target, index),
+                                    () -> stressedResolver.resolve(base, target, index));
+            checks.add(check);
+            return check;
+        }
+
+        private void addMatches(@NotNull Type first,
+                                @NotNull Type second,
+                                @NotNull CompositeTypeComplianceMatcher stressedMatcher,
+                                @NotNull List<Check> checks)
+        {
+            for (boolean strict : new boolean[] { false, true }) {
+                checks.add(new Check(String.format("match(%s, %s, %b)", first.getTypeName(), second.getTypeName(),
+                                                   strict),
+                                     matcher.match(first, second, strict),
+                                     deepMatcher.match(first, second, strict),
+                                     () -> stressedMatcher.match(first, second, strict)));
+                checks.add(new Check(String.format("match(%s, %s, %b)", second.getTypeName(), first.getTypeName(),
+                                                   strict),
+                                     matcher.match(second, first, strict),
+                                     deepMatcher.match(second, first, strict),
+                                     () -> stressedMatcher.match(second, first, strict)));
+            }
+        }
+
+        private static void addGenericsHelper(@NotNull Class<?> targetInterface,
+                                              @NotNull Object target,
+                                              int index,
+                                              @NotNull List<Check> checks)
+        {
+            Type expected = GenericsHelper.INSTANCE.resolveTypeParameterValue(targetInterface, target, index);
+            checks.add(new Check(String.format("resolveTypeParameterValue(%s, %s, %d)", targetInterface.getName(),
+                                               target.getClass().getName(), index),
+                                 expected,
+                                 expected,
+                                 () -> GenericsHelper.INSTANCE.resolveTypeParameterValue(targetInterface, target,
+                                                                                         index)));
+        }
+    }
+
+    /**
+     * {@code resolve(Wrapper.class, StringListWrapper.class, 0)} is {@code List<T>} by default and
+     * {@code List<String>} with deep substitution.
+     */
+    @SuppressWarnings({"UnusedDeclaration"})
+    static class Wrapper<T> {}
+
+    static class ListWrapper<T> extends Wrapper<List<T>> {}
+
+    static class StringListWrapper extends ListWrapper<String> {}
+
+    static class DirectStringListWrapper extends Wrapper<List<String>> {}
+
+    /** State shared by the threads of a single run. */
+    private static class Stress {
+
+        @NotNull final AtomicLong    divergenceCount      = new AtomicLong();
+        @NotNull final AtomicLong    cacheChanges         = new AtomicLong();
+        @NotNull final AtomicLong    configurationChanges = new AtomicLong();
+        @NotNull final AtomicLong    loadedHierarchies    = new AtomicLong();
+        @NotNull final Queue<String> divergences          = new ConcurrentLinkedQueue<>();
+        @NotNull final Queue<String> hangs                = new ConcurrentLinkedQueue<>();
+
+        /** Is odd while the resolver configuration is being changed. */
+        @NotNull final AtomicLong    configurationVersion = new AtomicLong();
+
+        volatile       List<Check>   checks;
+        volatile       boolean       deepSubstitution;
+        volatile       boolean       stopped;
+
+        void work(int worker, @NotNull AtomicLongArray progress) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (!stopped) {
+                List<Check> current = checks;
+                Check check = current.get(random.nextInt(current.size()));
+                long version = configurationVersion.get();
+                Object expected = check.getExpected(deepSubstitution);
+                try {
+                    Object actual = check.operation.perform();
+                    // The configuration might be changed in the middle of the operation otherwise, any of the
+                    // results would be fine then.
+                    boolean stable = version % 2 == 0 && configurationVersion.get() == version;
+                    if (stable && !expected.equals(actual)) {
+                        diverge(Thread.currentThread().getName(), check.description, expected, actual);
+                    }
+                } catch (RuntimeException | Error e) {
+                    diverge(Thread.currentThread().getName(), check.description, expected, e);
+                }
+                progress.incrementAndGet(worker);
+            }
+        }
+
+        /**
+         * Applies given resolver configuration change, the workers don't check results of the operations
+         * which overlap with it.
+         *
+         * @param deepSubstitution      deep substitution mode of the resolver after the change
+         * @param change                configuration change
+         */
+        void reconfigure(boolean deepSubstitution, @NotNull Runnable change) {
+            configurationVersion.incrementAndGet();
+            try {
+                this.deepSubstitution = deepSubstitution;
+                change.run();
+            } finally {
+                configurationVersion.incrementAndGet();
+            }
+            configurationChanges.incrementAndGet();
+        }
+
+        void diverge(@NotNull String thread,
+                     @NotNull String description,
+                     @NotNull Object expected,
+                     @Nullable Object actual)
+        {
+            if (divergenceCount.incrementAndGet() <= MAX_REPORTED_DIVERGENCES) {
+                divergences.add(String.format("%s: %s returned %s but %s is expected",
+                                              thread, description, actual, expected));
+            }
+        }
+
+        void hang(@NotNull Thread thread, @NotNull String problem) {
+            StringBuilder buffer = new StringBuilder(thread.getName()).append(' ').append(problem);
+            for (StackTraceElement element : thread.getStackTrace()) {
+                buffer.append(System.lineSeparator()).append("\tat ").append(element);
+            }
+            long[] deadlocked = ManagementFactory.getThreadMXBean().findDeadlockedThreads();
+            if (deadlocked != null) {
+                buffer.append(System.lineSeparator()).append("Deadlocked threads:");
+                for (ThreadInfo info : ManagementFactory.getThreadMXBean().getThreadInfo(deadlocked, true, true)) {
+                    buffer.append(System.lineSeparator()).append(info);
+                }
+            }
+            hangs.add(buffer.toString());
+        }
+
+        void pause(long millis) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                stopped = true;
+            }
+        }
+    }
+
+    /** Results of a single stress run. */
+    public static class Report {
+
+        public final long         operations;
+        public final long         divergenceCount;
+        public final List<String> divergences;
+        public final List<String> hangs;
+        public final long         cacheChanges;
+        public final long         configurationChanges;
+        public final long         loadedHierarchies;
+
+        Report(long operations,
+               long divergenceCount,
+               @NotNull List<String> divergences,
+               @NotNull List<String> hangs,
+               long cacheChanges,
+               long configurationChanges,
+               long loadedHierarchies)
+        {
+            this.operations = operations;
+            this.divergenceCount = divergenceCount;
+            this.divergences = Collections.unmodifiableList(divergences);
+            this.hangs = Collections.unmodifiableList(hangs);
+            this.cacheChanges = cacheChanges;
+            this.configurationChanges = configurationChanges;
+            this.loadedHierarchies = loadedHierarchies;
+        }
+
+        /**
+         * @return      {@code true} if there are neither divergences nor hangs; {@code false} otherwise
+         */
+        public boolean isClean() {
+            return divergenceCount == 0 && hangs.isEmpty();
+        }
+
+        /**
+         * Prints current report.
+         *
+         * @param out   target stream
+         */
+        public void print(@NotNull PrintStream out) {
+            out.printf("operations: %d, cache changes: %d, configuration changes: %d, loaded hierarchies: %d, "
+                       + "divergences: %d, hangs: %d%n",
+                       operations, cacheChanges, configurationChanges, loadedHierarchies, divergenceCount,
+                       hangs.size());
+            for (String divergence : divergences) {
+                out.println(divergence);
+            }
+            for (String hang : hangs) {
+                out.println(hang);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package tech.harmonysoft.oss.jenome.benchmark;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import tech.harmonysoft.oss.jenome.match.impl.CompositeTypeComplianceMatcher;
+import tech.harmonysoft.oss.jenome.resolve.impl.DefaultTypeArgumentResolver;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Type;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrencyStressHarnessTest {
+
+    @Test
+    public void noDivergences() throws Exception {
+        ConcurrencyStressHarness.Report report = new ConcurrencyStressHarness(4, 1_500, 2).run();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        report.print(new PrintStream(out, true));
+        assertTrue(report.isClean(), out.toString());
+        assertTrue(report.operations > 0);
+        assertTrue(report.cacheChanges > 0);
+        assertTrue(report.configurationChanges > 0);
+        assertTrue(report.loadedHierarchies > 0);
+    }
+
+    @Test
+    public void divergenceIsReported() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        DefaultTypeArgumentResolver brokenResolver = new DefaultTypeArgumentResolver() {
+            @NotNull
+            @Override
+            public Type resolve(@NotNull Type base, @NotNull Type target, int index) {
+                Type result = super.resolve(base, target, index);
+                return counter.incrementAndGet() % 100 == 0 ? Void.class : result;
+            }
+        };
+        ConcurrencyStressHarness.Report report = new ConcurrencyStressHarness(2, 500, 2)
+                .run(brokenResolver, new CompositeTypeComplianceMatcher());
+
+        assertFalse(report.isClean());
+        assertTrue(report.divergenceCount > 0);
+        // The matcher uses the broken resolver as well, so, its divergences might be reported first.
+        assertTrue(report.divergences.stream().anyMatch(divergence -> divergence.contains("returned " + Void.class)),
+                   report.divergences.toString());
+        assertTrue(report.hangs.isEmpty());
+    }
+
+    @Test
+    public void invalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrencyStressHarness(0, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrencyStressHarness(1, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrencyStressHarness(1, 1, 0));
+    }
+}
@@ -0,0 +1,191 @@
+package tech.harmonysoft.oss.jenome.benchmark;
+
+import org.jetbrains.annotations.NotNull;
+import tech.harmonysoft.oss.jenome.generator.GeneratedHierarchy;
+import tech.harmonysoft.oss.jenome.generator.HierarchyGenerator;
+import tech.harmonysoft.oss.jenome.match.impl.CompositeTypeComplianceMatcher;
+import tech.harmonysoft.oss.jenome.resolve.impl.DefaultTypeArgumentResolver;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ *      Measures how uncached resolution and compliance check cost grows with the hierarchy size. Hierarchies of
+ *      increasing depth are produced by a {@link HierarchyGenerator}, every measurement resolves all {@code Root}
+ *      type arguments for every leaf class and checks that every leaf class is compliant to
+ *      {@code Root<? extends Object, ...>}.
+ * </p>
+ * <p>Usage:</p>
+ * <pre>
+ *     gradlew benchmark -Pbenchmark=HierarchyScalingBenchmark -PbenchmarkArgs="--depths 1,4,16,64 --width 4"
+ * </pre>
+ * <p>
+ *      Supported arguments: {@code --depths} (comma-separated), {@code --width}, {@code --parameters},
+ *      {@code --rebinding} and {@code --iterations} (number of measured passes per hierarchy).
+ * </p>
+ */
+public class HierarchyScalingBenchmark {
+
+    private final int[]                        depths;
+    private final int                          width;
+    private final int                          parameters;
+    private final HierarchyGenerator.Rebinding rebinding;
+    private final int                          iterations;
+
+    /**
+     * @throws IllegalArgumentException     if given numbers are out of range
+     */
+    public HierarchyScalingBenchmark(@NotNull int[] depths,
+                                     int width,
+                                     int parameters,
+                                     @NotNull HierarchyGenerator.Rebinding rebinding,
+                                     int iterations)
+            throws IllegalArgumentException
+    {
+        if (depths.length == 0 || iterations <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Can't create hierarchy scaling benchmark. Reason: at least one depth and positive iterations "
+                    + "number are expected but got %d depths and %d iterations", depths.length, iterations));
+        }
+        this.depths = depths.clone();
+        this.width = width;
+        this.parameters = parameters;
+        this.rebinding = rebinding;
+        this.iterations = iterations;
+    }
+
+    public static void main(String[] args) {
+        int[] depths = { 1, 2, 4, 8, 16, 32, 64 };
+        int width = 4;
+        int parameters = 3;
+        HierarchyGenerator.Rebinding rebinding = HierarchyGenerator.Rebinding.ROTATE;
+        int iterations = 2_000;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--depths":
+                    String[] values = args[i + 1].split(",");
+                    depths = new int[values.length];
+                    for (int j = 0; j < values.length; ++j) {
+                        depths[j] = Integer.parseInt(values[j].trim());
+                    }
+                    break;
+                case "--width": width = Integer.parseInt(args[i + 1]); break;
+                case "--parameters": parameters = Integer.parseInt(args[i + 1]); break;
+                case "--rebinding": rebinding = HierarchyGenerator.Rebinding.valueOf(args[i + 1]); break;
+                case "--iterations": iterations = Integer.parseInt(args[i + 1]); break;
+                default: throw new IllegalArgumentException(String.format(
+                        "Can't run hierarchy scaling benchmark. Reason: unknown argument '%s'", args[i]));
+            }
+        }
+        print(new HierarchyScalingBenchmark(depths, width, parameters, rebinding, iterations).run(), System.out);
+    }
+
+    /**
+     * @return      measurement results, one per configured depth
+     */
+    @NotNull
+    public List<Result> run() {
+        List<Result> result = new ArrayList<>();
+        for (int depth : depths) {
+            GeneratedHierarchy hierarchy = new HierarchyGenerator().depth(depth)
+                                                                   .width(width)
+                                                                   .typeParameters(parameters)
+                                                                   .rebinding(rebinding)
+                                                                   .generate();
+            DefaultTypeArgumentResolver resolver = new DefaultTypeArgumentResolver();
+            resolver.setCacheFactory(ThroughputBenchmark.NO_CACHE);
+            CompositeTypeComplianceMatcher matcher = new CompositeTypeComplianceMatcher();
+            matcher.setCacheFactory(ThroughputBenchmark.NO_CACHE);
+
+            // Warm up with the same number of passes.
+            measureResolve(hierarchy, resolver);
+            measureMatch(hierarchy, matcher);
+            result.add(new Result(depth,
+                                  hierarchy.getClassesNumber(),
+                                  measureResolve(hierarchy, resolver),
+                                  measureMatch(hierarchy, matcher)));
+        }
+        return result;
+    }
+
+    /**
+     * @return      average time of a single resolution, in nanoseconds
+     */
+    private double measureResolve(@NotNull GeneratedHierarchy hierarchy,
+                                  @NotNull DefaultTypeArgumentResolver resolver)
+    {
+        Class<?> root = hierarchy.getRoot();
+        List<Class<?>> leaves = hierarchy.getLeaves();
+        int operations = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; ++i) {
+            for (Class<?> leaf : leaves) {
+                for (int index = 0; index < parameters; ++index) {
+                    if (resolver.resolve(root, leaf, index) == null) {
+                        throw new IllegalStateException(String.format(
+                                "Can't resolve %s type argument #%d for %s", root, index, leaf));
+                    }
+                    ++operations;
+                }
+            }
+        }
+        return (System.nanoTime() - start) / (double) operations;
+    }
+
+    /**
+     * @return      average time of a single compliance check, in nanoseconds
+     */
+    private double measureMatch(@NotNull GeneratedHierarchy hierarchy,
+                                @NotNull CompositeTypeComplianceMatcher matcher)
+    {
+        Class<?> root = hierarchy.getRoot();
+        List<Class<?>> leaves = hierarchy.getLeaves();
+        int operations = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; ++i) {
+            for (Class<?> leaf : leaves) {
+                if (!matcher.match(root, leaf)) {
+                    throw new IllegalStateException(String.format("%s is expected to match %s", leaf, root));
+                }
+                ++operations;
+            }
+        }
+        return (System.nanoTime() - start) / (double) operations;
+    }
+
+    /**
+     * Prints given results as a table.
+     *
+     * @param results   measurement results
+     * @param out       target stream
+     */
+    public static void print(@NotNull List<Result> results, @NotNull PrintStream out) {
+        out.printf("%8s %8s %14s %14s %16s%n", "depth", "classes", "resolve, ns", "match, ns", "resolve/level, ns");
+        for (Result result : results) {
+            out.printf("%8d %8d %14.1f %14.1f %16.1f%n",
+                       result.depth,
+                       result.classes,
+                       result.resolveNanos,
+                       result.matchNanos,
+                       result.resolveNanos / result.depth);
+        }
+    }
+
+    /** Measurement result for a single hierarchy. */
+    public static class Result {
+
+        public final int    depth;
+        public final int    classes;
+        public final double resolveNanos;
+        public final double matchNanos;
+
+        Result(int depth, int classes, double resolveNanos, double matchNanos) {
+            this.depth = depth;
+            this.classes = classes;
+            this.resolveNanos = resolveNanos;
+            this.matchNanos = matchNanos;
+        }
+    }
+}
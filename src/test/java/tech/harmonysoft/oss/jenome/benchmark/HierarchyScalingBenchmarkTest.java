@@ -0,0 +1,31 @@
+package tech.harmonysoft.oss.jenome.benchmark;
+
+import org.junit.jupiter.api.Test;
+import tech.harmonysoft.oss.jenome.generator.HierarchyGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HierarchyScalingBenchmarkTest {
+
+    @Test
+    public void allDepthsAreMeasured() {
+        HierarchyScalingBenchmark benchmark = new HierarchyScalingBenchmark(
+                new int[] { 1, 3 }, 2, 2, HierarchyGenerator.Rebinding.BIND_PROGRESSIVELY, 5);
+        List<HierarchyScalingBenchmark.Result> results = benchmark.run();
+        assertEquals(2, results.size());
+        assertEquals(3, results.get(1).depth);
+        assertTrue(results.get(1).classes > results.get(0).classes);
+        for (HierarchyScalingBenchmark.Result result : results) {
+            assertTrue(result.resolveNanos > 0);
+            assertTrue(result.matchNanos > 0);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        HierarchyScalingBenchmark.print(results, new PrintStream(out, true));
+        assertEquals(results.size() + 1, out.toString().split(System.lineSeparator()).length);
+    }
+}
@@ -0,0 +1,391 @@
+package tech.harmonysoft.oss.jenome.benchmark;
+
+import org.jetbrains.annotations.NotNull;
+import tech.harmonysoft.oss.jenome.match.impl.CompositeTypeComplianceMatcher;
+import tech.harmonysoft.oss.jenome.resolve.TypeFunction;
+import tech.harmonysoft.oss.jenome.resolve.TypeVisitor;
+import tech.harmonysoft.oss.jenome.resolve.impl.DefaultTypeArgumentResolver;
+import tech.harmonysoft.oss.jenome.resolve.impl.TypeFunctionAdapter;
+import tech.harmonysoft.oss.jenome.resolve.impl.TypeVisitorAdapter;
+import tech.harmonysoft.oss.jenome.resolve.util.TypeDispatcher;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.CodeSource;
+import java.util.*;
+
+/**
+ * <p>
+ *      Compares implementations of the multi-release jar: every measurement is performed at a fresh JVM forked
+ *      from the current one with the given jar at the class path. The {@code base} variant is started with
+ *      {@code -Djdk.util.jar.enableMultiRelease=false}, so, it uses the java 8 classes, the {@code versioned}
+ *      variant uses the classes for the current JVM version (e.g. {@code META-INF/versions/17} at java 17+).
+ * </p>
+ * <p>The following workloads are measured, every one of them reports average time of a single operation:</p>
+ * <ul>
+ *     <li>{@code apply} - {@link TypeDispatcher#apply(Type, TypeFunction, Object)} against all kinds of types;</li>
+ *     <li>{@code dispatch} - {@link TypeDispatcher#dispatch(Type, TypeVisitor)} against all kinds of types;</li>
+ *     <li>{@code resolve-uncached} - uncached resolution of {@link BenchmarkTypes#RESOLUTIONS};</li>
+ *     <li>{@code match-uncached} - uncached compliance check of {@link BenchmarkTypes#MATCHES};</li>
+ * </ul>
+ * <p>Usage:</p>
+ * <pre>
+ *     gradlew jar benchmark -Pbenchmark=MultiReleaseBenchmark -PbenchmarkArgs="--jar build/libs/jenome-1.0.1.jar"
+ * </pre>
+ * <p>
+ *      Supported arguments: {@code --jar} (mandatory), {@code --forks} (per variant) and {@code --iterations}
+ *      (number of measured operations per workload).
+ * </p>
+ */
+public class MultiReleaseBenchmark {
+
+    static final String APPLY            = "apply";
+    static final String DISPATCH         = "dispatch";
+    static final String RESOLVE_UNCACHED = "resolve-uncached";
+    static final String MATCH_UNCACHED   = "match-uncached";
+
+    /** Name of the pseudo-metric which holds location of the {@link TypeDispatcher} class used by a forked JVM. */
+    static final String IMPLEMENTATION = "implementation";
+
+    /** Prefix of the lines with metrics printed by the forked JVM. */
+    private static final String METRIC_PREFIX = "jenome-multi-release ";
+
+    private static final String BASE_OPTION = "-Djdk.util.jar.enableMultiRelease=false";
+
+    private final File jar;
+    private final int  forks;
+    private final int  iterations;
+
+    /**
+     * @param jar           multi-release jenome jar
+     * @param forks         number of JVMs to fork per variant
+     * @param iterations    number of measured operations per workload
+     * @throws IllegalArgumentException     if given jar doesn't exist or given numbers are out of range
+     */
+    public MultiReleaseBenchmark(@NotNull File jar, int forks, int iterations) throws IllegalArgumentException {
+        if (!jar.isFile() || forks <= 0 || iterations <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Can't create multi-release benchmark. Reason: existing jar and positive forks and iterations "
+                    + "numbers are expected but got '%s', %d and %d", jar, forks, iterations));
+        }
+        this.jar = jar;
+        this.forks = forks;
+        this.iterations = iterations;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0 && "--probe".equals(args[0])) {
+            probe(Integer.parseInt(args[1]), System.out);
+            return;
+        }
+        File jar = null;
+        int forks = 3;
+        int iterations = 2_000_000;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--jar": jar = new File(args[i + 1]); break;
+                case "--forks": forks = Integer.parseInt(args[i + 1]); break;
+                case "--iterations": iterations = Integer.parseInt(args[i + 1]); break;
+                default: throw new IllegalArgumentException(String.format(
+                        "Can't run multi-release benchmark. Reason: unknown argument '%s'", args[i]));
+            }
+        }
+        if (jar == null) {
+            throw new IllegalArgumentException("Can't run multi-release benchmark. Reason: --jar is not given");
+        }
+        print(new MultiReleaseBenchmark(jar, forks, iterations).run(), System.out);
+    }
+
+    /**
+     * Forks configured number of JVMs for every variant and collects their results.
+     *
+     * @return      results, {@code base} variant first
+     * @throws IOException              if a JVM can't be forked or it fails
+     * @throws InterruptedException     if current thread is interrupted
+     */
+    @NotNull
+    public List<Result> run() throws IOException, InterruptedException {
+        List<Result> result = new ArrayList<>();
+        result.add(measure("base", Collections.singletonList(BASE_OPTION)));
+        result.add(measure("versioned", Collections.emptyList()));
+        return result;
+    }
+
+    @NotNull
+    private Result measure(@NotNull String variant, @NotNull List<String> jvmArgs)
+            throws IOException, InterruptedException
+    {
+        Map<String, List<Double>> nanosPerOperation = new LinkedHashMap<>();
+        String implementation = null;
+        for (int i = 0; i < forks; ++i) {
+            for (Map.Entry<String, String> entry : fork(jvmArgs).entrySet()) {
+                if (IMPLEMENTATION.equals(entry.getKey())) {
+                    implementation = entry.getValue();
+                } else {
+                    nanosPerOperation.computeIfAbsent(entry.getKey(), key -> new ArrayList<>())
+                                     .add(Double.parseDouble(entry.getValue()));
+                }
+            }
+        }
+        return new Result(variant, String.valueOf(implementation), nanosPerOperation);
+    }
+
+    @NotNull
+    private Map<String, String> fork(@NotNull List<String> jvmArgs) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(jvmArgs);
+        command.add("-cp");
+        command.add(getClassPath());
+        command.add(MultiReleaseBenchmark.class.getName());
+        command.add("--probe");
+        command.add(String.valueOf(iterations));
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        Map<String, String> result = new LinkedHashMap<>();
+        StringBuilder output = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(),
+                                                                              StandardCharsets.UTF_8)))
+        {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (line.startsWith(METRIC_PREFIX)) {
+                    String[] parts = line.substring(METRIC_PREFIX.length()).split("=", 2);
+                    result.put(parts[0], parts[1]);
+                } else {
+                    output.append(line).append(System.lineSeparator());
+                }
+            }
+        }
+        int exitCode = process.waitFor();
+        if (exitCode != 0) {
+            throw new IOException(String.format(
+                    "Can't compare multi-release jar implementations. Reason: forked JVM exited with code %d "
+                    + "and output%n%s", exitCode, output));
+        }
+        return result;
+    }
+
+    /**
+     * Builds class path which contains the jar, jenome dependencies and the benchmark. Classes of the current
+     * jenome build are not included, so, the forked JVM loads them from the jar.
+     */
+    @NotNull
+    private String getClassPath() throws IOException {
+        Set<String> entries = new LinkedHashSet<>();
+        entries.add(jar.getPath());
+        for (Class<?> clazz : new Class<?>[] { MultiReleaseBenchmark.class, NotNull.class }) {
+            CodeSource codeSource = clazz.getProtectionDomain().getCodeSource();
+            if (codeSource == null) {
+                throw new IOException(String.format("Can't find class path entry of %s", clazz));
+            }
+            try {
+                entries.add(new File(codeSource.getLocation().toURI()).getPath());
+            } catch (URISyntaxException e) {
+                throw new IOException(String.format("Can't find class path entry of %s", clazz), e);
+            }
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+
+    /**
+     * Is executed at the forked JVM, prints results to the given stream.
+     *
+     * @param iterations    number of measured operations per workload
+     * @param out           target stream
+     */
+    static void probe(int iterations, @NotNull PrintStream out) {
+        URL implementation = TypeDispatcher.class.getResource(TypeDispatcher.class.getSimpleName() + ".class");
+        out.println(METRIC_PREFIX + IMPLEMENTATION + "=" + implementation);
+
+        Type[] types = getDispatchedTypes();
+        TypeFunction<Type[], Integer> function = new TypeFunctionAdapter<Type[], Integer>() {
+            @Override
+            public Integer visitParameterizedType(@NotNull ParameterizedType type, Type[] parameter) {
+                return 1;
+            }
+
+            @Override
+            public Integer visitWildcardType(@NotNull WildcardType type, Type[] parameter) {
+                return 2;
+            }
+
+            @Override
+            public Integer visitGenericArrayType(@NotNull GenericArrayType type, Type[] parameter) {
+                return 3;
+            }
+
+            @Override
+            public Integer visitTypeVariable(@NotNull TypeVariable<? extends GenericDeclaration> type,
+                                             Type[] parameter)
+            {
+                return 4;
+            }
+
+            @Override
+            public Integer visitClass(@NotNull Class<?> clazz, Type[] parameter) {
+                return 5;
+            }
+        };
+        int[] visited = new int[1];
+        TypeVisitor visitor = new TypeVisitorAdapter() {
+            @Override
+            public void visitParameterizedType(@NotNull ParameterizedType type) {
+                visited[0] += 1;
+            }
+
+            @Override
+            public void visitWildcardType(@NotNull WildcardType type) {
+                visited[0] += 2;
+            }
+
+            @Override
+            public void visitGenericArrayType(@NotNull GenericArrayType type) {
+                visited[0] += 3;
+            }
+
+            @Override
+            public void visitTypeVariable(@NotNull TypeVariable<? extends GenericDeclaration> type) {
+                visited[0] += 4;
+            }
+
+            @Override
+            public void visitClass(@NotNull Class<?> clazz) {
+                visited[0] += 5;
+            }
+        };
+        DefaultTypeArgumentResolver resolver = new DefaultTypeArgumentResolver();
+        resolver.setCacheFactory(ThroughputBenchmark.NO_CACHE);
+        CompositeTypeComplianceMatcher matcher = new CompositeTypeComplianceMatcher();
+        matcher.setCacheFactory(ThroughputBenchmark.NO_CACHE);
+
+        Map<String, Workload> workloads = new LinkedHashMap<>();
+        workloads.put(APPLY, i -> {
+            Integer result = TypeDispatcher.INSTANCE.apply(types[i % types.length], function, types);
+            return result == null ? 0 : result;
+        });
+        workloads.put(DISPATCH, i -> {
+            TypeDispatcher.INSTANCE.dispatch(types[i % types.length], visitor);
+            return visited[0];
+        });
+        workloads.put(RESOLVE_UNCACHED, i -> {
+            Object[] resolution = BenchmarkTypes.RESOLUTIONS[i % BenchmarkTypes.RESOLUTIONS.length];
+            return resolver.resolve((Type) resolution[0], (Type) resolution[1], (Integer) resolution[2]).hashCode();
+        });
+        workloads.put(MATCH_UNCACHED, i -> {
+            Type[] match = BenchmarkTypes.MATCHES[i % BenchmarkTypes.MATCHES.length];
+            return matcher.match(match[0], match[1]) ? 1 : 0;
+        });
+
+        long sink = 0;
+        for (Map.Entry<String, Workload> entry : workloads.entrySet()) {
+            Workload workload = entry.getValue();
+            // Warm up with the same number of operations.
+            for (int i = 0; i < iterations; ++i) {
+                sink += workload.run(i);
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; ++i) {
+                sink += workload.run(i);
+            }
+            double nanosPerOperation = (System.nanoTime() - start) / (double) iterations;
+            out.println(METRIC_PREFIX + entry.getKey() + "=" + nanosPerOperation);
+        }
+        if (sink == 42) {
+            // Keeps the results alive, so, the JIT can't drop the calls.
+            out.println();
+        }
+    }
+
+    @NotNull
+    private static Type[] getDispatchedTypes() {
+        Type parameterized = BenchmarkTypes.MATCHES[0][0];
+        Type wildcard = ((ParameterizedType) parameterized).getActualTypeArguments()[0];
+        return new Type[] {
+                Integer.class, parameterized, wildcard, List.class.getTypeParameters()[0], getGenericArrayType()
+        };
+    }
+
+    @NotNull
+    private static Type getGenericArrayType() {
+        for (Method method : Collection.class.getMethods()) {
+            if ("toArray".equals(method.getName()) && method.getParameterCount() == 1
+                && method.getGenericReturnType() instanceof GenericArrayType)
+            {
+                return method.getGenericReturnType();
+            }
+        }
+        throw new IllegalStateException("Can't find a generic array type at Collection.toArray(T[])");
+    }
+
+    /**
+     * Prints given results as a table, every {@code versioned} variant value is followed by its speedup
+     * against the {@code base} variant.
+     *
+     * @param results   results to print, {@code base} variant first
+     * @param out       target stream
+     */
+    public static void print(@NotNull List<Result> results, @NotNull PrintStream out) {
+        for (Result result : results) {
+            out.printf("%s: %s%n", result.variant, result.implementation);
+        }
+        out.printf("%-18s", "workload, ns/op");
+        for (Result result : results) {
+            out.printf(" %12s", result.variant);
+        }
+        out.printf(" %9s%n", "speedup");
+        for (String workload : results.get(0).nanosPerOperation.keySet()) {
+            out.printf("%-18s", workload);
+            for (Result result : results) {
+                out.printf(" %12.2f", result.getMedian(workload));
+            }
+            out.printf(" %8.2fx%n", results.get(0).getMedian(workload)
+                                    / results.get(results.size() - 1).getMedian(workload));
+        }
+    }
+
+    private interface Workload {
+        int run(int iteration);
+    }
+
+    /**
+     * Results of a single variant.
+     */
+    public static class Result {
+
+        @NotNull public final String                    variant;
+        @NotNull public final String                    implementation;
+        @NotNull public final Map<String, List<Double>> nanosPerOperation;
+
+        Result(@NotNull String variant,
+               @NotNull String implementation,
+               @NotNull Map<String, List<Double>> nanosPerOperation)
+        {
+            this.variant = variant;
+            this.implementation = implementation;
+            this.nanosPerOperation = nanosPerOperation;
+        }
+
+        /**
+         * @param workload      target workload
+         * @return              median of the average operation time reported by the forks for the given workload,
+         *                      in nanoseconds; {@link Double#NaN} if there are no such results
+         */
+        public double getMedian(@NotNull String workload) {
+            List<Double> values = nanosPerOperation.get(workload);
+            if (values == null || values.isEmpty()) {
+                return Double.NaN;
+            }
+            List<Double> sorted = new ArrayList<>(values);
+            Collections.sort(sorted);
+            return sorted.get(sorted.size() / 2);
+        }
+
+        @Override
+        public String toString() {
+            return variant + ": " + nanosPerOperation;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package tech.harmonysoft.oss.jenome.benchmark;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import tech.harmonysoft.oss.jenome.resolve.TypeFunction;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class MultiReleaseBenchmarkTest {
+
+    private static final String[] WORKLOADS = {
+            MultiReleaseBenchmark.APPLY, MultiReleaseBenchmark.DISPATCH,
+            MultiReleaseBenchmark.RESOLVE_UNCACHED, MultiReleaseBenchmark.MATCH_UNCACHED
+    };
+
+    @Test
+    public void probeReportsAllWorkloads() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MultiReleaseBenchmark.probe(1_000, new PrintStream(out, true));
+        String output = out.toString();
+        assertTrue(output.contains(MultiReleaseBenchmark.IMPLEMENTATION + "="), output);
+        for (String workload : WORKLOADS) {
+            assertTrue(output.contains(workload + "="), workload);
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void forkedJvmsAreMeasured() throws Exception {
+        // TypeDispatcher itself might be loaded from versioned classes, so, the class which is not versioned is used.
+        Path classes = Paths.get(TypeFunction.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        assumeTrue(Files.isDirectory(classes), "jenome classes are expected to be at a directory");
+        File jar = File.createTempFile("jenome", ".jar");
+        try {
+            // The jar doesn't have versioned classes, so, both variants are expected to use the same ones.
+            createJar(classes, jar);
+            List<MultiReleaseBenchmark.Result> results = new MultiReleaseBenchmark(jar, 1, 1_000).run();
+            assertEquals(2, results.size());
+            for (MultiReleaseBenchmark.Result result : results) {
+                assertTrue(result.implementation.startsWith("jar:"), result.implementation);
+                assertFalse(result.implementation.contains("META-INF/versions"), result.implementation);
+                for (String workload : WORKLOADS) {
+                    assertTrue(result.getMedian(workload) > 0, workload);
+                }
+            }
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            MultiReleaseBenchmark.print(results, new PrintStream(out, true));
+            assertEquals(3 + WORKLOADS.length, out.toString().split(System.lineSeparator()).length);
+        } finally {
+            assertTrue(jar.delete());
+        }
+    }
+
+    @Test
+    public void invalidSettings() throws IOException {
+        File jar = File.createTempFile("jenome", ".jar");
+        try {
+            assertThrows(IllegalArgumentException.class,
+                         () -> new MultiReleaseBenchmark(new File(jar.getPath() + ".absent"), 1, 1));
+            assertThrows(IllegalArgumentException.class, () -> new MultiReleaseBenchmark(jar, 0, 1));
+            assertThrows(IllegalArgumentException.class, () -> new MultiReleaseBenchmark(jar, 1, 0));
+        } finally {
+            assertTrue(jar.delete());
+        }
+    }
+
+    private static void createJar(@NotNull Path classes, @NotNull File jar) throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().putValue("Multi-Release", "true");
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar), manifest);
+             Stream<Path> files = Files.walk(classes))
+        {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                out.putNextEntry(new JarEntry(classes.relativize(file).toString().replace(File.separatorChar, '/')));
+                Files.copy(file, out);
+                out.closeEntry();
+            }
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package tech.harmonysoft.oss.jenome.benchmark;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import tech.harmonysoft.oss.jenome.cache.CacheStats;
+import tech.harmonysoft.oss.jenome.cache.JenomeCache;
+import tech.harmonysoft.oss.jenome.cache.JenomeCacheFactory;
+import tech.harmonysoft.oss.jenome.match.impl.CompositeTypeComplianceMatcher;
+import tech.harmonysoft.oss.jenome.resolve.impl.DefaultTypeArgumentResolver;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * <p>
+ *      Measures throughput of the resolver and matcher executed concurrently by 1, 2, 4 ... N threads, both
+ *      platform and virtual (when the current JVM offers them). Every thread count is reported with its
+ *      scaling efficiency (throughput divided by single-thread throughput multiplied by the number of threads,
+ *      i.e. {@code 1.0} means linear scaling) and contention (monitor blocks per million operations, only
+ *      available for platform threads).
+ * </p>
+ * <p>
+ *      Cached workloads go through the result caches, uncached workloads use caches which never store
+ *      anything, i.e. they show the cost of the thread-local state used by the algorithms.
+ * </p>
+ * <p>Usage:</p>
+ * <pre>
+ *     gradlew benchmark -Pbenchmark=ThroughputBenchmark -PbenchmarkArgs="--threads 64 --duration 5000"
+ * </pre>
+ * <p>Supported arguments: {@code --threads}, {@code --warmup} (ms), {@code --duration} (ms), {@code --workloads}.</p>
+ */
+public class ThroughputBenchmark {
+
+    private static final int STOPPED   = 0;
+    private static final int WARMING   = 1;
+    private static final int MEASURING = 2;
+
+    /** Caches nothing, is used by the uncached workloads. */
+    static final JenomeCacheFactory NO_CACHE = new JenomeCacheFactory() {
+        @NotNull
+        @Override
+        public <K, V> JenomeCache<K, V> newCache(@NotNull String name) {
+            return new JenomeCache<K, V>() {
+                @Nullable
+                @Override
+                public V get(@NotNull K key) {
+                    return null;
+                }
+
+                @NotNull
+                @Override
+                public V putIfAbsent(@NotNull K key, @NotNull V value) {
+                    return value;
+                }
+
+                @Override
+                public int size() {
+                    return 0;
+                }
+
+                @Override
+                public void clear() {
+                }
+
+                @NotNull
+                @Override
+                public CacheStats getStats() {
+                    return CacheStats.EMPTY;
+                }
+            };
+        }
+    };
+
+    private final int  maxThreads;
+    private final long warmupMillis;
+    private final long durationMillis;
+
+    private volatile int phase;
+
+    public ThroughputBenchmark(int maxThreads, long warmupMillis, long durationMillis) {
+        if (maxThreads <= 0 || warmupMillis < 0 || durationMillis <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Can't create throughput benchmark. Reason: invalid settings - threads=%d, warmup=%d, "
+                    + "duration=%d", maxThreads, warmupMillis, durationMillis));
+        }
+        this.maxThreads = maxThreads;
+        this.warmupMillis = warmupMillis;
+        this.durationMillis = durationMillis;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        long warmup = 1000;
+        long duration = 3000;
+        List<Workload> workloads = Arrays.asList(Workload.values());
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--threads": threads = Integer.parseInt(args[i + 1]); break;
+                case "--warmup": warmup = Long.parseLong(args[i + 1]); break;
+                case "--duration": duration = Long.parseLong(args[i + 1]); break;
+                case "--workloads":
+                    workloads = new ArrayList<>();
+                    for (String name : args[i + 1].split(",")) {
+                        workloads.add(Workload.valueOf(name.trim().toUpperCase(Locale.ENGLISH)));
+                    }
+                    break;
+                default: throw new IllegalArgumentException(String.format(
+                        "Can't run throughput benchmark. Reason: unknown argument '%s'", args[i]));
+            }
+        }
+        ThroughputBenchmark benchmark = new ThroughputBenchmark(threads, warmup, duration);
+        print(benchmark.run(workloads, Arrays.asList(ThreadKind.values())), System.out);
+    }
+
+    /**
+     * @return      1, 2, 4 ... thread counts up to the maximum one
+     */
+    @NotNull
+    List<Integer> getThreadCounts() {
+        List<Integer> result = new ArrayList<>();
+        for (int i = 1; i < maxThreads; i <<= 1) {
+            result.add(i);
+        }
+        result.add(maxThreads);
+        return result;
+    }
+
+    /**
+     * @param workloads     workloads to run
+     * @param kinds         kinds of threads to use, kinds not available at the current JVM are skipped
+     * @return              measurement results
+     * @throws InterruptedException     if current thread is interrupted
+     */
+    @NotNull
+    public List<Result> run(@NotNull Collection<Workload> workloads, @NotNull Collection<ThreadKind> kinds)
+            throws InterruptedException
+    {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (threadBean.isThreadContentionMonitoringSupported()) {
+            threadBean.setThreadContentionMonitoringEnabled(true);
+        }
+        List<Result> results = new ArrayList<>();
+        for (Workload workload : workloads) {
+            for (ThreadKind kind : kinds) {
+                Function<Runnable, Thread> threadFactory = kind.getFactory();
+                if (threadFactory == null) {
+                    continue;
+                }
+                double singleThreadThroughput = 0;
+                for (int threads : getThreadCounts()) {
+                    Result result = measure(workload, kind, threadFactory, threads, threadBean);
+                    if (threads == 1) {
+                        singleThreadThroughput = result.opsPerSecond;
+                    }
+                    result.scaling = singleThreadThroughput <= 0
+                                     ? 0 : result.opsPerSecond / (singleThreadThroughput * threads);
+                    results.add(result);
+                }
+            }
+        }
+        return results;
+    }
+
+    @NotNull
+    private Result measure(@NotNull Workload workload,
+                           @NotNull ThreadKind kind,
+                           @NotNull Function<Runnable, Thread> threadFactory,
+                           int threadsNumber,
+                           @NotNull ThreadMXBean threadBean) throws InterruptedException
+    {
+        IntFunction<Object> operation = workload.newOperation();
+        long[] ops = new long[threadsNumber];
+        long[] threadIds = new long[threadsNumber];
+        CountDownLatch started = new CountDownLatch(threadsNumber);
+        List<Thread> threads = new ArrayList<>();
+        phase = WARMING;
+        for (int i = 0; i < threadsNumber; ++i) {
+            int threadIndex = i;
+            Thread thread = threadFactory.apply(() -> {
+                threadIds[threadIndex] = Thread.currentThread().getId();
+                started.countDown();
+                long count = 0;
+                for (int j = threadIndex; ; ++j) {
+                    int currentPhase = phase;
+                    if (currentPhase == STOPPED) {
+                        break;
+                    }
+                    operation.apply(j);
+                    if (currentPhase == MEASURING) {
+                        count++;
+                    }
+                }
+                ops[threadIndex] = count;
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        started.await();
+        Thread.sleep(warmupMillis);
+
+        long[] blockedBefore = getBlockedCount(threadBean, threadIds, kind);
+        long start = System.nanoTime();
+        phase = MEASURING;
+        Thread.sleep(durationMillis);
+        long[] blockedAfter = getBlockedCount(threadBean, threadIds, kind);
+        phase = STOPPED;
+        long elapsed = System.nanoTime() - start;
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long total = 0;
+        for (long count : ops) {
+            total += count;
+        }
+        long blocked = -1;
+        if (blockedBefore != null && blockedAfter != null) {
+            blocked = 0;
+            for (int i = 0; i < threadsNumber; ++i) {
+                blocked += blockedAfter[i] - blockedBefore[i];
+            }
+        }
+        return new Result(workload, kind, threadsNumber, total * 1e9 / elapsed,
+                          blocked < 0 || total == 0 ? -1 : blocked * 1e6 / total);
+    }
+
+    @Nullable
+    private static long[] getBlockedCount(@NotNull ThreadMXBean threadBean,
+                                          @NotNull long[] threadIds,
+                                          @NotNull ThreadKind kind)
+    {
+        if (kind != ThreadKind.PLATFORM || !threadBean.isThreadContentionMonitoringEnabled()) {
+            return null;
+        }
+        ThreadInfo[] infos = threadBean.getThreadInfo(threadIds);
+        long[] result = new long[threadIds.length];
+        for (int i = 0; i < infos.length; ++i) {
+            if (infos[i] == null) {
+                return null;
+            }
+            result[i] = infos[i].getBlockedCount();
+        }
+        return result;
+    }
+
+    /**
+     * Prints given results as a table.
+     *
+     * @param results   results to print
+     * @param out       target stream
+     */
+    public static void print(@NotNull List<Result> results, @NotNull PrintStream out) {
+        out.printf("%-18s %-9s %8s %16s %9s %18s%n",
+                   "workload", "kind", "threads", "ops/s", "scaling", "blocks/1M ops");
+        for (Result result : results) {
+            out.printf("%-18s %-9s %8d %,16.0f %9.2f %18s%n",
+                       result.workload.name().toLowerCase(Locale.ENGLISH),
+                       result.kind.name().toLowerCase(Locale.ENGLISH),
+                       result.threads,
+                       result.opsPerSecond,
+                       result.scaling,
+                       result.blocksPerMillionOps < 0 ? "n/a" : String.format("%.2f", result.blocksPerMillionOps));
+        }
+    }
+
+    /** Benchmarked operations. */
+    public enum Workload {
+
+        RESOLVE_CACHED {
+            @NotNull
+            @Override
+            IntFunction<Object> newOperation() {
+                return resolve(new DefaultTypeArgumentResolver());
+            }
+        },
+
+        RESOLVE_UNCACHED {
+            @NotNull
+            @Override
+            IntFunction<Object> newOperation() {
+                DefaultTypeArgumentResolver resolver = new DefaultTypeArgumentResolver();
+                resolver.setCacheFactory(NO_CACHE);
+                return resolve(resolver);
+            }
+        },
+
+        MATCH_CACHED {
+            @NotNull
+            @Override
+            IntFunction<Object> newOperation() {
+                return match(new CompositeTypeComplianceMatcher());
+            }
+        },
+
+        MATCH_UNCACHED {
+            @NotNull
+            @Override
+            IntFunction<Object> newOperation() {
+                CompositeTypeComplianceMatcher matcher = new CompositeTypeComplianceMatcher();
+                matcher.setCacheFactory(NO_CACHE);
+                return match(matcher);
+            }
+        };
+
+        /**
+         * @return      operation which is shared by all benchmark threads, it accepts an iteration number
+         */
+        @NotNull
+        abstract IntFunction<Object> newOperation();
+
+        @NotNull
+        private static IntFunction<Object> resolve(@NotNull DefaultTypeArgumentResolver resolver) {
+            return i -> {
+                Object[] resolution = BenchmarkTypes.RESOLUTIONS[i % BenchmarkTypes.RESOLUTIONS.length];
+                return resolver.resolve((Type) resolution[0], (Type) resolution[1], (Integer) resolution[2]);
+            };
+        }
+
+        @NotNull
+        private static IntFunction<Object> match(@NotNull CompositeTypeComplianceMatcher matcher) {
+            return i -> {
+                Type[] match = BenchmarkTypes.MATCHES[i % BenchmarkTypes.MATCHES.length];
+                return matcher.match(match[0], match[1]);
+            };
+        }
+    }
+
+    /** Kinds of threads which run the benchmark. */
+    public enum ThreadKind {
+
+        PLATFORM {
+            @NotNull
+            @Override
+            Function<Runnable, Thread> getFactory() {
+                return Thread::new;
+            }
+        },
+
+        /** Requires java 21+, the kind is skipped at older JVMs. */
+        VIRTUAL {
+            @Nullable
+            @Override
+            Function<Runnable, Thread> getFactory() {
+                try {
+                    Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+                    Method unstarted = Class.forName("java.lang.Thread$Builder")
+                                            .getMethod("unstarted", Runnable.class);
+                    return runnable -> {
+                        try {
+                            return (Thread) unstarted.invoke(builder, runnable);
+                        } catch (ReflectiveOperationException e) {
+                            throw new IllegalStateException("Can't create a virtual thread", e);
+                        }
+                    };
+                } catch (ReflectiveOperationException e) {
+                    return null;
+                }
+            }
+        };
+
+        /**
+         * @return      factory of unstarted threads; {@code null} if current kind is not available
+         */
+        @Nullable
+        abstract Function<Runnable, Thread> getFactory();
+    }
+
+    /** Throughput measured for particular workload, thread kind and thread count. */
+    public static class Result {
+
+        @NotNull final Workload   workload;
+        @NotNull final ThreadKind kind;
+        final          int        threads;
+        final          double     opsPerSecond;
+        final          double     blocksPerMillionOps;
+        double                    scaling;
+
+        Result(@NotNull Workload workload,
+               @NotNull ThreadKind kind,
+               int threads,
+               double opsPerSecond,
+               double blocksPerMillionOps)
+        {
+            this.workload = workload;
+            this.kind = kind;
+            this.threads = threads;
+            this.opsPerSecond = opsPerSecond;
+            this.blocksPerMillionOps = blocksPerMillionOps;
+        }
+    }
+}
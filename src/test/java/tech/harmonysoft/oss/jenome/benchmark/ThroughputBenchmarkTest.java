@@ -0,0 +1,41 @@
+package tech.harmonysoft.oss.jenome.benchmark;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ThroughputBenchmarkTest {
+
+    @Test
+    public void threadCounts() {
+        assertEquals(Arrays.asList(1, 2, 4, 6), new ThroughputBenchmark(6, 0, 1).getThreadCounts());
+        assertEquals(Collections.singletonList(1), new ThroughputBenchmark(1, 0, 1).getThreadCounts());
+    }
+
+    @Test
+    public void allWorkloadsAreMeasured() throws Exception {
+        ThroughputBenchmark benchmark = new ThroughputBenchmark(2, 10, 30);
+        List<ThroughputBenchmark.Result> results = benchmark.run(
+                Arrays.asList(ThroughputBenchmark.Workload.values()),
+                Arrays.asList(ThroughputBenchmark.ThreadKind.values()));
+
+        int kinds = ThroughputBenchmark.ThreadKind.VIRTUAL.getFactory() == null ? 1 : 2;
+        assertEquals(ThroughputBenchmark.Workload.values().length * kinds * 2, results.size());
+        for (ThroughputBenchmark.Result result : results) {
+            assertTrue(result.opsPerSecond > 0);
+            if (result.threads == 1) {
+                assertEquals(1.0, result.scaling, 0.0001);
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ThroughputBenchmark.print(results, new PrintStream(out, true));
+        assertEquals(results.size() + 1, out.toString().split(System.lineSeparator()).length);
+    }
+}
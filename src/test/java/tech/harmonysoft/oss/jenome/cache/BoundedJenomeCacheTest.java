@@ -0,0 +1,103 @@
+package tech.harmonysoft.oss.jenome.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoundedJenomeCacheTest {
+
+    @Test
+    public void sizeIsBounded() {
+        BoundedJenomeCache<Integer, Integer> cache = new BoundedJenomeCache<>(10);
+        for (int i = 0; i < 100; ++i) {
+            cache.get(i);
+            cache.putIfAbsent(i, i);
+            assertTrue(cache.size() <= 10);
+        }
+        assertEquals(10, cache.size());
+    }
+
+    @Test
+    public void frequentlyUsedEntriesReplaceRarelyUsedOnes() {
+        BoundedJenomeCache<String, String> cache = new BoundedJenomeCache<>(10);
+        for (int i = 0; i < 10; ++i) {
+            cache.get("cold" + i);
+            cache.putIfAbsent("cold" + i, "cold");
+        }
+        for (int i = 0; i < 10; ++i) {
+            String key = "hot" + i;
+            for (int j = 0; j < 3; ++j) {
+                cache.get(key);
+            }
+            cache.putIfAbsent(key, key);
+        }
+
+        for (int i = 0; i < 10; ++i) {
+            assertEquals("hot" + i, cache.get("hot" + i));
+        }
+        assertEquals(10, cache.size());
+        assertEquals(10, cache.getStats().getEvictions());
+    }
+
+    @Test
+    public void hotEntriesSurviveScan() {
+        BoundedJenomeCache<String, String> cache = new BoundedJenomeCache<>(10);
+        for (int i = 0; i < 10; ++i) {
+            String key = "hot" + i;
+            for (int j = 0; j < 5; ++j) {
+                cache.get(key);
+            }
+            cache.putIfAbsent(key, key);
+        }
+
+        // One-off lookups interleaved with the regular usage of the hot entries.
+        for (int i = 0; i < 1000; ++i) {
+            String key = "scan" + i;
+            if (cache.get(key) == null) {
+                assertEquals(key, cache.putIfAbsent(key, key));
+            }
+            cache.get("hot" + i % 10);
+        }
+
+        // LRU cache would evict all hot entries here. Frequency estimations are not exact, so, we allow a scan
+        // entry to sneak in occasionally.
+        int hotEntries = 0;
+        for (int i = 0; i < 10; ++i) {
+            if (cache.get("hot" + i) != null) {
+                hotEntries++;
+            }
+        }
+        assertTrue(hotEntries >= 9, "Expected hot entries to survive the scan but only " + hotEntries + " did");
+        assertTrue(cache.getStats().getEvictions() <= 1);
+    }
+
+    @Test
+    public void stats() {
+        BoundedJenomeCache<String, String> cache = new BoundedJenomeCache<>(2);
+        assertNull(cache.get("a"));
+        cache.putIfAbsent("a", "1");
+        assertEquals("1", cache.get("a"));
+        assertEquals("1", cache.get("a"));
+        CacheStats stats = cache.getStats();
+        assertEquals(2, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(2.0 / 3, stats.getHitRatio(), 1e-9);
+    }
+
+    @Test
+    public void clear() {
+        BoundedJenomeCache<String, String> cache = new BoundedJenomeCache<>(2);
+        cache.putIfAbsent("a", "1");
+        cache.putIfAbsent("b", "2");
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals("3", cache.putIfAbsent("c", "3"));
+        assertEquals("3", cache.get("c"));
+    }
+
+    @Test
+    public void nonPositiveSize() {
+        assertThrows(IllegalArgumentException.class, () -> new BoundedJenomeCache<>(0));
+        assertThrows(IllegalArgumentException.class, () -> BoundedJenomeCache.factory(-1));
+    }
+}
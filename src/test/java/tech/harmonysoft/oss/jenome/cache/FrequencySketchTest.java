@@ -0,0 +1,33 @@
+package tech.harmonysoft.oss.jenome.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FrequencySketchTest {
+
+    @Test
+    public void frequencyIsCountedUpToLimit() {
+        FrequencySketch sketch = new FrequencySketch(512);
+        assertEquals(0, sketch.frequency("key"));
+        for (int i = 1; i <= 20; ++i) {
+            sketch.increment("key");
+            assertEquals(Math.min(i, 15), sketch.frequency("key"));
+        }
+    }
+
+    @Test
+    public void frequenciesDecay() {
+        FrequencySketch sketch = new FrequencySketch(16);
+        for (int i = 0; i < 15; ++i) {
+            sketch.increment("hot");
+        }
+        assertEquals(15, sketch.frequency("hot"));
+
+        // Sample size is 10 * 16, i.e. the counters are halved after that many additions.
+        for (int i = 0; i < 160; ++i) {
+            sketch.increment(i);
+        }
+        assertTrue(sketch.frequency("hot") < 15);
+    }
+}
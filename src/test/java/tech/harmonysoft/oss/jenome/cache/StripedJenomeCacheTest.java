@@ -0,0 +1,54 @@
+package tech.harmonysoft.oss.jenome.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StripedJenomeCacheTest {
+
+    @Test
+    public void leastRecentlyUsedEntryIsEvicted() {
+        StripedJenomeCache<String, String> cache = new StripedJenomeCache<>(2, 1);
+        assertEquals(1, cache.getSegmentsNumber());
+        cache.putIfAbsent("a", "1");
+        cache.putIfAbsent("b", "2");
+        assertEquals("1", cache.get("a"));
+        cache.putIfAbsent("c", "3");
+
+        assertEquals(2, cache.size());
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("3", cache.get("c"));
+        assertEquals(new CacheStats(3, 1, 1), cache.getStats());
+    }
+
+    @Test
+    public void sizeIsBounded() {
+        StripedJenomeCache<Integer, Integer> cache = new StripedJenomeCache<>(64, 8);
+        assertEquals(8, cache.getSegmentsNumber());
+        for (int i = 0; i < 1000; ++i) {
+            cache.putIfAbsent(i, i);
+        }
+        assertTrue(cache.size() <= 64);
+        assertEquals(1000 - cache.size(), cache.getStats().getEvictions());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void sizeIsBounded_whenItIsNotDivisibleBySegmentsNumber() {
+        StripedJenomeCache<Integer, Integer> cache = new StripedJenomeCache<>(10, 8);
+        assertEquals(8, cache.getSegmentsNumber());
+        for (int i = 0; i < 1000; ++i) {
+            cache.putIfAbsent(i, i);
+        }
+        assertEquals(10, cache.size());
+    }
+
+    @Test
+    public void segmentsNumberDoesNotExceedSize() {
+        assertEquals(2, new StripedJenomeCache<>(3, 64).getSegmentsNumber());
+        assertThrows(IllegalArgumentException.class, () -> new StripedJenomeCache<>(10, 0));
+    }
+}
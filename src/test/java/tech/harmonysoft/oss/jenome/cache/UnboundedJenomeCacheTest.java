@@ -0,0 +1,25 @@
+package tech.harmonysoft.oss.jenome.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UnboundedJenomeCacheTest {
+
+    private final JenomeCache<String, Integer> cache = UnboundedJenomeCache.FACTORY.newCache("test");
+
+    @Test
+    public void putAndGet() {
+        assertNull(cache.get("a"));
+        assertEquals(1, (int) cache.putIfAbsent("a", 1));
+        assertEquals(1, (int) cache.putIfAbsent("a", 2));
+        assertEquals(1, (int) cache.get("a"));
+        assertEquals(1, cache.size());
+        assertEquals(new CacheStats(1, 1, 0), cache.getStats());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertNull(cache.get("a"));
+        assertEquals(new CacheStats(1, 2, 0), cache.getStats());
+    }
+}
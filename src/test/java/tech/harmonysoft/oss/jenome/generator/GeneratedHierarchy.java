@@ -0,0 +1,117 @@
+package tech.harmonysoft.oss.jenome.generator;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Holds classes produced by a {@link HierarchyGenerator}.</p>
+ * <p>Immutable.</p>
+ */
+public class GeneratedHierarchy {
+
+    @NotNull private final ClassLoader          classLoader;
+    @NotNull private final Class<?>             root;
+    @Nullable private final Class<?>            diamondTop;
+    @NotNull private final List<List<Class<?>>> levels;
+    @NotNull private final List<Class<?>>       leaves;
+    @NotNull private final Class<?>[][]         expected;
+    private final          int                  classesNumber;
+
+    GeneratedHierarchy(@NotNull ClassLoader classLoader,
+                       @NotNull Class<?> root,
+                       @Nullable Class<?> diamondTop,
+                       @NotNull List<List<Class<?>>> levels,
+                       @NotNull List<Class<?>> leaves,
+                       @NotNull Class<?>[][] expected,
+                       int classesNumber)
+    {
+        this.classLoader = classLoader;
+        this.root = root;
+        this.diamondTop = diamondTop;
+        this.levels = levels;
+        this.leaves = leaves;
+        this.expected = expected;
+        this.classesNumber = classesNumber;
+    }
+
+    /**
+     * @return      class loader which defines all generated classes
+     */
+    @NotNull
+    public ClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    /**
+     * @return      {@code Root} interface implemented by all chains
+     */
+    @NotNull
+    public Class<?> getRoot() {
+        return root;
+    }
+
+    /**
+     * @return      {@code DiamondTop<X>} interface, every class which implements it binds it to {@link String};
+     *              {@code null} if the hierarchy has no diamonds
+     */
+    @Nullable
+    public Class<?> getDiamondTop() {
+        return diamondTop;
+    }
+
+    /**
+     * @return      generic classes of every chain, from the one which implements {@code Root} to the leaf's parent
+     */
+    @NotNull
+    public List<List<Class<?>>> getLevels() {
+        return levels;
+    }
+
+    /**
+     * @return      non-generic leaf class of every chain
+     */
+    @NotNull
+    public List<Class<?>> getLeaves() {
+        return leaves;
+    }
+
+    /**
+     * @return      all generic and leaf classes of all chains
+     */
+    @NotNull
+    public List<Class<?>> getClasses() {
+        List<Class<?>> result = new ArrayList<>();
+        for (int i = 0; i < leaves.size(); ++i) {
+            result.addAll(levels.get(i));
+            result.add(leaves.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * @param chain     chain index
+     * @param index     {@code Root} type parameter index
+     * @return          type argument of {@code Root} bound by the leaf class of the given chain
+     */
+    @NotNull
+    public Class<?> getExpectedRootArgument(int chain, int index) {
+        return expected[chain][index];
+    }
+
+    /**
+     * @return      number of {@code Root} type parameters
+     */
+    public int getTypeParametersNumber() {
+        return expected[0].length;
+    }
+
+    /**
+     * @return      total number of generated classes and interfaces
+     */
+    public int getClassesNumber() {
+        return classesNumber;
+    }
+}
@@ -0,0 +1,283 @@
+package tech.harmonysoft.oss.jenome.generator;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * <p>
+ *      Generates class hierarchies of configurable shape at runtime. Generated classes are compiled in memory
+ *      and loaded by a dedicated class loader, they look as follows:
+ * </p>
+ * <pre>
+ *     public interface Root&lt;T0, T1&gt; {}
+ *     public class Chain0Level1&lt;T0, T1&gt; implements Root&lt;T0, T1&gt; {}
+ *     public class Chain0Level2&lt;T0, T1&gt; extends Chain0Level1&lt;T1, T0&gt;
+ *             implements Chain0Level2Extra0&lt;T0&gt; {}
+ *     ...
+ *     public class Chain0Leaf extends Chain0Level5&lt;String, Integer&gt; {}
+ * </pre>
+ * <p>Shape is defined by the following settings:</p>
+ * <ul>
+ *     <li>{@link #depth(int) depth} - number of generic classes between {@code Root} and a leaf class;</li>
+ *     <li>{@link #width(int) width} - number of independent chains which implement {@code Root};</li>
+ *     <li>{@link #typeParameters(int) type parameters} - number of {@code Root} type parameters;</li>
+ *     <li>{@link #rebinding(Rebinding) rebinding} - how type arguments are passed to a superclass;</li>
+ *     <li>{@link #extraInterfaces(int) extra interfaces} - number of unrelated generic interfaces per class;</li>
+ *     <li>
+ *          {@link #diamondEvery(int) diamonds} - every n-th class implements {@code DiamondLeft<String>} and
+ *          {@code DiamondRight<String>} which both extend {@code DiamondTop<X>};
+ *     </li>
+ * </ul>
+ * <p>
+ *      The generator keeps track of type arguments bindings, so, the resulting {@link GeneratedHierarchy} knows
+ *      expected {@code Root} type arguments for every leaf class.
+ * </p>
+ * <p>Not thread-safe.</p>
+ */
+public class HierarchyGenerator {
+
+    public static final String PACKAGE = "jenome.generated";
+
+    /** Classes used to bind type parameters of generated classes. */
+    private static final Class<?>[] CONCRETE_TYPES = {
+            String.class, Integer.class, Long.class, Double.class, Float.class, Short.class, Byte.class,
+            Character.class, Boolean.class, java.math.BigDecimal.class, java.math.BigInteger.class, UUID.class
+    };
+
+    /** Defines how type arguments are passed from a generated class to its superclass. */
+    public enum Rebinding {
+        /** {@code Level2<T0, T1> extends Level1<T0, T1>}. */
+        PASS_THROUGH,
+        /** {@code Level2<T0, T1> extends Level1<T1, T0>}. */
+        ROTATE,
+        /** {@code Level2<T0> extends Level1<String, T0>}, i.e. every class binds one more type parameter. */
+        BIND_PROGRESSIVELY
+    }
+
+    private int       depth          = 3;
+    private int       width          = 1;
+    private int       typeParameters = 2;
+    private Rebinding rebinding      = Rebinding.ROTATE;
+    private int       extraInterfaces;
+    private int       diamondEvery;
+
+    @NotNull
+    public HierarchyGenerator depth(int depth) throws IllegalArgumentException {
+        this.depth = checkPositive("depth", depth);
+        return this;
+    }
+
+    @NotNull
+    public HierarchyGenerator width(int width) throws IllegalArgumentException {
+        this.width = checkPositive("width", width);
+        return this;
+    }
+
+    @NotNull
+    public HierarchyGenerator typeParameters(int typeParameters) throws IllegalArgumentException {
+        this.typeParameters = checkPositive("type parameters number", typeParameters);
+        return this;
+    }
+
+    @NotNull
+    public HierarchyGenerator rebinding(@NotNull Rebinding rebinding) {
+        this.rebinding = rebinding;
+        return this;
+    }
+
+    @NotNull
+    public HierarchyGenerator extraInterfaces(int extraInterfaces) throws IllegalArgumentException {
+        this.extraInterfaces = checkPositive("extra interfaces number", extraInterfaces + 1) - 1;
+        return this;
+    }
+
+    /**
+     * @param diamondEvery      every n-th class in a chain implements diamond interfaces; {@code 0} means no
+     *                          diamonds
+     */
+    @NotNull
+    public HierarchyGenerator diamondEvery(int diamondEvery) throws IllegalArgumentException {
+        this.diamondEvery = checkPositive("diamond frequency", diamondEvery + 1) - 1;
+        return this;
+    }
+
+    /**
+     * @return      newly generated hierarchy
+     * @throws IllegalStateException    if the hierarchy can't be compiled, e.g. there is no java compiler
+     */
+    @NotNull
+    public GeneratedHierarchy generate() throws IllegalStateException {
+        Map<String, String> sources = new LinkedHashMap<>();
+        sources.put(qualify("Root"), String.format("package %s; public interface Root%s {}",
+                                                   PACKAGE, parameters(typeParameters)));
+        if (diamondEvery > 0) {
+            sources.put(qualify("DiamondTop"), String.format("package %s; public interface DiamondTop<X> {}", PACKAGE));
+            sources.put(qualify("DiamondLeft"), String.format(
+                    "package %s; public interface DiamondLeft<X> extends DiamondTop<X> {}", PACKAGE));
+            sources.put(qualify("DiamondRight"), String.format(
+                    "package %s; public interface DiamondRight<X> extends DiamondTop<X> {}", PACKAGE));
+        }
+
+        Class<?>[][] expected = new Class<?>[width][];
+        for (int chain = 0; chain < width; ++chain) {
+            expected[chain] = generateChain(chain, sources);
+        }
+
+        ClassLoader classLoader = InMemoryCompiler.compile(sources);
+        try {
+            List<List<Class<?>>> levels = new ArrayList<>();
+            List<Class<?>> leaves = new ArrayList<>();
+            for (int chain = 0; chain < width; ++chain) {
+                List<Class<?>> chainLevels = new ArrayList<>();
+                for (int level = 1; level <= depth; ++level) {
+                    chainLevels.add(classLoader.loadClass(qualify(levelName(chain, level))));
+                }
+                levels.add(chainLevels);
+                leaves.add(classLoader.loadClass(qualify(leafName(chain))));
+            }
+            return new GeneratedHierarchy(classLoader,
+                                          classLoader.loadClass(qualify("Root")),
+                                          diamondEvery > 0 ? classLoader.loadClass(qualify("DiamondTop")) : null,
+                                          levels,
+                                          leaves,
+                                          expected,
+                                          sources.size());
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Can't load generated classes", e);
+        }
+    }
+
+    /**
+     * Generates single chain of classes.
+     *
+     * @return      expected {@code Root} type arguments for the chain's leaf class
+     */
+    @NotNull
+    private Class<?>[] generateChain(int chain, @NotNull Map<String, String> sources) {
+        // Holds Root type arguments at the current level, every element is either Integer (index of a type
+        // parameter of the current level class) or Class (concrete type).
+        Object[] mapping = new Object[typeParameters];
+        for (int i = 0; i < typeParameters; ++i) {
+            mapping[i] = i;
+        }
+
+        int previousParameters = typeParameters;
+        for (int level = 1; level <= depth; ++level) {
+            int parameters = previousParameters;
+            Object[] superArguments = new Object[previousParameters];
+            for (int i = 0; i < previousParameters; ++i) {
+                superArguments[i] = i;
+            }
+            if (level > 1 && rebinding == Rebinding.ROTATE) {
+                for (int i = 0; i < previousParameters; ++i) {
+                    superArguments[i] = (i + 1) % previousParameters;
+                }
+            } else if (level > 1 && rebinding == Rebinding.BIND_PROGRESSIVELY && previousParameters > 1) {
+                parameters = previousParameters - 1;
+                superArguments[0] = CONCRETE_TYPES[(chain + level) % CONCRETE_TYPES.length];
+                for (int i = 1; i < previousParameters; ++i) {
+                    superArguments[i] = i - 1;
+                }
+            }
+            mapping = rebind(mapping, superArguments);
+
+            List<String> interfaces = new ArrayList<>();
+            String superType = level == 1 ? "Root" : levelName(chain, level - 1);
+            if (level == 1) {
+                interfaces.add(superType + arguments(superArguments));
+            }
+            for (int i = 0; i < extraInterfaces; ++i) {
+                String name = levelName(chain, level) + "Extra" + i;
+                sources.put(qualify(name), String.format("package %s; public interface %s<X> {}", PACKAGE, name));
+                interfaces.add(String.format("%s<T%d>", name, i % parameters));
+            }
+            if (diamondEvery > 0 && level % diamondEvery == 0) {
+                interfaces.add("DiamondLeft<String>");
+                interfaces.add("DiamondRight<String>");
+            }
+
+            StringBuilder code = new StringBuilder();
+            code.append(String.format("package %s; public class %s%s", PACKAGE, levelName(chain, level),
+                                      parameters(parameters)));
+            if (level > 1) {
+                code.append(" extends ").append(superType).append(arguments(superArguments));
+            }
+            if (!interfaces.isEmpty()) {
+                code.append(" implements ").append(String.join(", ", interfaces));
+            }
+            sources.put(qualify(levelName(chain, level)), code.append(" {}").toString());
+            previousParameters = parameters;
+        }
+
+        Object[] leafArguments = new Object[previousParameters];
+        for (int i = 0; i < previousParameters; ++i) {
+            leafArguments[i] = CONCRETE_TYPES[(chain * 5 + i) % CONCRETE_TYPES.length];
+        }
+        mapping = rebind(mapping, leafArguments);
+        sources.put(qualify(leafName(chain)), String.format("package %s; public class %s extends %s%s {}",
+                                                            PACKAGE, leafName(chain), levelName(chain, depth),
+                                                            arguments(leafArguments)));
+
+        Class<?>[] result = new Class<?>[typeParameters];
+        for (int i = 0; i < typeParameters; ++i) {
+            result[i] = (Class<?>) mapping[i];
+        }
+        return result;
+    }
+
+    /**
+     * @param mapping           {@code Root} type arguments expressed via the child class type parameters
+     * @param superArguments    type arguments given by a child class to its parent
+     * @return                  {@code Root} type arguments expressed via type parameters of the child's child
+     */
+    @NotNull
+    private static Object[] rebind(@NotNull Object[] mapping, @NotNull Object[] superArguments) {
+        Object[] result = new Object[mapping.length];
+        for (int i = 0; i < mapping.length; ++i) {
+            result[i] = mapping[i] instanceof Integer ? superArguments[(Integer) mapping[i]] : mapping[i];
+        }
+        return result;
+    }
+
+    @NotNull
+    private static String parameters(int number) {
+        StringJoiner joiner = new StringJoiner(", ", "<", ">");
+        for (int i = 0; i < number; ++i) {
+            joiner.add("T" + i);
+        }
+        return joiner.toString();
+    }
+
+    @NotNull
+    private static String arguments(@NotNull Object[] arguments) {
+        StringJoiner joiner = new StringJoiner(", ", "<", ">");
+        for (Object argument : arguments) {
+            joiner.add(argument instanceof Class ? ((Class<?>) argument).getName() : "T" + argument);
+        }
+        return joiner.toString();
+    }
+
+    @NotNull
+    private static String levelName(int chain, int level) {
+        return "Chain" + chain + "Level" + level;
+    }
+
+    @NotNull
+    private static String leafName(int chain) {
+        return "Chain" + chain + "Leaf";
+    }
+
+    @NotNull
+    private static String qualify(@NotNull String name) {
+        return PACKAGE + "." + name;
+    }
+
+    private static int checkPositive(@NotNull String name, int value) throws IllegalArgumentException {
+        if (value <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Can't configure hierarchy generator. Reason: %s is out of range (%d)", name, value));
+        }
+        return value;
+    }
+}
@@ -0,0 +1,74 @@
+package tech.harmonysoft.oss.jenome.generator;
+
+import org.junit.jupiter.api.Test;
+import tech.harmonysoft.oss.jenome.resolve.impl.DefaultTypeArgumentResolver;
+import tech.harmonysoft.oss.jenome.resolve.util.GenericsHelper;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HierarchyGeneratorTest {
+
+    private static final long SEED   = 42;
+    private static final int  SHAPES = 12;
+
+    @Test
+    public void generatedShape() {
+        GeneratedHierarchy hierarchy = new HierarchyGenerator().depth(4)
+                                                               .width(2)
+                                                               .typeParameters(3)
+                                                               .extraInterfaces(1)
+                                                               .diamondEvery(2)
+                                                               .generate();
+        // Root, diamond interfaces, 2 * (4 levels + 4 extra interfaces + leaf)
+        assertEquals(22, hierarchy.getClassesNumber());
+        assertEquals(10, hierarchy.getClasses().size());
+        assertNotNull(hierarchy.getDiamondTop());
+        for (Class<?> clazz : hierarchy.getClasses()) {
+            assertTrue(hierarchy.getRoot().isAssignableFrom(clazz));
+            assertSame(hierarchy.getClassLoader(), clazz.getClassLoader());
+        }
+    }
+
+    @Test
+    public void invalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new HierarchyGenerator().depth(0));
+        assertThrows(IllegalArgumentException.class, () -> new HierarchyGenerator().width(-1));
+        assertThrows(IllegalArgumentException.class, () -> new HierarchyGenerator().typeParameters(0));
+        assertThrows(IllegalArgumentException.class, () -> new HierarchyGenerator().extraInterfaces(-1));
+        assertThrows(IllegalArgumentException.class, () -> new HierarchyGenerator().diamondEvery(-1));
+    }
+
+    @Test
+    public void resolutionMatchesGeneratedBindings() throws Exception {
+        Random random = new Random(SEED);
+        HierarchyGenerator.Rebinding[] rebindings = HierarchyGenerator.Rebinding.values();
+        for (int i = 0; i < SHAPES; ++i) {
+            GeneratedHierarchy hierarchy = new HierarchyGenerator()
+                    .depth(1 + random.nextInt(8))
+                    .width(1 + random.nextInt(3))
+                    .typeParameters(1 + random.nextInt(4))
+                    .rebinding(rebindings[random.nextInt(rebindings.length)])
+                    .extraInterfaces(random.nextInt(3))
+                    .diamondEvery(random.nextInt(4))
+                    .generate();
+            DefaultTypeArgumentResolver resolver = new DefaultTypeArgumentResolver();
+            for (int chain = 0; chain < hierarchy.getLeaves().size(); ++chain) {
+                Class<?> leaf = hierarchy.getLeaves().get(chain);
+                Object instance = leaf.newInstance();
+                for (int index = 0; index < hierarchy.getTypeParametersNumber(); ++index) {
+                    Class<?> expected = hierarchy.getExpectedRootArgument(chain, index);
+                    String message = String.format("shape #%d, %s, index %d", i, leaf.getName(), index);
+                    assertEquals(expected, resolver.resolve(hierarchy.getRoot(), leaf, index), message);
+                    assertEquals(expected, GenericsHelper.INSTANCE.resolveTypeParameterValue(
+                            hierarchy.getRoot(), instance, index), message);
+                }
+                Class<?> diamondTop = hierarchy.getDiamondTop();
+                if (diamondTop != null && diamondTop.isAssignableFrom(leaf)) {
+                    assertEquals(String.class, resolver.resolve(diamondTop, leaf, 0), leaf.getName());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package tech.harmonysoft.oss.jenome.generator;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.tools.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * <p>Compiles java sources in memory and loads the compiled classes by a dedicated class loader.</p>
+ * <p>Requires a JDK, i.e. {@link ToolProvider#getSystemJavaCompiler()} must be available.</p>
+ */
+class InMemoryCompiler {
+
+    private InMemoryCompiler() {
+    }
+
+    /**
+     * @param sources   source code by fully-qualified class name
+     * @return          class loader which defines all compiled classes
+     * @throws IllegalStateException    if there is no java compiler or given sources can't be compiled
+     */
+    @NotNull
+    static ClassLoader compile(@NotNull Map<String, String> sources) throws IllegalStateException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("Can't compile generated classes. Reason: no java compiler is "
+                                            + "available at the current JVM");
+        }
+        List<JavaFileObject> units = new ArrayList<>();
+        for (Map.Entry<String, String> entry : sources.entrySet()) {
+            units.add(new Source(entry.getKey(), entry.getValue()));
+        }
+
+        Map<String, ByteArrayOutputStream> output = new HashMap<>();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        StandardJavaFileManager standardManager = compiler.getStandardFileManager(diagnostics, null,
+                                                                                  StandardCharsets.UTF_8);
+        JavaFileManager fileManager = new ForwardingJavaFileManager<JavaFileManager>(standardManager) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location,
+                                                       String className,
+                                                       JavaFileObject.Kind kind,
+                                                       FileObject sibling)
+            {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                output.put(className, bytes);
+                return new SimpleJavaFileObject(URI.create("bytes:///" + className.replace('.', '/')), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        return bytes;
+                    }
+                };
+            }
+        };
+        List<String> options = Arrays.asList("-g:none", "-proc:none", "-nowarn");
+        boolean compiled = compiler.getTask(null, fileManager, diagnostics, options, null, units).call();
+        try {
+            fileManager.close();
+        } catch (IOException ignore) {
+            // Nothing is written to the disk.
+        }
+        if (!compiled) {
+            throw new IllegalStateException(String.format("Can't compile generated classes. Reason: %s",
+                                                          diagnostics.getDiagnostics()));
+        }
+
+        return new ClassLoader(InMemoryCompiler.class.getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                ByteArrayOutputStream bytes = output.get(name);
+                if (bytes == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                byte[] data = bytes.toByteArray();
+                return defineClass(name, data, 0, data.length);
+            }
+        };
+    }
+
+    private static class Source extends SimpleJavaFileObject {
+
+        @NotNull private final String code;
+
+        Source(@NotNull String className, @NotNull String code) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package tech.harmonysoft.oss.jenome.jfr;
+
+import org.junit.jupiter.api.Test;
+import tech.harmonysoft.oss.jenome.cache.BoundedJenomeCache;
+import tech.harmonysoft.oss.jenome.match.impl.CompositeTypeComplianceMatcher;
+import tech.harmonysoft.oss.jenome.resolve.impl.DefaultTypeArgumentResolver;
+import tech.harmonysoft.oss.jenome.resolve.util.GenericsHelper;
+
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * JFR API is not available at java 8 compile time, so, recordings are managed via reflection.
+ */
+@SuppressWarnings({"UnusedDeclaration"})
+public class JenomeEventTest {
+
+    @Test
+    public void disabled_noEvents() {
+        assertNull(JenomeEvent.beginResolve());
+        assertNull(JenomeEvent.beginMatch());
+        JenomeEvent.cacheEviction("cache", "key");
+    }
+
+    @Test
+    public void eventsAreRecorded() throws Exception {
+        List<Map<String, Object>> events = record(() -> {
+            DefaultTypeArgumentResolver resolver = new DefaultTypeArgumentResolver();
+            CompositeTypeComplianceMatcher matcher = new CompositeTypeComplianceMatcher();
+            matcher.setTypeArgumentResolver(resolver);
+            resolver.addListener(FlightRecorderListener.INSTANCE);
+            matcher.addListener(FlightRecorderListener.INSTANCE);
+
+            resolver.resolve(Handler.class, StringHandler.class, 0);
+            resolver.resolve(Handler.class, StringHandler.class, 0);
+            try {
+                matcher.match(Holder.class.getDeclaredField("handler").getGenericType(), StringHandler.class);
+            } catch (NoSuchFieldException e) {
+                throw new IllegalStateException(e);
+            }
+            GenericsHelper.INSTANCE.addListener(FlightRecorderListener.INSTANCE);
+            try {
+                GenericsHelper.INSTANCE.resolveTypeParameterValue(Handler.class, new StringHandler(), 0);
+            } finally {
+                GenericsHelper.INSTANCE.removeListener(FlightRecorderListener.INSTANCE);
+            }
+
+            BoundedJenomeCache<String, String> cache = new BoundedJenomeCache<>(1);
+            cache.get("hot");
+            cache.putIfAbsent("cold", "value");
+            cache.putIfAbsent("hot", "value");
+        });
+
+        List<Map<String, Object>> resolves = filter(events, JenomeEvent.RESOLVE);
+        assertTrue(resolves.stream().anyMatch(e -> "MISS".equals(e.get("cacheOutcome"))
+                                                   && Handler.class.getName().equals(e.get("baseType"))
+                                                   && StringHandler.class.getName().equals(e.get("targetType"))
+                                                   && Integer.valueOf(0).equals(e.get("depth"))));
+        assertTrue(resolves.stream().anyMatch(e -> "HIT".equals(e.get("cacheOutcome"))));
+        assertTrue(resolves.stream().anyMatch(e -> "UNCACHED".equals(e.get("cacheOutcome"))));
+
+        List<Map<String, Object>> matches = filter(events, JenomeEvent.MATCH);
+        assertTrue(matches.stream().anyMatch(e -> Integer.valueOf(0).equals(e.get("depth"))
+                                                  && Boolean.FALSE.equals(e.get("strict"))
+                                                  && "MISS".equals(e.get("cacheOutcome"))));
+        assertTrue(matches.stream().anyMatch(e -> ((Integer) e.get("depth")) > 0));
+
+        List<Map<String, Object>> evictions = filter(events, JenomeEvent.CACHE_EVICTION);
+        assertEquals(1, evictions.size());
+        assertEquals("cold", evictions.get(0).get("key"));
+        assertEquals(BoundedJenomeCache.class.getSimpleName(), evictions.get(0).get("cache"));
+    }
+
+    private static List<Map<String, Object>> filter(List<Map<String, Object>> events, String name) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Map<String, Object> event : events) {
+            if (name.equals(event.get("name"))) {
+                result.add(event);
+            }
+        }
+        return result;
+    }
+
+    private static List<Map<String, Object>> record(Runnable action) throws Exception {
+        Class<?> recordingClass;
+        try {
+            recordingClass = Class.forName("jdk.jfr.Recording");
+        } catch (ClassNotFoundException e) {
+            assumeTrue(false, "JFR is not available");
+            return null;
+        }
+        Object recording = recordingClass.getConstructor().newInstance();
+        Method enable = recordingClass.getMethod("enable", String.class);
+        for (String name : new String[] { JenomeEvent.RESOLVE, JenomeEvent.MATCH, JenomeEvent.CACHE_EVICTION }) {
+            Object settings = enable.invoke(recording, name);
+            settings.getClass().getMethod("withThreshold", Duration.class).invoke(settings, Duration.ZERO);
+        }
+        Path file = Files.createTempFile("jenome", ".jfr");
+        try {
+            recordingClass.getMethod("start").invoke(recording);
+            try {
+                action.run();
+            } finally {
+                recordingClass.getMethod("stop").invoke(recording);
+            }
+            recordingClass.getMethod("dump", Path.class).invoke(recording, file);
+
+            List<Map<String, Object>> result = new ArrayList<>();
+            List<?> events = (List<?>) Class.forName("jdk.jfr.consumer.RecordingFile")
+                                            .getMethod("readAllEvents", Path.class)
+                                            .invoke(null, file);
+            for (Object event : events) {
+                Object eventType = event.getClass().getMethod("getEventType").invoke(event);
+                String name = (String) eventType.getClass().getMethod("getName").invoke(eventType);
+                if (!name.startsWith("jenome.")) {
+                    continue;
+                }
+                Map<String, Object> values = new HashMap<>();
+                values.put("name", name);
+                for (Object field : (List<?>) eventType.getClass().getMethod("getFields").invoke(eventType)) {
+                    String fieldName = (String) field.getClass().getMethod("getName").invoke(field);
+                    values.put(fieldName,
+                               event.getClass().getMethod("getValue", String.class).invoke(event, fieldName));
+                }
+                result.add(values);
+            }
+            return result;
+        } finally {
+            recordingClass.getMethod("close").invoke(recording);
+            Files.deleteIfExists(file);
+        }
+    }
+
+    interface Handler<T> {}
+    static class StringHandler implements Handler<String> {}
+
+    static class Holder {
+        Handler<? extends CharSequence> handler;
+    }
+}
@@ -0,0 +1,153 @@
+package tech.harmonysoft.oss.jenome.management;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tech.harmonysoft.oss.jenome.benchmark.BenchmarkTypes.StringList;
+import tech.harmonysoft.oss.jenome.cache.JenomeCache;
+import tech.harmonysoft.oss.jenome.match.impl.CompositeTypeComplianceMatcher;
+import tech.harmonysoft.oss.jenome.match.impl.MatchPrefilter;
+import tech.harmonysoft.oss.jenome.resolve.impl.DefaultTypeArgumentResolver;
+
+import javax.management.Attribute;
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings({"UnusedDeclaration"})
+public class JenomeManagementTest {
+
+    private DefaultTypeArgumentResolver    resolver;
+    private CompositeTypeComplianceMatcher matcher;
+    private MBeanServer                    server;
+    private ObjectName                     name;
+    private JenomeMXBean                   proxy;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        resolver = new DefaultTypeArgumentResolver();
+        matcher = new CompositeTypeComplianceMatcher();
+        server = MBeanServerFactory.newMBeanServer();
+        name = new ObjectName("test:type=Jenome");
+        server.registerMBean(new JenomeManagement(resolver, matcher), name);
+        proxy = JMX.newMXBeanProxy(server, name, JenomeMXBean.class);
+    }
+
+    @Test
+    public void latencyIsCollectedOnlyWhenInstrumentationIsOn() throws Exception {
+        resolver.resolve(Collection.class, List.class, 0);
+        assertEquals(0, proxy.getResolverLatency().getCount());
+
+        server.setAttribute(name, new Attribute("InstrumentationEnabled", true));
+        assertTrue(proxy.isInstrumentationEnabled());
+
+        resolver.resolve(Collection.class, List.class, 0);
+        resolver.resolve(Collection.class, List.class, 0);
+        matcher.match(Collection.class, List.class);
+        CompositeData resolverLatency = (CompositeData) server.getAttribute(name, "ResolverLatency");
+        assertEquals(2L, resolverLatency.get("count"));
+        assertEquals(1, proxy.getMatcherLatency().getCount());
+        assertTrue(proxy.getMatcherLatency().getMax() >= proxy.getMatcherLatency().getP50());
+
+        proxy.resetLatencyStats();
+        assertEquals(0, proxy.getResolverLatency().getCount());
+        assertEquals(0, proxy.getMatcherLatency().getCount());
+    }
+
+    @Test
+    public void nestedChecksAreNotTimed() throws Exception {
+        proxy.setInstrumentationEnabled(true);
+        Type base = Holder.class.getDeclaredField("list").getGenericType();
+        assertTrue(matcher.match(base, StringList.class));
+        assertEquals(1, proxy.getMatcherLatency().getCount());
+    }
+
+    @Test
+    public void cacheState() {
+        // Class-to-class checks are decided by the prefilter and are not cached otherwise.
+        matcher.setPrefilterEnabled(false);
+        resolver.resolve(Collection.class, List.class, 0);
+        resolver.resolve(Collection.class, List.class, 0);
+        matcher.match(Collection.class, List.class);
+
+        assertEquals(1, proxy.getResolverCacheSize());
+        assertEquals(1, proxy.getMatcherCacheSize());
+        assertEquals(0.5, proxy.getResolverCacheHitRatio(), 0.0001);
+        assertEquals(0.0, proxy.getMatcherCacheHitRatio(), 0.0001);
+        assertEquals(2L * JenomeManagement.ESTIMATED_ENTRY_SIZE, proxy.getEstimatedCacheMemory());
+        assertEquals(JenomeCache.UNBOUNDED, proxy.getResolverCacheMaximumSize());
+
+        proxy.clearCaches();
+        assertEquals(0, proxy.getResolverCacheSize());
+        assertEquals(0, proxy.getMatcherCacheSize());
+    }
+
+    @Test
+    public void prefilterHits() {
+        matcher.match(Collection.class, List.class);
+        matcher.match(List.class, Collection.class);
+        matcher.match(List.class, List.class);
+
+        Map<String, Long> hits = proxy.getMatcherPrefilterHits();
+        assertEquals(MatchPrefilter.Rule.values().length, hits.size());
+        assertEquals(Long.valueOf(2), hits.get(MatchPrefilter.Rule.CLASSES.name()));
+        assertEquals(Long.valueOf(1), hits.get(MatchPrefilter.Rule.IDENTICAL.name()));
+        assertEquals(0, proxy.getMatcherCacheSize());
+
+        proxy.resetLatencyStats();
+        assertEquals(Long.valueOf(0), proxy.getMatcherPrefilterHits().get(MatchPrefilter.Rule.CLASSES.name()));
+    }
+
+    @Test
+    public void resizeCaches() throws Exception {
+        server.invoke(name, "resizeCaches", new Object[] { 1 }, new String[] { int.class.getName() });
+        assertEquals(1, resolver.getCacheMaximumSize());
+        assertEquals(1, matcher.getCacheMaximumSize());
+
+        resolver.resolve(Collection.class, List.class, 0);
+        resolver.resolve(Iterable.class, List.class, 0);
+        resolver.resolve(Iterable.class, Collection.class, 0);
+        assertEquals(1, proxy.getResolverCacheSize());
+
+        proxy.resizeCaches(0);
+        assertEquals(JenomeCache.UNBOUNDED, proxy.getResolverCacheMaximumSize());
+        assertEquals(JenomeCache.UNBOUNDED, proxy.getMatcherCacheMaximumSize());
+        assertEquals(0, proxy.getResolverCacheSize());
+    }
+
+    @Test
+    public void slowCalls() {
+        proxy.enableSlowCallLog(0);
+        matcher.match(Collection.class, List.class);
+        proxy.disableSlowCallLog();
+        matcher.match(Iterable.class, List.class);
+
+        List<String> calls = proxy.dumpSlowCalls();
+        assertEquals(1, calls.size());
+        assertTrue(calls.get(0).contains("base=java.util.Collection candidate=java.util.List"));
+    }
+
+    @Test
+    public void defaultRegistration() {
+        ObjectName registered = JenomeManagement.register();
+        try {
+            assertEquals(registered, JenomeManagement.register());
+            assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(registered));
+        } finally {
+            JenomeManagement.unregister();
+        }
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(registered));
+    }
+
+    static class Holder {
+        List<? extends CharSequence> list;
+    }
+}
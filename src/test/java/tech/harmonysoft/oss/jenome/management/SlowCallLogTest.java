@@ -0,0 +1,109 @@
+package tech.harmonysoft.oss.jenome.management;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tech.harmonysoft.oss.jenome.benchmark.BenchmarkTypes.StringList;
+import tech.harmonysoft.oss.jenome.match.impl.CompositeTypeComplianceMatcher;
+import tech.harmonysoft.oss.jenome.resolve.impl.DefaultTypeArgumentResolver;
+
+import java.io.StringWriter;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings({"UnusedDeclaration"})
+public class SlowCallLogTest {
+
+    private DefaultTypeArgumentResolver    resolver;
+    private CompositeTypeComplianceMatcher matcher;
+    private SlowCallLog                    log;
+
+    @BeforeEach
+    public void setUp() {
+        resolver = new DefaultTypeArgumentResolver();
+        matcher = new CompositeTypeComplianceMatcher();
+        log = new SlowCallLog(0, 2);
+        resolver.addListener(log);
+        matcher.addListener(log);
+    }
+
+    @Test
+    public void matchIsBrokenDownBySubMatchers() throws Exception {
+        Type base = Holder.class.getDeclaredField("list").getGenericType();
+        // Specialized matchers use the default resolver.
+        DefaultTypeArgumentResolver.INSTANCE.addListener(log);
+        try {
+            assertTrue(matcher.match(base, StringList.class));
+        } finally {
+            DefaultTypeArgumentResolver.INSTANCE.removeListener(log);
+        }
+
+        List<SlowCall> entries = log.getEntries();
+        assertEquals(1, entries.size());
+        SlowCall call = entries.get(0);
+        assertEquals(SlowCall.Kind.MATCH, call.getKind());
+        assertEquals(base.getTypeName(), call.getBaseType());
+        assertEquals(StringList.class.getName(), call.getOtherType());
+        assertFalse(call.isStrict());
+        assertTrue(call.getDepth() > 1);
+        assertTrue(call.getBreakdown().containsKey(SlowCallLog.MATCH));
+        assertTrue(call.getBreakdown().containsKey("ParameterizedTypeComplianceMatcher"));
+        assertTrue(call.getBreakdown().containsKey("WildcardTypeComplianceMatcher"));
+        assertTrue(call.getBreakdown().containsKey(SlowCallLog.RESOLVE));
+        long ownTime = call.getBreakdown().values().stream().mapToLong(Long::longValue).sum();
+        assertEquals(call.getDurationNanos(), ownTime);
+    }
+
+    @Test
+    public void topLevelResolution() {
+        resolver.resolve(Collection.class, StringList.class, 0);
+
+        SlowCall call = log.getEntries().get(0);
+        assertEquals(SlowCall.Kind.RESOLVE, call.getKind());
+        assertEquals(StringList.class.getName(), call.getOtherType());
+        assertEquals(0, call.getIndex());
+        assertEquals(0, call.getDepth());
+        assertEquals(1, call.getBreakdown().size());
+    }
+
+    @Test
+    public void onlyLastCallsAreKept() throws Exception {
+        resolver.resolve(Collection.class, StringList.class, 0);
+        resolver.resolve(List.class, StringList.class, 0);
+        resolver.resolve(Iterable.class, StringList.class, 0);
+
+        assertEquals(3, log.getCapturedCount());
+        List<SlowCall> entries = log.getEntries();
+        assertEquals(2, entries.size());
+        assertEquals(List.class.getName(), entries.get(0).getBaseType());
+        assertEquals(Iterable.class.getName(), entries.get(1).getBaseType());
+
+        StringWriter writer = new StringWriter();
+        log.dump(writer);
+        assertEquals(2, writer.toString().split(System.lineSeparator()).length);
+
+        log.clear();
+        assertTrue(log.getEntries().isEmpty());
+    }
+
+    @Test
+    public void fastCallsAreNotCaptured() {
+        log.setThresholdNanos(Long.MAX_VALUE);
+        resolver.resolve(Collection.class, StringList.class, 0);
+        assertTrue(matcher.match(Collection.class, StringList.class));
+        assertTrue(log.getEntries().isEmpty());
+        assertFalse(SlowCallLog.isTracing());
+    }
+
+    @Test
+    public void invalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new SlowCallLog(0, 0));
+        assertThrows(IllegalArgumentException.class, () -> log.setThresholdNanos(-1));
+    }
+
+    static class Holder {
+        List<? extends CharSequence> list;
+    }
+}
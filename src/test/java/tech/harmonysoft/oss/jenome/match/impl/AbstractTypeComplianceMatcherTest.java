@@ -0,0 +1,142 @@
+package tech.harmonysoft.oss.jenome.match.impl;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import tech.harmonysoft.oss.jenome.resolve.TypeFunction;
+import tech.harmonysoft.oss.jenome.resolve.TypeVisitor;
+import tech.harmonysoft.oss.jenome.resolve.impl.TypeFunctionAdapter;
+import tech.harmonysoft.oss.jenome.resolve.impl.TypeVisitorAdapter;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AbstractTypeComplianceMatcherTest {
+
+    @Test
+    public void visitorBasedMatcher() {
+        VisitorBasedMatcher matcher = new VisitorBasedMatcher();
+        assertTrue(matcher.match(Number.class, Integer.class));
+        assertFalse(matcher.match(Integer.class, Number.class));
+        assertTrue(matcher.match(Integer.class, Integer.class, true));
+        assertFalse(matcher.match(Number.class, Integer.class, true));
+        // Visitor doesn't handle parameterized types, so, they are not matched.
+        assertFalse(matcher.match(List.class, getListType()));
+    }
+
+    @Test
+    public void visitorBasedMatcher_nested() {
+        // Base type and result of the outer call must survive the nested one.
+        VisitorBasedMatcher matcher = new VisitorBasedMatcher();
+        matcher.nested = true;
+        assertTrue(matcher.match(Number.class, Integer.class));
+        assertFalse(matcher.match(Integer.class, Number.class));
+    }
+
+    @Test
+    public void functionAdaptedToVisitor() {
+        FunctionBasedMatcher matcher = new FunctionBasedMatcher();
+        matcher.viaVisitor = true;
+        assertTrue(matcher.match(Number.class, Integer.class));
+        assertFalse(matcher.match(Integer.class, Number.class));
+        assertFalse(matcher.match(List.class, getListType()));
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void overriddenVisitorOfFunctionBasedMatcher_isUsed() {
+        ClassComplianceMatcher matcher = new ClassComplianceMatcher() {
+            @NotNull
+            @Override
+            protected TypeVisitor getVisitor() {
+                TypeVisitor visitor = super.getVisitor();
+                return new TypeVisitorAdapter() {
+                    @Override
+                    public void visitClass(@NotNull Class<?> clazz) {
+                        if (clazz == String.class) {
+                            setMatched(getBaseType() == CharSequence.class);
+                        } else {
+                            visitor.visitClass(clazz);
+                        }
+                    }
+                };
+            }
+        };
+        // Overridden visitor is used for strings.
+        assertTrue(matcher.match(CharSequence.class, String.class, true));
+        assertFalse(matcher.match(Comparable.class, String.class));
+        // Visitor of the super class is used otherwise.
+        assertTrue(matcher.match(Number.class, Integer.class));
+        assertFalse(matcher.match(Number.class, Integer.class, true));
+    }
+
+    @NotNull
+    private static Type getListType() {
+        class Holder {
+            List<String> list;
+        }
+        try {
+            return (ParameterizedType) Holder.class.getDeclaredField("list").getGenericType();
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class FunctionBasedMatcher extends AbstractTypeComplianceMatcher<Class<?>> {
+
+        boolean viaVisitor;
+
+        private final TypeFunction<MatchContext<Class<?>>, Boolean> function
+                = new TypeFunctionAdapter<MatchContext<Class<?>>, Boolean>()
+        {
+            @Override
+            public Boolean visitClass(@NotNull Class<?> clazz, MatchContext<Class<?>> context) {
+                return context.getBase().isAssignableFrom(clazz);
+            }
+        };
+
+        private final TypeVisitor visitor = asVisitor(function);
+
+        @NotNull
+        @Override
+        protected TypeFunction<MatchContext<Class<?>>, Boolean> getFunction() {
+            // Default implementation adapts the visitor.
+            return viaVisitor ? super.getFunction() : function;
+        }
+
+        @NotNull
+        @Override
+        protected TypeVisitor getVisitor() {
+            return visitor;
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static class VisitorBasedMatcher extends AbstractTypeComplianceMatcher<Class<?>> {
+
+        boolean nested;
+
+        private final TypeVisitor visitor = new TypeVisitorAdapter() {
+            @Override
+            public void visitClass(@NotNull Class<?> clazz) {
+                if (nested) {
+                    nested = false;
+                    try {
+                        assertFalse(match(Integer.class, Long.class));
+                    } finally {
+                        nested = true;
+                    }
+                }
+                setMatched(isStrict() ? getBaseType() == clazz : getBaseType().isAssignableFrom(clazz));
+            }
+        };
+
+        @NotNull
+        @Override
+        protected TypeVisitor getVisitor() {
+            return visitor;
+        }
+    }
+}
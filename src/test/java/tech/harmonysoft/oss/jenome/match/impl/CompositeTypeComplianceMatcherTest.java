@@ -0,0 +1,85 @@
+package tech.harmonysoft.oss.jenome.match.impl;
+
+import org.junit.jupiter.api.Test;
+import tech.harmonysoft.oss.jenome.cache.CacheStats;
+import tech.harmonysoft.oss.jenome.resolve.impl.DefaultTypeArgumentResolver;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings({"UnusedDeclaration"})
+public class CompositeTypeComplianceMatcherTest {
+
+    private final CompositeTypeComplianceMatcher matcher = new CompositeTypeComplianceMatcher();
+
+    private Parent<List<String>> stringListParent;
+
+    public static class Parent<T> {}
+    public static class Child<T> extends Parent<List<T>> {}
+    public static class GrandChild extends Child<String> {}
+
+    @Test
+    public void sharedCacheHit_isServedLocallyAfterwards() {
+        matcher.setPrefilterEnabled(false);
+        assertTrue(matcher.match(Number.class, Integer.class));
+        assertEquals(1, matcher.getCacheStats().getMisses());
+
+        assertTrue(matcher.match(Number.class, Integer.class));
+        CacheStats stats = matcher.getCacheStats();
+        assertEquals(1, stats.getHits());
+
+        assertTrue(matcher.match(Number.class, Integer.class));
+        assertEquals(stats, matcher.getCacheStats());
+    }
+
+    @Test
+    public void clearCache_invalidatesLocalCache() {
+        matcher.setPrefilterEnabled(false);
+        matcher.match(Number.class, Integer.class);
+        matcher.match(Number.class, Integer.class);
+        matcher.clearCache();
+
+        assertTrue(matcher.match(Number.class, Integer.class));
+        assertEquals(2, matcher.getCacheStats().getMisses());
+    }
+
+    @Test
+    public void match_fromAnotherThread() throws InterruptedException {
+        AtomicBoolean result = new AtomicBoolean();
+        Thread thread = new Thread(() -> result.set(matcher.match(Number.class, Long.class)));
+        thread.start();
+        thread.join();
+        assertTrue(result.get());
+        assertFalse(matcher.match(Long.class, Number.class));
+    }
+
+    @Test
+    public void resolverReconfiguration_invalidatesCachedResults() throws NoSuchFieldException {
+        DefaultTypeArgumentResolver resolver = new DefaultTypeArgumentResolver();
+        matcher.setTypeArgumentResolver(resolver);
+        Type base = getClass().getDeclaredField("stringListParent").getGenericType();
+        assertFalse(matcher.match(base, GrandChild.class));
+        assertFalse(matcher.match(base, GrandChild.class));
+
+        resolver.setDeepSubstitution(true);
+        assertTrue(matcher.match(base, GrandChild.class));
+        assertTrue(matcher.match(base, GrandChild.class));
+
+        resolver.setDeepSubstitution(false);
+        assertFalse(matcher.match(base, GrandChild.class));
+    }
+
+    @Test
+    public void setTypeArgumentResolver_invalidatesCachedResults() throws NoSuchFieldException {
+        Type base = getClass().getDeclaredField("stringListParent").getGenericType();
+        assertFalse(matcher.match(base, GrandChild.class));
+
+        DefaultTypeArgumentResolver resolver = new DefaultTypeArgumentResolver();
+        resolver.setDeepSubstitution(true);
+        matcher.setTypeArgumentResolver(resolver);
+        assertTrue(matcher.match(base, GrandChild.class));
+    }
+}
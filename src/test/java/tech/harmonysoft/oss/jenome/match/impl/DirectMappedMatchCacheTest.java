@@ -0,0 +1,32 @@
+package tech.harmonysoft.oss.jenome.match.impl;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DirectMappedMatchCacheTest {
+
+    private final DirectMappedMatchCache cache = new DirectMappedMatchCache(16);
+
+    @Test
+    public void putAndGet() {
+        assertEquals(DirectMappedMatchCache.ABSENT, cache.get(Number.class, Integer.class, false, 0));
+
+        // Different entries might share a slot, so, every entry is checked before the next one is stored.
+        cache.put(Number.class, Integer.class, false, true, 0);
+        assertEquals(1, cache.get(Number.class, Integer.class, false, 0));
+        assertEquals(DirectMappedMatchCache.ABSENT, cache.get(Number.class, Integer.class, true, 0));
+        cache.put(Integer.class, Number.class, false, false, 0);
+        assertEquals(0, cache.get(Integer.class, Number.class, false, 0));
+    }
+
+    @Test
+    public void generationChange_dropsEntries() {
+        cache.put(Number.class, Integer.class, false, true, 0);
+        assertEquals(DirectMappedMatchCache.ABSENT, cache.get(Number.class, Integer.class, false, 1));
+
+        cache.put(Number.class, Integer.class, false, true, 1);
+        assertEquals(1, cache.get(Number.class, Integer.class, false, 1));
+        assertEquals(DirectMappedMatchCache.ABSENT, cache.get(Number.class, Integer.class, false, 2));
+    }
+}
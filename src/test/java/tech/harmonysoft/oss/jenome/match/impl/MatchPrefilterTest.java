@@ -0,0 +1,143 @@
+package tech.harmonysoft.oss.jenome.match.impl;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings({"UnusedDeclaration"})
+public class MatchPrefilterTest {
+
+    private final MatchPrefilter prefilter = new MatchPrefilter();
+
+    private List<String>                       stringList;
+    private List<String>                       anotherStringList;
+    private ArrayList<String>                  stringArrayList;
+    private List<Integer>                      integerList;
+    private List<?>                            wildcardList;
+    private List<? extends Number>             numberList;
+    private Collection<? extends CharSequence> charSequences;
+    private Map<String, ? extends Number>      numberMap;
+    private Map<String, Integer>               stringIntMap;
+    private Comparable<? super Integer>        integerComparable;
+    private List<String>[]                     stringListArray;
+    private List<List<String>>                 nestedList;
+    private Set<? super Integer>               integerSuperSet;
+
+    @Test
+    public void classes() {
+        assertEquals(1, prefilter.check(Number.class, Number.class, true));
+        assertEquals(1, prefilter.check(Number.class, Integer.class, false));
+        assertEquals(0, prefilter.check(Number.class, Integer.class, true));
+        assertEquals(0, prefilter.check(Integer.class, Number.class, false));
+        assertEquals(1, prefilter.getHits(MatchPrefilter.Rule.IDENTICAL));
+        assertEquals(3, prefilter.getHits(MatchPrefilter.Rule.CLASSES));
+    }
+
+    @Test
+    public void rawBase() {
+        assertEquals(1, prefilter.check(Collection.class, type("stringList"), true));
+        assertEquals(0, prefilter.check(Set.class, type("stringList"), false));
+        assertEquals(2, prefilter.getHits(MatchPrefilter.Rule.RAW_TYPES));
+    }
+
+    @Test
+    public void groundParameterizedBase() {
+        Type stringList = type("stringList");
+        assertEquals(1, prefilter.check(stringList, stringList, true));
+        assertEquals(1, prefilter.check(stringList, type("anotherStringList"), true));
+        assertEquals(MatchPrefilter.UNDECIDED, prefilter.check(type("stringList"), type("integerList"), false));
+        assertEquals(1, prefilter.getHits(MatchPrefilter.Rule.IDENTICAL));
+        assertEquals(1, prefilter.getHits(MatchPrefilter.Rule.EQUAL));
+    }
+
+    @Test
+    public void rawTypeMismatch() {
+        assertEquals(0, prefilter.check(type("stringList"), type("stringIntMap"), false));
+        assertEquals(0, prefilter.check(type("numberList"), Set.class, false));
+        assertEquals(0, prefilter.check(type("stringList"), type("stringArrayList"), true));
+        assertEquals(MatchPrefilter.UNDECIDED, prefilter.check(type("stringList"), type("stringArrayList"), false));
+        assertEquals(3, prefilter.getHits(MatchPrefilter.Rule.RAW_TYPE_MISMATCH));
+    }
+
+    @Test
+    public void nonGroundIdentity_isNotDecided() {
+        Type wildcardList = type("wildcardList");
+        assertEquals(MatchPrefilter.UNDECIDED, prefilter.check(wildcardList, wildcardList, false));
+        assertEquals(0, prefilter.getHits(MatchPrefilter.Rule.IDENTICAL));
+    }
+
+    @Test
+    public void unboundedWildcard() {
+        Type wildcard = ((ParameterizedType) type("wildcardList")).getActualTypeArguments()[0];
+        assertEquals(0, prefilter.check(wildcard, String.class, false));
+        assertEquals(1, prefilter.getHits(MatchPrefilter.Rule.UNBOUNDED_WILDCARD));
+    }
+
+    @Test
+    public void reset() {
+        prefilter.check(Number.class, Integer.class, false);
+        prefilter.reset();
+        for (Long hits : prefilter.getHits().values()) {
+            assertEquals(0L, hits.longValue());
+        }
+    }
+
+    @Test
+    public void sameResultsAsFullCheck() {
+        List<Type> types = new ArrayList<>(Arrays.asList(
+                Object.class, Number.class, Integer.class, int.class, String.class, CharSequence.class,
+                Collection.class, List.class, ArrayList.class, Set.class, Map.class, HashMap.class, Comparable.class,
+                String[].class, Object[].class, List[].class
+        ));
+        for (Field field : getClass().getDeclaredFields()) {
+            if (field.getType() != MatchPrefilter.class) {
+                Type type = field.getGenericType();
+                types.add(type);
+                if (type instanceof ParameterizedType) {
+                    types.addAll(Arrays.asList(((ParameterizedType) type).getActualTypeArguments()));
+                }
+            }
+        }
+
+        CompositeTypeComplianceMatcher prefiltered = new CompositeTypeComplianceMatcher();
+        CompositeTypeComplianceMatcher full = new CompositeTypeComplianceMatcher();
+        full.setPrefilterEnabled(false);
+        for (Type base : types) {
+            for (Type candidate : types) {
+                for (boolean strict : new boolean[] { false, true }) {
+                    assertEquals(match(full, base, candidate, strict), match(prefiltered, base, candidate, strict),
+                                 String.format("%s vs %s, strict: %b", base, candidate, strict));
+                }
+            }
+        }
+        assertTrue(prefiltered.getPrefilter().getHits().values().stream().allMatch(hits -> hits > 0));
+    }
+
+    @NotNull
+    private static String match(@NotNull CompositeTypeComplianceMatcher matcher,
+                                @NotNull Type base,
+                                @NotNull Type candidate,
+                                boolean strict)
+    {
+        try {
+            return String.valueOf(matcher.match(base, candidate, strict));
+        } catch (RuntimeException e) {
+            return e.getClass().getName();
+        }
+    }
+
+    @NotNull
+    private static Type type(@NotNull String fieldName) {
+        try {
+            return MatchPrefilterTest.class.getDeclaredField(fieldName).getGenericType();
+        } catch (NoSuchFieldException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
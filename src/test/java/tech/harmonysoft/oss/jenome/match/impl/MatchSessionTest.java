@@ -0,0 +1,102 @@
+package tech.harmonysoft.oss.jenome.match.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings({"UnusedDeclaration"})
+public class MatchSessionTest {
+
+    private final CompositeTypeComplianceMatcher matcher = new CompositeTypeComplianceMatcher();
+
+    public List<? extends Number> numbers;
+    public List<Integer>          integers;
+    public Comparable<Long>       comparableLong;
+
+    @Test
+    public void nestedChecksAreMemoized() throws NoSuchFieldException {
+        try (MatchSession session = matcher.openSession()) {
+            assertTrue(session.match(type("numbers"), type("integers")));
+            assertFalse(session.match(type("integers"), type("numbers")));
+            assertTrue(session.getMatchesNumber() > 2);
+            assertSame(session, MatchSession.current(matcher));
+        }
+        assertNull(MatchSession.current(matcher));
+    }
+
+    @Test
+    public void resolutionsAreMemoized() throws NoSuchFieldException {
+        try (MatchSession session = matcher.openSession()) {
+            assertTrue(session.match(type("comparableLong"), Long.class));
+            assertEquals(1, session.getResolutionsNumber());
+            assertTrue(session.match(type("comparableLong"), Long.class));
+            assertEquals(1, session.getResolutionsNumber());
+        }
+    }
+
+    @Test
+    public void nestedSessions() {
+        try (MatchSession outer = matcher.openSession()) {
+            try (MatchSession inner = matcher.openSession()) {
+                inner.match(Number.class, Integer.class);
+                assertSame(inner, MatchSession.current(matcher));
+                assertEquals(0, outer.getMatchesNumber());
+            }
+            assertSame(outer, MatchSession.current(matcher));
+        }
+    }
+
+    @Test
+    public void sessionsClosedOutOfOrder_areNotUsed() {
+        MatchSession outer = matcher.openSession();
+        MatchSession inner = matcher.openSession();
+        outer.close();
+        assertSame(inner, MatchSession.current(matcher));
+        inner.close();
+        assertNull(MatchSession.current(matcher));
+
+        matcher.match(Number.class, Integer.class);
+        assertEquals(0, outer.getMatchesNumber());
+    }
+
+    @Test
+    public void resolutionsAreMemoizedOnlyBySessionOfTheSameMatcher() throws NoSuchFieldException {
+        try (MatchSession session = new CompositeTypeComplianceMatcher().openSession()) {
+            assertTrue(matcher.match(type("comparableLong"), Long.class));
+            assertEquals(0, session.getResolutionsNumber());
+        }
+    }
+
+    @Test
+    public void closedSession_isNotUsable() {
+        MatchSession session = matcher.openSession();
+        session.close();
+        session.close();
+        assertThrows(IllegalStateException.class, () -> session.match(Number.class, Integer.class));
+    }
+
+    @Test
+    public void session_isBoundToThread() throws InterruptedException {
+        try (MatchSession session = matcher.openSession()) {
+            AtomicReference<Throwable> error = new AtomicReference<>();
+            Thread thread = new Thread(() -> {
+                try {
+                    session.match(Number.class, Integer.class);
+                } catch (Throwable e) {
+                    error.set(e);
+                }
+            });
+            thread.start();
+            thread.join();
+            assertTrue(error.get() instanceof IllegalStateException);
+        }
+    }
+
+    private static Type type(String fieldName) throws NoSuchFieldException {
+        return MatchSessionTest.class.getField(fieldName).getGenericType();
+    }
+}
@@ -5,7 +5,9 @@ import tech.harmonysoft.oss.jenome.resolve.TypeArgumentResolver;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.Collection;
+import java.util.concurrent.atomic.AtomicReference;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -50,6 +52,21 @@ public class TopLevelTypeComplianceMatcherTest {
         assertFalse(matcher.match(dummyType, dummyType));
     }
 
+    @Test
+    public void fromAnotherThread() throws InterruptedException {
+        AtomicReference<Object> result = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            try {
+                result.set(matcher.match(TypeArgumentResolver.RAW_TYPE, Class.class));
+            } catch (Throwable e) {
+                result.set(e);
+            }
+        });
+        thread.start();
+        thread.join();
+        assertEquals(true, result.get());
+    }
+
     interface TestInterface<A> {}
     class TestInterfaceImpl<S> implements TestInterface<S> {}
 }
\ No newline at end of file
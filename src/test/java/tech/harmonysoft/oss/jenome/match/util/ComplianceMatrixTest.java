@@ -0,0 +1,137 @@
+package tech.harmonysoft.oss.jenome.match.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import tech.harmonysoft.oss.jenome.benchmark.BenchmarkTypes.StringList;
+import tech.harmonysoft.oss.jenome.match.impl.CompositeTypeComplianceMatcher;
+
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings({"UnusedDeclaration"})
+public class ComplianceMatrixTest {
+
+    private List<String>                       stringList;
+    private List<String>                       anotherStringList;
+    private List<? extends Number>             numberList;
+    private Collection<? extends CharSequence> charSequences;
+    private Map<String, ? extends Number>      numberMap;
+    private Map<String, Integer>               stringIntMap;
+    private Comparable<? super Integer>        integerComparable;
+    private Comparable<String>                 stringComparable;
+    private Set<? super Integer>               integerSuperSet;
+    private List<String>[]                     stringListArray;
+
+    @Test
+    public void deduplicatesAndPrunes() {
+        List<Type> bases = Arrays.asList(type("stringList"), Number.class, type("anotherStringList"));
+        List<Type> candidates = Arrays.asList(StringList.class, Integer.class, Long.class, Integer.class);
+        ComplianceMatrix matrix = ComplianceMatrix.compute(bases, candidates);
+
+        assertEquals(bases, matrix.getBases());
+        assertEquals(candidates, matrix.getCandidates());
+        // 2 distinct bases x 3 distinct candidates, List vs Integer/Long and Number vs StringList are pruned.
+        assertEquals(3, matrix.getPrunedCells());
+        assertEquals(3, matrix.getCheckedCells());
+
+        assertTrue(matrix.matches(0, 0));
+        assertFalse(matrix.matches(0, 1));
+        assertTrue(matrix.matches(2, 0));
+        assertFalse(matrix.matches(1, 0));
+        assertTrue(matrix.matches(1, 3));
+        assertEquals(bitSet(1, 2, 3), matrix.getMatches(1));
+        assertEquals(bitSet(0), matrix.getMatches(2));
+    }
+
+    @Test
+    public void typesWithoutRawTypeAreNotPruned() {
+        Type wildcard = ((ParameterizedType) type("numberList")).getActualTypeArguments()[0];
+        ComplianceMatrix matrix = ComplianceMatrix.compute(Arrays.asList(wildcard, type("stringListArray")),
+                                                           Arrays.asList(Integer.class, String.class));
+        assertEquals(0, matrix.getPrunedCells());
+        assertEquals(4, matrix.getCheckedCells());
+        assertEquals(bitSet(0), matrix.getMatches(0));
+        assertEquals(bitSet(), matrix.getMatches(1));
+    }
+
+    @Test
+    public void empty() {
+        ComplianceMatrix matrix = ComplianceMatrix.compute(Collections.singleton(Number.class),
+                                                           Collections.emptyList());
+        assertEquals(bitSet(), matrix.getMatches(0));
+        assertEquals(0, matrix.getCheckedCells());
+        assertThrows(IndexOutOfBoundsException.class, () -> matrix.matches(0, 0));
+    }
+
+    @Test
+    public void sameResultsAsPairwiseChecks() {
+        List<Type> types = new ArrayList<>(Arrays.asList(
+                Object.class, Number.class, Integer.class, Long.class, int.class, String.class, CharSequence.class,
+                Comparable.class, Serializable.class, Iterable.class, Collection.class, List.class,
+                ArrayList.class, LinkedList.class, Set.class, HashSet.class, TreeSet.class, Map.class,
+                HashMap.class, TreeMap.class, String[].class, Object[].class, StringList.class, IntegerSet.class
+        ));
+        for (Field field : getClass().getDeclaredFields()) {
+            Type type = field.getGenericType();
+            types.add(type);
+            if (type instanceof ParameterizedType) {
+                types.addAll(Arrays.asList(((ParameterizedType) type).getActualTypeArguments()));
+            }
+        }
+        assertTrue(types.size() * types.size() > ComplianceMatrix.THRESHOLD);
+
+        CompositeTypeComplianceMatcher matcher = new CompositeTypeComplianceMatcher();
+        ForkJoinPool pool = new ForkJoinPool(2);
+        ComplianceMatrix matrix;
+        try {
+            matrix = ComplianceMatrix.compute(types, types, matcher, pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        assertTrue(matrix.getPrunedCells() > 0);
+        for (int i = 0; i < types.size(); ++i) {
+            BitSet matches = matrix.getMatches(i);
+            for (int j = 0; j < types.size(); ++j) {
+                boolean expected = matcher.match(types.get(i), types.get(j));
+                String message = String.format("%s vs %s", types.get(i), types.get(j));
+                assertEquals(expected, matrix.matches(i, j), message);
+                assertEquals(expected, matches.get(j), message);
+            }
+        }
+    }
+
+    @NotNull
+    private static BitSet bitSet(int... indexes) {
+        BitSet result = new BitSet();
+        for (int index : indexes) {
+            result.set(index);
+        }
+        return result;
+    }
+
+    @NotNull
+    private static Type type(@NotNull String fieldName) {
+        try {
+            return ComplianceMatrixTest.class.getDeclaredField(fieldName).getGenericType();
+        } catch (NoSuchFieldException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static class IntegerSet extends HashSet<Integer> implements Comparable<IntegerSet> {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public int compareTo(@NotNull IntegerSet o) {
+            return 0;
+        }
+    }
+}
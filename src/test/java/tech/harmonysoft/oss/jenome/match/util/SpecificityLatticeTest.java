@@ -0,0 +1,175 @@
+package tech.harmonysoft.oss.jenome.match.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import tech.harmonysoft.oss.jenome.cache.UnboundedJenomeCache;
+import tech.harmonysoft.oss.jenome.match.TypeComplianceMatcher;
+import tech.harmonysoft.oss.jenome.match.impl.CompositeTypeComplianceMatcher;
+
+import java.io.Serializable;
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings({"UnusedDeclaration"})
+public class SpecificityLatticeTest {
+
+    private Iterable<? extends Number>   numberIterable;
+    private Collection<? extends Number> numberCollection;
+    private Collection<Integer>          integerCollection;
+    private List<? extends Number>       numberList;
+    private List<Integer>                integerList;
+    private List<Long>                   longList;
+    private ArrayList<Integer>           integerArrayList;
+    private Set<Long>                    longSet;
+    private List<String>                 stringList;
+    @SuppressWarnings("rawtypes")
+    private List<List>                   rawListList;
+
+    @Test
+    public void classes() {
+        SpecificityLattice lattice = new SpecificityLattice(Arrays.asList(Number.class, Integer.class));
+        assertSame(Integer.class, lattice.selectMostSpecific(Integer.class));
+        assertSame(Number.class, lattice.selectMostSpecific(Long.class));
+        assertNull(lattice.selectMostSpecific(String.class));
+        assertEquals(Collections.emptyList(), lattice.getMostSpecific(String.class));
+    }
+
+    @Test
+    public void parameterizedTypes() {
+        SpecificityLattice lattice = new SpecificityLattice(Arrays.asList(
+                type("numberCollection"), type("integerList"), type("numberList")));
+        assertEquals(type("integerList"), lattice.selectMostSpecific(type("integerArrayList")));
+        assertEquals(type("numberList"), lattice.selectMostSpecific(type("longList")));
+        assertEquals(type("numberCollection"), lattice.selectMostSpecific(type("longSet")));
+        assertNull(lattice.selectMostSpecific(type("stringList")));
+    }
+
+    @Test
+    public void ambiguity() {
+        SpecificityLattice lattice = new SpecificityLattice(Arrays.asList(
+                Object.class, Serializable.class, Comparable.class, Number.class));
+        assertSame(Number.class, lattice.selectMostSpecific(AtomicInteger.class));
+        assertEquals(Arrays.asList(Serializable.class, Comparable.class), lattice.getMostSpecific(String.class));
+        assertThrows(IllegalArgumentException.class, () -> lattice.selectMostSpecific(String.class));
+        assertSame(Object.class, lattice.selectMostSpecific(Thread.class));
+    }
+
+    @Test
+    public void mutuallyCompliantCandidatesAreAmbiguous() {
+        SpecificityLattice lattice = new SpecificityLattice(Arrays.asList(
+                List.class, type("numberList"), type("integerList")));
+        assertEquals(Arrays.asList(List.class, type("integerList")), lattice.getMostSpecific(List.class));
+        assertEquals(Arrays.asList(List.class, type("numberList")), lattice.getMostSpecific(type("longList")));
+    }
+
+    @Test
+    public void rawQueries_areCheckedAgainstAllCandidates() {
+        SpecificityLattice lattice = new SpecificityLattice(Arrays.asList(
+                type("integerCollection"), type("integerList")));
+        assertEquals(Collections.singletonList(type("integerList")), lattice.getMostSpecific(List.class));
+
+        lattice = new SpecificityLattice(Arrays.asList(type("numberIterable"), type("numberCollection")));
+        assertEquals(Collections.singletonList(type("numberCollection")), lattice.getMostSpecific(Collection.class));
+    }
+
+    @Test
+    public void duplicatesAreNotAmbiguous() {
+        SpecificityLattice lattice = new SpecificityLattice(Arrays.asList(Number.class, Integer.class, Number.class));
+        assertSame(Number.class, lattice.selectMostSpecific(Long.class));
+        assertEquals(3, lattice.getCandidates().size());
+    }
+
+    @Test
+    public void onlyAcceptingBranchesAreWalked_andResultsAreCached() {
+        AtomicInteger checks = new AtomicInteger();
+        TypeComplianceMatcher<Type> matcher = (base, candidate) -> {
+            checks.incrementAndGet();
+            return CompositeTypeComplianceMatcher.INSTANCE.match(base, candidate);
+        };
+        SpecificityLattice lattice = new SpecificityLattice(
+                Arrays.asList(Number.class, Integer.class, Long.class, Double.class, CharSequence.class, String.class,
+                              StringBuilder.class),
+                matcher,
+                UnboundedJenomeCache.FACTORY);
+
+        checks.set(0);
+        assertSame(Integer.class, lattice.selectMostSpecific(Integer.class));
+        // Roots (Number and CharSequence) and children of Number, String and StringBuilder are not checked.
+        assertEquals(5, checks.get());
+
+        assertSame(Integer.class, lattice.selectMostSpecific(Integer.class));
+        assertEquals(5, checks.get());
+        assertEquals(1, lattice.getCacheStats().getHits());
+    }
+
+    @Test
+    public void sameResultsAsPairwiseChecks() {
+        List<Type> candidates = new ArrayList<>(Arrays.asList(
+                Object.class, Number.class, Integer.class, Comparable.class, Serializable.class, CharSequence.class,
+                String.class, Iterable.class, Collection.class, List.class, Set.class, ArrayList.class
+        ));
+        List<Type> queries = new ArrayList<>(candidates);
+        queries.addAll(Arrays.asList(Long.class, StringBuilder.class, HashSet.class, LinkedList.class));
+        for (String field : Arrays.asList("numberCollection", "numberList", "integerList", "longList")) {
+            candidates.add(type(field));
+        }
+        for (String field : Arrays.asList("integerArrayList", "longSet", "stringList", "rawListList")) {
+            queries.add(type(field));
+        }
+        assertSameResultsAsPairwiseChecks(candidates, queries);
+    }
+
+    @Test
+    public void sameResultsAsPairwiseChecks_parameterizedCandidates_rawQueries() {
+        List<Type> candidates = new ArrayList<>();
+        for (String field : Arrays.asList("numberIterable", "numberCollection", "integerCollection", "numberList",
+                                          "integerList", "longList", "integerArrayList", "longSet", "stringList"))
+        {
+            candidates.add(type(field));
+        }
+        List<Type> queries = new ArrayList<>(Arrays.asList(
+                Iterable.class, Collection.class, List.class, ArrayList.class, LinkedList.class, Set.class,
+                HashSet.class, type("rawListList")
+        ));
+        queries.addAll(candidates);
+        assertSameResultsAsPairwiseChecks(candidates, queries);
+    }
+
+    private static void assertSameResultsAsPairwiseChecks(@NotNull List<Type> candidates, @NotNull List<Type> queries) {
+        CompositeTypeComplianceMatcher matcher = CompositeTypeComplianceMatcher.INSTANCE;
+        SpecificityLattice lattice = new SpecificityLattice(candidates);
+        for (Type query : queries) {
+            List<Type> expected = new ArrayList<>();
+            for (Type candidate : candidates) {
+                if (!matcher.match(candidate, query)) {
+                    continue;
+                }
+                boolean mostSpecific = true;
+                for (Type other : candidates) {
+                    if (other != candidate && matcher.match(other, query)
+                        && matcher.match(candidate, other) && !matcher.match(other, candidate))
+                    {
+                        mostSpecific = false;
+                        break;
+                    }
+                }
+                if (mostSpecific) {
+                    expected.add(candidate);
+                }
+            }
+            assertEquals(expected, lattice.getMostSpecific(query), query.getTypeName());
+        }
+    }
+
+    @NotNull
+    private static Type type(@NotNull String fieldName) {
+        try {
+            return SpecificityLatticeTest.class.getDeclaredField(fieldName).getGenericType();
+        } catch (NoSuchFieldException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
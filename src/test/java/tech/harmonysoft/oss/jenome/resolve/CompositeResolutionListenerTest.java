@@ -0,0 +1,90 @@
+package tech.harmonysoft.oss.jenome.resolve;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+import tech.harmonysoft.oss.jenome.resolve.impl.DefaultTypeArgumentResolver;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings({"UnusedDeclaration"})
+public class CompositeResolutionListenerTest {
+
+    @Test
+    public void addAndRemove() {
+        Listener first = new Listener("first", null);
+        Listener second = new Listener("second", null);
+
+        assertSame(first, CompositeResolutionListener.add(null, first));
+        ResolutionListener both = CompositeResolutionListener.add(first, second);
+        assertTrue(both instanceof CompositeResolutionListener);
+        assertSame(both, CompositeResolutionListener.add(both, first));
+        assertSame(second, CompositeResolutionListener.remove(both, first));
+        assertNull(CompositeResolutionListener.remove(second, second));
+        assertSame(first, CompositeResolutionListener.remove(first, second));
+    }
+
+    @Test
+    public void listenersAreNotifiedInOrder() {
+        List<String> events = new ArrayList<>();
+        DefaultTypeArgumentResolver resolver = new DefaultTypeArgumentResolver();
+        Listener first = new Listener("first", events);
+        Listener second = new Listener("second", events);
+        resolver.addListener(first);
+        resolver.addListener(second);
+
+        resolver.resolve(Handler.class, StringHandler.class, 0);
+        resolver.resolve(Handler.class, StringHandler.class, 0);
+        assertThrows(IllegalArgumentException.class, () -> resolver.resolve(Handler.class, StringHandler.class, 1));
+        resolver.removeListener(first);
+        resolver.resolve(Handler.class, StringHandler.class, 0);
+
+        String expectedEnd = "second:end:" + CacheOutcome.MISS + ":second-token first:end:" + CacheOutcome.MISS
+                             + ":first-token";
+        assertEquals("first:start second:start " + expectedEnd, String.join(" ", events.subList(0, 4)));
+        assertEquals("second:end:" + CacheOutcome.HIT + ":second-token", events.get(6));
+        assertEquals("second:failed:second-token", events.get(10));
+        assertEquals("second:start", events.get(12));
+        assertEquals(14, events.size());
+    }
+
+    private static class Listener implements ResolutionListener {
+
+        @NotNull private final  String       name;
+        @Nullable private final List<String> events;
+
+        Listener(@NotNull String name, @Nullable List<String> events) {
+            this.name = name;
+            this.events = events;
+        }
+
+        @Nullable
+        @Override
+        public Object onResolveStart(@NotNull Type base, @NotNull Type target, int index) {
+            if (events != null) {
+                events.add(name + ":start");
+            }
+            return name + "-token";
+        }
+
+        @Override
+        public void onResolveEnd(@NotNull Type base,
+                                 @NotNull Type target,
+                                 int index,
+                                 @Nullable Type result,
+                                 @NotNull CacheOutcome outcome,
+                                 @Nullable Object token)
+        {
+            if (events != null) {
+                events.add(name + (result == null ? ":failed:" : ":end:" + outcome + ":") + token);
+            }
+        }
+    }
+
+    interface Handler<T> {}
+    static class StringHandler implements Handler<String> {}
+}
@@ -0,0 +1,75 @@
+package tech.harmonysoft.oss.jenome.resolve.impl;
+
+import org.junit.jupiter.api.Test;
+import tech.harmonysoft.oss.jenome.resolve.TypeArgumentResolver;
+import tech.harmonysoft.oss.jenome.resolve.util.TypeSubstitutor;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings({"UnusedDeclaration"})
+public class BindingEnvironmentTest {
+
+    private final BindingEnvironment environment = new BindingEnvironment();
+
+    @Test
+    public void rebind() {
+        class Parent<A, B, C> {}
+        class Child<X, Y> extends Parent<Y, String, X> {}
+
+        environment.rebind(Child.class.getTypeParameters(), new Type[] { Integer.class, Long.class }, null);
+        assertEquals(2, environment.size());
+        assertSame(Long.class, environment.lookup(Child.class.getTypeParameters()[1]));
+        assertNull(environment.lookup(Parent.class.getTypeParameters()[0]));
+
+        ParameterizedType parent = (ParameterizedType) Child.class.getGenericSuperclass();
+        environment.rebind(Parent.class.getTypeParameters(), parent.getActualTypeArguments(), null);
+        assertEquals(3, environment.size());
+        assertSame(Long.class, environment.get(0));
+        assertSame(String.class, environment.get(1));
+        assertSame(Integer.class, environment.get(2));
+        assertEquals(0, environment.indexOf(Parent.class.getTypeParameters()[0]));
+        assertEquals(-1, environment.indexOf(Child.class.getTypeParameters()[0]));
+    }
+
+    @Test
+    public void rebindWithSubstitution() throws NoSuchFieldException {
+        class Parent<A> {}
+        class Child<X> extends Parent<List<X>> {
+            public List<String> expected;
+        }
+
+        environment.rebind(Child.class.getTypeParameters(), new Type[] { String.class }, null);
+        ParameterizedType parent = (ParameterizedType) Child.class.getGenericSuperclass();
+        environment.rebind(Parent.class.getTypeParameters(), parent.getActualTypeArguments(), new TypeSubstitutor());
+        assertEquals(Child.class.getField("expected").getGenericType(), environment.get(0));
+    }
+
+    @Test
+    public void rebindRaw() {
+        environment.rebindRaw(Map.class.getTypeParameters());
+        assertEquals(2, environment.size());
+        assertSame(TypeArgumentResolver.RAW_TYPE, environment.get(0));
+        assertSame(TypeArgumentResolver.RAW_TYPE, environment.get(1));
+    }
+
+    @Test
+    public void copyAndClear() {
+        TypeVariable<?>[] variables = Map.class.getTypeParameters();
+        environment.rebind(variables, new Type[] { String.class, Long.class }, null);
+        BindingEnvironment copy = new BindingEnvironment();
+        copy.copyFrom(environment);
+        environment.clear();
+
+        assertEquals(0, environment.size());
+        assertNull(environment.lookup(variables[0]));
+        assertEquals(2, copy.size());
+        assertSame(String.class, copy.lookup(variables[0]));
+        assertSame(Long.class, copy.lookup(variables[1]));
+    }
+}
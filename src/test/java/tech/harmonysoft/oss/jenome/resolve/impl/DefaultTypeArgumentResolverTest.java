@@ -3,6 +3,8 @@ package tech.harmonysoft.oss.jenome.resolve.impl;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import tech.harmonysoft.oss.jenome.cache.BoundedJenomeCache;
+import tech.harmonysoft.oss.jenome.cache.CacheStats;
 import tech.harmonysoft.oss.jenome.resolve.TypeArgumentResolver;
 
 import java.io.Serializable;
@@ -213,6 +215,76 @@ public class DefaultTypeArgumentResolverTest {
         );
     }
 
+    @Test
+    public void previousCallDoesNotAffectResult() {
+        class Sub extends TestInterfaceImpl<Integer, Long, String> {}
+
+        assertSame(Integer.class, resolver.resolve(testInterfaceImplType, Sub.class, 0));
+        assertSame(TypeArgumentResolver.RAW_TYPE, resolver.resolve(Comparable.class, Comparable.class, 0));
+        assertSame(String.class, resolver.resolve(TestInterface.class, Sub.class, 2));
+        assertSame(TypeArgumentResolver.RAW_TYPE, resolver.resolve(TestInterface.class, TestInterface.class, 0));
+    }
+
+    @Test
+    public void nestedTypeVariables() throws NoSuchFieldException {
+        class Parent<T> {}
+        class Child<T> extends Parent<List<T>> {}
+        class GrandChild extends Child<String> {
+            public List<String> expected;
+        }
+        class RawChild extends Child {}
+
+        Type shallow = resolver.resolve(Parent.class, GrandChild.class, 0);
+        assertTrue(shallow instanceof ParameterizedType);
+        assertTrue(((ParameterizedType) shallow).getActualTypeArguments()[0] instanceof TypeVariable);
+
+        resolver.setDeepSubstitution(true);
+        assertEquals(GrandChild.class.getField("expected").getGenericType(),
+                     resolver.resolve(Parent.class, GrandChild.class, 0));
+        assertSame(TypeArgumentResolver.RAW_TYPE, resolver.resolve(Parent.class, RawChild.class, 0));
+    }
+
+    @Test
+    public void nestedTypeVariablesThroughInterfaces() throws NoSuchFieldException {
+        class Impl<K, V> implements SubInterface1<Collection<V>, K, V[]> {}
+        class Child extends Impl<Integer, Long> {
+            public Collection<Long> expected;
+        }
+
+        resolver.setDeepSubstitution(true);
+        assertSame(Integer.class, resolver.resolve(testInterfaceType, Child.class, 0));
+        assertSame(Long[].class, resolver.resolve(testInterfaceType, Child.class, 1));
+        assertEquals(Child.class.getField("expected").getGenericType(),
+                     resolver.resolve(testInterfaceType, Child.class, 2));
+    }
+
+    @Test
+    public void resultIsCached() {
+        class Child extends TestInterfaceImpl<Integer, Long, String> {}
+
+        assertSame(Long.class, resolver.resolve(TestInterface.class, Child.class, 1));
+        assertEquals(1, resolver.getCacheSize());
+        assertSame(Long.class, resolver.resolve(TestInterface.class, Child.class, 1));
+        assertEquals(1, resolver.getCacheSize());
+
+        resolver.setDeepSubstitution(true);
+        assertEquals(0, resolver.getCacheSize());
+    }
+
+    @Test
+    public void customCache() {
+        class Child extends TestInterfaceImpl<Integer, Long, String> {}
+
+        resolver.setCacheFactory(BoundedJenomeCache.factory(2));
+        for (int i = 0; i < 3; ++i) {
+            resolver.resolve(TestInterface.class, Child.class, i);
+            resolver.resolve(TestInterface.class, Child.class, i);
+        }
+        assertEquals(2, resolver.getCacheSize());
+        CacheStats stats = resolver.getCacheStats();
+        assertEquals(6, stats.getHits() + stats.getMisses());
+    }
+
     private interface TestInterface<A, B, C> {}
     private interface SubInterface1<A, B, C> extends TestInterface<B, C, A> {}
     private interface SubInterface2<A, B, C> extends SubInterface1<B, C, A> {}
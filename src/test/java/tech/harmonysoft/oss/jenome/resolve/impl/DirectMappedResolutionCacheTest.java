@@ -0,0 +1,35 @@
+package tech.harmonysoft.oss.jenome.resolve.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DirectMappedResolutionCacheTest {
+
+    private final DirectMappedResolutionCache cache = new DirectMappedResolutionCache(16);
+
+    @Test
+    public void putAndGet() {
+        assertNull(cache.get(Collection.class, List.class, 0, 0));
+
+        // Different entries might share a slot, so, every entry is checked before the next one is stored.
+        cache.put(Collection.class, List.class, 0, String.class, 0);
+        assertSame(String.class, cache.get(Collection.class, List.class, 0, 0));
+        assertNull(cache.get(Collection.class, List.class, 1, 0));
+        cache.put(Comparable.class, Integer.class, 0, Integer.class, 0);
+        assertSame(Integer.class, cache.get(Comparable.class, Integer.class, 0, 0));
+    }
+
+    @Test
+    public void generationChange_dropsEntries() {
+        cache.put(Comparable.class, Integer.class, 0, Integer.class, 0);
+        assertNull(cache.get(Comparable.class, Integer.class, 0, 1));
+
+        cache.put(Comparable.class, Integer.class, 0, Integer.class, 1);
+        assertSame(Integer.class, cache.get(Comparable.class, Integer.class, 0, 1));
+        assertNull(cache.get(Comparable.class, Integer.class, 0, 2));
+    }
+}
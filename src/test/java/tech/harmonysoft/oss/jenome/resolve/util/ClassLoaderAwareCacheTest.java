@@ -0,0 +1,186 @@
+package tech.harmonysoft.oss.jenome.resolve.util;
+
+import org.junit.jupiter.api.Test;
+import tech.harmonysoft.oss.jenome.cache.BoundedJenomeCache;
+import tech.harmonysoft.oss.jenome.match.impl.CompositeTypeComplianceMatcher;
+import tech.harmonysoft.oss.jenome.resolve.impl.DefaultTypeArgumentResolver;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings({"UnusedDeclaration"})
+public class ClassLoaderAwareCacheTest {
+
+    private static final String PAYLOAD = ClassLoaderAwareCacheTest.class.getPackage().getName() + ".IsolatedPayload";
+    private static final String BASE    = ClassLoaderAwareCacheTest.class.getPackage().getName() + ".IsolatedBase";
+    private static final String HANDLER = ClassLoaderAwareCacheTest.class.getPackage().getName() + ".IsolatedHandler";
+
+    private final ClassLoaderAwareCache<String, String> cache = new ClassLoaderAwareCache<>();
+
+    @Test
+    public void sharedEntries() {
+        assertEquals("1", cache.put("key", "1", String.class));
+        assertEquals("1", cache.put("key", "2", Object.class));
+        assertEquals("1", cache.get("key", Integer.class));
+        assertEquals(1, cache.size());
+
+        cache.clear();
+        assertNull(cache.get("key", String.class));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void entryWithoutOwner_isNotCached() {
+        assertEquals("1", cache.put("key", "1", null));
+        assertNull(cache.get("key", null));
+        assertNull(cache.get("key", String.class));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void entriesOfIsolatedClasses() throws Exception {
+        ClassLoader loader = new IsolatingClassLoader(PAYLOAD, BASE, HANDLER);
+        Class<?> payload = loader.loadClass(PAYLOAD);
+        Class<?> handler = loader.loadClass(HANDLER);
+        assertFalse(ReflectionCache.isCacheSafe(payload));
+
+        cache.put("key", "1", payload);
+        assertEquals("1", cache.get("key", payload));
+        assertNull(cache.get("key", handler));
+        assertNull(cache.get("key", String.class));
+        assertEquals(1, cache.size());
+
+        cache.clear();
+        assertNull(cache.get("key", payload));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void entriesOfIsolatedClasses_areBoundedBySharedCacheSize() throws Exception {
+        ClassLoaderAwareCache<String, String> cache = new ClassLoaderAwareCache<>(new BoundedJenomeCache<>(2));
+        ClassLoader loader = new IsolatingClassLoader(PAYLOAD, BASE, HANDLER);
+        Class<?> payload = loader.loadClass(PAYLOAD);
+        Class<?> handler = loader.loadClass(HANDLER);
+
+        cache.put("key1", "1", payload);
+        cache.put("key2", "2", handler);
+        assertEquals(2, cache.size());
+
+        cache.put("key3", "3", payload);
+        assertEquals(1, cache.size());
+        assertEquals("3", cache.get("key3", payload));
+        assertNull(cache.get("key1", payload));
+    }
+
+    @Test
+    public void cachesDoNotPinClassLoader() throws Exception {
+        WeakReference<ClassLoader> loader = populateCaches();
+        for (int i = 0; loader.get() != null && i < 100; ++i) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(loader.get(), "Expected that jenome caches don't prevent class loader from being collected");
+    }
+
+    private static WeakReference<ClassLoader> populateCaches() throws Exception {
+        ClassLoader loader = new IsolatingClassLoader(PAYLOAD, BASE, HANDLER);
+        Class<?> payload = loader.loadClass(PAYLOAD);
+        Class<?> base = loader.loadClass(BASE);
+        Class<?> handler = loader.loadClass(HANDLER);
+
+        DefaultTypeArgumentResolver resolver = DefaultTypeArgumentResolver.INSTANCE;
+        int resolverCacheSize = resolver.getCacheSize();
+        assertSame(payload, resolver.resolve(Handler.class, handler, 0));
+
+        Type handlerType = handler.getGenericInterfaces()[0];
+        assertTrue(CompositeTypeComplianceMatcher.INSTANCE.match(handlerType, handler));
+        assertFalse(CompositeTypeComplianceMatcher.INSTANCE.match(handlerType, String.class));
+
+        assertSame(payload, JenomeResolveUtil.getTypeArgument(handler));
+
+        Type listType = Holder.class.getField("list").getGenericType();
+        Type substituted = TypeSubstitutor.INSTANCE.substitute(
+                listType, Collections.singletonMap(Holder.class.getTypeParameters()[0], payload));
+        assertSame(substituted, TypeSubstitutor.INSTANCE.substitute(
+                listType, Collections.singletonMap(Holder.class.getTypeParameters()[0], payload)));
+
+        ReflectionCache.getActualTypeArguments((ParameterizedType) handlerType);
+
+        // Resolution against a base class from the isolated class loader goes last in order to make sure
+        // that no thread-local state refers to it.
+        assertSame(payload, resolver.resolve(base, handler, 0));
+        assertTrue(resolver.getCacheSize() >= resolverCacheSize + 2);
+        return new WeakReference<>(loader);
+    }
+
+    public interface Handler<T> {}
+
+    public static class Holder<T> {
+        public List<T> list;
+    }
+
+    /**
+     * Defines given classes by itself instead of delegating to the parent class loader.
+     */
+    private static class IsolatingClassLoader extends ClassLoader {
+
+        private final Set<String> names;
+
+        IsolatingClassLoader(String... names) {
+            super(ClassLoaderAwareCacheTest.class.getClassLoader());
+            this.names = new HashSet<>(Arrays.asList(names));
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!names.contains(name)) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> result = findLoadedClass(name);
+                if (result == null) {
+                    byte[] bytes = readClass(name);
+                    result = defineClass(name, bytes, 0, bytes.length);
+                }
+                return result;
+            }
+        }
+
+        private byte[] readClass(String name) throws ClassNotFoundException {
+            try (InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+                if (in == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[4096];
+                for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                    out.write(buffer, 0, read);
+                }
+                return out.toByteArray();
+            } catch (IOException e) {
+                throw new ClassNotFoundException(name, e);
+            }
+        }
+    }
+}
+
+// Classes below are loaded by IsolatingClassLoader, they are top-level because nested classes can't be defined by
+// a class loader different from the one of their enclosing class.
+
+class IsolatedPayload {}
+
+class IsolatedBase<T> {}
+
+class IsolatedHandler extends IsolatedBase<IsolatedPayload>
+        implements ClassLoaderAwareCacheTest.Handler<IsolatedPayload> {}
@@ -1,16 +1,21 @@
 package tech.harmonysoft.oss.jenome.resolve.util;
 
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.junit.jupiter.api.Test;
+import tech.harmonysoft.oss.jenome.resolve.TypeFunction;
+import tech.harmonysoft.oss.jenome.resolve.impl.DefaultTypeArgumentResolver;
 
 import java.lang.reflect.Type;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static java.util.Arrays.asList;
 import static java.util.stream.Collectors.toMap;
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class JenomeResolveUtilTest {
 
@@ -44,4 +49,114 @@ public class JenomeResolveUtilTest {
             JenomeResolveUtil.getTypeArgument(new ParameterizedHandler());
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    public void resolve_class() {
+        assertEquals(Integer.class, JenomeResolveUtil.getTypeArgument(IntHandler.class));
+        assertEquals(Long.class, JenomeResolveUtil.getTypeArgument(LongHandler.class));
+        assertSame(JenomeResolveUtil.getTypeArgument(IntHandler.class),
+                   JenomeResolveUtil.getTypeArgument(new IntHandler()));
+    }
+
+    @Test
+    public void resolve_failure_isReportedOnEveryCall() {
+        IllegalArgumentException first = assertThrows(IllegalArgumentException.class, () -> {
+            JenomeResolveUtil.getTypeArgument(RawHandler.class);
+        });
+        IllegalArgumentException second = assertThrows(IllegalArgumentException.class, () -> {
+            JenomeResolveUtil.getTypeArgument(RawHandler.class);
+        });
+        assertNotSame(first, second);
+        assertEquals(first.getMessage(), second.getMessage());
+        assertTrue(first.getMessage().contains(RawHandler.class.getName()));
+    }
+
+    @Test
+    public void resolve_class_isRecalculatedAfterResolverReconfiguration() {
+        assertEquals(Integer.class, JenomeResolveUtil.getTypeArgument(IntHandler.class));
+        AtomicInteger dispatched = new AtomicInteger();
+        DefaultTypeArgumentResolver.INSTANCE.setTypeDispatcher(new TypeDispatcher() {
+            @Override
+            public <P, R> R apply(@NotNull Type type, @NotNull TypeFunction<P, R> function, @Nullable P parameter) {
+                dispatched.incrementAndGet();
+                return super.apply(type, function, parameter);
+            }
+        });
+        try {
+            assertEquals(Integer.class, JenomeResolveUtil.getTypeArgument(IntHandler.class));
+            int calculated = dispatched.get();
+            assertTrue(calculated > 0);
+            assertEquals(Integer.class, JenomeResolveUtil.getTypeArgument(IntHandler.class));
+            assertEquals(calculated, dispatched.get());
+        } finally {
+            DefaultTypeArgumentResolver.INSTANCE.setTypeDispatcher(TypeDispatcher.INSTANCE);
+        }
+        assertEquals(Integer.class, JenomeResolveUtil.getTypeArgument(IntHandler.class));
+    }
+
+    @Test
+    public void byTypeValueParallel_success() {
+        IntHandler intHandler = new IntHandler();
+        LongHandler longHandler = new LongHandler();
+        Map<Type, MyInterface<?>> expected = new HashMap<>();
+        expected.put(Integer.class, intHandler);
+        expected.put(Long.class, longHandler);
+
+        Map<Type, MyInterface<?>> actual = JenomeResolveUtil.byTypeValueParallel(asList(intHandler, longHandler));
+        assertEquals(expected, actual);
+        assertSame(intHandler, actual.get(Integer.class));
+        assertThrows(UnsupportedOperationException.class, () -> actual.put(String.class, intHandler));
+    }
+
+    @Test
+    public void byTypeValueParallel_manyClasses() throws Exception {
+        List<MyInterface<?>> beans = new ArrayList<>();
+        Map<Type, MyInterface<?>> expected = new HashMap<>();
+        for (Class<?> clazz : JenomeResolveUtilTest.class.getDeclaredClasses()) {
+            if (clazz.getSimpleName().startsWith("Handler")) {
+                MyInterface<?> bean = (MyInterface<?>) clazz.newInstance();
+                beans.add(bean);
+                expected.put(JenomeResolveUtil.getTypeArgument(bean), bean);
+            }
+        }
+        assertEquals(20, beans.size());
+        assertEquals(expected, JenomeResolveUtil.byTypeValueParallel(beans, new ForkJoinPool(4)));
+    }
+
+    @Test
+    public void byTypeValueParallel_allProblemsAreReported() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> {
+            JenomeResolveUtil.byTypeValueParallel(asList(new IntHandler(),
+                                                         new IntHandler(),
+                                                         new LongHandler(),
+                                                         new AnotherLongHandler(),
+                                                         new RawHandler()));
+        });
+        assertTrue(e.getMessage().contains("3 problem(s)"), e.getMessage());
+        assertTrue(e.getMessage().contains(RawHandler.class.getName()), e.getMessage());
+        assertTrue(e.getMessage().contains(Integer.class.getName()), e.getMessage());
+        assertTrue(e.getMessage().contains(Long.class.getName()), e.getMessage());
+    }
+
+    public static class AnotherLongHandler implements MyInterface<Long> {}
+    public static class HandlerByte implements MyInterface<Byte> {}
+    public static class HandlerShort implements MyInterface<Short> {}
+    public static class HandlerCharacter implements MyInterface<Character> {}
+    public static class HandlerBoolean implements MyInterface<Boolean> {}
+    public static class HandlerFloat implements MyInterface<Float> {}
+    public static class HandlerDouble implements MyInterface<Double> {}
+    public static class HandlerString implements MyInterface<String> {}
+    public static class HandlerStringBuilder implements MyInterface<StringBuilder> {}
+    public static class HandlerObject implements MyInterface<Object> {}
+    public static class HandlerNumber implements MyInterface<Number> {}
+    public static class HandlerCharSequence implements MyInterface<CharSequence> {}
+    public static class HandlerRunnable implements MyInterface<Runnable> {}
+    public static class HandlerThread implements MyInterface<Thread> {}
+    public static class HandlerVoid implements MyInterface<Void> {}
+    public static class HandlerIterable implements MyInterface<Iterable> {}
+    public static class HandlerCloneable implements MyInterface<Cloneable> {}
+    public static class HandlerException implements MyInterface<Exception> {}
+    public static class HandlerError implements MyInterface<Error> {}
+    public static class HandlerThrowable implements MyInterface<Throwable> {}
+    public static class HandlerProcess implements MyInterface<Process> {}
+}
@@ -0,0 +1,71 @@
+package tech.harmonysoft.oss.jenome.resolve.util;
+
+import org.junit.jupiter.api.Test;
+import tech.harmonysoft.oss.jenome.resolve.TypeArgumentResolver;
+
+import java.io.Serializable;
+import java.lang.reflect.*;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings({"UnusedDeclaration"})
+public class ReflectionCacheTest {
+
+    @Test
+    public void classMetadata() {
+        class Test<A, B extends Number> implements Comparator<A>, Serializable {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public int compare(A o1, A o2) {
+                return 0;
+            }
+        }
+
+        assertArrayEquals(Test.class.getGenericInterfaces(), ReflectionCache.getGenericInterfaces(Test.class));
+        assertArrayEquals(Test.class.getInterfaces(), ReflectionCache.getInterfaces(Test.class));
+        assertArrayEquals(Test.class.getTypeParameters(), ReflectionCache.getTypeParameters(Test.class));
+        assertSame(ReflectionCache.getGenericInterfaces(Test.class), ReflectionCache.getGenericInterfaces(Test.class));
+        assertSame(ReflectionCache.getTypeParameters(Test.class), ReflectionCache.getTypeParameters(Test.class));
+    }
+
+    @Test
+    public void typeMetadata() throws NoSuchFieldException {
+        class Test<T extends Comparable<T>> {
+            public List<? extends Number> upper;
+            public List<? super Integer> lower;
+        }
+
+        TypeVariable<?> typeVariable = Test.class.getTypeParameters()[0];
+        assertArrayEquals(typeVariable.getBounds(), ReflectionCache.getBounds(typeVariable));
+        assertSame(ReflectionCache.getBounds(typeVariable), ReflectionCache.getBounds(typeVariable));
+
+        ParameterizedType upper = (ParameterizedType) Test.class.getField("upper").getGenericType();
+        assertArrayEquals(upper.getActualTypeArguments(), ReflectionCache.getActualTypeArguments(upper));
+        assertSame(ReflectionCache.getActualTypeArguments(upper), ReflectionCache.getActualTypeArguments(upper));
+
+        WildcardType upperWildcard = (WildcardType) upper.getActualTypeArguments()[0];
+        assertArrayEquals(new Type[] { Number.class }, ReflectionCache.getUpperBounds(upperWildcard));
+        assertEquals(0, ReflectionCache.getLowerBounds(upperWildcard).length);
+
+        ParameterizedType lower = (ParameterizedType) Test.class.getField("lower").getGenericType();
+        WildcardType lowerWildcard = (WildcardType) lower.getActualTypeArguments()[0];
+        assertArrayEquals(new Type[] { Object.class }, ReflectionCache.getUpperBounds(lowerWildcard));
+        assertArrayEquals(new Type[] { Integer.class }, ReflectionCache.getLowerBounds(lowerWildcard));
+    }
+
+    @Test
+    public void cacheSafety() throws NoSuchFieldException {
+        class Test<T> {
+            public List<? extends T> field;
+        }
+
+        assertTrue(ReflectionCache.isCacheSafe(String.class));
+        assertTrue(ReflectionCache.isCacheSafe(Test.class.getField("field").getGenericType()));
+        assertTrue(ReflectionCache.isCacheSafe(TypeArgumentResolver.RAW_TYPE));
+        assertFalse(ReflectionCache.isCacheSafe(new Type() {}));
+    }
+}
@@ -3,26 +3,29 @@ package tech.harmonysoft.oss.jenome.resolve.util;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
+import tech.harmonysoft.oss.jenome.resolve.TypeFunction;
 import tech.harmonysoft.oss.jenome.resolve.TypeVisitor;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.*;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.*;
 
 public class TypeDispatcherTest {
 
     private TypeDispatcher dispatcher = new TypeDispatcher();
 
-    @Mock private TypeVisitor visitor;
+    @Mock private TypeVisitor                    visitor;
+    @Mock private TypeFunction<String, String> function;
 
     @BeforeEach
     @SuppressWarnings("unchecked")
     public void setUp() throws Exception {
         dispatcher = new TypeDispatcher();
         visitor = mock(TypeVisitor.class);
+        function = mock(TypeFunction.class);
     }
 
     @Test
@@ -70,46 +73,98 @@ public class TypeDispatcherTest {
     @SuppressWarnings("unchecked")
     @Test
     public void multipleMatches() {
-        class TestClass implements TypeVariable, GenericArrayType {
-            @Override
-            public Type getGenericComponentType() {
-                return null;
-            }
-            @Override
-            public Type[] getBounds() {
-                return new Type[0];
-            }
-            @Override
-            public GenericDeclaration getGenericDeclaration() {
-                return null;
-            }
-            @Override
-            public String getName() {
-                return null;
-            }
-
-            @Override
-            public AnnotatedType[] getAnnotatedBounds() {
-                return new AnnotatedType[0];
-            }
-            @Override
-            public Annotation[] getDeclaredAnnotations() {
-                return new Annotation[0];
-            }
-
-            @Override
-            public <T extends Annotation> T getAnnotation(Class<T> annotationClass) {
-                return null;
-            }
-
-            @Override
-            public Annotation[] getAnnotations() {
-                return new Annotation[0];
-            }
-        }
-
         dispatcher.dispatch(new TestClass(), visitor);
         verify(visitor).visitTypeVariable(any(TypeVariable.class));
         verify(visitor).visitGenericArrayType(any(GenericArrayType.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void applyPureType() {
+        Type type = mock(Type.class);
+        when(function.visitType(type, "parameter")).thenReturn("result");
+        assertEquals("result", dispatcher.apply(type, function, "parameter"));
+    }
+
+    @Test
+    public void applyPureParameterizedType() {
+        ParameterizedType type = mock(ParameterizedType.class);
+        when(function.visitParameterizedType(type, "parameter")).thenReturn("result");
+        assertEquals("result", dispatcher.apply(type, function, "parameter"));
+    }
+
+    @Test
+    public void applyPureWildcardType() {
+        WildcardType type = mock(WildcardType.class);
+        when(function.visitWildcardType(type, "parameter")).thenReturn("result");
+        assertEquals("result", dispatcher.apply(type, function, "parameter"));
+    }
+
+    @Test
+    public void applyPureGenericArrayType() {
+        GenericArrayType type = mock(GenericArrayType.class);
+        when(function.visitGenericArrayType(type, "parameter")).thenReturn("result");
+        assertEquals("result", dispatcher.apply(type, function, "parameter"));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void applyPureTypeVariable() {
+        TypeVariable type = mock(TypeVariable.class);
+        when(function.visitTypeVariable(type, "parameter")).thenReturn("result");
+        assertEquals("result", dispatcher.apply(type, function, "parameter"));
+    }
+
+    @Test
+    public void applyPureClass() {
+        when(function.visitClass(Class.class, "parameter")).thenReturn("result");
+        assertEquals("result", dispatcher.apply(Class.class, function, "parameter"));
+    }
+
+    @Test
+    public void applyMultipleMatches() {
+        TestClass type = new TestClass();
+        when(function.visitGenericArrayType(type, "parameter")).thenReturn("result");
+        assertEquals("result", dispatcher.apply(type, function, "parameter"));
+        verify(function).visitGenericArrayType(type, "parameter");
+        verifyNoMoreInteractions(function);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static class TestClass implements TypeVariable, GenericArrayType {
+        @Override
+        public Type getGenericComponentType() {
+            return null;
+        }
+        @Override
+        public Type[] getBounds() {
+            return new Type[0];
+        }
+        @Override
+        public GenericDeclaration getGenericDeclaration() {
+            return null;
+        }
+        @Override
+        public String getName() {
+            return null;
+        }
+
+        @Override
+        public AnnotatedType[] getAnnotatedBounds() {
+            return new AnnotatedType[0];
+        }
+        @Override
+        public Annotation[] getDeclaredAnnotations() {
+            return new Annotation[0];
+        }
+
+        @Override
+        public <T extends Annotation> T getAnnotation(Class<T> annotationClass) {
+            return null;
+        }
+
+        @Override
+        public Annotation[] getAnnotations() {
+            return new Annotation[0];
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package tech.harmonysoft.oss.jenome.resolve.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings({"UnusedDeclaration"})
+public class TypeLookupMapTest {
+
+    public List<String> field1;
+    public List<String> field2;
+
+    @Test
+    public void lookup() throws NoSuchFieldException {
+        Map<Type, Integer> source = new HashMap<>();
+        for (int i = 0; i < 100; ++i) {
+            source.put(array(i), i);
+        }
+        Type field1Type = TypeLookupMapTest.class.getField("field1").getGenericType();
+        source.put(field1Type, -1);
+
+        TypeLookupMap<Integer> map = new TypeLookupMap<>(source);
+        assertEquals(source, map);
+        assertEquals(source.hashCode(), map.hashCode());
+        assertEquals(source.size(), map.size());
+        for (Map.Entry<Type, Integer> entry : source.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+
+        // Equal but not the same key.
+        Type field2Type = TypeLookupMapTest.class.getField("field2").getGenericType();
+        assertTrue(field2Type instanceof ParameterizedType);
+        assertEquals(Integer.valueOf(-1), map.get(field2Type));
+        assertNull(map.get(String.class));
+        assertNull(map.get(null));
+        assertFalse(map.containsKey(String.class));
+    }
+
+    @Test
+    public void empty() {
+        TypeLookupMap<Integer> map = new TypeLookupMap<>(Collections.emptyMap());
+        assertTrue(map.isEmpty());
+        assertNull(map.get(Object.class));
+        assertFalse(map.entrySet().iterator().hasNext());
+    }
+
+    @Test
+    public void immutable() {
+        TypeLookupMap<Integer> map = new TypeLookupMap<>(Collections.singletonMap(String.class, 1));
+        assertThrows(UnsupportedOperationException.class, () -> map.put(Long.class, 2));
+        assertThrows(UnsupportedOperationException.class, () -> map.remove(String.class));
+        assertThrows(UnsupportedOperationException.class, map::clear);
+    }
+
+    private static Class<?> array(int dimensions) {
+        Class<?> result = Object.class;
+        for (int i = 0; i < dimensions; ++i) {
+            result = Array.newInstance(result, 0).getClass();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,118 @@
+package tech.harmonysoft.oss.jenome.resolve.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tech.harmonysoft.oss.jenome.resolve.TypeArgumentResolver;
+
+import java.lang.reflect.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings({"UnusedDeclaration"})
+public class TypeSubstitutorTest {
+
+    private TypeSubstitutor substitutor;
+
+    @BeforeEach
+    public void setUp() {
+        substitutor = new TypeSubstitutor();
+    }
+
+    @Test
+    public void nestedParameterizedType() throws NoSuchFieldException {
+        class Test<T> {
+            public Map<T, List<T>> field;
+            public Map<String, List<String>> expected;
+        }
+
+        Type actual = substitutor.substitute(Test.class.getField("field").getGenericType(),
+                                             bindings(Test.class, String.class));
+        assertEquals(Test.class.getField("expected").getGenericType(), actual);
+        assertEquals(actual, Test.class.getField("expected").getGenericType());
+        assertEquals(Test.class.getField("expected").getGenericType().hashCode(), actual.hashCode());
+    }
+
+    @Test
+    public void wildcards() throws NoSuchFieldException {
+        class Test<T> {
+            public List<? extends T> upper;
+            public List<? super T> lower;
+            public List<? extends Number> expectedUpper;
+            public List<? super Number> expectedLower;
+        }
+
+        Map<TypeVariable<?>, Type> bindings = bindings(Test.class, Number.class);
+        assertEquals(Test.class.getField("expectedUpper").getGenericType(),
+                     substitutor.substitute(Test.class.getField("upper").getGenericType(), bindings));
+        assertEquals(Test.class.getField("expectedLower").getGenericType(),
+                     substitutor.substitute(Test.class.getField("lower").getGenericType(), bindings));
+    }
+
+    @Test
+    public void wildcardValue() throws NoSuchFieldException {
+        class Test<T> {
+            public List<? extends T> field;
+            public List<? extends Number> value;
+        }
+
+        Type value = ((ParameterizedType) Test.class.getField("value").getGenericType()).getActualTypeArguments()[0];
+        assertEquals(Test.class.getField("value").getGenericType(),
+                     substitutor.substitute(Test.class.getField("field").getGenericType(),
+                                            bindings(Test.class, value)));
+    }
+
+    @Test
+    public void genericArrays() throws NoSuchFieldException {
+        class Test<T> {
+            public T[] array;
+            public List<T>[] parameterizedArray;
+            public List<String>[] expected;
+        }
+
+        Map<TypeVariable<?>, Type> bindings = bindings(Test.class, String.class);
+        assertSame(String[].class, substitutor.substitute(Test.class.getField("array").getGenericType(), bindings));
+        assertEquals(Test.class.getField("expected").getGenericType(),
+                     substitutor.substitute(Test.class.getField("parameterizedArray").getGenericType(), bindings));
+    }
+
+    @Test
+    public void unboundVariablesAreKept() throws NoSuchFieldException {
+        class Test<T> {
+            public List<T> field;
+        }
+
+        Type type = Test.class.getField("field").getGenericType();
+        assertSame(type, substitutor.substitute(type, Collections.emptyMap()));
+        assertSame(Integer.class, substitutor.substitute(Integer.class, bindings(Test.class, String.class)));
+    }
+
+    @Test
+    public void rawValue() throws NoSuchFieldException {
+        class Test<T> {
+            public List<T> field;
+        }
+
+        assertSame(TypeArgumentResolver.RAW_TYPE,
+                   substitutor.substitute(Test.class.getField("field").getGenericType(),
+                                          bindings(Test.class, TypeArgumentResolver.RAW_TYPE)));
+    }
+
+    @Test
+    public void resultIsMemoized() throws NoSuchFieldException {
+        class Test<T> {
+            public List<T> field;
+        }
+
+        Type type = Test.class.getField("field").getGenericType();
+        Type first = substitutor.substitute(type, bindings(Test.class, String.class));
+        assertSame(first, substitutor.substitute(type, bindings(Test.class, String.class)));
+        assertNotEquals(first, substitutor.substitute(type, bindings(Test.class, Long.class)));
+    }
+
+    private static Map<TypeVariable<?>, Type> bindings(Class<?> clazz, Type value) {
+        Map<TypeVariable<?>, Type> result = new HashMap<>();
+        result.put(clazz.getTypeParameters()[0], value);
+        return result;
+    }
+}
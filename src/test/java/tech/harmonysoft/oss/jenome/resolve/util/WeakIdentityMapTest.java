@@ -0,0 +1,59 @@
+package tech.harmonysoft.oss.jenome.resolve.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WeakIdentityMapTest {
+
+    private final WeakIdentityMap<Object, String> map = new WeakIdentityMap<>();
+
+    @Test
+    public void identitySemantics() {
+        String key1 = new String("key");
+        String key2 = new String("key");
+
+        assertEquals("1", map.putIfAbsent(key1, "1"));
+        assertEquals("1", map.putIfAbsent(key1, "2"));
+        assertEquals("1", map.get(key1));
+        assertNull(map.get(key2));
+        assertEquals("3", map.putIfAbsent(key2, "3"));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    public void resize() {
+        List<Object> keys = new ArrayList<>();
+        for (int i = 0; i < 1000; ++i) {
+            Object key = new Object();
+            keys.add(key);
+            map.putIfAbsent(key, String.valueOf(i));
+        }
+        for (int i = 0; i < keys.size(); ++i) {
+            assertEquals(String.valueOf(i), map.get(keys.get(i)));
+        }
+        assertEquals(keys.size(), map.size());
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertNull(map.get(keys.get(0)));
+    }
+
+    @Test
+    public void collectedKeysAreExpunged() throws InterruptedException {
+        Object survivor = new Object();
+        map.putIfAbsent(survivor, "survivor");
+        for (int i = 0; i < 100; ++i) {
+            map.putIfAbsent(new Object(), String.valueOf(i));
+        }
+        for (int i = 0; i < 50 && map.size() > 1; ++i) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertEquals(1, map.size());
+        assertEquals("survivor", map.get(survivor));
+    }
+}
@@ -0,0 +1,167 @@
+package tech.harmonysoft.oss.jenome.warmup;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tech.harmonysoft.oss.jenome.match.impl.CompositeTypeComplianceMatcher;
+import tech.harmonysoft.oss.jenome.resolve.impl.DefaultTypeArgumentResolver;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings({"UnusedDeclaration"})
+public class AccessProfileReplayerTest {
+
+    private static final ClassLoader LOADER = AccessProfileReplayerTest.class.getClassLoader();
+
+    private AccessProfileRecorder recorder;
+
+    @BeforeEach
+    public void setUp() {
+        recorder = new AccessProfileRecorder();
+    }
+
+    @Test
+    public void recordAndReplay() throws Exception {
+        DefaultTypeArgumentResolver resolver = new DefaultTypeArgumentResolver();
+        CompositeTypeComplianceMatcher matcher = new CompositeTypeComplianceMatcher();
+        // Class-to-class checks are decided by the prefilter and are not recorded otherwise.
+        matcher.setPrefilterEnabled(false);
+        resolver.addListener(recorder);
+        matcher.addListener(recorder);
+        matcher.setTypeArgumentResolver(resolver);
+        for (int i = 0; i < 3; ++i) {
+            resolver.resolve(Handler.class, StringHandler.class, 0);
+        }
+        assertTrue(matcher.match(Handler.class, LongHandler.class));
+        assertFalse(matcher.match(StringHandler.class, LongHandler.class, true));
+        resolver.removeListener(recorder);
+        resolver.resolve(Handler.class, LongHandler.class, 0);
+
+        Path file = Files.createTempFile("jenome", ".profile");
+        try {
+            assertEquals(3, recorder.write(file, 100));
+            List<String> lines = Files.readAllLines(file);
+            assertEquals(AccessProfileRecorder.HEADER, lines.get(0));
+            assertEquals("R\t3\t" + Handler.class.getName() + "\t" + StringHandler.class.getName() + "\t0",
+                         lines.get(1));
+            assertTrue(lines.contains("M\t1\t" + StringHandler.class.getName() + "\t" + LongHandler.class.getName()
+                                      + "\ttrue"));
+
+            DefaultTypeArgumentResolver newResolver = new DefaultTypeArgumentResolver();
+            CompositeTypeComplianceMatcher newMatcher = new CompositeTypeComplianceMatcher();
+            newMatcher.setPrefilterEnabled(false);
+            WarmupReport report = new AccessProfileReplayer(newResolver, newMatcher).replay(file);
+
+            assertEquals(3, report.getTargets());
+            assertEquals(1, report.getResolutions());
+            assertEquals(2, report.getMatches());
+            assertEquals(0, report.getFailures());
+            assertTrue(report.getEntriesProduced() >= 3);
+            assertEquals(1, newResolver.getCacheSize());
+            assertSame(String.class, newResolver.resolve(Handler.class, StringHandler.class, 0));
+            assertEquals(1, newResolver.getCacheStats().getHits());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void nestedChecksAreNotRecorded() {
+        CompositeTypeComplianceMatcher matcher = new CompositeTypeComplianceMatcher();
+        matcher.addListener(recorder);
+        matcher.match(Handler.class, StringHandler.class);
+        assertEquals(1, recorder.size());
+    }
+
+    @Test
+    public void write_limit() throws Exception {
+        recorder.recordMatch(Handler.class, StringHandler.class, false);
+        recorder.recordMatch(Handler.class, LongHandler.class, false);
+        recorder.recordMatch(Handler.class, LongHandler.class, false);
+
+        StringWriter writer = new StringWriter();
+        assertEquals(1, recorder.write(writer, 1));
+        assertTrue(writer.toString().contains(LongHandler.class.getName()));
+        assertFalse(writer.toString().contains(StringHandler.class.getName()));
+    }
+
+    @Test
+    public void maxEntries() {
+        AccessProfileRecorder recorder = new AccessProfileRecorder(1);
+        recorder.recordMatch(Handler.class, StringHandler.class, false);
+        recorder.recordMatch(Handler.class, LongHandler.class, false);
+        recorder.recordMatch(Handler.class, StringHandler.class, false);
+        assertEquals(1, recorder.size());
+    }
+
+    @Test
+    public void replay_unavailableEntries() throws Exception {
+        String profile = AccessProfileRecorder.HEADER + "\n"
+                         + "R\t5\tcom.example.Missing\t" + StringHandler.class.getName() + "\t0\n"
+                         + "M\t4\t" + Handler.class.getName() + "\tcom.example.Missing\tfalse\n"
+                         + "R\t3\t" + Handler.class.getName() + "\t" + Unrelated.class.getName() + "\t0\n"
+                         + "M\t2\t" + Handler.class.getName() + "\t" + LongHandler.class.getName() + "\tfalse\n";
+        DefaultTypeArgumentResolver resolver = new DefaultTypeArgumentResolver();
+        CompositeTypeComplianceMatcher matcher = new CompositeTypeComplianceMatcher();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            WarmupReport report = new AccessProfileReplayer(resolver, matcher).replay(new StringReader(profile),
+                                                                                     LOADER,
+                                                                                     executor);
+            assertEquals(4, report.getTargets());
+            assertEquals(3, report.getFailures());
+            assertEquals(1, report.getResolutions());
+            assertEquals(1, report.getMatches());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void replay_failedMatches() throws Exception {
+        String profile = AccessProfileRecorder.HEADER + "\n"
+                         + "M\t2\t" + Handler.class.getName() + "\t" + Unrelated.class.getName() + "\tfalse\n"
+                         + "M\t1\t" + Handler.class.getName() + "\t" + LongHandler.class.getName() + "\tfalse\n";
+        CompositeTypeComplianceMatcher matcher = new CompositeTypeComplianceMatcher() {
+            @Override
+            public boolean match(@NotNull Type base, @NotNull Type candidate, boolean topLevelCheck) {
+                if (candidate == Unrelated.class) {
+                    throw new IllegalArgumentException("unexpected candidate");
+                }
+                return super.match(base, candidate, topLevelCheck);
+            }
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            WarmupReport report = new AccessProfileReplayer(new DefaultTypeArgumentResolver(), matcher)
+                    .replay(new StringReader(profile), LOADER, executor);
+            assertEquals(2, report.getTargets());
+            assertEquals(1, report.getFailures());
+            assertEquals(2, report.getMatches());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void replay_unexpectedHeader() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> new AccessProfileReplayer().replay(new StringReader("something else\n"),
+                                                              LOADER,
+                                                              Executors.newSingleThreadExecutor()));
+    }
+
+    interface Handler<T> {}
+    static class StringHandler implements Handler<String> {}
+    static class LongHandler implements Handler<Long> {}
+    static class Unrelated {}
+}
@@ -0,0 +1,91 @@
+package tech.harmonysoft.oss.jenome.warmup;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tech.harmonysoft.oss.jenome.match.impl.CompositeTypeComplianceMatcher;
+import tech.harmonysoft.oss.jenome.resolve.impl.DefaultTypeArgumentResolver;
+
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings({"UnusedDeclaration"})
+public class JenomeWarmupTest {
+
+    private DefaultTypeArgumentResolver    resolver;
+    private CompositeTypeComplianceMatcher matcher;
+    private JenomeWarmup                   warmup;
+
+    @BeforeEach
+    public void setUp() {
+        resolver = new DefaultTypeArgumentResolver();
+        matcher = new CompositeTypeComplianceMatcher();
+        // Class-to-class checks are decided by the prefilter and don't populate the cache otherwise.
+        matcher.setPrefilterEnabled(false);
+        warmup = new JenomeWarmup(resolver, matcher);
+    }
+
+    @Test
+    public void run_populatesCaches() {
+        WarmupReport report = warmup.run(Arrays.asList(StringHandler.class, LongHandler.class, Unrelated.class),
+                                         Collections.singleton(Handler.class));
+
+        assertEquals(3, report.getTargets());
+        assertEquals(3, report.getMatches());
+        assertEquals(2, report.getResolutions());
+        assertEquals(0, report.getFailures());
+        assertEquals(resolver.getCacheSize() + matcher.getCacheSize(), report.getEntriesProduced());
+        assertEquals(2, resolver.getCacheSize());
+        assertTrue(matcher.getCacheSize() >= 3);
+        assertSame(String.class, resolver.resolve(Handler.class, StringHandler.class, 0));
+        assertEquals(2, resolver.getCacheSize());
+    }
+
+    @Test
+    public void run_repeated_producesNoEntries() {
+        warmup.run(Collections.singleton(StringHandler.class), Collections.singleton(Handler.class));
+        WarmupReport report = warmup.run(Collections.singleton(StringHandler.class),
+                                         Collections.singleton(Handler.class));
+        assertEquals(1, report.getResolutions());
+        assertEquals(0, report.getEntriesProduced());
+    }
+
+    @Test
+    public void run_customExecutor() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            WarmupReport report = warmup.run(Arrays.asList(StringHandler.class, LongHandler.class),
+                                             Arrays.asList(Handler.class, Comparable.class),
+                                             executor);
+            assertEquals(4, report.getMatches());
+            assertEquals(2, report.getResolutions());
+            assertTrue(matcher.match(Handler.class, StringHandler.class));
+            assertFalse(matcher.match(Comparable.class, LongHandler.class));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void run_parameterizedBase_warmsRawBaseResolution() throws Exception {
+        Type base = JenomeWarmupTest.class.getDeclaredField("stringHandler").getGenericType();
+        WarmupReport report = warmup.run(Collections.singleton(StringHandler.class), Collections.singleton(base));
+
+        assertEquals(1, report.getResolutions());
+        assertEquals(0, report.getFailures());
+        assertEquals(1, resolver.getCacheSize());
+        assertSame(String.class, resolver.resolve(Handler.class, StringHandler.class, 0));
+        assertEquals(1, resolver.getCacheSize());
+    }
+
+    private Handler<String> stringHandler;
+
+    interface Handler<T> {}
+    static class StringHandler implements Handler<String> {}
+    static class LongHandler implements Handler<Long> {}
+    static class Unrelated {}
+}
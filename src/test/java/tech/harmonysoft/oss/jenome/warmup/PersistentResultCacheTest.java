@@ -0,0 +1,181 @@
+package tech.harmonysoft.oss.jenome.warmup;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tech.harmonysoft.oss.jenome.match.impl.CompositeTypeComplianceMatcher;
+import tech.harmonysoft.oss.jenome.resolve.TypeArgumentResolver;
+import tech.harmonysoft.oss.jenome.resolve.impl.DefaultTypeArgumentResolver;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings({"UnusedDeclaration"})
+public class PersistentResultCacheTest {
+
+    private static final ClassLoader LOADER = PersistentResultCacheTest.class.getClassLoader();
+
+    private DefaultTypeArgumentResolver    resolver;
+    private CompositeTypeComplianceMatcher matcher;
+    private PersistentResultCache          cache;
+
+    @BeforeEach
+    public void setUp() {
+        resolver = new DefaultTypeArgumentResolver();
+        matcher = new CompositeTypeComplianceMatcher();
+        // Class-to-class checks are decided by the prefilter and don't populate the cache otherwise.
+        matcher.setPrefilterEnabled(false);
+        matcher.setTypeArgumentResolver(resolver);
+        cache = new PersistentResultCache(resolver, matcher);
+        cache.attach();
+    }
+
+    @Test
+    public void writeAndPreload() throws Exception {
+        assertSame(String.class, resolver.resolve(Handler.class, StringHandler.class, 0));
+        assertSame(TypeArgumentResolver.RAW_TYPE, resolver.resolve(Handler.class, RawHandler.class, 0));
+        assertTrue(matcher.match(Handler.class, LongHandler.class));
+        int stored = cache.size();
+        assertTrue(stored >= 3);
+
+        Path file = Files.createTempFile("jenome", ".cache");
+        try {
+            assertEquals(stored, cache.write(file));
+
+            DefaultTypeArgumentResolver newResolver = new DefaultTypeArgumentResolver();
+            CompositeTypeComplianceMatcher newMatcher = new CompositeTypeComplianceMatcher();
+            newMatcher.setPrefilterEnabled(false);
+            PersistentResultCache newCache = new PersistentResultCache(newResolver, newMatcher);
+            assertEquals(stored, newCache.load(file));
+            assertEquals(stored, newCache.preload(LOADER));
+            assertEquals(0, newCache.preload(LOADER));
+
+            assertSame(String.class, newResolver.resolve(Handler.class, StringHandler.class, 0));
+            assertSame(TypeArgumentResolver.RAW_TYPE, newResolver.resolve(Handler.class, RawHandler.class, 0));
+            assertTrue(newMatcher.match(Handler.class, LongHandler.class));
+            assertEquals(0, newResolver.getCacheStats().getMisses());
+            assertEquals(0, newMatcher.getCacheStats().getMisses());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void changedClasses_areInvalidated() throws Exception {
+        resolver.resolve(Handler.class, StringHandler.class, 0);
+        StringWriter writer = new StringWriter();
+        cache.write(writer);
+        String content = writer.toString();
+        String checksum = content.substring(content.lastIndexOf('\t') + 1).trim();
+        String tampered = content.replace(checksum, "1");
+
+        PersistentResultCache newCache = new PersistentResultCache(new DefaultTypeArgumentResolver(),
+                                                                   new CompositeTypeComplianceMatcher());
+        assertEquals(1, newCache.load(new StringReader(tampered)));
+        assertEquals(0, newCache.preload(LOADER));
+        assertEquals(0, newCache.size());
+    }
+
+    @Test
+    public void unavailableClasses_areKept() throws Exception {
+        String content = PersistentResultCache.HEADER + "\n"
+                         + "R\tcom.example.Plugin\t" + StringHandler.class.getName() + "\t0\t"
+                         + PersistentResultCache.getConfigurationFingerprint(new DefaultTypeArgumentResolver())
+                         + "\tjava.lang.String\tff\n";
+        PersistentResultCache newCache = new PersistentResultCache(new DefaultTypeArgumentResolver(),
+                                                                   new CompositeTypeComplianceMatcher());
+        newCache.load(new StringReader(content));
+        assertEquals(0, newCache.preload(LOADER));
+        assertEquals(1, newCache.size());
+
+        StringWriter writer = new StringWriter();
+        assertEquals(1, newCache.write(writer));
+        assertEquals(content, writer.toString().replace(System.lineSeparator(), "\n"));
+    }
+
+    @Test
+    public void resultsForAnotherConfiguration_areDropped() throws Exception {
+        resolver.resolve(Handler.class, StringHandler.class, 0);
+        matcher.match(Handler.class, LongHandler.class);
+        StringWriter writer = new StringWriter();
+        int stored = cache.write(writer);
+
+        DefaultTypeArgumentResolver newResolver = new DefaultTypeArgumentResolver();
+        newResolver.setDeepSubstitution(true);
+        CompositeTypeComplianceMatcher newMatcher = new CompositeTypeComplianceMatcher();
+        newMatcher.setTypeArgumentResolver(newResolver);
+        PersistentResultCache newCache = new PersistentResultCache(newResolver, newMatcher);
+        assertEquals(stored, newCache.load(new StringReader(writer.toString())));
+        assertEquals(0, newCache.preload(LOADER));
+        assertEquals(0, newCache.size());
+        assertEquals(0, newResolver.getCacheSize());
+        assertEquals(0, newMatcher.getCacheSize());
+    }
+
+    @Test
+    public void legacyResults_areIgnored() throws Exception {
+        String content = "# jenome result cache v1\n"
+                         + "R\t" + Handler.class.getName() + "\t" + StringHandler.class.getName()
+                         + "\t0\tjava.lang.String\tff\n";
+        assertEquals(0, cache.load(new StringReader(content)));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void generatedClasses_areNotStored() {
+        Class<?> proxyClass = Proxy.newProxyInstance(LOADER, new Class<?>[] { Comparator.class },
+                                                     (proxy, method, args) -> 0).getClass();
+        resolver.resolve(Comparator.class, proxyClass, 0);
+        matcher.match(Comparator.class, proxyClass);
+        assertEquals(0, cache.size());
+        assertEquals(ClassFileChecksum.UNAVAILABLE, ClassFileChecksum.of(proxyClass));
+    }
+
+    @Test
+    public void nestedResults_areNotStored() throws Exception {
+        matcher.match(Holder.class.getDeclaredField("handler").getGenericType(), StringHandler.class);
+        StringWriter writer = new StringWriter();
+        assertEquals(1, cache.write(writer));
+        assertTrue(writer.toString().contains(ProfileEntry.MATCH + "\t" + Handler.class.getName() + "<"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void configurationChange_isRecorded() throws Exception {
+        resolver.resolve(Handler.class, StringHandler.class, 0);
+        resolver.setDeepSubstitution(true);
+        resolver.resolve(Handler.class, StringHandler.class, 0);
+        StringWriter writer = new StringWriter();
+        assertEquals(2, cache.write(writer));
+
+        DefaultTypeArgumentResolver newResolver = new DefaultTypeArgumentResolver();
+        newResolver.setDeepSubstitution(true);
+        PersistentResultCache newCache = new PersistentResultCache(newResolver, new CompositeTypeComplianceMatcher());
+        assertEquals(2, newCache.load(new StringReader(writer.toString())));
+        assertEquals(1, newCache.preload(LOADER));
+        assertSame(String.class, newResolver.resolve(Handler.class, StringHandler.class, 0));
+        assertEquals(0, newResolver.getCacheStats().getMisses());
+    }
+
+    @Test
+    public void detach() {
+        cache.detach();
+        resolver.resolve(Handler.class, StringHandler.class, 0);
+        assertEquals(0, cache.size());
+    }
+
+    interface Handler<T> {}
+    static class StringHandler implements Handler<String> {}
+    static class LongHandler implements Handler<Long> {}
+    @SuppressWarnings("rawtypes")
+    static class RawHandler implements Handler {}
+
+    static class Holder {
+        Handler<? extends CharSequence> handler;
+    }
+}
@@ -0,0 +1,86 @@
+package tech.harmonysoft.oss.jenome.warmup;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings({"UnusedDeclaration"})
+public class TypeCodecTest {
+
+    private static final ClassLoader LOADER = TypeCodecTest.class.getClassLoader();
+
+    @Test
+    public void classes() {
+        doTest(String.class, "java.lang.String");
+        doTest(int.class, "int");
+        doTest(Map.Entry.class, "java.util.Map$Entry");
+        doTest(String[][].class, "java.lang.String[][]");
+        doTest(long[].class, "long[]");
+    }
+
+    @Test
+    public void genericTypes() throws Exception {
+        doTest(getFieldType("map"), "java.util.Map<java.lang.String,java.util.List<? extends java.lang.Number>>");
+        doTest(getFieldType("superWildcard"), "java.util.List<? super java.lang.Integer>");
+        doTest(getFieldType("unboundWildcard"), "java.util.List<?>");
+        doTest(getFieldType("genericArray"), "java.util.List<java.lang.String>[]");
+        doTest(getFieldType("variable"), "tech.harmonysoft.oss.jenome.warmup.TypeCodecTest$Holder#T");
+        doTest(getFieldType("variableArray"), "tech.harmonysoft.oss.jenome.warmup.TypeCodecTest$Holder#T[]");
+        doTest(getFieldType("nested"), "java.util.Map$Entry<java.lang.String,java.lang.Long>");
+    }
+
+    @Test
+    public void methodTypeVariable_isNotEncoded() throws Exception {
+        Type type = Holder.class.getDeclaredMethod("method").getGenericReturnType();
+        assertNull(TypeCodec.encode(type));
+    }
+
+    @Test
+    public void decode_unknownClass() {
+        assertThrows(IllegalArgumentException.class, () -> TypeCodec.decode("com.example.Missing", LOADER));
+        assertThrows(IllegalArgumentException.class,
+                     () -> TypeCodec.decode("java.util.List<com.example.Missing>", LOADER));
+    }
+
+    @Test
+    public void decode_malformed() {
+        assertThrows(IllegalArgumentException.class, () -> TypeCodec.decode("java.util.List<", LOADER));
+        assertThrows(IllegalArgumentException.class,
+                     () -> TypeCodec.decode("java.util.List<java.lang.String", LOADER));
+        assertThrows(IllegalArgumentException.class, () -> TypeCodec.decode("java.lang.String>", LOADER));
+        assertThrows(IllegalArgumentException.class, () -> TypeCodec.decode("java.util.List#X", LOADER));
+        assertThrows(IllegalArgumentException.class,
+                     () -> TypeCodec.decode("java.util.Map<java.lang.String>", LOADER));
+    }
+
+    private static void doTest(Type type, String expected) {
+        String encoded = TypeCodec.encode(type);
+        assertEquals(expected, encoded);
+        Type decoded = TypeCodec.decode(expected, LOADER);
+        assertEquals(type, decoded);
+        assertEquals(decoded, type);
+        assertEquals(type.hashCode(), decoded.hashCode());
+    }
+
+    private static Type getFieldType(String name) throws Exception {
+        return Holder.class.getDeclaredField(name).getGenericType();
+    }
+
+    static class Holder<T> {
+        Map<String, List<? extends Number>> map;
+        List<? super Integer>               superWildcard;
+        List<?>                             unboundWildcard;
+        List<String>[]                      genericArray;
+        T                                   variable;
+        T[]                                 variableArray;
+        Map.Entry<String, Long>             nested;
+
+        <M> M method() {
+            return null;
+        }
+    }
+}